@@ -0,0 +1,273 @@
+package org.manishsharan.madladlabs.genai.batching;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.chunking.TokenEstimator;
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
+import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonObjectScanner;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForCodeBatch;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForConfigBatch;
+import org.manishsharan.madladlabs.genai.summarizers.ai.TemplateRenderer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Summarizes several small files of the same pipeline in one LLM request. The batched prompt carries the
+ * instruction block once and asks for a JSON object keyed by relative path; the answer is split back into
+ * one {@link AiEnrichmentPayload} per file, with billable usage apportioned by each file's share of the
+ * prompt so that per-file totals still add up to what the provider billed.
+ *
+ * The instruction block goes out as the system prompt so it stays a cacheable prefix across batches.
+ * Files missing from the response are simply absent from the returned map; callers fall back to
+ * per-file summarization for them.
+ */
+public final class BatchSummarizer {
+    private static final Logger logger = LogManager.getLogger(BatchSummarizer.class);
+
+    /** Output tokens one file is expected to need in a batched answer; bounds files per request. */
+    public static final int CODE_OUTPUT_TOKENS_PER_FILE = 500;
+    public static final int CONFIG_OUTPUT_TOKENS_PER_FILE = 900;
+    private static final int MAX_SCORED_PATHS = 31;
+
+    public record BatchFile(String relativePath, String type, String content) {}
+
+    private final OntologyMethodsSummarizer delegate;
+    private final int codeOverheadTokens;
+    private final int configOverheadTokens;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder filesBatched = new LongAdder();
+    private final LongAdder filesMissing = new LongAdder();
+    private final LongAdder tokensSaved = new LongAdder();
+
+    public BatchSummarizer(OntologyMethodsSummarizer delegate) {
+        this.delegate = delegate;
+        this.codeOverheadTokens = overheadTokens(PromptTemplateForCodeBatch.PROMPT_TEMPLATE);
+        this.configOverheadTokens = overheadTokens(PromptTemplateForConfigBatch.PROMPT_TEMPLATE);
+    }
+
+    /** Tokens of the instruction block alone, i.e. what every extra per-file request would have repeated. */
+    private static int overheadTokens(String template) {
+        try {
+            return TokenEstimator.estimate(TemplateRenderer.renderTemplate(template,
+                    Map.of("language", "", "files", List.of())));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to render batch prompt template", e);
+        }
+    }
+
+    /**
+     * How many files of one pipeline fit in a single answer of the delegate's output budget.
+     */
+    public int maxFilesPerRequest(boolean code) {
+        int perFile = code ? CODE_OUTPUT_TOKENS_PER_FILE : CONFIG_OUTPUT_TOKENS_PER_FILE;
+        return Math.max(1, delegate.getMaxTokens() / perFile);
+    }
+
+    public Map<String, AiEnrichmentPayload> summarizeCode(String language, List<BatchFile> files) throws Exception {
+        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForCodeBatch.FILE_TEMPLATE,
+                Map.of("language", language, "files", promptFiles(files)));
+        String systemPrompt = "You are an experienced software engineer reviewing code.\n\n"
+                + PromptTemplateForCodeBatch.INSTRUCTIONS;
+        LlmCompletion completion = delegate.completeJson(systemPrompt, userPrompt, batchLabel(files), "code-batch");
+        JsonNode root = parseKeyedObject(completion.content(), files);
+
+        Map<String, AiEnrichmentPayload> result = new LinkedHashMap<>();
+        for (BatchFile file : files) {
+            JsonNode node = lookup(root, file.relativePath());
+            if (node == null || !node.isObject()) {
+                continue;
+            }
+            AiEnrichmentPayload payload = LlmJson.codePayload(node);
+            if (payload.getLanguage() == null) {
+                payload.setLanguage(language);
+            }
+            payload.setLlmModel(completion.model());
+            result.put(file.relativePath(), payload);
+        }
+        return finish(files, result, completion, codeOverheadTokens);
+    }
+
+    public Map<String, AiEnrichmentPayload> summarizeConfig(List<BatchFile> files) throws Exception {
+        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForConfigBatch.FILE_TEMPLATE,
+                Map.of("files", promptFiles(files)));
+        String systemPrompt = "You are an experienced software engineer reviewing configuration files.\n\n"
+                + PromptTemplateForConfigBatch.INSTRUCTIONS;
+        LlmCompletion completion = delegate.completeJson(systemPrompt, userPrompt, batchLabel(files), "config-batch");
+        JsonNode root = parseKeyedObject(completion.content(), files);
+
+        Map<String, AiEnrichmentPayload> result = new LinkedHashMap<>();
+        for (BatchFile file : files) {
+            JsonNode node = lookup(root, file.relativePath());
+            String summary = node == null ? null
+                    : node.isTextual() ? node.asText()
+                    : node.has("summary") ? node.path("summary").asText() : null;
+            if (summary == null || summary.isBlank()) {
+                continue;
+            }
+            AiEnrichmentPayload.ConfigEnrichment config = new AiEnrichmentPayload.ConfigEnrichment();
+            config.setPath(file.relativePath());
+            config.setDetectedType(file.type());
+            config.setSummary(summary.trim());
+            AiEnrichmentPayload payload = new AiEnrichmentPayload();
+            payload.setConfigEnrichments(List.of(config));
+            payload.setLlmModel(completion.model());
+            result.put(file.relativePath(), payload);
+        }
+        return finish(files, result, completion, configOverheadTokens);
+    }
+
+    private Map<String, AiEnrichmentPayload> finish(List<BatchFile> files,
+                                                    Map<String, AiEnrichmentPayload> result,
+                                                    LlmCompletion completion,
+                                                    int overheadTokens) {
+        requests.increment();
+        filesBatched.add(files.size());
+        filesMissing.add(files.size() - result.size());
+        tokensSaved.add((long) (files.size() - 1) * overheadTokens);
+        if (result.size() < files.size()) {
+            logger.warn("Batch of {} files returned {} entries; missing files will be summarized individually",
+                    files.size(), result.size());
+        }
+        apportionUsage(files, result, completion.billableUsage());
+        return result;
+    }
+
+    /**
+     * Splits the batch's usage across files by prompt share. Integer remainders go to the last file that
+     * got a payload, so the parts sum exactly to the batch total.
+     */
+    static void apportionUsage(List<BatchFile> files,
+                               Map<String, AiEnrichmentPayload> result,
+                               AiEnrichmentPayload.BillableUsage total) {
+        if (total == null || result.isEmpty()) {
+            return;
+        }
+        List<BatchFile> billed = new ArrayList<>();
+        long weightSum = 0;
+        for (BatchFile file : files) {
+            if (result.containsKey(file.relativePath())) {
+                billed.add(file);
+                weightSum += weight(file);
+            }
+        }
+        int input = 0, output = 0, cached = 0, sum = 0;
+        for (int i = 0; i < billed.size(); i++) {
+            BatchFile file = billed.get(i);
+            AiEnrichmentPayload.BillableUsage usage = new AiEnrichmentPayload.BillableUsage();
+            usage.setModel(total.getModel());
+            usage.setFilePath(file.relativePath());
+            if (i == billed.size() - 1) {
+                usage.setInputTokens(total.getInputTokens() - input);
+                usage.setOutputTokens(total.getOutputTokens() - output);
+                usage.setCachedTokens(total.getCachedTokens() - cached);
+                usage.setTotalTokens(total.getTotalTokens() - sum);
+            } else {
+                long w = weight(file);
+                usage.setInputTokens(share(total.getInputTokens(), w, weightSum));
+                usage.setOutputTokens(share(total.getOutputTokens(), w, weightSum));
+                usage.setCachedTokens(share(total.getCachedTokens(), w, weightSum));
+                usage.setTotalTokens(share(total.getTotalTokens(), w, weightSum));
+                input += usage.getInputTokens();
+                output += usage.getOutputTokens();
+                cached += usage.getCachedTokens();
+                sum += usage.getTotalTokens();
+            }
+            result.get(file.relativePath()).setBillableUsage(usage);
+        }
+    }
+
+    private static long weight(BatchFile file) {
+        return Math.max(1, TokenEstimator.estimate(file.content()));
+    }
+
+    private static int share(int amount, long weight, long weightSum) {
+        return (int) (amount * weight / weightSum);
+    }
+
+    private static List<Map<String, String>> promptFiles(List<BatchFile> files) {
+        List<Map<String, String>> out = new ArrayList<>(files.size());
+        for (BatchFile file : files) {
+            Map<String, String> entry = new HashMap<>();
+            entry.put("relativeFilePath", file.relativePath());
+            entry.put("detectedType", file.type() != null ? file.type() : "");
+            entry.put("sourceFileContent", file.content());
+            out.add(entry);
+        }
+        return out;
+    }
+
+    private static String batchLabel(List<BatchFile> files) {
+        return files.get(0).relativePath() + " (+" + (files.size() - 1) + " batched)";
+    }
+
+    /**
+     * Reads the keyed object out of the assistant text, tolerating code fences, leading prose, several objects
+     * and a wrapping {@code "files"} object. The object whose top-level keys name the most batched files wins.
+     */
+    static JsonNode parseKeyedObject(String content, List<BatchFile> files) throws IOException {
+        if (content == null) {
+            throw new IOException("Empty batch response");
+        }
+        // The scanner scores at most 32 keys; the first files are enough to tell the keyed object apart.
+        int keyCount = Math.min(files.size(), MAX_SCORED_PATHS);
+        String[] keys = new String[keyCount + 1];
+        keys[0] = "files";
+        for (int i = 0; i < keyCount; i++) {
+            keys[i + 1] = files.get(i).relativePath();
+        }
+        JsonNode root = JsonObjectScanner.bestObject(content, keys);
+        if (root == null) {
+            throw new IOException("Batch response did not contain a JSON object");
+        }
+        if (root.size() == 1 && root.path("files").isObject()) {
+            root = root.get("files");
+        }
+        return root;
+    }
+
+    private static JsonNode lookup(JsonNode root, String relativePath) {
+        JsonNode node = root.get(relativePath);
+        if (node != null) {
+            return node;
+        }
+        String wanted = normalize(relativePath);
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            if (normalize(entry.getKey()).equals(wanted)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String path) {
+        String p = path.replace('\\', '/').trim();
+        return p.startsWith("./") ? p.substring(2) : p;
+    }
+
+    public void logStats() {
+        long batches = requests.sum();
+        if (batches == 0) {
+            return;
+        }
+        long files = filesBatched.sum();
+        logger.info("Request batching: requests={}, files={}, batchingRatio={}, missingFromResponse={}, estimatedPromptTokensSaved={}",
+                batches,
+                files,
+                String.format("%.2f", (double) files / batches),
+                filesMissing.sum(),
+                tokensSaved.sum());
+    }
+}
@@ -0,0 +1,72 @@
+package org.manishsharan.madladlabs.genai.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class ContentHash {
+
+    private ContentHash() {}
+
+    public static String sha256Hex(String s) {
+        return sha256Hex(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    /** Streams the file through the digest, so large files are never held in memory. */
+    public static String sha256Hex(Path file) throws IOException {
+        MessageDigest md = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * Hashes several fields so that ("ab", "c") and ("a", "bc") never collide.
+     * Null fields are hashed distinctly from empty strings.
+     */
+    public static String sha256Hex(String... fields) {
+        MessageDigest md = newDigest();
+        for (String field : fields) {
+            if (field == null) {
+                md.update((byte) 0x01);
+            } else {
+                byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+                md.update((byte) 0x00);
+                md.update(intBytes(bytes.length));
+                md.update(bytes);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to compute SHA-256", e);
+        }
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{
+                (byte) (value >>> 24),
+                (byte) (value >>> 16),
+                (byte) (value >>> 8),
+                (byte) value
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package org.manishsharan.madladlabs.genai.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of raw LLM responses. The key is the SHA-256 of
+ * provider + model + system prompt + rendered user prompt, so byte-identical
+ * requests (branch copies, vendored duplicates, reverted edits) are only paid for once.
+ *
+ * Environment:
+ *   LLM_CACHE_ENABLED   - "false" disables the cache (default enabled)
+ *   LLM_CACHE_PATH      - SQLite file (default cache/llm-response-cache.db)
+ *   LLM_CACHE_MAX_BYTES - LRU bound on stored response bytes (default 512 MiB)
+ */
+public final class LlmResponseCache {
+    private static final Logger logger = LogManager.getLogger(LlmResponseCache.class);
+    private static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+    private static final String TABLE = "llm_response";
+
+    private static LlmResponseCache instance;
+    private final SqliteLruCache store;
+
+    public static synchronized LlmResponseCache getInstance() {
+        if (instance == null) {
+            instance = new LlmResponseCache(SqliteLruCache.open(
+                    "LLM_CACHE", "cache/llm-response-cache.db", TABLE, DEFAULT_MAX_BYTES, "LLM response cache"));
+        }
+        return instance;
+    }
+
+    LlmResponseCache(SqliteLruCache store) {
+        this.store = store;
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    public static String keyFor(String provider, String model, String systemPrompt, String userPrompt) {
+        return ContentHash.sha256Hex(provider, model, systemPrompt, userPrompt);
+    }
+
+    /**
+     * Key for requests whose answer also depends on response settings sent alongside the prompt;
+     * {@code responseFormat} is their serialized form (for example the MIME type and JSON schema).
+     */
+    public static String keyFor(String provider, String model, String responseFormat, String systemPrompt, String userPrompt) {
+        return ContentHash.sha256Hex(provider, model, responseFormat, systemPrompt, userPrompt);
+    }
+
+    public String get(String key) {
+        if (store == null) {
+            return null;
+        }
+        byte[] value = store.get(key);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    public void put(String key, String response) {
+        if (store == null || response == null || response.isBlank()) {
+            return;
+        }
+        store.put(key, response.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public SqliteLruCache.Stats stats() {
+        return store == null ? null : store.stats();
+    }
+
+    public void logStats() {
+        SqliteLruCache.Stats stats = stats();
+        if (stats == null) {
+            return;
+        }
+        logger.info("LLM response cache: hits={}, misses={}, hitRatio={}, evictions={}, entries={}, bytes={}/{}",
+                stats.hits(),
+                stats.misses(),
+                String.format("%.2f", stats.hitRatio()),
+                stats.evictions(),
+                stats.entries(),
+                stats.bytes(),
+                stats.maxBytes());
+    }
+
+    /**
+     * A cache hit costs nothing, so the replayed response must not be billed again.
+     * Zeroes every numeric field under {@code usageField} while keeping the node, so
+     * callers still get a (zero-token) billable usage record for the file.
+     */
+    public static String withZeroedUsage(String responseJson, String usageField) {
+        try {
+            JsonNode root = LlmJson.MAPPER.readTree(responseJson);
+            if (root instanceof ObjectNode object && object.get(usageField) instanceof ObjectNode usage) {
+                zeroNumbers(usage);
+                return LlmJson.MAPPER.writeValueAsString(object);
+            }
+            return responseJson;
+        } catch (IOException e) {
+            logger.debug("Unable to zero usage on cached response: {}", e.getMessage());
+            return responseJson;
+        }
+    }
+
+    private static void zeroNumbers(ObjectNode node) {
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNumber()) {
+                field.setValue(LlmJson.MAPPER.getNodeFactory().numberNode(0));
+            } else if (field.getValue() instanceof ObjectNode child) {
+                zeroNumbers(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.manishsharan.madladlabs.genai.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Small persistent key/value store on top of SQLite with size-bounded LRU eviction.
+ * Values are opaque byte arrays; callers own serialization and key derivation.
+ * A single connection is shared and guarded by the instance monitor.
+ */
+public final class SqliteLruCache implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SqliteLruCache.class);
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int EVICTION_BATCH = 64;
+
+    private final Connection connection;
+    private final String table;
+    private final long maxBytes;
+    private long totalBytes;
+    private long entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SqliteLruCache(Path dbFile, String table, long maxBytes) throws IOException, SQLException {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid cache table name: " + table);
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be > 0");
+        }
+        Path absolute = dbFile.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        this.table = table;
+        this.maxBytes = maxBytes;
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + absolute);
+        try (Statement st = connection.createStatement()) {
+            st.execute("PRAGMA journal_mode=WAL");
+            st.execute("PRAGMA synchronous=NORMAL");
+            st.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "cache_key TEXT PRIMARY KEY, "
+                    + "value BLOB NOT NULL, "
+                    + "size_bytes INTEGER NOT NULL, "
+                    + "created_at INTEGER NOT NULL, "
+                    + "last_access INTEGER NOT NULL)");
+            st.execute("CREATE INDEX IF NOT EXISTS " + table + "_last_access ON " + table + " (last_access)");
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*), COALESCE(SUM(size_bytes), 0) FROM " + table)) {
+                if (rs.next()) {
+                    entries = rs.getLong(1);
+                    totalBytes = rs.getLong(2);
+                }
+            }
+        }
+        logger.info("Opened cache table '{}' at {} (entries={}, bytes={}, maxBytes={})",
+                table, absolute, entries, totalBytes, maxBytes);
+    }
+
+    /**
+     * Opens a cache configured by {@code <envPrefix>_ENABLED} ("false" disables it), {@code <envPrefix>_PATH}
+     * and {@code <envPrefix>_MAX_BYTES}. Returns null when the cache is disabled or cannot be opened, so callers
+     * run without it; {@code label} names the cache in log messages.
+     */
+    public static SqliteLruCache open(String envPrefix, String defaultPath, String table, long defaultMaxBytes,
+                                      String label) {
+        if ("false".equalsIgnoreCase(System.getenv(envPrefix + "_ENABLED"))) {
+            logger.info("{} disabled via {}_ENABLED", label, envPrefix);
+            return null;
+        }
+        String configured = System.getenv(envPrefix + "_PATH");
+        Path path = Path.of(configured == null || configured.isBlank() ? defaultPath : configured);
+        long maxBytes = defaultMaxBytes;
+        String max = System.getenv(envPrefix + "_MAX_BYTES");
+        if (max != null && !max.isBlank()) {
+            try {
+                maxBytes = Long.parseLong(max.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid {}_MAX_BYTES '{}'", envPrefix, max);
+            }
+        }
+        try {
+            return new SqliteLruCache(path, table, maxBytes);
+        } catch (Exception e) {
+            logger.warn("{} unavailable at {}: {}. Continuing without cache.", label, path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the cached value or null. Storage errors are logged and reported as a miss
+     * so that a broken cache never fails ingestion.
+     */
+    public synchronized byte[] get(String key) {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT value FROM " + table + " WHERE cache_key = ?")) {
+            select.setString(1, key);
+            byte[] value = null;
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) {
+                    value = rs.getBytes(1);
+                }
+            }
+            if (value == null) {
+                misses.increment();
+                return null;
+            }
+            try (PreparedStatement touch = connection.prepareStatement(
+                    "UPDATE " + table + " SET last_access = ? WHERE cache_key = ?")) {
+                touch.setLong(1, System.currentTimeMillis());
+                touch.setString(2, key);
+                touch.executeUpdate();
+            }
+            hits.increment();
+            return value;
+        } catch (SQLException e) {
+            logger.warn("Cache lookup failed in '{}': {}", table, e.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        if (key == null || value == null) {
+            return;
+        }
+        if (value.length > maxBytes) {
+            logger.debug("Not caching {} bytes in '{}': larger than maxBytes", value.length, table);
+            return;
+        }
+        try {
+            long previousSize = sizeOf(key);
+            long now = System.currentTimeMillis();
+            try (PreparedStatement upsert = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO " + table
+                            + " (cache_key, value, size_bytes, created_at, last_access) VALUES (?, ?, ?, ?, ?)")) {
+                upsert.setString(1, key);
+                upsert.setBytes(2, value);
+                upsert.setLong(3, value.length);
+                upsert.setLong(4, now);
+                upsert.setLong(5, now);
+                upsert.executeUpdate();
+            }
+            if (previousSize >= 0) {
+                totalBytes -= previousSize;
+            } else {
+                entries++;
+            }
+            totalBytes += value.length;
+            evictIfNeeded();
+        } catch (SQLException e) {
+            logger.warn("Cache write failed in '{}': {}", table, e.getMessage());
+        }
+    }
+
+    public synchronized void remove(String key) {
+        try {
+            long previousSize = sizeOf(key);
+            if (previousSize < 0) {
+                return;
+            }
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM " + table + " WHERE cache_key = ?")) {
+                delete.setString(1, key);
+                delete.executeUpdate();
+            }
+            totalBytes -= previousSize;
+            entries--;
+        } catch (SQLException e) {
+            logger.warn("Cache delete failed in '{}': {}", table, e.getMessage());
+        }
+    }
+
+    private long sizeOf(String key) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT size_bytes FROM " + table + " WHERE cache_key = ?")) {
+            select.setString(1, key);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1L;
+            }
+        }
+    }
+
+    private void evictIfNeeded() throws SQLException {
+        while (totalBytes > maxBytes && entries > 0) {
+            List<String> keys = new ArrayList<>();
+            long freed = 0;
+            try (PreparedStatement oldest = connection.prepareStatement(
+                    "SELECT cache_key, size_bytes FROM " + table + " ORDER BY last_access ASC LIMIT ?")) {
+                oldest.setInt(1, EVICTION_BATCH);
+                try (ResultSet rs = oldest.executeQuery()) {
+                    while (rs.next() && totalBytes - freed > maxBytes) {
+                        keys.add(rs.getString(1));
+                        freed += rs.getLong(2);
+                    }
+                }
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM " + table + " WHERE cache_key = ?")) {
+                for (String key : keys) {
+                    delete.setString(1, key);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+            totalBytes -= freed;
+            entries -= keys.size();
+            evictions.add(keys.size());
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries, totalBytes, maxBytes);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close cache '{}': {}", table, e.getMessage());
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, long entries, long bytes, long maxBytes) {
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+/**
+ * One slice of a file sent to the LLM on its own.
+ *
+ * @param index     zero-based position in the file
+ * @param startLine first line of the slice (1-based, inclusive)
+ * @param endLine   last line of the slice (1-based, inclusive)
+ * @param text      the text to summarize, including any repeated header
+ * @param tokens    estimated tokens of {@code text}
+ */
+public record Chunk(int index, int startLine, int endLine, String text, int tokens) {}
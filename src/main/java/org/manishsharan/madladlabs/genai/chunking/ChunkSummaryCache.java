@@ -0,0 +1,105 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.cache.ContentHash;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForDocuments;
+
+import java.io.IOException;
+
+/**
+ * Summaries of individual document chunks keyed by the chunk's text, so that re-ingesting an edited
+ * document only pays for the chunks the edit touched. The key covers the summarizer, the document
+ * prompt and the chunk's reduction target but not the file's title, date or path: the same section in a renamed or re-dated file is reused.
+ *
+ * Environment:
+ *   DOC_CHUNK_CACHE_ENABLED   - "false" disables the cache (default enabled)
+ *   DOC_CHUNK_CACHE_PATH      - SQLite file (default cache/document-chunk-cache.db)
+ *   DOC_CHUNK_CACHE_MAX_BYTES - LRU bound on stored bytes (default 64 MiB)
+ */
+public final class ChunkSummaryCache {
+    private static final Logger logger = LogManager.getLogger(ChunkSummaryCache.class);
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final String TABLE = "document_chunk_summary";
+
+    /** Bump when chunk summaries produced for the same text would change. */
+    private static final String VERSION = "v1/" + ContentHash.sha256Hex(PromptTemplateForDocuments.PROMPT_TEMPLATE);
+
+    public record ChunkSummary(String summary, String model) {}
+
+    private static ChunkSummaryCache instance;
+    private final SqliteLruCache store;
+
+    public static synchronized ChunkSummaryCache getInstance() {
+        if (instance == null) {
+            instance = new ChunkSummaryCache(SqliteLruCache.open(
+                    "DOC_CHUNK_CACHE", "cache/document-chunk-cache.db", TABLE, DEFAULT_MAX_BYTES, "Document chunk cache"));
+        }
+        return instance;
+    }
+
+    ChunkSummaryCache(SqliteLruCache store) {
+        this.store = store;
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * {@code summarizerKey} identifies the provider (and model) that wrote the summary; {@code reductionTarget}
+     * is the token target the chunk was reduced to before the call, or 0 when it was sent whole.
+     */
+    public static String keyFor(String summarizerKey, String docType, int reductionTarget, String chunkText) {
+        return ContentHash.sha256Hex(VERSION, summarizerKey, docType, Integer.toString(reductionTarget), chunkText);
+    }
+
+    public ChunkSummary get(String key) {
+        if (store == null) {
+            return null;
+        }
+        byte[] value = store.get(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LlmJson.MAPPER.readValue(value, ChunkSummary.class);
+        } catch (IOException e) {
+            logger.debug("Dropping unreadable chunk cache entry {}: {}", key, e.getMessage());
+            store.remove(key);
+            return null;
+        }
+    }
+
+    public void put(String key, ChunkSummary summary) {
+        if (store == null || summary == null || summary.summary() == null || summary.summary().isBlank()) {
+            return;
+        }
+        try {
+            store.put(key, LlmJson.MAPPER.writeValueAsBytes(summary));
+        } catch (IOException e) {
+            logger.debug("Unable to cache chunk summary {}: {}", key, e.getMessage());
+        }
+    }
+
+    public SqliteLruCache.Stats stats() {
+        return store == null ? null : store.stats();
+    }
+
+    public void logStats() {
+        SqliteLruCache.Stats stats = stats();
+        if (stats == null) {
+            return;
+        }
+        logger.info("Document chunk cache: hits={}, misses={}, hitRatio={}, evictions={}, entries={}, bytes={}/{}",
+                stats.hits(),
+                stats.misses(),
+                String.format("%.2f", stats.hitRatio()),
+                stats.evictions(),
+                stats.entries(),
+                stats.bytes(),
+                stats.maxBytes());
+    }
+}
@@ -0,0 +1,465 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps an {@link OntologyMethodsSummarizer} so that code and documents larger than one request are
+ * split with {@link CodeChunker}/{@link DocumentChunker}, summarized chunk by chunk in parallel, and
+ * merged back into a single {@link AiEnrichmentPayload}.
+ *
+ * The chunk budget is the provider's input window ({@code getContextSize() - getMaxTokens()} minus
+ * room for the prompt template), capped by {@code maxChunkTokens} to keep request latency predictable.
+ * Chunks run on virtual threads, at most {@code maxConcurrentChunks} at a time across all files of the
+ * summarizer; the provider rate limiter still paces the requests themselves.
+ *
+ * Documents above {@code documentTokenTarget} (capped at the chunk budget) are first shrunk locally by
+ * {@link ExtractiveReducer}, so a long document becomes one request instead of several; 0 disables it.
+ *
+ * With a {@link ChunkSummaryCache}, documents above the chunk budget are instead cut by
+ * {@link ContentDefinedChunker} and each chunk's summary is looked up by its text and reduction target, so
+ * re-ingesting an edited document only sends the chunks around the edit. Fresh chunks get their share of the
+ * reduction target.
+ */
+public final class ChunkingSummarizer {
+    private static final Logger logger = LogManager.getLogger(ChunkingSummarizer.class);
+
+    /** Prompt template plus system message, rounded up. */
+    static final int PROMPT_OVERHEAD_TOKENS = 4096;
+    /** Matches the processor's default provider concurrency. */
+    static final int DEFAULT_CONCURRENT_CHUNKS = 64;
+    private static final int MIN_CHUNK_TOKENS = 256;
+
+    /** Spreadsheet profiles are already compact and made of tables that sentence selection would break. */
+    private static final Set<String> TABULAR_DOC_TYPES = Set.of("csv", "tsv", "xlsx");
+
+    private final OntologyMethodsSummarizer delegate;
+    private final int chunkTokens;
+    private final int documentTokenTarget;
+    private final ChunkSummaryCache chunkCache;
+    private final String summarizerKey;
+    private final Semaphore chunkPermits;
+
+    private final LongAdder documentsReduced = new LongAdder();
+    private final LongAdder tokensBeforeReduction = new LongAdder();
+    private final LongAdder tokensAfterReduction = new LongAdder();
+    private final LongAdder chunkCacheHits = new LongAdder();
+    private final LongAdder chunkCacheMisses = new LongAdder();
+
+    public ChunkingSummarizer(OntologyMethodsSummarizer delegate, int maxChunkTokens) {
+        this(delegate, maxChunkTokens, 0);
+    }
+
+    public ChunkingSummarizer(OntologyMethodsSummarizer delegate, int maxChunkTokens, int documentTokenTarget) {
+        this(delegate, maxChunkTokens, documentTokenTarget, null, null);
+    }
+
+    public ChunkingSummarizer(OntologyMethodsSummarizer delegate,
+                              int maxChunkTokens,
+                              int documentTokenTarget,
+                              ChunkSummaryCache chunkCache,
+                              String summarizerKey) {
+        this(delegate, maxChunkTokens, documentTokenTarget, chunkCache, summarizerKey, DEFAULT_CONCURRENT_CHUNKS);
+    }
+
+    /**
+     * @param summarizerKey       identifies the provider in chunk cache keys, so summaries are not shared across models
+     * @param maxConcurrentChunks chunk requests in flight at once, over all files summarized through this instance
+     */
+    public ChunkingSummarizer(OntologyMethodsSummarizer delegate,
+                              int maxChunkTokens,
+                              int documentTokenTarget,
+                              ChunkSummaryCache chunkCache,
+                              String summarizerKey,
+                              int maxConcurrentChunks) {
+        if (maxConcurrentChunks < 1) {
+            throw new IllegalArgumentException("maxConcurrentChunks must be >= 1");
+        }
+        this.chunkPermits = new Semaphore(maxConcurrentChunks, true);
+        this.delegate = delegate;
+        this.chunkTokens = chunkBudget(delegate, maxChunkTokens);
+        this.documentTokenTarget = Math.min(documentTokenTarget, chunkTokens);
+        this.chunkCache = chunkCache != null && chunkCache.isEnabled() ? chunkCache : null;
+        this.summarizerKey = summarizerKey == null ? "" : summarizerKey;
+    }
+
+    static int chunkBudget(OntologyMethodsSummarizer summarizer, int maxChunkTokens) {
+        int window = summarizer.getContextSize() - summarizer.getMaxTokens() - PROMPT_OVERHEAD_TOKENS;
+        return Math.max(MIN_CHUNK_TOKENS, Math.min(window, maxChunkTokens));
+    }
+
+    public int getChunkTokens() {
+        return chunkTokens;
+    }
+
+    public AiEnrichmentPayload summarizeCode(String relativePath, String language, String content) throws Exception {
+        if (TokenEstimator.estimate(content) <= chunkTokens) {
+            return delegate.summarizeCodeContent(relativePath, language, content);
+        }
+        List<Chunk> chunks = CodeChunker.split(content, language, chunkTokens);
+        if (chunks.size() <= 1) {
+            return delegate.summarizeCodeContent(relativePath, language, content);
+        }
+        logger.info("Chunking {} into {} parts (budget {} tokens)", relativePath, chunks.size(), chunkTokens);
+        List<ChunkResult> results = summarizeAll(relativePath, chunks,
+                chunk -> delegate.summarizeCodeContent(relativePath, language, chunk.text()));
+        return mergeCode(relativePath, results);
+    }
+
+    public AiEnrichmentPayload summarizeDocument(String relativePath,
+                                                 String docType,
+                                                 String title,
+                                                 String datetime,
+                                                 String extractedContent) throws Exception {
+        if (chunkCache != null && extractedContent != null && !TABULAR_DOC_TYPES.contains(docType)
+                && TokenEstimator.estimate(extractedContent) > chunkTokens) {
+            return summarizeDocumentChunks(relativePath, docType, title, datetime, extractedContent);
+        }
+        if (documentTokenTarget > 0 && extractedContent != null && !TABULAR_DOC_TYPES.contains(docType)) {
+            ExtractiveReducer.Reduction reduction = ExtractiveReducer.reduce(extractedContent, documentTokenTarget);
+            if (reduction.reduced()) {
+                documentsReduced.increment();
+                tokensBeforeReduction.add(reduction.originalTokens());
+                tokensAfterReduction.add(reduction.tokens());
+                logger.debug("Reduced document {} from {} to {} tokens", relativePath,
+                        reduction.originalTokens(), reduction.tokens());
+                AiEnrichmentPayload payload = summarizeDocumentText(relativePath, docType, title, datetime, reduction.text());
+                addNote(payload, new AiEnrichmentPayload.FileNote(relativePath, "Reduced locally from "
+                        + reduction.originalTokens() + " to " + reduction.tokens() + " estimated tokens ("
+                        + reduction.boilerplateLines() + " boilerplate lines, " + reduction.duplicateParagraphs()
+                        + " duplicate paragraphs removed; " + reduction.sentencesKept() + "/" + reduction.sentences()
+                        + " sentences kept)"));
+                return payload;
+            }
+        }
+        return summarizeDocumentText(relativePath, docType, title, datetime, extractedContent);
+    }
+
+    private AiEnrichmentPayload summarizeDocumentText(String relativePath,
+                                                      String docType,
+                                                      String title,
+                                                      String datetime,
+                                                      String extractedContent) throws Exception {
+        if (extractedContent == null || TokenEstimator.estimate(extractedContent) <= chunkTokens) {
+            return delegate.summarizeDocument(relativePath, docType, title, datetime, extractedContent);
+        }
+        List<Chunk> chunks = DocumentChunker.split(extractedContent, chunkTokens);
+        if (chunks.size() <= 1) {
+            return delegate.summarizeDocument(relativePath, docType, title, datetime, extractedContent);
+        }
+        logger.info("Chunking document {} into {} parts (budget {} tokens)", relativePath, chunks.size(), chunkTokens);
+        List<ChunkResult> results = summarizeAll(relativePath, chunks,
+                chunk -> delegate.summarizeDocument(relativePath, docType, title, datetime, chunk.text()));
+        return mergeDocument(relativePath, docType, title, datetime, results);
+    }
+
+    /** Small enough that an edit re-summarizes a section rather than most of the document. */
+    private int averageCdcTokens() {
+        return Math.min(chunkTokens, Math.max(MIN_CHUNK_TOKENS, Math.min(4000, chunkTokens / 4)));
+    }
+
+    private AiEnrichmentPayload summarizeDocumentChunks(String relativePath,
+                                                        String docType,
+                                                        String title,
+                                                        String datetime,
+                                                        String extractedContent) throws Exception {
+        int documentTokens = TokenEstimator.estimate(extractedContent);
+        int average = averageCdcTokens();
+        List<Chunk> chunks = ContentDefinedChunker.split(extractedContent, average / 4, average, chunkTokens);
+        boolean reduce = documentTokenTarget > 0 && documentTokens > documentTokenTarget;
+        AtomicInteger hits = new AtomicInteger();
+        logger.info("Chunking document {} into {} content-defined parts (average {} tokens)",
+                relativePath, chunks.size(), average);
+        List<ChunkResult> results = summarizeAll(relativePath, chunks, chunk -> {
+            int target = reduce
+                    ? Math.max(MIN_CHUNK_TOKENS, (int) ((long) chunk.tokens() * documentTokenTarget / documentTokens))
+                    : 0;
+            String key = ChunkSummaryCache.keyFor(summarizerKey, docType, target, chunk.text());
+            ChunkSummaryCache.ChunkSummary cached = chunkCache.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cachedPayload(relativePath, docType, title, datetime, cached);
+            }
+            String text = chunk.text();
+            if (target > 0) {
+                ExtractiveReducer.Reduction reduction = ExtractiveReducer.reduce(text, target);
+                if (reduction.reduced()) {
+                    tokensBeforeReduction.add(reduction.originalTokens());
+                    tokensAfterReduction.add(reduction.tokens());
+                    text = reduction.text();
+                }
+            }
+            AiEnrichmentPayload payload = delegate.summarizeDocument(relativePath, docType, title, datetime, text);
+            String summary = documentSummary(payload);
+            if (summary != null) {
+                chunkCache.put(key, new ChunkSummaryCache.ChunkSummary(summary, payload.getLlmModel()));
+            }
+            return payload;
+        });
+        if (reduce) {
+            documentsReduced.increment();
+        }
+        chunkCacheHits.add(hits.get());
+        chunkCacheMisses.add(chunks.size() - hits.get());
+        AiEnrichmentPayload merged = mergeDocument(relativePath, docType, title, datetime, results);
+        if (hits.get() > 0) {
+            addNote(merged, new AiEnrichmentPayload.FileNote(relativePath,
+                    hits.get() + " of " + chunks.size() + " chunk summaries reused from cache"));
+        }
+        return merged;
+    }
+
+    private static AiEnrichmentPayload cachedPayload(String relativePath,
+                                                     String docType,
+                                                     String title,
+                                                     String datetime,
+                                                     ChunkSummaryCache.ChunkSummary cached) {
+        AiEnrichmentPayload.DocumentEnrichment doc = new AiEnrichmentPayload.DocumentEnrichment();
+        doc.setPath(relativePath);
+        doc.setDocType(docType);
+        doc.setTitle(title);
+        doc.setDatetime(datetime);
+        doc.setSummary(cached.summary());
+        AiEnrichmentPayload payload = new AiEnrichmentPayload();
+        payload.setLlmModel(cached.model());
+        payload.setDocumentEnrichments(List.of(doc));
+        return payload;
+    }
+
+    private static String documentSummary(AiEnrichmentPayload payload) {
+        if (payload == null || payload.getDocumentEnrichments() == null) {
+            return null;
+        }
+        StringBuilder summary = new StringBuilder();
+        for (AiEnrichmentPayload.DocumentEnrichment doc : payload.getDocumentEnrichments()) {
+            if (doc != null && doc.getSummary() != null && !doc.getSummary().isBlank()) {
+                if (!summary.isEmpty()) {
+                    summary.append("\n\n");
+                }
+                summary.append(doc.getSummary().trim());
+            }
+        }
+        return summary.isEmpty() ? null : summary.toString();
+    }
+
+    private static void addNote(AiEnrichmentPayload payload, AiEnrichmentPayload.FileNote note) {
+        if (payload == null) {
+            return;
+        }
+        List<AiEnrichmentPayload.FileNote> notes = new ArrayList<>();
+        notes.add(note);
+        if (payload.getFileNotes() != null) {
+            notes.addAll(payload.getFileNotes());
+        }
+        payload.setFileNotes(notes);
+    }
+
+    public void logStats() {
+        long hits = chunkCacheHits.sum();
+        long misses = chunkCacheMisses.sum();
+        if (hits + misses > 0) {
+            logger.info("Document chunks: reused={}, summarized={}", hits, misses);
+        }
+        long documents = documentsReduced.sum();
+        if (documents == 0) {
+            return;
+        }
+        long before = tokensBeforeReduction.sum();
+        long after = tokensAfterReduction.sum();
+        logger.info("Document reduction: documents={}, estimatedTokensBefore={}, estimatedTokensAfter={}, ratio={}",
+                documents, before, after, String.format("%.1f", (double) before / Math.max(1, after)));
+    }
+
+    @FunctionalInterface
+    private interface ChunkCall {
+        AiEnrichmentPayload summarize(Chunk chunk) throws Exception;
+    }
+
+    record ChunkResult(Chunk chunk, AiEnrichmentPayload payload, Exception error) {}
+
+    /**
+     * Runs every chunk; individual failures are kept as notes unless every chunk failed.
+     */
+    private List<ChunkResult> summarizeAll(String relativePath, List<Chunk> chunks, ChunkCall call) throws Exception {
+        List<ChunkResult> results = new ArrayList<>(chunks.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<AiEnrichmentPayload>> futures = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    chunkPermits.acquire();
+                    try {
+                        return call.summarize(chunk);
+                    } finally {
+                        chunkPermits.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                try {
+                    results.add(new ChunkResult(chunks.get(i), futures.get(i).get(), null));
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                    logger.warn("Chunk {}/{} of {} failed: {}", i + 1, chunks.size(), relativePath, cause.getMessage());
+                    results.add(new ChunkResult(chunks.get(i), null, cause));
+                }
+            }
+        }
+        if (results.stream().allMatch(r -> r.payload() == null)) {
+            Exception first = results.stream().map(ChunkResult::error).filter(e -> e != null).findFirst().orElse(null);
+            if (first != null) {
+                throw first;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Concatenates function enrichments in chunk order. A function cut across two chunks shows up twice
+     * under the same FQN; the longer description wins.
+     */
+    static AiEnrichmentPayload mergeCode(String relativePath, List<ChunkResult> results) {
+        AiEnrichmentPayload merged = new AiEnrichmentPayload();
+        Map<String, AiEnrichmentPayload.FunctionEnrichment> byFqn = new LinkedHashMap<>();
+        List<AiEnrichmentPayload.FunctionEnrichment> unnamed = new ArrayList<>();
+        List<AiEnrichmentPayload.Edge> relationships = new ArrayList<>();
+        for (ChunkResult result : results) {
+            AiEnrichmentPayload part = result.payload();
+            if (part == null) {
+                continue;
+            }
+            copyHeader(part, merged);
+            if (part.getFunctionEnrichments() != null) {
+                for (AiEnrichmentPayload.FunctionEnrichment fn : part.getFunctionEnrichments()) {
+                    if (fn == null) {
+                        continue;
+                    }
+                    if (fn.getFqn() == null) {
+                        unnamed.add(fn);
+                        continue;
+                    }
+                    byFqn.merge(fn.getFqn(), fn, (a, b) -> length(b.getDescription()) > length(a.getDescription()) ? b : a);
+                }
+            }
+            if (part.getFileRelationships() != null) {
+                relationships.addAll(part.getFileRelationships());
+            }
+        }
+        List<AiEnrichmentPayload.FunctionEnrichment> functions = new ArrayList<>(byFqn.values());
+        functions.addAll(unnamed);
+        merged.setFunctionEnrichments(functions);
+        if (!relationships.isEmpty()) {
+            merged.setFileRelationships(relationships);
+        }
+        finish(relativePath, merged, results);
+        return merged;
+    }
+
+    /**
+     * Joins per-section summaries into one document enrichment, labelled by part and line range.
+     */
+    static AiEnrichmentPayload mergeDocument(String relativePath,
+                                             String docType,
+                                             String title,
+                                             String datetime,
+                                             List<ChunkResult> results) {
+        AiEnrichmentPayload merged = new AiEnrichmentPayload();
+        StringBuilder summary = new StringBuilder();
+        for (ChunkResult result : results) {
+            AiEnrichmentPayload part = result.payload();
+            if (part == null) {
+                continue;
+            }
+            copyHeader(part, merged);
+            if (part.getDocumentEnrichments() == null) {
+                continue;
+            }
+            for (AiEnrichmentPayload.DocumentEnrichment doc : part.getDocumentEnrichments()) {
+                if (doc == null || doc.getSummary() == null || doc.getSummary().isBlank()) {
+                    continue;
+                }
+                if (!summary.isEmpty()) {
+                    summary.append("\n\n");
+                }
+                summary.append("[Part ").append(result.chunk().index() + 1).append('/').append(results.size())
+                        .append(", lines ").append(result.chunk().startLine()).append('-').append(result.chunk().endLine())
+                        .append("]\n").append(doc.getSummary().trim());
+            }
+        }
+        AiEnrichmentPayload.DocumentEnrichment doc = new AiEnrichmentPayload.DocumentEnrichment();
+        doc.setPath(relativePath);
+        doc.setDocType(docType);
+        doc.setTitle(title);
+        doc.setDatetime(datetime);
+        doc.setSummary(summary.toString());
+        merged.setDocumentEnrichments(List.of(doc));
+        finish(relativePath, merged, results);
+        return merged;
+    }
+
+    private static void copyHeader(AiEnrichmentPayload from, AiEnrichmentPayload to) {
+        if (to.getModule() == null) {
+            to.setModule(from.getModule());
+        }
+        if (to.getLanguage() == null) {
+            to.setLanguage(from.getLanguage());
+        }
+        if (to.getLlmModel() == null) {
+            to.setLlmModel(from.getLlmModel());
+        }
+    }
+
+    /** Sums billable usage over all chunks and records how the file was split. */
+    private static void finish(String relativePath, AiEnrichmentPayload merged, List<ChunkResult> results) {
+        AiEnrichmentPayload.BillableUsage total = null;
+        List<AiEnrichmentPayload.FileNote> notes = new ArrayList<>();
+        int failed = 0;
+        for (ChunkResult result : results) {
+            if (result.payload() == null) {
+                failed++;
+                notes.add(new AiEnrichmentPayload.FileNote(relativePath,
+                        "Chunk " + (result.chunk().index() + 1) + " (lines " + result.chunk().startLine() + "-"
+                                + result.chunk().endLine() + ") failed: " + result.error().getMessage()));
+                continue;
+            }
+            if (result.payload().getFileNotes() != null) {
+                notes.addAll(result.payload().getFileNotes());
+            }
+            AiEnrichmentPayload.BillableUsage usage = result.payload().getBillableUsage();
+            if (usage == null) {
+                continue;
+            }
+            if (total == null) {
+                total = new AiEnrichmentPayload.BillableUsage();
+                total.setModel(usage.getModel());
+                total.setFilePath(relativePath);
+            }
+            total.setInputTokens(total.getInputTokens() + usage.getInputTokens());
+            total.setOutputTokens(total.getOutputTokens() + usage.getOutputTokens());
+            total.setCachedTokens(total.getCachedTokens() + usage.getCachedTokens());
+            total.setTotalTokens(total.getTotalTokens() + usage.getTotalTokens());
+        }
+        notes.add(0, new AiEnrichmentPayload.FileNote(relativePath,
+                "Summarized in " + results.size() + " chunks" + (failed > 0 ? " (" + failed + " failed)" : "")));
+        merged.setFileNotes(notes);
+        merged.setBillableUsage(total);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
@@ -0,0 +1,240 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits source files at method/class boundaries so each chunk fits a token budget.
+ *
+ * Boundaries are found with a light per-language scan rather than a parser:
+ * <ul>
+ *   <li>brace languages (java and default): lines that start at brace depth 0 or 1, i.e. top-level
+ *       types and class members; strings, char literals and comments are skipped while counting</li>
+ *   <li>python: {@code def}/{@code class}/decorator lines at module or class-body indentation</li>
+ *   <li>clojure: top-level forms starting in column 0</li>
+ * </ul>
+ * Every chunk after the first repeats the file header (package, imports, enclosing declaration) so
+ * the model can still produce fully qualified names. A single member larger than the budget is split
+ * on line boundaries.
+ */
+public final class CodeChunker {
+
+    private CodeChunker() {}
+
+    public static List<Chunk> split(String source, String language, int maxTokens) {
+        if (maxTokens < 64) {
+            throw new IllegalArgumentException("maxTokens must be >= 64");
+        }
+        String[] lines = source.split("\n", -1);
+        String lang = language == null ? "" : language.toLowerCase();
+        boolean[] boundary;
+        int headerEnd;
+        switch (lang) {
+            case "python" -> {
+                boundary = pythonBoundaries(lines);
+                headerEnd = firstBoundary(boundary);
+            }
+            case "clojure" -> {
+                boundary = clojureBoundaries(lines);
+                headerEnd = clojureHeaderEnd(lines, boundary);
+            }
+            default -> {
+                boundary = new boolean[lines.length];
+                headerEnd = braceBoundaries(lines, boundary);
+            }
+        }
+        String comment = switch (lang) {
+            case "python" -> "#";
+            case "clojure" -> ";;";
+            default -> "//";
+        };
+
+        String header = join(lines, 0, headerEnd);
+        int headerTokens = TokenEstimator.estimate(header);
+        // Keep at least half of every chunk for actual members.
+        if (headerTokens > maxTokens / 2) {
+            header = "";
+            headerTokens = 0;
+        }
+        int bodyBudget = maxTokens - headerTokens - 16;
+
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int chunkTokens = 0;
+        int unitStart = 0;
+        for (int i = 0; i <= lines.length; i++) {
+            boolean atBoundary = i == lines.length || (i > unitStart && boundary[i]);
+            if (!atBoundary) {
+                continue;
+            }
+            int unitTokens = TokenEstimator.estimate(join(lines, unitStart, i)) + 1;
+            if (chunkTokens > 0 && chunkTokens + unitTokens > bodyBudget) {
+                emit(chunks, lines, header, comment, chunkStart, unitStart);
+                chunkStart = unitStart;
+                chunkTokens = 0;
+            }
+            if (unitTokens > bodyBudget) {
+                // Oversized member: flush whatever precedes it, then cut it by lines.
+                if (chunkStart < unitStart) {
+                    emit(chunks, lines, header, comment, chunkStart, unitStart);
+                }
+                int pieceStart = unitStart;
+                int pieceTokens = 0;
+                for (int j = unitStart; j < i; j++) {
+                    int lineTokens = TokenEstimator.estimate(lines[j]) + 1;
+                    if (pieceTokens > 0 && pieceTokens + lineTokens > bodyBudget) {
+                        emit(chunks, lines, header, comment, pieceStart, j);
+                        pieceStart = j;
+                        pieceTokens = 0;
+                    }
+                    pieceTokens += lineTokens;
+                }
+                chunkStart = pieceStart;
+                chunkTokens = pieceTokens;
+            } else {
+                chunkTokens += unitTokens;
+            }
+            unitStart = i;
+        }
+        if (chunkStart < lines.length) {
+            emit(chunks, lines, header, comment, chunkStart, lines.length);
+        }
+        return chunks;
+    }
+
+    private static void emit(List<Chunk> chunks, String[] lines, String header, String comment, int from, int to) {
+        String body = join(lines, from, to);
+        if (body.isBlank()) {
+            return;
+        }
+        String text;
+        if (from == 0 || header.isEmpty()) {
+            text = body;
+        } else {
+            text = header + "\n" + comment + " ... lines " + (from + 1) + "-" + to + " ...\n" + body;
+        }
+        chunks.add(new Chunk(chunks.size(), from + 1, to, text, TokenEstimator.estimate(text)));
+    }
+
+    private static String join(String[] lines, int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append('\n');
+            }
+            sb.append(lines[i]);
+        }
+        return sb.toString();
+    }
+
+    private static int firstBoundary(boolean[] boundary) {
+        for (int i = 0; i < boundary.length; i++) {
+            if (boundary[i]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Marks lines that begin at depth 0 or 1 and returns the header end: the line after the first
+     * declaration that opens a brace at depth 0 (package, imports and class signature).
+     */
+    static int braceBoundaries(String[] lines, boolean[] boundary) {
+        int depth = 0;
+        int headerEnd = -1;
+        boolean inBlockComment = false;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            boundary[i] = depth <= 1 && !inBlockComment && !line.isBlank();
+            int depthBefore = depth;
+            char quote = 0;
+            for (int k = 0; k < line.length(); k++) {
+                char c = line.charAt(k);
+                char next = k + 1 < line.length() ? line.charAt(k + 1) : 0;
+                if (inBlockComment) {
+                    if (c == '*' && next == '/') {
+                        inBlockComment = false;
+                        k++;
+                    }
+                    continue;
+                }
+                if (quote != 0) {
+                    if (c == '\\') {
+                        k++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                    continue;
+                }
+                if (c == '/' && next == '/') {
+                    break;
+                }
+                if (c == '/' && next == '*') {
+                    inBlockComment = true;
+                    k++;
+                } else if (c == '"' || c == '\'' || c == '`') {
+                    quote = c;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth = Math.max(0, depth - 1);
+                }
+            }
+            if (headerEnd < 0 && depthBefore == 0 && depth > 0) {
+                headerEnd = i + 1;
+            }
+        }
+        if (headerEnd < 0) {
+            return 0;
+        }
+        // Members start after the header, so the header itself is never a cut point.
+        for (int i = 0; i < headerEnd && i < boundary.length; i++) {
+            boundary[i] = false;
+        }
+        return headerEnd;
+    }
+
+    private static boolean[] pythonBoundaries(String[] lines) {
+        boolean[] boundary = new boolean[lines.length];
+        boolean previousWasDecorator = false;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            String trimmed = line.stripLeading();
+            int indent = line.length() - trimmed.length();
+            boolean definition = trimmed.startsWith("def ") || trimmed.startsWith("async def ")
+                    || trimmed.startsWith("class ") || trimmed.startsWith("@");
+            boundary[i] = definition && indent <= 4 && !previousWasDecorator;
+            previousWasDecorator = trimmed.startsWith("@");
+        }
+        return boundary;
+    }
+
+    private static boolean[] clojureBoundaries(String[] lines) {
+        boolean[] boundary = new boolean[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            boundary[i] = lines[i].startsWith("(");
+        }
+        return boundary;
+    }
+
+    /** The ns form is the header: everything up to the second top-level form. */
+    private static int clojureHeaderEnd(String[] lines, boolean[] boundary) {
+        boolean seenNs = false;
+        for (int i = 0; i < lines.length; i++) {
+            if (!boundary[i]) {
+                continue;
+            }
+            if (!seenNs && lines[i].startsWith("(ns ")) {
+                seenNs = true;
+                boundary[i] = false;
+                continue;
+            }
+            return seenNs ? i : 0;
+        }
+        return seenNs ? lines.length : 0;
+    }
+}
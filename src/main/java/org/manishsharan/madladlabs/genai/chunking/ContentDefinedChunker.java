@@ -0,0 +1,88 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits document text at content-defined paragraph boundaries, so that an edit moves at most the
+ * boundaries next to it and every other chunk comes out byte-identical to the previous version.
+ *
+ * Cut points are only considered at paragraph ends and depend on that paragraph's text alone: the chunk is
+ * closed when the paragraph's hash falls under a threshold proportional to its tokens, which makes the
+ * expected chunk size about {@code avgTokens} regardless of paragraph length. A byte-window rolling hash
+ * (Gear, Rabin) would see only the tail of each paragraph, and documents whose paragraphs share a closing
+ * phrase would then never cut.
+ * Chunks are never closed below {@code minTokens} and always before {@code maxTokens}; paragraphs larger
+ * than {@code maxTokens} are cut at sentence ends like {@link DocumentChunker} does.
+ */
+public final class ContentDefinedChunker {
+
+    private ContentDefinedChunker() {}
+
+    public static List<Chunk> split(String text, int minTokens, int avgTokens, int maxTokens) {
+        if (minTokens < 1 || avgTokens <= minTokens || maxTokens < avgTokens) {
+            throw new IllegalArgumentException("expected 0 < minTokens < avgTokens <= maxTokens");
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        int currentStart = 1;
+        int currentEnd = 1;
+        for (DocumentChunker.Paragraph p : DocumentChunker.paragraphs(text)) {
+            for (DocumentChunker.Paragraph piece : DocumentChunker.fit(p, maxTokens)) {
+                if (currentTokens > 0 && currentTokens + piece.tokens() > maxTokens) {
+                    chunks.add(new Chunk(chunks.size(), currentStart, currentEnd, current.toString(), currentTokens));
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                if (currentTokens == 0) {
+                    currentStart = piece.startLine();
+                } else {
+                    current.append("\n\n");
+                }
+                current.append(piece.text());
+                currentTokens += piece.tokens() + 2;
+                currentEnd = piece.endLine();
+
+                if (currentTokens >= minTokens && isBoundary(hash(piece.text()), piece.tokens(), avgTokens - minTokens)) {
+                    chunks.add(new Chunk(chunks.size(), currentStart, currentEnd, current.toString(), currentTokens));
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+            }
+        }
+        if (currentTokens > 0) {
+            chunks.add(new Chunk(chunks.size(), currentStart, currentEnd, current.toString(), currentTokens));
+        }
+        return chunks;
+    }
+
+    /** True with probability {@code tokens / span} for a uniformly distributed hash. */
+    static boolean isBoundary(long hash, int tokens, int span) {
+        double p = Math.min(1.0, (double) tokens / span);
+        return (mix(hash) >>> 11) * 0x1.0p-53 < p;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 chars. */
+    static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** 64-bit finalizer from MurmurHash3; FNV's high bits are poorly mixed for short inputs. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,156 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits extracted document text at section boundaries so each chunk fits a token budget.
+ *
+ * Paragraphs (blank-line separated) are the unit. A chunk is closed early at a section start
+ * (markdown heading, numbered heading, form feed / page break) once it is at least half full,
+ * so sections stay together where possible. Paragraphs larger than the budget are cut at
+ * sentence ends, then at whitespace.
+ */
+public final class DocumentChunker {
+
+    private static final Pattern NUMBERED_HEADING = Pattern.compile("^(\\d+(\\.\\d+)*\\.?|[IVXLC]+\\.)\\s+\\S.{0,80}$");
+
+    private DocumentChunker() {}
+
+    public static List<Chunk> split(String text, int maxTokens) {
+        if (maxTokens < 64) {
+            throw new IllegalArgumentException("maxTokens must be >= 64");
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        List<Paragraph> paragraphs = paragraphs(text);
+
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        int currentStart = 1;
+        int currentEnd = 1;
+        for (Paragraph p : paragraphs) {
+            for (Paragraph piece : fit(p, maxTokens)) {
+                boolean full = currentTokens > 0 && currentTokens + piece.tokens > maxTokens;
+                boolean sectionBreak = piece.sectionStart && currentTokens >= maxTokens / 2;
+                if (full || sectionBreak) {
+                    chunks.add(new Chunk(chunks.size(), currentStart, currentEnd, current.toString(), currentTokens));
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                if (currentTokens == 0) {
+                    currentStart = piece.startLine;
+                } else {
+                    current.append("\n\n");
+                }
+                current.append(piece.text);
+                currentTokens += piece.tokens + 2;
+                currentEnd = piece.endLine;
+            }
+        }
+        if (currentTokens > 0) {
+            chunks.add(new Chunk(chunks.size(), currentStart, currentEnd, current.toString(), currentTokens));
+        }
+        return chunks;
+    }
+
+    record Paragraph(String text, int startLine, int endLine, int tokens, boolean sectionStart) {}
+
+    static List<Paragraph> paragraphs(String text) {
+        List<Paragraph> out = new ArrayList<>();
+        String[] lines = text.split("\n", -1);
+        StringBuilder sb = new StringBuilder();
+        int start = -1;
+        boolean pageBreak = false;
+        boolean sectionStart = false;
+        for (int i = 0; i <= lines.length; i++) {
+            String line = i < lines.length ? lines[i] : "";
+            boolean formFeed = line.indexOf('\f') >= 0;
+            if (formFeed) {
+                line = line.replace("\f", "");
+            }
+            boolean blank = line.isBlank();
+            if ((blank || formFeed || i == lines.length) && start >= 0) {
+                out.add(new Paragraph(sb.toString(), start + 1, i, TokenEstimator.estimate(sb), sectionStart));
+                sb.setLength(0);
+                start = -1;
+            }
+            pageBreak |= formFeed;
+            if (blank || i == lines.length) {
+                continue;
+            }
+            if (start < 0) {
+                start = i;
+                sectionStart = pageBreak || isHeading(line);
+                pageBreak = false;
+            } else {
+                sb.append('\n');
+            }
+            sb.append(line);
+        }
+        return out;
+    }
+
+    static boolean isHeading(String line) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith("#")) {
+            return true;
+        }
+        return NUMBERED_HEADING.matcher(trimmed).matches();
+    }
+
+    static List<Paragraph> fit(Paragraph p, int maxTokens) {
+        if (p.tokens <= maxTokens) {
+            return List.of(p);
+        }
+        List<Paragraph> pieces = new ArrayList<>();
+        String text = p.text;
+        int from = 0;
+        boolean first = true;
+        while (from < text.length()) {
+            int to = cutPoint(text, from, maxTokens);
+            String piece = text.substring(from, to).strip();
+            if (!piece.isEmpty()) {
+                pieces.add(new Paragraph(piece, p.startLine, p.endLine, TokenEstimator.estimate(piece),
+                        first && p.sectionStart));
+                first = false;
+            }
+            from = to;
+        }
+        return pieces;
+    }
+
+    /** Furthest sentence end (else whitespace, else hard cut) keeping text[from, cut) within budget. */
+    private static int cutPoint(String text, int from, int maxTokens) {
+        int lo = from + 1;
+        int hi = text.length();
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (TokenEstimator.estimate(text, from, mid) <= maxTokens) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        int limit = lo;
+        if (limit >= text.length()) {
+            return text.length();
+        }
+        int floor = from + (limit - from) / 2;
+        for (int i = limit - 1; i > floor; i--) {
+            char c = text.charAt(i);
+            if ((c == '.' || c == '!' || c == '?') && Character.isWhitespace(text.charAt(i + 1))) {
+                return i + 1;
+            }
+        }
+        for (int i = limit - 1; i > floor; i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,503 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Shrinks extracted document text to a token target on the CPU before it is sent to the LLM.
+ *
+ * Three passes, cheapest first:
+ * <ol>
+ *   <li>Boilerplate: page numbers and short lines that repeat on many pages (running headers and
+ *       footers, confidentiality banners) are dropped.</li>
+ *   <li>Duplicates: paragraphs that are identical after normalization, or near-identical by a 64-bit
+ *       SimHash over word pairs, are kept once.</li>
+ *   <li>Sentence selection, only if the text is still over the target: sentences (and fenced code blocks,
+ *       as one unit) are scored by TF-IDF cosine against the whole document, with paragraphs as the IDF
+ *       corpus. The best ones are kept until the target is reached and emitted in their original order.
+ *       Headings are kept first (up to half the target), so the result keeps the document's outline. Gaps are marked
+ *       {@code [...]}.</li>
+ * </ol>
+ * Everything is linear in the text except near-duplicate detection, which compares each paragraph's hash
+ * with those seen before.
+ */
+public final class ExtractiveReducer {
+
+    static final String GAP = "[...]";
+    private static final int NEAR_DUPLICATE_MIN_WORDS = 12;
+    /**
+     * A one-word edit in a 40-word paragraph moves about 6 bits; unrelated paragraphs differ in 20 or more.
+     * Kept low so that templated paragraphs differing in a few names or numbers survive.
+     */
+    static final int NEAR_DUPLICATE_MAX_BITS = 6;
+    private static final int BOILERPLATE_MAX_CHARS = 100;
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)(page\\s*)?#+(\\s*(of|/)\\s*#+)?|-\\s*#+\\s*-|\\[?#+]?");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])[\"')\\]]?\\s+(?=[\\p{Lu}\\d\"'(\\[])");
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "been", "but", "by", "can", "do", "for", "from", "has",
+            "have", "if", "in", "into", "is", "it", "its", "may", "must", "not", "of", "on", "or", "should",
+            "so", "such", "than", "that", "the", "their", "then", "there", "these", "this", "to", "was", "we",
+            "were", "when", "which", "will", "with", "would", "you", "your");
+
+    /** Result of {@link #reduce}; {@code text} is the input unchanged when nothing was removed. */
+    public record Reduction(String text,
+                            int originalTokens,
+                            int tokens,
+                            int boilerplateLines,
+                            int duplicateParagraphs,
+                            int sentencesKept,
+                            int sentences) {
+        public boolean reduced() {
+            return tokens < originalTokens;
+        }
+    }
+
+    private enum Kind { HEADING, TEXT, CODE }
+
+    private static final class Paragraph {
+        final Kind kind;
+        final String text;
+        final boolean pageBreak;
+        final List<Unit> units = new ArrayList<>();
+        boolean kept;
+
+        Paragraph(Kind kind, String text, boolean pageBreak) {
+            this.kind = kind;
+            this.text = text;
+            this.pageBreak = pageBreak;
+        }
+    }
+
+    /** A sentence or a code block; {@code lineStart} when it began a line in the source paragraph. */
+    private static final class Unit {
+        final String text;
+        final boolean lineStart;
+        final int tokens;
+        final boolean sectionLead;
+        double score;
+        boolean kept;
+
+        Unit(String text, boolean lineStart, boolean sectionLead) {
+            this.text = text;
+            this.lineStart = lineStart;
+            this.sectionLead = sectionLead;
+            this.tokens = TokenEstimator.estimate(text) + 1;
+        }
+    }
+
+    private ExtractiveReducer() {}
+
+    public static Reduction reduce(String text, int targetTokens) {
+        int originalTokens = TokenEstimator.estimate(text);
+        if (text == null || originalTokens <= targetTokens) {
+            return new Reduction(text, originalTokens, originalTokens, 0, 0, 0, 0);
+        }
+        String[] lines = text.split("\n", -1);
+        Set<String> boilerplate = boilerplate(lines);
+        int[] boilerplateLines = new int[1];
+        List<Paragraph> paragraphs = paragraphs(lines, boilerplate, boilerplateLines);
+        int duplicates = removeDuplicates(paragraphs);
+
+        String cleaned = render(paragraphs, false);
+        int cleanedTokens = TokenEstimator.estimate(cleaned);
+        if (cleanedTokens <= targetTokens) {
+            return new Reduction(cleaned, originalTokens, cleanedTokens, boilerplateLines[0], duplicates, 0, 0);
+        }
+
+        List<Unit> units = split(paragraphs);
+        score(paragraphs, units);
+        List<Unit> kept = select(paragraphs, units, targetTokens);
+        String reduced = render(paragraphs, true);
+        int tokens = TokenEstimator.estimate(reduced);
+        // Separators and gap markers are not in the unit costs; give back the weakest units until it fits.
+        while (tokens > targetTokens && !kept.isEmpty()) {
+            int over = tokens - targetTokens;
+            while (over > 0 && !kept.isEmpty()) {
+                Unit weakest = kept.remove(kept.size() - 1);
+                weakest.kept = false;
+                over -= weakest.tokens + 2;
+            }
+            reduced = render(paragraphs, true);
+            tokens = TokenEstimator.estimate(reduced);
+        }
+        return new Reduction(reduced, originalTokens, tokens, boilerplateLines[0], duplicates, kept.size(), units.size());
+    }
+
+    /**
+     * Short lines repeated on at least half the pages (or at least five times in a document without page
+     * breaks), plus anything that is only a page number.
+     */
+    private static Set<String> boilerplate(String[] lines) {
+        int pages = 1;
+        Map<String, Integer> counts = new HashMap<>();
+        for (String line : lines) {
+            if (line.indexOf('\f') >= 0) {
+                pages++;
+            }
+            String trimmed = line.replace("\f", "").strip();
+            if (trimmed.isEmpty() || trimmed.length() > BOILERPLATE_MAX_CHARS || DocumentChunker.isHeading(trimmed)) {
+                continue;
+            }
+            counts.merge(shape(trimmed), 1, Integer::sum);
+        }
+        int threshold = pages >= 3 ? Math.max(3, pages / 2) : 5;
+        Set<String> out = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            String shape = entry.getKey();
+            boolean pageNumber = PAGE_NUMBER.matcher(shape).matches();
+            if (pageNumber || (entry.getValue() >= threshold && shape.length() >= 8)) {
+                out.add(shape);
+            }
+        }
+        return out;
+    }
+
+    /** Lower case, digits folded to {@code #}, whitespace collapsed, so "Page 3 of 40" and "Page 4 of 40" match. */
+    private static String shape(String line) {
+        StringBuilder sb = new StringBuilder(line.length());
+        boolean space = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            sb.append(Character.isDigit(c) ? '#' : Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    private static List<Paragraph> paragraphs(String[] lines, Set<String> boilerplate, int[] dropped) {
+        List<Paragraph> out = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inCode = false;
+        boolean pageBreak = false;
+        boolean currentPageBreak = false;
+        for (String raw : lines) {
+            boolean formFeed = raw.indexOf('\f') >= 0;
+            String line = formFeed ? raw.replace("\f", "") : raw;
+            pageBreak |= formFeed;
+            String trimmed = line.strip();
+            if (trimmed.startsWith("```")) {
+                if (inCode) {
+                    current.append('\n').append(line);
+                    out.add(new Paragraph(Kind.CODE, current.toString(), currentPageBreak));
+                    current.setLength(0);
+                    inCode = false;
+                } else {
+                    flush(out, current, currentPageBreak);
+                    current.append(line);
+                    currentPageBreak = pageBreak;
+                    pageBreak = false;
+                    inCode = true;
+                }
+                continue;
+            }
+            if (inCode) {
+                current.append('\n').append(line);
+                continue;
+            }
+            if (trimmed.isEmpty() || formFeed) {
+                flush(out, current, currentPageBreak);
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+            }
+            if (trimmed.length() <= BOILERPLATE_MAX_CHARS && boilerplate.contains(shape(trimmed))) {
+                dropped[0]++;
+                continue;
+            }
+            if (DocumentChunker.isHeading(trimmed)) {
+                flush(out, current, currentPageBreak);
+                out.add(new Paragraph(Kind.HEADING, trimmed, pageBreak));
+                pageBreak = false;
+                continue;
+            }
+            if (current.isEmpty()) {
+                currentPageBreak = pageBreak;
+                pageBreak = false;
+            } else {
+                current.append('\n');
+            }
+            current.append(line);
+        }
+        if (inCode) {
+            out.add(new Paragraph(Kind.CODE, current.toString(), currentPageBreak));
+        } else {
+            flush(out, current, currentPageBreak);
+        }
+        return out;
+    }
+
+    private static void flush(List<Paragraph> out, StringBuilder current, boolean pageBreak) {
+        if (!current.isEmpty()) {
+            out.add(new Paragraph(Kind.TEXT, current.toString(), pageBreak));
+            current.setLength(0);
+        }
+    }
+
+    /** Drops repeated text and code paragraphs in place; returns how many were dropped. */
+    private static int removeDuplicates(List<Paragraph> paragraphs) {
+        Set<String> exact = new HashSet<>();
+        List<Long> hashes = new ArrayList<>();
+        int dropped = 0;
+        for (var it = paragraphs.iterator(); it.hasNext(); ) {
+            Paragraph p = it.next();
+            if (p.kind == Kind.HEADING) {
+                continue;
+            }
+            List<String> words = words(p.text, false);
+            if (!exact.add(String.join(" ", words))) {
+                it.remove();
+                dropped++;
+                continue;
+            }
+            if (words.size() < NEAR_DUPLICATE_MIN_WORDS) {
+                continue;
+            }
+            long hash = simHash(words);
+            boolean near = false;
+            for (long seen : hashes) {
+                if (Long.bitCount(seen ^ hash) <= NEAR_DUPLICATE_MAX_BITS) {
+                    near = true;
+                    break;
+                }
+            }
+            if (near) {
+                it.remove();
+                dropped++;
+            } else {
+                hashes.add(hash);
+            }
+        }
+        return dropped;
+    }
+
+    static long simHash(List<String> words) {
+        int[] weights = new int[64];
+        for (int i = 0; i + 1 < words.size(); i++) {
+            long h = mix(words.get(i).hashCode() * 31L + words.get(i + 1).hashCode());
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((h >>> bit) & 1) == 1 ? 1 : -1;
+            }
+        }
+        long hash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                hash |= 1L << bit;
+            }
+        }
+        return hash;
+    }
+
+    /** 64-bit finalizer from MurmurHash3, to spread {@link String#hashCode} over all bits. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Splits text paragraphs into sentences. A sentence of several words that already occurred elsewhere is
+     * left out, so a line repeated through the document neither costs budget twice nor dominates the
+     * term weights.
+     */
+    private static List<Unit> split(List<Paragraph> paragraphs) {
+        List<Unit> all = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        boolean sectionLead = true;
+        for (Paragraph p : paragraphs) {
+            switch (p.kind) {
+                case HEADING -> sectionLead = true;
+                case CODE -> {
+                    p.units.add(new Unit(p.text, true, false));
+                    sectionLead = false;
+                }
+                case TEXT -> {
+                    for (String line : p.text.split("\n")) {
+                        boolean lineStart = true;
+                        for (String sentence : SENTENCE_END.split(line.strip())) {
+                            if (sentence.isBlank()) {
+                                continue;
+                            }
+                            List<String> words = words(sentence, false);
+                            if (words.size() >= 4 && !seen.add(String.join(" ", words))) {
+                                continue;
+                            }
+                            p.units.add(new Unit(sentence, lineStart, sectionLead));
+                            lineStart = false;
+                            sectionLead = false;
+                        }
+                    }
+                }
+            }
+            all.addAll(p.units);
+        }
+        return all;
+    }
+
+    /** Cosine between each unit's TF-IDF vector and the whole document's, with small structural bonuses. */
+    private static void score(List<Paragraph> paragraphs, List<Unit> units) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        Map<String, Integer> termFrequency = new HashMap<>();
+        int corpus = 0;
+        for (Paragraph p : paragraphs) {
+            if (p.units.isEmpty()) {
+                continue;
+            }
+            corpus++;
+            Set<String> seen = new HashSet<>();
+            for (Unit unit : p.units) {
+                for (String term : words(unit.text, true)) {
+                    termFrequency.merge(term, 1, Integer::sum);
+                    if (seen.add(term)) {
+                        documentFrequency.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        Map<String, Double> idf = new HashMap<>(documentFrequency.size() * 2);
+        Map<String, Double> centroid = new HashMap<>(documentFrequency.size() * 2);
+        double centroidNorm = 0;
+        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
+            double weight = Math.log((double) (corpus + 1) / entry.getValue()) + 1;
+            idf.put(entry.getKey(), weight);
+            double c = termFrequency.get(entry.getKey()) * weight;
+            centroid.put(entry.getKey(), c);
+            centroidNorm += c * c;
+        }
+        centroidNorm = Math.sqrt(centroidNorm);
+
+        for (Unit unit : units) {
+            Map<String, Integer> tf = new HashMap<>();
+            for (String term : words(unit.text, true)) {
+                tf.merge(term, 1, Integer::sum);
+            }
+            double dot = 0;
+            double norm = 0;
+            for (Map.Entry<String, Integer> entry : tf.entrySet()) {
+                double w = entry.getValue() * idf.getOrDefault(entry.getKey(), 1.0);
+                dot += w * centroid.getOrDefault(entry.getKey(), 0.0);
+                norm += w * w;
+            }
+            double score = norm == 0 || centroidNorm == 0 ? 0 : dot / (Math.sqrt(norm) * centroidNorm);
+            if (unit.sectionLead) {
+                score *= 1.25;
+            }
+            if (tf.size() < 4) {
+                score *= 0.5;
+            }
+            unit.score = score;
+        }
+    }
+
+    /**
+     * Keeps headings (while they fit in half the target), then the best-scoring units that still fit.
+     * Returns the kept units, best first.
+     */
+    private static List<Unit> select(List<Paragraph> paragraphs, List<Unit> units, int targetTokens) {
+        int budget = targetTokens;
+        int headingBudget = targetTokens / 2;
+        for (Paragraph p : paragraphs) {
+            if (p.kind == Kind.HEADING) {
+                int tokens = TokenEstimator.estimate(p.text) + 2;
+                if (tokens <= headingBudget) {
+                    p.kept = true;
+                    headingBudget -= tokens;
+                    budget -= tokens;
+                }
+            }
+        }
+        List<Unit> ranked = new ArrayList<>(units);
+        ranked.sort((a, b) -> Double.compare(b.score, a.score));
+        List<Unit> kept = new ArrayList<>();
+        for (Unit unit : ranked) {
+            if (budget < 8) {
+                break;
+            }
+            if (unit.tokens <= budget) {
+                unit.kept = true;
+                budget -= unit.tokens;
+                kept.add(unit);
+            }
+        }
+        return kept;
+    }
+
+    private static String render(List<Paragraph> paragraphs, boolean selectedOnly) {
+        StringBuilder out = new StringBuilder();
+        boolean gap = false;
+        for (Paragraph p : paragraphs) {
+            String text = selectedOnly ? selected(p) : p.text;
+            if (text == null) {
+                gap = true;
+                continue;
+            }
+            if (!out.isEmpty()) {
+                out.append(p.pageBreak ? "\n\f" : "\n\n");
+            }
+            if (gap && p.kind != Kind.HEADING && selectedOnly) {
+                out.append(GAP).append("\n\n");
+            }
+            gap = false;
+            out.append(text);
+        }
+        return out.toString();
+    }
+
+    /** The paragraph's kept text, or null when none of it was kept. */
+    private static String selected(Paragraph p) {
+        if (p.kind == Kind.HEADING) {
+            return p.kept ? p.text : null;
+        }
+        StringBuilder sb = new StringBuilder();
+        boolean skipped = false;
+        for (Unit unit : p.units) {
+            if (!unit.kept) {
+                skipped = true;
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append(unit.lineStart && !skipped ? '\n' : ' ');
+            }
+            sb.append(unit.text);
+            skipped = false;
+        }
+        return sb.isEmpty() ? null : sb.toString();
+    }
+
+    /** Lower-cased words of two or more characters; stopwords are dropped when {@code terms} is set. */
+    private static List<String> words(String text, boolean terms) {
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start >= 2 || !terms) {
+                    String w = text.substring(start, i).toLowerCase();
+                    if (!terms || !STOPWORDS.contains(w)) {
+                        out.add(w);
+                    }
+                }
+                start = -1;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,112 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tika.Tika;
+import org.manishsharan.madladlabs.genai.cache.ContentHash;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of Tika output, so re-ingesting unchanged PDFs and Office files skips parsing. The key is the
+ * SHA-256 of the file bytes plus the Tika version and extraction settings, so an upgrade re-extracts
+ * everything; the value is the gzipped JSON {@link DocumentExtractor.DocumentExtraction}. One store serves
+ * every component, so the same document vendored into several components is parsed once.
+ *
+ * Environment:
+ *   DOC_CACHE_ENABLED   - "false" disables the cache (default enabled)
+ *   DOC_CACHE_PATH      - SQLite file (default cache/document-extraction-cache.db)
+ *   DOC_CACHE_MAX_BYTES - LRU bound on stored (compressed) bytes (default 256 MiB)
+ */
+public final class DocumentExtractionCache {
+    private static final Logger logger = LogManager.getLogger(DocumentExtractionCache.class);
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final String TABLE = "document_extraction";
+
+    /** Bump when DocumentExtractor changes what it produces for the same bytes. */
+    static final String EXTRACTOR_VERSION = Tika.getString() + "/limit=" + DocumentExtractor.MAX_EXTRACT_CHARS
+            + "/paged=" + PagedDocumentExtractor.MIN_PAGES + "x" + PagedDocumentExtractor.PAGES_PER_SECTION + "/v4";
+
+    private static DocumentExtractionCache instance;
+    private final SqliteLruCache store;
+
+    public static synchronized DocumentExtractionCache getInstance() {
+        if (instance == null) {
+            instance = new DocumentExtractionCache(SqliteLruCache.open(
+                    "DOC_CACHE", "cache/document-extraction-cache.db", TABLE, DEFAULT_MAX_BYTES, "Document extraction cache"));
+        }
+        return instance;
+    }
+
+    DocumentExtractionCache(SqliteLruCache store) {
+        this.store = store;
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /** Reads and hashes the file; the caller passes the key to {@link #get} and {@link #put}. */
+    public static String keyFor(Path file) throws IOException {
+        return ContentHash.sha256Hex(EXTRACTOR_VERSION, ContentHash.sha256Hex(file));
+    }
+
+    public DocumentExtractor.DocumentExtraction get(String key) {
+        if (store == null) {
+            return null;
+        }
+        byte[] value = store.get(key);
+        if (value == null) {
+            return null;
+        }
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(value))) {
+            return LlmJson.MAPPER.readValue(input, DocumentExtractor.DocumentExtraction.class);
+        } catch (IOException e) {
+            logger.debug("Dropping unreadable document cache entry {}: {}", key, e.getMessage());
+            store.remove(key);
+            return null;
+        }
+    }
+
+    public void put(String key, DocumentExtractor.DocumentExtraction extraction) {
+        if (store == null || extraction == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes)) {
+            LlmJson.MAPPER.writeValue(output, extraction);
+        } catch (IOException e) {
+            logger.debug("Unable to cache extraction {}: {}", key, e.getMessage());
+            return;
+        }
+        store.put(key, bytes.toByteArray());
+    }
+
+    public SqliteLruCache.Stats stats() {
+        return store == null ? null : store.stats();
+    }
+
+    public void logStats() {
+        SqliteLruCache.Stats stats = stats();
+        if (stats == null) {
+            return;
+        }
+        logger.info("Document extraction cache: hits={}, misses={}, hitRatio={}, evictions={}, entries={}, bytes={}/{}",
+                stats.hits(),
+                stats.misses(),
+                String.format("%.2f", stats.hitRatio()),
+                stats.evictions(),
+                stats.entries(),
+                stats.bytes(),
+                stats.maxBytes());
+    }
+}
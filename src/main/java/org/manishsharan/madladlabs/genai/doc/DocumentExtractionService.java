@@ -0,0 +1,180 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@link DocumentExtractor} on a dedicated, bounded pool of CPU threads with a hard per-document
+ * deadline. Parsing is CPU bound and occasionally pathological (deeply nested or malformed PDFs); keeping it
+ * off the pipeline reader and LLM threads means a bad document costs one deadline instead of a slot for
+ * the rest of the run.
+ *
+ * On timeout the document's input stream is closed and the worker interrupted, which stops Tika at its
+ * next read; a parser stuck in a pure CPU loop keeps its pool thread until it returns, but the caller is
+ * released either way. The deadline includes time queued for a worker, so size the pool at least as large
+ * as the number of pipeline reader threads.
+ *
+ * Results are looked up in and stored to {@link DocumentExtractionCache} by content hash, so unchanged
+ * documents are not parsed again on the next run.
+ *
+ * Configuration: {@code DOC_EXTRACT_THREADS} (default: available processors) and
+ * {@code DOC_EXTRACT_TIMEOUT_SECONDS} (default 120).
+ */
+public final class DocumentExtractionService implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(DocumentExtractionService.class);
+
+    private static DocumentExtractionService instance;
+
+    private final ExecutorService pool;
+    private final Duration timeout;
+    private final DocumentExtractionCache cache;
+    private final LongAdder extracted = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public static synchronized DocumentExtractionService getInstance() {
+        if (instance == null) {
+            int threads = envInt("DOC_EXTRACT_THREADS", Runtime.getRuntime().availableProcessors());
+            int timeoutSeconds = envInt("DOC_EXTRACT_TIMEOUT_SECONDS", 120);
+            instance = new DocumentExtractionService(threads, Duration.ofSeconds(timeoutSeconds),
+                    DocumentExtractionCache.getInstance());
+        }
+        return instance;
+    }
+
+    DocumentExtractionService(int threads, Duration timeout) {
+        this(threads, timeout, new DocumentExtractionCache(null));
+    }
+
+    DocumentExtractionService(int threads, Duration timeout, DocumentExtractionCache cache) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1");
+        }
+        this.timeout = timeout;
+        this.cache = cache;
+        AtomicInteger ids = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "doc-extract-" + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Document extraction pool: {} threads, timeout {}s", threads, timeout.toSeconds());
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @throws DocumentExtractionTimeoutException if the document did not finish within the deadline
+     */
+    public DocumentExtractor.DocumentExtraction extract(Path path) throws Exception {
+        return extract(path, input -> DocumentExtractor.extract(path, input));
+    }
+
+    DocumentExtractor.DocumentExtraction extract(Path path, Extraction extraction) throws Exception {
+        if (!cache.isEnabled()) {
+            return extractOnPool(path, extraction);
+        }
+        String key = DocumentExtractionCache.keyFor(path);
+        DocumentExtractor.DocumentExtraction cached = cache.get(key);
+        if (cached != null) {
+            logger.debug("Document extraction served from cache: {}", path);
+            return cached;
+        }
+        DocumentExtractor.DocumentExtraction result = extractOnPool(path, extraction);
+        cache.put(key, result);
+        return result;
+    }
+
+    @FunctionalInterface
+    interface Extraction {
+        DocumentExtractor.DocumentExtraction run(InputStream input) throws Exception;
+    }
+
+    private DocumentExtractor.DocumentExtraction extractOnPool(Path path, Extraction extraction) throws Exception {
+        AtomicReference<InputStream> stream = new AtomicReference<>();
+        Future<DocumentExtractor.DocumentExtraction> future = pool.submit(() -> {
+            try (InputStream input = Files.newInputStream(path)) {
+                stream.set(input);
+                return extraction.run(input);
+            }
+        });
+        try {
+            DocumentExtractor.DocumentExtraction result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            extracted.increment();
+            return result;
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            future.cancel(true);
+            closeQuietly(stream.get());
+            logger.warn("Document extraction timed out after {}s: {}", timeout.toSeconds(), path);
+            throw new DocumentExtractionTimeoutException(path, timeout);
+        } catch (ExecutionException e) {
+            failed.increment();
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            closeQuietly(stream.get());
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    public void logStats() {
+        logger.info("Document extraction: extracted={}, timedOut={}, failed={}",
+                extracted.sum(), timedOut.sum(), failed.sum());
+        cache.logStats();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static void closeQuietly(InputStream input) {
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // aborting anyway
+        }
+    }
+
+    private static int envInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid {}={}", name, value);
+            return defaultValue;
+        }
+    }
+
+    /** Thrown when a document misses its extraction deadline; the pipeline records it as a file note. */
+    public static final class DocumentExtractionTimeoutException extends IOException {
+        public DocumentExtractionTimeoutException(Path path, Duration timeout) {
+            super("Document extraction timed out after " + timeout.toSeconds() + "s: " + path.getFileName());
+        }
+    }
+}
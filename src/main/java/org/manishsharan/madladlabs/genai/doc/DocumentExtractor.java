@@ -1,11 +1,17 @@
 package org.manishsharan.madladlabs.genai.doc;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.exception.WriteLimitReachedException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BodyContentHandler;
+import org.xml.sax.SAXException;
 
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -13,22 +19,60 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 public final class DocumentExtractor {
-    private static final int MAX_EXTRACT_CHARS = 200_000;
+    private static final Logger logger = LogManager.getLogger(DocumentExtractor.class);
+    static final int MAX_EXTRACT_CHARS = 200_000;
     private static final Tika TIKA = new Tika();
-    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(ZoneOffset.UTC);
+    static final DateTimeFormatter ISO = DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    /**
+     * Loading the parser registry is the expensive part of a Tika parser, so the config is loaded once and
+     * each thread keeps its own {@link AutoDetectParser} for every document it extracts.
+     */
+    private static final TikaConfig CONFIG = TikaConfig.getDefaultConfig();
+    private static final ThreadLocal<AutoDetectParser> PARSERS = ThreadLocal.withInitial(() -> new AutoDetectParser(CONFIG));
 
     private DocumentExtractor() {}
 
+    /**
+     * Extracts on the calling thread with no deadline; the pipeline goes through
+     * {@link DocumentExtractionService} instead.
+     */
     public static DocumentExtraction extract(Path path) throws Exception {
+        try (InputStream input = Files.newInputStream(path)) {
+            return extract(path, input);
+        }
+    }
+
+    /**
+     * Extracts from a stream the caller owns, so it can be closed from another thread to abort the parse.
+     * Text beyond {@value #MAX_EXTRACT_CHARS} characters is dropped and parsing stops there. Large PDFs and
+     * slide decks are handed to {@link PagedDocumentExtractor} instead, which reads them by page range, and
+     * CSV and {@code .xlsx} files to {@link TabularProfiler}, which returns a column profile and row sample.
+     */
+    static DocumentExtraction extract(Path path, InputStream input) throws Exception {
+        if (TabularProfiler.supports(path)) {
+            return TabularProfiler.profile(path, input);
+        }
+        DocumentExtraction paged = PagedDocumentExtractor.extract(path);
+        if (paged != null) {
+            return paged;
+        }
         Metadata metadata = new Metadata();
         BodyContentHandler handler = new BodyContentHandler(MAX_EXTRACT_CHARS);
-        AutoDetectParser parser = new AutoDetectParser();
+        AutoDetectParser parser = PARSERS.get();
         ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
 
-        try (InputStream input = Files.newInputStream(path)) {
+        try {
             parser.parse(input, handler, metadata, context);
+        } catch (SAXException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw e;
+            }
+            logger.info("Extracted text of {} truncated at {} characters", path, MAX_EXTRACT_CHARS);
         }
 
         String content = handler.toString();
@@ -70,7 +114,7 @@ public final class DocumentExtractor {
         return contentType;
     }
 
-    private static String extensionOf(Path path) {
+    static String extensionOf(Path path) {
         String name = path.getFileName().toString();
         int idx = name.lastIndexOf('.');
         if (idx < 0 || idx == name.length() - 1) {
@@ -79,7 +123,7 @@ public final class DocumentExtractor {
         return name.substring(idx + 1).toLowerCase();
     }
 
-    private static String firstNonBlank(String... values) {
+    static String firstNonBlank(String... values) {
         if (values == null) {
             return null;
         }
@@ -91,8 +135,28 @@ public final class DocumentExtractor {
         return null;
     }
 
+    /**
+     * {@code sections} is empty for documents extracted in one piece; for page-range extraction it lists the
+     * page (or slide) ranges in document order, each as a span of {@code extractedText}.
+     */
     public record DocumentExtraction(String docType,
                                      String title,
                                      String datetime,
-                                     String extractedText) {}
+                                     String extractedText,
+                                     List<DocumentSection> sections) {
+        public DocumentExtraction {
+            sections = sections == null ? List.of() : List.copyOf(sections);
+        }
+
+        public DocumentExtraction(String docType, String title, String datetime, String extractedText) {
+            this(docType, title, datetime, extractedText, List.of());
+        }
+
+        public String sectionText(DocumentSection section) {
+            return extractedText.substring(section.start(), section.end());
+        }
+    }
+
+    /** Pages {@code firstPage..lastPage} (1-based, inclusive) occupy {@code extractedText[start, end)}. */
+    public record DocumentSection(String label, int firstPage, int lastPage, int start, int end) {}
 }
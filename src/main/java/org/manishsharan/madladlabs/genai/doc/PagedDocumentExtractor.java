@@ -0,0 +1,350 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.ooxml.POIXMLProperties;
+import org.apache.poi.sl.extractor.SlideShowExtractor;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Page-range extraction for large PDFs and PowerPoint decks. The document is split into ranges of
+ * {@link #PAGES_PER_SECTION} pages (or slides) and joined back in document order, one section per range; PDF
+ * ranges are extracted in parallel on a fork/join pool. Each section starts on a page break with a
+ * {@code ## Pages a-b} heading, so {@code DocumentChunker} splits large documents at range boundaries.
+ *
+ * Sectioned text is capped at {@value #MAX_SECTIONED_CHARS} characters instead of Tika's
+ * {@value DocumentExtractor#MAX_EXTRACT_CHARS}, so long documents are summarized in parts rather than cut off
+ * after their first pages.
+ *
+ * A {@link PDDocument} is not thread safe, so each worker reading PDF ranges borrows its own copy: the one
+ * loaded to count the pages, or one it loads itself, reused for its later ranges. At most one copy per pool
+ * thread is open at a time. PDFs with fewer than {@link #MIN_PAGES} pages are read whole from the document
+ * already loaded, without sections. The POI usermodel is not thread safe either, so deck slides are read in
+ * order on the calling thread. Decks with fewer than {@link #MIN_PAGES} slides, other formats and PDFs PDFBox
+ * cannot open return {@code null} and go through Tika as before.
+ *
+ * Environment:
+ *   DOC_PAGED_MIN_PAGES       - page count from which page-range extraction is used (default 30)
+ *   DOC_PAGES_PER_SECTION     - pages or slides per section (default 10)
+ *   DOC_PAGE_EXTRACT_THREADS  - fork/join parallelism (default: available processors)
+ */
+public final class PagedDocumentExtractor {
+    private static final Logger logger = LogManager.getLogger(PagedDocumentExtractor.class);
+
+    static final int MAX_SECTIONED_CHARS = 4_000_000;
+    static final int MIN_PAGES = envInt("DOC_PAGED_MIN_PAGES", 30);
+    static final int PAGES_PER_SECTION = envInt("DOC_PAGES_PER_SECTION", 10);
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            envInt("DOC_PAGE_EXTRACT_THREADS", Runtime.getRuntime().availableProcessors()),
+            pool -> {
+                var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("doc-pages-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null, false);
+
+    private PagedDocumentExtractor() {}
+
+    public static DocumentExtractor.DocumentExtraction extract(Path path) throws Exception {
+        return extract(path, POOL, MIN_PAGES, PAGES_PER_SECTION);
+    }
+
+    static DocumentExtractor.DocumentExtraction extract(Path path, ForkJoinPool pool, int minPages, int pagesPerSection)
+            throws Exception {
+        return switch (DocumentExtractor.extensionOf(path)) {
+            case "pdf" -> extractPdf(path, pool, minPages, pagesPerSection);
+            case "pptx" -> extractSlides(path, minPages, pagesPerSection);
+            default -> null;
+        };
+    }
+
+    private static DocumentExtractor.DocumentExtraction extractPdf(Path path, ForkJoinPool pool,
+                                                                   int minPages, int pagesPerSection) throws Exception {
+        PDDocument document;
+        try {
+            document = PDDocument.load(path.toFile(), memoryUsage());
+        } catch (IOException e) {
+            logger.debug("PDFBox could not open {} ({}); using Tika", path, e.getMessage());
+            return null;
+        }
+        try (PdfCopies copies = new PdfCopies(path, document)) {
+            int pages = document.getNumberOfPages();
+            PDDocumentInformation info = document.getDocumentInformation();
+            Calendar date = info.getModificationDate() != null ? info.getModificationDate() : info.getCreationDate();
+            Long modifiedMillis = date != null ? date.toInstant().toEpochMilli() : null;
+            if (pages < minPages) {
+                return whole(path, info.getTitle(), modifiedMillis, new PDFTextStripper().getText(document));
+            }
+            RangeReader reader = (first, last) -> {
+                PDDocument copy = copies.acquire();
+                try {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    stripper.setStartPage(first);
+                    stripper.setEndPage(last);
+                    return stripper.getText(copy);
+                } finally {
+                    copies.release(copy);
+                }
+            };
+            List<String> texts = readRanges(pool, pages, pagesPerSection, reader);
+            logger.debug("Read {} page ranges of {} with {} document copies", texts.size(), path, copies.opened());
+            return assemble(path, "pdf", "Pages", info.getTitle(), modifiedMillis, texts, pagesPerSection, pages);
+        }
+    }
+
+    /** Scratch space for decoded streams spills to a temp file, so each open copy stays small. */
+    private static MemoryUsageSetting memoryUsage() {
+        return MemoryUsageSetting.setupMixed(16L * 1024 * 1024);
+    }
+
+    /** A PDF below the page threshold, read in one piece like Tika would, capped the same way. */
+    private static DocumentExtractor.DocumentExtraction whole(Path path, String title, Long modifiedMillis, String text)
+            throws IOException {
+        if (text.length() > DocumentExtractor.MAX_EXTRACT_CHARS) {
+            text = text.substring(0, DocumentExtractor.MAX_EXTRACT_CHARS);
+            logger.info("Extracted text of {} truncated at {} characters", path, DocumentExtractor.MAX_EXTRACT_CHARS);
+        }
+        return new DocumentExtractor.DocumentExtraction("pdf", DocumentExtractor.firstNonBlank(title),
+                datetime(path, modifiedMillis), text);
+    }
+
+    /**
+     * Copies of one PDF handed out to the range workers. A copy goes back to the idle list after each range,
+     * so a worker reuses one copy and no more copies are loaded than ranges run at once.
+     */
+    private static final class PdfCopies implements AutoCloseable {
+        private final Path path;
+        private final Deque<PDDocument> idle = new ArrayDeque<>();
+        private int opened = 1;
+        private boolean closed;
+
+        private PdfCopies(Path path, PDDocument loaded) {
+            this.path = path;
+            this.idle.push(loaded);
+        }
+
+        PDDocument acquire() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    throw new CancellationException();
+                }
+                PDDocument copy = idle.poll();
+                if (copy != null) {
+                    return copy;
+                }
+                opened++;
+            }
+            return PDDocument.load(path.toFile(), memoryUsage());
+        }
+
+        void release(PDDocument copy) throws IOException {
+            synchronized (this) {
+                if (!closed) {
+                    idle.push(copy);
+                    return;
+                }
+            }
+            // The extraction was abandoned (deadline) while this range was still running.
+            copy.close();
+        }
+
+        synchronized int opened() {
+            return opened;
+        }
+
+        @Override
+        public void close() throws IOException {
+            List<PDDocument> toClose;
+            synchronized (this) {
+                closed = true;
+                toClose = new ArrayList<>(idle);
+                idle.clear();
+            }
+            for (PDDocument copy : toClose) {
+                copy.close();
+            }
+        }
+    }
+
+    /**
+     * Slides are read in order on the calling thread: the POI usermodel initialises shapes and text runs
+     * lazily and is not safe to share between threads. The gain for decks is the sections and the higher
+     * text cap.
+     */
+    private static DocumentExtractor.DocumentExtraction extractSlides(Path path, int minPages, int pagesPerSection)
+            throws Exception {
+        try (InputStream input = Files.newInputStream(path);
+             XMLSlideShow deck = new XMLSlideShow(input)) {
+            List<XSLFSlide> slides = deck.getSlides();
+            if (slides.size() < minPages) {
+                return null;
+            }
+            SlideShowExtractor<XSLFShape, XSLFTextParagraph> extractor = new SlideShowExtractor<>(deck);
+            extractor.setNotesByDefault(true);
+            List<String> texts = new ArrayList<>();
+            for (int first = 1; first <= slides.size(); first += pagesPerSection) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Extraction of " + path + " cancelled");
+                }
+                StringBuilder text = new StringBuilder();
+                for (int i = first; i <= Math.min(slides.size(), first + pagesPerSection - 1); i++) {
+                    text.append(extractor.getText(slides.get(i - 1))).append('\n');
+                }
+                texts.add(text.toString());
+            }
+            POIXMLProperties.CoreProperties core = deck.getProperties().getCoreProperties();
+            Date date = core.getModified() != null ? core.getModified() : core.getCreated();
+            return assemble(path, "pptx", "Slides", core.getTitle(), date != null ? date.getTime() : null,
+                    texts, pagesPerSection, slides.size());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeReader {
+        String read(int firstPage, int lastPage) throws Exception;
+    }
+
+    /**
+     * Reads every range on {@code pool} and returns the texts in page order. If the calling thread is
+     * interrupted (the extraction deadline passed) ranges not yet started are skipped.
+     */
+    private static List<String> readRanges(ForkJoinPool pool, int pages, int pagesPerSection, RangeReader reader)
+            throws Exception {
+        int ranges = (pages + pagesPerSection - 1) / pagesPerSection;
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ForkJoinTask<List<String>> task = pool.submit(
+                new RangeTask(reader, cancelled, pages, pagesPerSection, 0, ranges));
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /** Ranges {@code [from, to)} split in halves until one range is left, so results come back in order. */
+    private static final class RangeTask extends RecursiveTask<List<String>> {
+        private final RangeReader reader;
+        private final AtomicBoolean cancelled;
+        private final int pages;
+        private final int pagesPerSection;
+        private final int from;
+        private final int to;
+
+        private RangeTask(RangeReader reader, AtomicBoolean cancelled, int pages, int pagesPerSection, int from, int to) {
+            this.reader = reader;
+            this.cancelled = cancelled;
+            this.pages = pages;
+            this.pagesPerSection = pagesPerSection;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from == 1) {
+                if (cancelled.get()) {
+                    throw new CancellationException();
+                }
+                int first = from * pagesPerSection + 1;
+                int last = Math.min(pages, first + pagesPerSection - 1);
+                try {
+                    return List.of(reader.read(first, last));
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to extract pages " + first + "-" + last, e);
+                }
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(reader, cancelled, pages, pagesPerSection, from, mid);
+            RangeTask right = new RangeTask(reader, cancelled, pages, pagesPerSection, mid, to);
+            invokeAll(left, right);
+            List<String> joined = new ArrayList<>(to - from);
+            joined.addAll(left.join());
+            joined.addAll(right.join());
+            return joined;
+        }
+    }
+
+    private static DocumentExtractor.DocumentExtraction assemble(Path path, String docType, String unit,
+                                                                 String title, Long modifiedMillis,
+                                                                 List<String> texts, int pagesPerSection,
+                                                                 int pages) throws IOException {
+        StringBuilder text = new StringBuilder();
+        List<DocumentExtractor.DocumentSection> sections = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            int first = i * pagesPerSection + 1;
+            int last = Math.min(pages, first + pagesPerSection - 1);
+            String label = unit + " " + first + "-" + last;
+            if (i > 0) {
+                text.append('\f');
+            }
+            text.append("## ").append(label).append("\n\n");
+            int start = text.length();
+            String body = texts.get(i).strip();
+            int room = MAX_SECTIONED_CHARS - start;
+            if (body.length() > room) {
+                text.append(body, 0, Math.max(0, room));
+                sections.add(new DocumentExtractor.DocumentSection(label, first, last, start, text.length()));
+                logger.info("Extracted text of {} truncated at {} characters ({} {} of {})",
+                        path, MAX_SECTIONED_CHARS, unit.toLowerCase(), last, pages);
+                break;
+            }
+            text.append(body);
+            sections.add(new DocumentExtractor.DocumentSection(label, first, last, start, text.length()));
+            text.append('\n');
+        }
+        logger.debug("Extracted {} {} of {} in {} sections", pages, unit.toLowerCase(), path, sections.size());
+        return new DocumentExtractor.DocumentExtraction(docType, DocumentExtractor.firstNonBlank(title),
+                datetime(path, modifiedMillis), text.toString(), sections);
+    }
+
+    private static String datetime(Path path, Long modifiedMillis) throws IOException {
+        long millis = modifiedMillis != null ? modifiedMillis : Files.getLastModifiedTime(path).toMillis();
+        return DocumentExtractor.ISO.format(Instant.ofEpochMilli(millis));
+    }
+
+    private static int envInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid {}={}", name, value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Column statistics and a row sample for one sheet (or CSV file), built one row at a time in bounded memory:
+ * distinct values are counted exactly up to {@link #MAX_DISTINCT} per column, at most {@link #MAX_COLUMNS}
+ * columns are profiled, and {@link #SAMPLE_ROWS} rows are kept by reservoir sampling. The sampler is seeded,
+ * so the same data always renders the same profile and the document prompt stays cacheable.
+ */
+final class SheetProfile {
+    static final int MAX_COLUMNS = 100;
+    static final int MAX_DISTINCT = 1000;
+    static final int SAMPLE_ROWS = 20;
+    private static final int MAX_CELL_CHARS = 60;
+    private static final int EXAMPLES = 3;
+
+    private static final Pattern INTEGER = Pattern.compile("[-+]?\\d{1,3}(,\\d{3})+|[-+]?\\d+");
+    private static final Pattern DECIMAL = Pattern.compile("[-+]?(\\d{1,3}(,\\d{3})+|\\d*)\\.\\d+([eE][-+]?\\d+)?%?|[-+]?\\d+%");
+    private static final Pattern DATE = Pattern.compile(
+            "\\d{4}-\\d{1,2}-\\d{1,2}([T ]\\d{1,2}:\\d{2}(:\\d{2}(\\.\\d+)?)?(Z|[-+]\\d{2}:?\\d{2})?)?"
+                    + "|\\d{1,2}[/.-]\\d{1,2}[/.-]\\d{2,4}( \\d{1,2}:\\d{2}(:\\d{2})?)?");
+    private static final Set<String> BOOLEANS = Set.of("true", "false", "yes", "no", "y", "n");
+
+    private enum ValueType { INTEGER, DECIMAL, BOOLEAN, DATE, TEXT }
+
+    private final String name;
+    private String[] header;
+    private final List<Column> columns = new ArrayList<>();
+    private int widestRow;
+    private long rows;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final long[] sampleRowNumbers = new long[SAMPLE_ROWS];
+    private final String[][] sample = new String[SAMPLE_ROWS][];
+
+    SheetProfile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds one row. The first non-empty row becomes the header when none of its cells look like data;
+     * otherwise columns are named by position. {@code rowNumber} is the row's number in the source.
+     */
+    void addRow(long rowNumber, String[] cells) {
+        addRow(rowNumber, cells, cells.length);
+    }
+
+    /** {@code width} is the row's full width when {@code cells} holds only its leading columns. */
+    void addRow(long rowNumber, String[] cells, int width) {
+        if (header == null && rows == 0) {
+            if (isBlank(cells)) {
+                return;
+            }
+            if (looksLikeHeader(cells)) {
+                header = cells.clone();
+                return;
+            }
+            header = new String[0];
+        }
+        rows++;
+        widestRow = Math.max(widestRow, width);
+        int profiled = Math.min(Math.max(cells.length, header.length), MAX_COLUMNS);
+        while (columns.size() < profiled) {
+            columns.add(new Column());
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).observe(i < cells.length ? cells[i] : null);
+        }
+        sample(rowNumber, cells);
+    }
+
+    private void sample(long rowNumber, String[] cells) {
+        int slot;
+        if (rows <= SAMPLE_ROWS) {
+            slot = (int) rows - 1;
+        } else {
+            long pick = random.nextLong(rows);
+            if (pick >= SAMPLE_ROWS) {
+                return;
+            }
+            slot = (int) pick;
+        }
+        String[] kept = new String[Math.min(cells.length, MAX_COLUMNS)];
+        for (int i = 0; i < kept.length; i++) {
+            kept[i] = clip(cells[i]);
+        }
+        sample[slot] = kept;
+        sampleRowNumbers[slot] = rowNumber;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    void render(StringBuilder out) {
+        int width = Math.max(widestRow, header == null ? 0 : header.length);
+        out.append("## Sheet: ").append(name).append("\n\n");
+        out.append("Rows: ").append(rows).append(header != null && header.length > 0 ? " (excluding header)" : "")
+                .append(". Columns: ").append(width).append(".\n\n");
+        if (rows == 0) {
+            return;
+        }
+        out.append("| # | column | type | empty | distinct | range | examples |\n");
+        out.append("|---|---|---|---|---|---|---|\n");
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            out.append("| ").append(i + 1)
+                    .append(" | ").append(cell(columnName(i)))
+                    .append(" | ").append(column.type())
+                    .append(" | ").append(Math.round(100.0 * column.empty / rows)).append('%')
+                    .append(" | ").append(column.distinctOverflow
+                            ? ">" + MAX_DISTINCT : String.valueOf(column.distinct.size()))
+                    .append(" | ").append(column.range())
+                    .append(" | ").append(cell(String.join(", ", column.examples)))
+                    .append(" |\n");
+        }
+        if (width > columns.size()) {
+            out.append("\n").append(width - columns.size()).append(" more columns not profiled.\n");
+        }
+
+        int kept = (int) Math.min(rows, SAMPLE_ROWS);
+        Integer[] order = new Integer[kept];
+        for (int i = 0; i < kept; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sampleRowNumbers[a], sampleRowNumbers[b]));
+        out.append("\nSample rows (").append(kept).append(" of ").append(rows).append("):\n\n");
+        out.append("| row |");
+        for (int i = 0; i < columns.size(); i++) {
+            out.append(' ').append(cell(columnName(i))).append(" |");
+        }
+        out.append("\n|---|");
+        out.append("---|".repeat(columns.size()));
+        out.append('\n');
+        for (int slot : order) {
+            out.append("| ").append(sampleRowNumbers[slot]).append(" |");
+            String[] row = sample[slot];
+            for (int i = 0; i < columns.size(); i++) {
+                out.append(' ').append(i < row.length && row[i] != null ? cell(row[i]) : "").append(" |");
+            }
+            out.append('\n');
+        }
+        out.append('\n');
+    }
+
+    private String columnName(int index) {
+        if (header != null && index < header.length && header[index] != null && !header[index].isBlank()) {
+            return clip(header[index]);
+        }
+        return "column " + (index + 1);
+    }
+
+    private static boolean looksLikeHeader(String[] cells) {
+        int named = 0;
+        for (String cell : cells) {
+            if (cell == null || cell.isBlank()) {
+                continue;
+            }
+            if (typeOf(cell.trim()) != ValueType.TEXT) {
+                return false;
+            }
+            named++;
+        }
+        return named > 0;
+    }
+
+    private static boolean isBlank(String[] cells) {
+        for (String cell : cells) {
+            if (cell != null && !cell.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ValueType typeOf(String value) {
+        if (BOOLEANS.contains(value.toLowerCase())) {
+            return ValueType.BOOLEAN;
+        }
+        char first = value.charAt(0);
+        if (!Character.isDigit(first) && first != '-' && first != '+' && first != '.') {
+            return ValueType.TEXT;
+        }
+        if (INTEGER.matcher(value).matches()) {
+            return ValueType.INTEGER;
+        }
+        if (DECIMAL.matcher(value).matches()) {
+            return ValueType.DECIMAL;
+        }
+        if (DATE.matcher(value).matches()) {
+            return ValueType.DATE;
+        }
+        return ValueType.TEXT;
+    }
+
+    private static String clip(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.strip();
+        return trimmed.length() <= MAX_CELL_CHARS ? trimmed : trimmed.substring(0, MAX_CELL_CHARS - 3) + "...";
+    }
+
+    /** Escapes a value for a markdown table cell. */
+    private static String cell(String value) {
+        return value.replace("|", "\\|").replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static final class Column {
+        private long empty;
+        private final long[] typeCounts = new long[ValueType.values().length];
+        private final Set<String> distinct = new HashSet<>();
+        private boolean distinctOverflow;
+        private final List<String> examples = new ArrayList<>(EXAMPLES);
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private int maxLength;
+
+        void observe(String raw) {
+            if (raw == null || raw.isBlank()) {
+                empty++;
+                return;
+            }
+            String value = raw.strip();
+            ValueType type = typeOf(value);
+            typeCounts[type.ordinal()]++;
+            maxLength = Math.max(maxLength, value.length());
+            if (type == ValueType.INTEGER || type == ValueType.DECIMAL) {
+                double number = parseNumber(value);
+                if (!Double.isNaN(number)) {
+                    min = Math.min(min, number);
+                    max = Math.max(max, number);
+                }
+            }
+            String clipped = clip(value);
+            if (distinct.size() < MAX_DISTINCT) {
+                if (distinct.add(clipped) && examples.size() < EXAMPLES) {
+                    examples.add(clipped);
+                }
+            } else if (!distinct.contains(clipped)) {
+                distinctOverflow = true;
+            }
+        }
+
+        /** Dominant type, with its share when other types also occur. */
+        String type() {
+            long total = 0;
+            int best = ValueType.TEXT.ordinal();
+            for (int i = 0; i < typeCounts.length; i++) {
+                total += typeCounts[i];
+                if (typeCounts[i] > typeCounts[best]) {
+                    best = i;
+                }
+            }
+            if (total == 0) {
+                return "empty";
+            }
+            String name = ValueType.values()[best].name().toLowerCase();
+            return typeCounts[best] == total ? name : name + " (" + Math.round(100.0 * typeCounts[best] / total) + "%)";
+        }
+
+        String range() {
+            if (min <= max) {
+                return format(min) + " .. " + format(max);
+            }
+            return maxLength > 0 ? "length <= " + maxLength : "";
+        }
+
+        private static double parseNumber(String value) {
+            String plain = value.replace(",", "");
+            if (plain.endsWith("%")) {
+                plain = plain.substring(0, plain.length() - 1);
+            }
+            try {
+                return Double.parseDouble(plain);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        private static String format(double value) {
+            return value == Math.rint(value) && Math.abs(value) < 1e15
+                    ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ooxml.POIXMLProperties;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams CSV/TSV files and {@code .xlsx} workbooks row by row into a {@link SheetProfile} per sheet and
+ * returns the rendered profiles (column types, empty ratios, cardinality, ranges and a row sample) as the
+ * document text, instead of handing the whole cell dump to the document prompt.
+ *
+ * CSV goes through opencsv with the separator sniffed from the first line; workbooks through POI's SAX sheet
+ * handler, so sheet rows are never held in memory (the shared-strings table of an {@code .xlsx} is). Legacy
+ * {@code .xls} is a binary format and stays on Tika.
+ */
+public final class TabularProfiler {
+    private static final Logger logger = LogManager.getLogger(TabularProfiler.class);
+
+    static final int MAX_SHEETS = 20;
+    /** An unbalanced quote would otherwise pull the rest of the file into one field. */
+    private static final int MAX_RECORD_LINES = 1000;
+    private static final Set<String> EXTENSIONS = Set.of("csv", "tsv", "xlsx");
+    private static final String PREAMBLE =
+            "Tabular data profile: column statistics and a sample of rows per sheet; the full data is not included.\n\n";
+
+    private TabularProfiler() {}
+
+    public static boolean supports(Path path) {
+        return EXTENSIONS.contains(DocumentExtractor.extensionOf(path));
+    }
+
+    /**
+     * Profiles {@code path}. CSV is read from {@code input}, which the caller owns and may close to abort;
+     * workbooks are opened from the file for random access to their parts.
+     */
+    static DocumentExtractor.DocumentExtraction profile(Path path, InputStream input) throws Exception {
+        String docType = DocumentExtractor.extensionOf(path);
+        List<SheetProfile> sheets;
+        String title = null;
+        Date modified = null;
+        if (docType.equals("xlsx")) {
+            try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+                sheets = profileWorkbook(pkg);
+                POIXMLProperties.CoreProperties core = new POIXMLProperties(pkg).getCoreProperties();
+                title = core.getTitle();
+                modified = core.getModified() != null ? core.getModified() : core.getCreated();
+            }
+        } else {
+            sheets = List.of(profileDelimited(path, input, docType.equals("tsv") ? '\t' : 0));
+        }
+
+        StringBuilder text = new StringBuilder(PREAMBLE);
+        long rows = 0;
+        for (SheetProfile sheet : sheets) {
+            sheet.render(text);
+            rows += sheet.rows();
+        }
+        logger.debug("Profiled {} rows in {} sheet(s) of {}", rows, sheets.size(), path);
+        long millis = modified != null ? modified.getTime() : Files.getLastModifiedTime(path).toMillis();
+        return new DocumentExtractor.DocumentExtraction(docType, DocumentExtractor.firstNonBlank(title),
+                DocumentExtractor.ISO.format(Instant.ofEpochMilli(millis)), text.toString());
+    }
+
+    /** {@code separator} 0 means sniff it from the first line. */
+    static SheetProfile profileDelimited(Path path, InputStream input, char separator) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        if (separator == 0) {
+            reader.mark(1 << 16);
+            char[] head = new char[1 << 16];
+            int n = reader.read(head, 0, head.length);
+            reader.reset();
+            separator = sniffSeparator(head, Math.max(n, 0));
+        }
+        SheetProfile profile = new SheetProfile(path.getFileName().toString());
+        try (CSVReader csv = new CSVReaderBuilder(reader)
+                .withCSVParser(new CSVParserBuilder().withSeparator(separator).build())
+                .withMultilineLimit(MAX_RECORD_LINES)
+                .build()) {
+            String[] row;
+            long rowNumber = 0;
+            while ((row = csv.readNext()) != null) {
+                rowNumber++;
+                if (rowNumber == 1 && row.length > 0 && row[0] != null && row[0].startsWith("\uFEFF")) {
+                    row[0] = row[0].substring(1);
+                }
+                if ((rowNumber & 0xFFF) == 0) {
+                    checkInterrupted();
+                }
+                profile.addRow(rowNumber, row);
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException("Malformed CSV in " + path.getFileName() + ": " + e.getMessage(), e);
+        }
+        return profile;
+    }
+
+    /** The most frequent of comma, semicolon, tab and pipe on the first line. */
+    static char sniffSeparator(char[] head, int length) {
+        char[] candidates = {',', ';', '\t', '|'};
+        int[] counts = new int[candidates.length];
+        boolean quoted = false;
+        for (int i = 0; i < length && (quoted || (head[i] != '\n' && head[i] != '\r')); i++) {
+            char c = head[i];
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted) {
+                for (int k = 0; k < candidates.length; k++) {
+                    if (c == candidates[k]) {
+                        counts[k]++;
+                    }
+                }
+            }
+        }
+        int best = 0;
+        for (int k = 1; k < candidates.length; k++) {
+            if (counts[k] > counts[best]) {
+                best = k;
+            }
+        }
+        return candidates[best];
+    }
+
+    private static List<SheetProfile> profileWorkbook(OPCPackage pkg) throws Exception {
+        XSSFReader workbook = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+        StylesTable styles = workbook.getStylesTable();
+        DataFormatter formatter = new DataFormatter();
+        List<SheetProfile> sheets = new ArrayList<>();
+        XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) workbook.getSheetsData();
+        while (it.hasNext()) {
+            try (InputStream sheetData = it.next()) {
+                if (sheets.size() == MAX_SHEETS) {
+                    logger.info("Profiling only the first {} sheets of workbook", MAX_SHEETS);
+                    break;
+                }
+                SheetProfile profile = new SheetProfile(it.getSheetName());
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, strings, new RowCollector(profile), formatter, false));
+                parser.parse(new InputSource(sheetData));
+                sheets.add(profile);
+            }
+        }
+        return sheets;
+    }
+
+    /**
+     * Collects the sparse cells of each SAX row into a positional array for {@link SheetProfile}; cells past
+     * the profiled columns only count towards the row width.
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final SheetProfile profile;
+        private final String[] cells = new String[SheetProfile.MAX_COLUMNS];
+        private int width;
+
+        private RowCollector(SheetProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+            width = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : width;
+            if (column < cells.length) {
+                cells[column] = formattedValue;
+            }
+            width = Math.max(width, column + 1);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if ((rowNum & 0xFFF) == 0) {
+                checkInterrupted();
+            }
+            profile.addRow(rowNum + 1L, Arrays.copyOf(cells, Math.min(width, cells.length)), width);
+        }
+    }
+
+    /** Lets the extraction deadline stop a long sheet; the SAX and CSV loops do not block on I/O it can close. */
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new UncheckedIOException(new InterruptedIOException("Tabular profiling interrupted"));
+        }
+    }
+}
@@ -2,7 +2,15 @@ package org.manishsharan.madladlabs.genai.jobcomponent;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.batching.BatchSummarizer;
+import org.manishsharan.madladlabs.genai.cache.LlmResponseCache;
+import org.manishsharan.madladlabs.genai.chunking.ChunkSummaryCache;
+import org.manishsharan.madladlabs.genai.chunking.ChunkingSummarizer;
+import org.manishsharan.madladlabs.genai.chunking.TokenEstimator;
+import org.manishsharan.madladlabs.genai.ratelimit.RateLimiterRegistry;
+import org.manishsharan.madladlabs.genai.doc.DocumentExtractionService;
 import org.manishsharan.madladlabs.genai.doc.DocumentExtractor;
+import org.manishsharan.madladlabs.genai.doc.TabularProfiler;
 import org.manishsharan.madladlabs.genai.summarizers.ai.deepseek.DeepSeekSummarizer;
 import org.manishsharan.ontology.job.config.Component;
 import org.manishsharan.ontology.job.config.FileIngestionConfig;
@@ -14,32 +22,22 @@ import org.manishsharan.ontology.service.FileValidator;
 import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
 import org.manishsharan.ontology.model.AiEnrichmentPayload;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HexFormat;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
 
 public class AIComponentProcessor implements ComponentProcessor {
 
@@ -53,8 +51,21 @@ public class AIComponentProcessor implements ComponentProcessor {
 
     /** Logical processor key to store against FileValidator (prevents rework). */
     private  final String PROCESSOR_KEY ;
-    private final IngestionRules ingestionRules;
+    private IngestionRules ingestionRules;
     private int concurrency = 2;
+    private ExecutionMode executionMode = ExecutionMode.FIXED_THREAD_POOL;
+    private int providerConcurrency = 64;
+    private PipelineLimits pipelineLimits = PipelineLimits.DEFAULT;
+    private int maxChunkTokens = 16_000;
+    private int documentTokenTarget;
+    private long maxChunkedFileSizeBytes = 16L * 1024 * 1024;
+    private long maxProfiledFileSizeBytes = 256L * 1024 * 1024;
+    private BatchingOptions batchingOptions = BatchingOptions.DISABLED;
+    private boolean incrementalMode;
+    private Duration watchDebounce = Duration.ofSeconds(2);
+    private int templateBundleTokenBudget = 12_000;
+    /** Per component key, loaded on first use and kept for the watcher's batches. */
+    private final Map<String, TemplateDependencyIndex> templateDependencies = new ConcurrentHashMap<>();
 
     public AIComponentProcessor(JobConfig jobConfig) {
         // Constructor can be extended to accept dependencies if needed.
@@ -82,18 +93,301 @@ public class AIComponentProcessor implements ComponentProcessor {
         this.concurrency = concurrency;
     }
 
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Selects how per-file tasks are scheduled. {@link ExecutionMode#VIRTUAL_THREADS} runs every file on a
+     * virtual thread and bounds in-flight LLM requests with {@link #setProviderConcurrency(int)} instead of
+     * {@link #setConcurrency(int)}.
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = Objects.requireNonNull(executionMode, "executionMode");
+    }
+
+    public int getProviderConcurrency() {
+        return providerConcurrency;
+    }
+
+    public void setProviderConcurrency(int providerConcurrency) {
+        if (providerConcurrency < 1) {
+            throw new IllegalArgumentException("providerConcurrency must be >= 1");
+        }
+        this.providerConcurrency = providerConcurrency;
+    }
+
+    public PipelineLimits getPipelineLimits() {
+        return pipelineLimits;
+    }
+
+    /**
+     * Queue depths between the walk, classify, read, summarize and listener stages. The walk stalls once
+     * these are full, so memory stays flat regardless of repository size.
+     */
+    public void setPipelineLimits(PipelineLimits pipelineLimits) {
+        this.pipelineLimits = Objects.requireNonNull(pipelineLimits, "pipelineLimits");
+    }
+
+    public int getMaxChunkTokens() {
+        return maxChunkTokens;
+    }
+
+    /**
+     * Upper bound on estimated input tokens per LLM request. Code and documents above it (or above the
+     * provider's context window) are split and summarized in parallel chunks.
+     */
+    public void setMaxChunkTokens(int maxChunkTokens) {
+        if (maxChunkTokens < 256) {
+            throw new IllegalArgumentException("maxChunkTokens must be >= 256");
+        }
+        this.maxChunkTokens = maxChunkTokens;
+    }
+
+    public int getDocumentTokenTarget() {
+        return documentTokenTarget;
+    }
+
+    /**
+     * Opt-in: estimated token size that long documents are reduced to locally (boilerplate, duplicate
+     * paragraphs, then lowest-scoring sentences) before they are summarized. The reduction drops sentences, so
+     * it trades summary coverage for fewer requests. 0 (the default) sends the full text, chunked as needed.
+     */
+    public void setDocumentTokenTarget(int documentTokenTarget) {
+        if (documentTokenTarget != 0 && documentTokenTarget < 256) {
+            throw new IllegalArgumentException("documentTokenTarget must be 0 or >= 256");
+        }
+        this.documentTokenTarget = documentTokenTarget;
+    }
+
+    public int getTemplateBundleTokenBudget() {
+        return templateBundleTokenBudget;
+    }
+
+    /**
+     * Estimated token size of a template prompt (template, partials and assets) above which the largest
+     * static assets are replaced by a summary, written once per asset content and cached. 0 always inlines.
+     */
+    public void setTemplateBundleTokenBudget(int templateBundleTokenBudget) {
+        if (templateBundleTokenBudget != 0 && templateBundleTokenBudget < 1024) {
+            throw new IllegalArgumentException("templateBundleTokenBudget must be 0 or >= 1024");
+        }
+        this.templateBundleTokenBudget = templateBundleTokenBudget;
+    }
+
+    public long getMaxChunkedFileSizeBytes() {
+        return maxChunkedFileSizeBytes;
+    }
+
+    /**
+     * Size limit for code and document files, which can be chunked; {@code maxFileSizeBytes} from the
+     * ingestion config still applies to templates and config files. Values below it have no effect.
+     */
+    public void setMaxChunkedFileSizeBytes(long maxChunkedFileSizeBytes) {
+        this.maxChunkedFileSizeBytes = maxChunkedFileSizeBytes;
+    }
+
+    public long getMaxProfiledFileSizeBytes() {
+        return maxProfiledFileSizeBytes;
+    }
+
+    /**
+     * Size limit for CSV/TSV and .xlsx documents, which are profiled in bounded memory and so may be larger
+     * than other documents. The file is still hashed for the extraction cache on the reader thread, outside
+     * the extraction deadline, so keep a limit; 0 removes it.
+     */
+    public void setMaxProfiledFileSizeBytes(long maxProfiledFileSizeBytes) {
+        if (maxProfiledFileSizeBytes < 0) {
+            throw new IllegalArgumentException("maxProfiledFileSizeBytes must be >= 0");
+        }
+        this.maxProfiledFileSizeBytes = maxProfiledFileSizeBytes;
+    }
+
+    public List<String> getIncludeGlobs() {
+        return ingestionRules.includeGlobs;
+    }
+
+    /**
+     * Globs (java.nio {@code glob:} syntax) matched against each file's path relative to the repository root;
+     * when any are set, files matching none of them are not ingested. Skip rules and exclude globs still apply.
+     */
+    public void setIncludeGlobs(List<String> includeGlobs) {
+        this.ingestionRules = ingestionRules.withGlobs(includeGlobs, ingestionRules.excludeGlobs);
+    }
+
+    public List<String> getExcludeGlobs() {
+        return ingestionRules.excludeGlobs;
+    }
+
+    /** Globs matched like {@link #setIncludeGlobs}; matching files are skipped. Directories are not pruned by globs. */
+    public void setExcludeGlobs(List<String> excludeGlobs) {
+        this.ingestionRules = ingestionRules.withGlobs(ingestionRules.includeGlobs, excludeGlobs);
+    }
+
+    public BatchingOptions getBatchingOptions() {
+        return batchingOptions;
+    }
+
+    /**
+     * Packing of small code and config files into shared requests, so the instruction block is paid for
+     * once per batch instead of once per file. Opt-in: {@link BatchingOptions#DISABLED} (the default) sends one
+     * request per file; {@link BatchingOptions#RECOMMENDED} turns batching on.
+     */
+    public void setBatchingOptions(BatchingOptions batchingOptions) {
+        this.batchingOptions = Objects.requireNonNull(batchingOptions, "batchingOptions");
+    }
+
+    public boolean isIncrementalMode() {
+        return incrementalMode;
+    }
+
+    /**
+     * Hand only files that changed since the last clean run to the pipeline. For a git working tree the run
+     * remembers the commit it saw and asks git for the difference; other directories are compared with a
+     * {@link FileSnapshot} taken by a stat-only walk. Renames and deletes go to an
+     * {@link IncrementalOntologyListener} when the listener is one. Git runs without a checkpoint, or whose
+     * checkpoint commit is gone, walk the full tree.
+     */
+    public void setIncrementalMode(boolean incrementalMode) {
+        this.incrementalMode = incrementalMode;
+    }
+
+    public Duration getWatchDebounce() {
+        return watchDebounce;
+    }
+
+    /**
+     * Quiet period after the last file event before {@link #watchComponent} hands the accumulated changes to the
+     * pipeline; a continuous burst is flushed after ten periods regardless.
+     */
+    public void setWatchDebounce(Duration watchDebounce) {
+        if (watchDebounce == null || watchDebounce.isNegative() || watchDebounce.isZero()) {
+            throw new IllegalArgumentException("watchDebounce must be positive");
+        }
+        this.watchDebounce = watchDebounce;
+    }
+
+    /**
+     * Watches the component's code base and pushes every debounced batch of created or modified files through
+     * the pipeline, with the same rules as {@link #processComponent}. Deleted files go to an
+     * {@link IncrementalOntologyListener} when the listener is one. Lost events, and directories that are
+     * deleted or moved away, trigger a {@code processComponent} run (incremental when
+     * {@link #setIncrementalMode(boolean) enabled}). Only changes
+     * made after the call are seen, so run {@code processComponent} first to catch up.
+     *
+     * @return the running watcher, to be closed to stop watching; null if the component cannot be processed
+     */
+    public RepositoryWatcher watchComponent(Solution solution,
+                                            Component component,
+                                            OntologyListener listener,
+                                            FileValidator fileValidator) throws IOException {
+        final Path repoRoot = componentRoot(solution, component, listener);
+        if (repoRoot == null) {
+            return null;
+        }
+        final TemplateDependencyIndex dependencies = templateDependencies(solution, component);
+        return new RepositoryWatcher(repoRoot,
+                dir -> shouldSkipPath(dir, true, ingestionRules),
+                file -> {
+                    String relPath = repoRoot.relativize(file).toString();
+                    return isIngestible(relPath) || dependencies.isDependency(relPath);
+                },
+                watchDebounce,
+                (changed, deleted, rescan) -> {
+                    if (rescan && incrementalMode) {
+                        // The git diff or snapshot reports this batch's deletes as well.
+                        processComponent(solution, component, listener, fileValidator);
+                        return true;
+                    }
+                    List<String> changedPaths = new ArrayList<>(changed.size());
+                    for (Path path : changed) {
+                        changedPaths.add(repoRoot.relativize(path).toString());
+                    }
+                    List<String> deletedPaths = new ArrayList<>(deleted.size());
+                    for (Path path : deleted) {
+                        deletedPaths.add(repoRoot.relativize(path).toString());
+                    }
+                    IncrementalPlan plan = planIncrementalRun(component, listener, repoRoot, dependencies,
+                            new ChangeSet(changedPaths, List.of(), deletedPaths));
+                    if (rescan) {
+                        applyStructuralChanges(solution, component, listener, fileValidator, repoRoot, dependencies, plan);
+                        processComponent(solution, component, listener, fileValidator);
+                        return true;
+                    }
+                    boolean clean = plan.files().isEmpty()
+                            || runPipeline(solution, component, listener, fileValidator, repoRoot,
+                                    new RepositoryIndex(repoRoot), dependencies, plan.files());
+                    // Watcher events are not replayed, so deletes are sent whatever the run's outcome.
+                    applyStructuralChanges(solution, component, listener, fileValidator, repoRoot, dependencies, plan);
+                    return clean;
+                }).start();
+    }
+
     @Override
     public void processComponent(Solution solution,
                                  Component component,
                                  OntologyListener listener,
                                  FileValidator fileValidator) {
+        final Path repoRoot = componentRoot(solution, component, listener);
+        if (repoRoot == null) {
+            return;
+        }
+
+        final RepositoryIndex index = new RepositoryIndex(repoRoot);
+        final String checkpointKey = componentKey(solution, component);
+        final TemplateDependencyIndex dependencies = templateDependencies(solution, component);
+        final String head = incrementalMode ? GitChanges.head(repoRoot) : null;
+        final FileSnapshot previous = incrementalMode && head == null
+                ? FileSnapshot.load(FileSnapshot.fileFor(checkpointKey)) : null;
+        final FileSnapshot snapshot = incrementalMode && head == null
+                ? takeSnapshot(repoRoot, previous, index, dependencies) : null;
+        final ChangeSet changes = head != null ? changesSinceCheckpoint(repoRoot, checkpointKey)
+                : snapshot != null ? snapshot.changesSince(previous)
+                : null;
+        final IncrementalPlan plan = changes == null ? null
+                : planIncrementalRun(component, listener, repoRoot, dependencies, changes);
+
+        boolean clean = runPipeline(solution, component, listener, fileValidator, repoRoot, index, dependencies,
+                plan == null ? null : plan.files());
+        if (head != null || snapshot != null) {
+            // Failed files would not be in the next diff, so only a clean run moves the checkpoint. Renames and
+            // deletes go out with it; otherwise the next diff reports them again.
+            if (clean && !Thread.currentThread().isInterrupted()) {
+                if (plan != null) {
+                    applyStructuralChanges(solution, component, listener, fileValidator, repoRoot, dependencies, plan);
+                }
+                recordCheckpoint(repoRoot, checkpointKey, head, snapshot);
+            } else {
+                logger.warn("Ingestion checkpoint for {} not moved: the run did not complete cleanly", checkpointKey);
+            }
+        }
+    }
+
+    private String componentKey(Solution solution, Component component) {
+        return solution.getName() + "/" + component.getName() + "/" + PROCESSOR_KEY;
+    }
+
+    private TemplateDependencyIndex templateDependencies(Solution solution, Component component) {
+        return templateDependencies.computeIfAbsent(componentKey(solution, component),
+                key -> TemplateDependencyIndex.load(TemplateDependencyIndex.fileFor(key)));
+    }
 
+    private static void saveDependencies(TemplateDependencyIndex dependencies) {
+        try {
+            dependencies.save();
+        } catch (IOException e) {
+            logger.warn("Unable to save template dependencies: {}", e.getMessage());
+        }
+    }
+
+    /** The component's code base directory, or null (reported to the listener) when it cannot be processed. */
+    private static Path componentRoot(Solution solution, Component component, OntologyListener listener) {
         if (component == null ||
                 solution == null || solution.getName().isEmpty() ||
                 component.getName() == null || component.getName().isEmpty()) {
             logger.error("Component information incomplete, cannot process. solution='{}', component='{}'",
                     solution.getName(), component);
-            return;
+            return null;
         }
 
         logger.info("AIComponentProcessor: Processing component: {}", component);
@@ -103,7 +397,7 @@ public class AIComponentProcessor implements ComponentProcessor {
             final String msg = "Code base path is not specified for component: " + component.getName();
             logger.error(msg);
             listener.error(msg, null);
-            return;
+            return null;
         }
 
         final Path repoRoot = Paths.get(codeBasePath);
@@ -111,19 +405,43 @@ public class AIComponentProcessor implements ComponentProcessor {
             final String msg = "Code base path is not a directory: " + repoRoot;
             logger.error(msg);
             listener.error(msg, null);
-            return;
+            return null;
         }
+        return repoRoot;
+    }
 
+    /**
+     * Streams {@code files} through the bounded pipeline, or every eligible file under {@code repoRoot} when
+     * {@code files} is null, and logs the run's stats.
+     *
+     * @return true if the run finished and no file failed
+     */
+    private boolean runPipeline(Solution solution,
+                                Component component,
+                                OntologyListener listener,
+                                FileValidator fileValidator,
+                                Path repoRoot,
+                                RepositoryIndex index,
+                                TemplateDependencyIndex dependencies,
+                                List<Path> files) {
         final OntologyMethodsSummarizer summarizer;
         try {
             summarizer = buildSummarizer(SUMMARIZER_PROVIDER);
         } catch (IllegalArgumentException ex) {
             logger.error("Failed to initialize summarizer '{}': {}", SUMMARIZER_PROVIDER, ex.getMessage(), ex);
             listener.error("Failed to initialize summarizer: " + ex.getMessage(), ex);
-            return;
+            return false;
         }
 
-        // Walk repo and process eligible files
+        // File-level permits are held while a file's chunks run, so chunks get their own bound of the same size.
+        final ChunkingSummarizer chunkingSummarizer = new ChunkingSummarizer(summarizer, maxChunkTokens, documentTokenTarget,
+                ChunkSummaryCache.getInstance(), PROCESSOR_KEY, providerConcurrency);
+        final BatchSummarizer batchSummarizer = new BatchSummarizer(summarizer);
+        final Map<String, BillableTotals> billableTotals = new ConcurrentHashMap<>();
+        final AssetSummarizer assetSummarizer = new AssetSummarizer(summarizer, AssetSummaryCache.getInstance(),
+                PROCESSOR_KEY, (relPath, usage) -> recordBillableUsage(relPath, usage, billableTotals));
+
+        // Walk repo and stream eligible files through the bounded pipeline
         final AtomicInteger filesSeen = new AtomicInteger();
         final AtomicInteger codeSeen = new AtomicInteger();
         final AtomicInteger templateSeen = new AtomicInteger();
@@ -131,219 +449,328 @@ public class AIComponentProcessor implements ComponentProcessor {
         final AtomicInteger docSeen = new AtomicInteger();
         final AtomicInteger summarized = new AtomicInteger();
 
-        final Map<Path, String> assetCache = new ConcurrentHashMap<>();
-        final Map<String, BillableTotals> billableTotals = new ConcurrentHashMap<>();
-        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
-        final CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
-        final AtomicInteger tasksSubmitted = new AtomicInteger();
-        try {
-            Files.walkFileTree(repoRoot, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    if (Files.isSymbolicLink(dir)) {
-                        logger.debug("Skipping symlinked directory: {}", dir);
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    if (shouldSkipPath(dir, true, ingestionRules)) {
-                        logger.debug("Skipping directory: {}", dir);
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
-                    if (!attrs.isRegularFile()) {
-                        return FileVisitResult.CONTINUE;
-                    }
-                    if (Files.isSymbolicLink(path)) {
-                        logger.debug("Skipping symlinked file: {}", path);
-                        return FileVisitResult.CONTINUE;
-                    }
-                    if (shouldSkipPath(path, false, ingestionRules)) {
-                        logger.debug("Skipping file: {}", path);
-                        return FileVisitResult.CONTINUE;
-                    }
-
-                    final String relPath = repoRoot.relativize(path).toString();
-                    final String fileName = path.getFileName().toString();
-                    boolean isCode = isCodeFileOfInterest(path, ingestionRules);
-                    boolean isTemplate = isTemplateFileOfInterest(path, ingestionRules);
-                    boolean isConfig = isConfigFileOfInterest(path, ingestionRules);
-                    boolean isDocument = isDocumentFileOfInterest(path, ingestionRules);
-                    if (!isCode && !isTemplate && !isConfig && !isDocument) {
-                        return FileVisitResult.CONTINUE;
-                    }
-
-                    filesSeen.incrementAndGet();
-
-                    try {
-                        if (isTooLarge(path, ingestionRules)) {
-                            logger.debug("Skipping large file ({} bytes): {}", safeSize(path), relPath);
-                            AiEnrichmentPayload payload = new AiEnrichmentPayload();
-                            payload.setComponent(component.getName());
-                            payload.setSolution(solution.getName());
-                            payload.setFileNotes(List.of(new AiEnrichmentPayload.FileNote(relPath, "Skipped due to size limit")));
-                            listener.processLLMEnrichment(solution, component, relPath, payload);
-                            fileValidator.aiParseCompleted(solution.getName(), component.getName(), relPath, path.toFile());
-                            return FileVisitResult.CONTINUE;
+        final Map<Path, BundledFile> assetCache = new ConcurrentHashMap<>();
+        final SummarizationExecutor executor = SummarizationExecutor.create(
+                executionMode, SUMMARIZER_PROVIDER, concurrency, providerConcurrency);
+        final int summarizerPermits = executionMode == ExecutionMode.VIRTUAL_THREADS ? providerConcurrency : concurrency;
+        final AtomicInteger failures = new AtomicInteger();
+        final FilePipeline.ErrorHandler errorHandler = (stage, item, ex) -> {
+            failures.incrementAndGet();
+            String relPath = item instanceof FileTask task ? task.relPath : String.valueOf(item);
+            logger.error("AI summarization failed for {} ({}): {}", relPath, stage, ex.getMessage(), ex);
+            listener.error("AI summarization failed for " + relPath + ": " + ex.getMessage(), ex);
+        };
+
+        final FilePipeline<FileTask> pipeline = new FilePipeline<>(
+                pipelineLimits,
+                executor,
+                summarizerPermits,
+                path -> {
+                    FileTask task = classifyFile(repoRoot, component, solution, path, index);
+                    if (task != null) {
+                        filesSeen.incrementAndGet();
+                        if (task.payload == null) {
+                            switch (task.kind) {
+                                case CODE -> codeSeen.incrementAndGet();
+                                case TEMPLATE -> templateSeen.incrementAndGet();
+                                case CONFIG -> configSeen.incrementAndGet();
+                                case DOCUMENT -> docSeen.incrementAndGet();
+                            }
                         }
-
-                        if (isCode) {
-                            codeSeen.incrementAndGet();
-                            tasksSubmitted.incrementAndGet();
-                            completionService.submit(() -> {
-                                try {
-                                    processCodeFile(repoRoot, solution, component, listener, fileValidator, summarizer, path, billableTotals);
-                                    summarized.incrementAndGet();
-                                } catch (Exception ex) {
-                                    logger.error("AI summarization failed for {}: {}", relPath, ex.getMessage(), ex);
-                                    listener.error("AI summarization failed for " + relPath + ": " + ex.getMessage(), ex);
-                                }
-                                return null;
-                            });
-                            return FileVisitResult.CONTINUE;
-                        }
-                        if (isTemplate) {
-                            templateSeen.incrementAndGet();
-                            tasksSubmitted.incrementAndGet();
-                            completionService.submit(() -> {
-                                try {
-                                    processTemplateFile(repoRoot, solution, component, listener, fileValidator, summarizer, path, assetCache, billableTotals);
-                                    summarized.incrementAndGet();
-                                } catch (Exception ex) {
-                                    logger.error("AI summarization failed for {}: {}", relPath, ex.getMessage(), ex);
-                                    listener.error("AI summarization failed for " + relPath + ": " + ex.getMessage(), ex);
-                                }
-                                return null;
-                            });
-                            return FileVisitResult.CONTINUE;
-                        }
-                        if (isConfig) {
-                            configSeen.incrementAndGet();
-                            tasksSubmitted.incrementAndGet();
-                            completionService.submit(() -> {
-                                try {
-                                    processConfigFile(repoRoot, solution, component, listener, fileValidator, summarizer, path, fileName, billableTotals);
-                                    summarized.incrementAndGet();
-                                } catch (Exception ex) {
-                                    logger.error("AI summarization failed for {}: {}", relPath, ex.getMessage(), ex);
-                                    listener.error("AI summarization failed for " + relPath + ": " + ex.getMessage(), ex);
-                                }
-                                return null;
-                            });
-                            return FileVisitResult.CONTINUE;
+                    }
+                    return task;
+                },
+                task -> readFile(repoRoot, solution, component, fileValidator, task, assetCache, index, dependencies),
+                task -> task.batch != null
+                        ? summarizeBatch(solution, component, summarizer, chunkingSummarizer, assetSummarizer,
+                                batchSummarizer, errorHandler, task, billableTotals)
+                        : summarizeFile(solution, component, summarizer, chunkingSummarizer, assetSummarizer, task,
+                                billableTotals),
+                task -> {
+                    for (FileTask member : task.batch != null ? task.batch : List.of(task)) {
+                        deliverFile(solution, component, listener, fileValidator, member);
+                        if (member.dependencies != null) {
+                            dependencies.record(member.relPath, member.dependencies);
                         }
-                        if (isDocument) {
-                            docSeen.incrementAndGet();
-                            tasksSubmitted.incrementAndGet();
-                            completionService.submit(() -> {
-                                try {
-                                    processDocumentFile(repoRoot, solution, component, listener, fileValidator, summarizer, path, billableTotals);
-                                    summarized.incrementAndGet();
-                                } catch (Exception ex) {
-                                    logger.error("AI summarization failed for {}: {}", relPath, ex.getMessage(), ex);
-                                    listener.error("AI summarization failed for " + relPath + ": " + ex.getMessage(), ex);
-                                }
-                                return null;
-                            });
+                        if (!member.skipNote) {
+                            summarized.incrementAndGet();
                         }
-                    } catch (Exception ex) {
-                        logger.error("AI summarization failed for {}: {}", relPath, ex.getMessage(), ex);
-                        listener.error("AI summarization failed for " + relPath + ": " + ex.getMessage(), ex);
                     }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-
-            for (int i = 0; i < tasksSubmitted.get(); i++) {
-                try {
-                    Future<Void> future = completionService.take();
-                    future.get();
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Interrupted while waiting for file processing tasks.");
-                    break;
-                } catch (ExecutionException ex) {
-                    logger.error("File processing task failed: {}", ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage(), ex);
-                }
-            }
+                },
+                errorHandler);
+        pipeline.indexing(index);
+        if (batchingOptions.enabled() && !summarizer.supportsCompleteJson()) {
+            logger.info("Request batching is enabled but summarizer '{}' cannot send batched prompts; "
+                    + "sending one file per request", SUMMARIZER_PROVIDER);
+        } else if (batchingOptions.enabled()) {
+            pipeline.batching(new TokenBudgetBatcher<>(
+                    AIComponentProcessor::batchKey,
+                    task -> task.tokens,
+                    Math.min(batchingOptions.maxBatchTokens(), chunkingSummarizer.getChunkTokens()),
+                    batchingOptions.maxFileTokens(),
+                    key -> Math.min(batchingOptions.maxFilesPerBatch(),
+                            batchSummarizer.maxFilesPerRequest(key.startsWith("code:"))),
+                    FileTask::batchOf));
+        }
+        try {
+            FilePipeline.Stats stats = files != null
+                    ? pipeline.run(repoRoot, files, dir -> shouldSkipPath(dir, true, ingestionRules))
+                    : pipeline.run(repoRoot, dir -> shouldSkipPath(dir, true, ingestionRules));
 
             logger.info("AIComponentProcessor: Done. Files seen={}, eligible={}, summarized={}",
                     filesSeen.get(),
                     codeSeen.get() + templateSeen.get() + configSeen.get() + docSeen.get(),
                     summarized.get());
+            logger.info("File pipeline: walked={}, classified={}, read={}, summarized={}, delivered={}, failed={}, walkerBlockedMs={}",
+                    stats.walked(),
+                    stats.classified(),
+                    stats.read(),
+                    stats.summarized(),
+                    stats.delivered(),
+                    stats.failed(),
+                    stats.walkerBlockedMillis());
+            logger.info("Repository index: files={}, lookupsServed={}, diskStats={}",
+                    index.files(), index.hits(), index.diskStats());
             if (!billableTotals.isEmpty()) {
                 for (Map.Entry<String, BillableTotals> entry : billableTotals.entrySet()) {
                     BillableTotals totals = entry.getValue();
                     logger.info(
-                            "Billable usage summary [{}] files={}, input={}, output={}, cached={}, total={}",
+                            "Billable usage summary [{}] files={}, input={}, output={}, cached={}, total={}, "
+                                    + "promptCacheHitRatio={}, filesWithPromptCacheHit={}",
                             entry.getKey(),
                             totals.files.sum(),
                             totals.inputTokens.sum(),
                             totals.outputTokens.sum(),
                             totals.cachedTokens.sum(),
-                            totals.totalTokens.sum()
+                            totals.totalTokens.sum(),
+                            String.format("%.2f", totals.cacheHitRatio()),
+                            totals.cacheHitFiles.sum()
                     );
                 }
             }
-
+            batchSummarizer.logStats();
+            chunkingSummarizer.logStats();
+            assetSummarizer.logStats();
+            if (docSeen.get() > 0) {
+                DocumentExtractionService.getInstance().logStats();
+                ChunkSummaryCache.getInstance().logStats();
+            }
+            LlmResponseCache.getInstance().logStats();
+            RateLimiterRegistry.logMetrics();
+            return failures.get() == 0;
         } catch (IOException ioEx) {
             logger.error("Error traversing code base: {}", ioEx.getMessage(), ioEx);
             listener.error("Error traversing code base: " + ioEx.getMessage(), ioEx);
+            return false;
         } finally {
-            executor.shutdown();
+            if (pipeline.isCancelled()) {
+                executor.shutdownNow();
+            } else {
+                executor.close();
+            }
+            saveDependencies(dependencies);
         }
     }
 
     // ---------- Helpers ----------
 
-    static boolean isCodeFileOfInterest(Path p, IngestionRules rules) {
-        final String ext = extensionOf(p.getFileName().toString());
-        return rules.codeExtensions.contains(ext);
+    /** Changes git reports since the component's checkpoint; null when the full tree must be walked. */
+    private static ChangeSet changesSinceCheckpoint(Path repoRoot, String checkpointKey) {
+        IngestionCheckpoints.Checkpoint checkpoint = IngestionCheckpoints.getInstance().get(checkpointKey);
+        if (checkpoint == null) {
+            logger.info("No ingestion checkpoint for {}; walking the full tree", checkpointKey);
+            return null;
+        }
+        ChangeSet changes = GitChanges.since(repoRoot, checkpoint.commit(), checkpoint.dirtyPaths());
+        if (changes == null) {
+            logger.info("Checkpoint {} of {} is not usable; walking the full tree", checkpoint.commit(), checkpointKey);
+        }
+        return changes;
     }
 
-    static boolean isTemplateFileOfInterest(Path p, IngestionRules rules) {
-        final String ext = extensionOf(p.getFileName().toString());
-        return rules.templateExtensions.contains(ext);
+    /**
+     * For components outside version control: a stat-only walk compared with {@code previous}, the snapshot of
+     * the last clean run (may be null), hashing only files whose metadata changed. Null when the walk fails, in
+     * which case the pipeline walks.
+     */
+    private FileSnapshot takeSnapshot(Path repoRoot, FileSnapshot previous, RepositoryIndex index,
+                                      TemplateDependencyIndex dependencies) {
+        long started = System.nanoTime();
+        try {
+            FileSnapshot snapshot = FileSnapshot.scan(repoRoot,
+                    dir -> shouldSkipPath(dir, true, ingestionRules),
+                    file -> {
+                        Path relPath = repoRoot.relativize(file);
+                        FileClassifier.Decision decision = ingestionRules.classifier.classify(
+                                file.getFileName().toString(), relPath);
+                        return decision != FileClassifier.Decision.SKIP && decision != FileClassifier.Decision.IGNORE
+                                || dependencies.isDependency(relPath.toString());
+                    },
+                    pipelineLimits.walkerThreads(),
+                    pipelineLimits.readerThreads(),
+                    previous,
+                    index::recordFile);
+            logger.info("Snapshot of {}: files={}, hashed={}, previous={}, {} ms", repoRoot,
+                    snapshot.entries().size(), snapshot.hashed(), previous == null ? "none" : previous.entries().size(),
+                    (System.nanoTime() - started) / 1_000_000L);
+            return snapshot;
+        } catch (IOException e) {
+            logger.warn("Snapshot of {} failed; walking the full tree: {}", repoRoot, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
     }
 
-    static boolean isConfigFileOfInterest(Path p, IngestionRules rules) {
-        final String name = p.getFileName().toString();
-        if (rules.configFileNames.contains(name)) {
-            return true;
+    private static void recordCheckpoint(Path repoRoot, String checkpointKey, String head, FileSnapshot snapshot) {
+        if (head != null) {
+            IngestionCheckpoints.getInstance().put(checkpointKey,
+                    new IngestionCheckpoints.Checkpoint(head, GitChanges.dirtyPaths(repoRoot)));
+            return;
         }
-        if (name.startsWith(".env.")) {
-            return true;
+        try {
+            snapshot.save(FileSnapshot.fileFor(checkpointKey));
+        } catch (IOException e) {
+            logger.warn("Unable to save snapshot for {}: {}", checkpointKey, e.getMessage());
         }
-        final String ext = extensionOf(name);
-        return rules.configExtensions.contains(ext);
     }
 
-    static boolean isDocumentFileOfInterest(Path p, IngestionRules rules) {
-        final String ext = extensionOf(p.getFileName().toString());
-        return rules.documentExtensions.contains(ext);
-    }
+    /**
+     * An incremental run: the files to summarize, plus the renames and deletes of ingested files that
+     * {@link #applyStructuralChanges} propagates once the run's outcome is known. {@code deletes} also holds
+     * the old path of renames that are re-ingested instead of moved.
+     */
+    private record IncrementalPlan(List<Path> files, List<ChangeSet.Rename> renames, List<String> deletes) {}
 
-    static boolean shouldSkipPath(Path p, boolean isDirectory, IngestionRules rules) {
-        final String name = p.getFileName() != null ? p.getFileName().toString() : p.toString();
-        if (rules.skipHidden && name.startsWith(".")) {
-            if (isDirectory && rules.allowHiddenDirectories.contains(name)) {
-                return false;
+    /**
+     * The files to ingest for an incremental run: added and modified files, plus renames the listener cannot
+     * apply, plus the templates that bundle a changed, renamed or deleted partial or asset. Nothing is sent to
+     * the listener here, so a run that fails can be retried from the same change set.
+     */
+    private IncrementalPlan planIncrementalRun(Component component,
+                                               OntologyListener listener,
+                                               Path repoRoot,
+                                               TemplateDependencyIndex dependencies,
+                                               ChangeSet changes) {
+        boolean structural = listener instanceof IncrementalOntologyListener;
+        Set<String> toIngest = new LinkedHashSet<>(changes.changed());
+        List<ChangeSet.Rename> renames = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        int unpropagated = 0;
+        int dependents = 0;
+        Set<String> touched = new LinkedHashSet<>(changes.changed());
+        touched.addAll(changes.deleted());
+        for (ChangeSet.Rename rename : changes.renamed()) {
+            touched.add(rename.from());
+            touched.add(rename.to());
+        }
+        for (String path : touched) {
+            for (String template : dependencies.dependents(path)) {
+                if (toIngest.add(template)) {
+                    dependents++;
+                }
+            }
+        }
+        for (ChangeSet.Rename rename : changes.renamed()) {
+            if (!isIngestible(rename.from())) {
+                toIngest.add(rename.to());
+                continue;
+            }
+            if (!structural) {
+                unpropagated++;
+            } else if (isIngestible(rename.to()) && !rename.edited() && !toIngest.contains(rename.to())) {
+                renames.add(rename);
+                continue;
             }
-            return true;
+            deletes.add(rename.from());
+            toIngest.add(rename.to());
+        }
+        for (String path : changes.deleted()) {
+            if (isIngestible(path)) {
+                deletes.add(path);
+                if (!structural) {
+                    unpropagated++;
+                }
+            }
+        }
+        if (unpropagated > 0) {
+            logger.warn("{} renames/deletes in {} not propagated: listener is not an IncrementalOntologyListener",
+                    unpropagated, component.getName());
+        }
+
+        List<Path> files = new ArrayList<>(toIngest.size());
+        for (String path : toIngest) {
+            files.add(repoRoot.resolve(path));
         }
-        if (isDirectory) {
-            return rules.skipDirectoryNames.contains(name);
+        logger.info("Incremental run of {}: changed={}, renamed={}, deleted={}, templateDependents={}",
+                component.getName(), files.size(), renames.size(), structural ? deletes.size() : 0, dependents);
+        return new IncrementalPlan(files, renames, deletes);
+    }
+
+    /**
+     * Sends the plan's renames and deletes to an {@link IncrementalOntologyListener} and updates the template
+     * dependencies and validator to match. Called after the pipeline, and for checkpointed runs only when the
+     * checkpoint moves, so a failed run leaves them to be sent again with the next run's change set.
+     */
+    private void applyStructuralChanges(Solution solution,
+                                        Component component,
+                                        OntologyListener listener,
+                                        FileValidator fileValidator,
+                                        Path repoRoot,
+                                        TemplateDependencyIndex dependencies,
+                                        IncrementalPlan plan) {
+        if (plan.renames().isEmpty() && plan.deletes().isEmpty()) {
+            return;
         }
-        if (rules.skipFileNames.contains(name)) {
-            return true;
+        IncrementalOntologyListener structural = listener instanceof IncrementalOntologyListener l ? l : null;
+        for (ChangeSet.Rename rename : plan.renames()) {
+            structural.fileRenamed(solution, component, rename.from(), rename.to());
+            dependencies.rename(rename.from(), rename.to());
+            fileValidator.aiParseCompleted(solution.getName(), component.getName(), rename.to(),
+                    repoRoot.resolve(rename.to()).toFile());
         }
-        if (rules.skipMinified && (name.endsWith(".min.js") || name.endsWith(".min.css"))) {
-            return true;
+        for (String path : plan.deletes()) {
+            dependencies.remove(path);
+            if (structural != null) {
+                structural.fileDeleted(solution, component, path);
+            }
+        }
+        saveDependencies(dependencies);
+    }
+
+    /** Whether a full walk would hand {@code relPath} to a summarizer, judged by name only. */
+    private boolean isIngestible(String relPath) {
+        Path relative = Paths.get(relPath);
+        for (int i = 0; i < relative.getNameCount() - 1; i++) {
+            if (shouldSkipPath(relative.getName(i), true, ingestionRules)) {
+                return false;
+            }
         }
-        final String ext = extensionOf(name);
-        return rules.skipFileExtensions.contains(ext);
+        FileClassifier.Decision decision = ingestionRules.classifier.classify(
+                relative.getFileName().toString(), relative);
+        return decision != FileClassifier.Decision.SKIP && decision != FileClassifier.Decision.IGNORE;
+    }
+
+    static boolean isCodeFileOfInterest(Path p, IngestionRules rules) {
+        return (rules.classifier.extensionFlags(p.getFileName().toString()) & FileClassifier.CODE) != 0;
+    }
+
+    static boolean isTemplateFileOfInterest(Path p, IngestionRules rules) {
+        return (rules.classifier.extensionFlags(p.getFileName().toString()) & FileClassifier.TEMPLATE) != 0;
+    }
+
+    static boolean isConfigFileOfInterest(Path p, IngestionRules rules) {
+        return rules.classifier.isConfig(p.getFileName().toString());
+    }
+
+    static boolean isDocumentFileOfInterest(Path p, IngestionRules rules) {
+        return (rules.classifier.extensionFlags(p.getFileName().toString()) & FileClassifier.DOCUMENT) != 0;
+    }
+
+    static boolean shouldSkipPath(Path p, boolean isDirectory, IngestionRules rules) {
+        final String name = p.getFileName() != null ? p.getFileName().toString() : p.toString();
+        return isDirectory ? rules.classifier.skipDirectory(name) : rules.classifier.skipFile(name);
     }
 
     private static String languageFromExtension(Path p) {
@@ -387,184 +814,328 @@ public class AIComponentProcessor implements ComponentProcessor {
         return "unknown";
     }
 
-    private static String extensionOf(String name) {
-        int idx = name.lastIndexOf('.');
-        if (idx < 0) {
-            return "";
-        }
-        return name.substring(idx).toLowerCase();
+    /** {@code size} is -1 for files that could not be read, which are never too large. */
+    private static boolean isTooLarge(long size, long maxFileSizeBytes) {
+        return maxFileSizeBytes > 0 && size > maxFileSizeBytes;
     }
 
-    private static boolean isTooLarge(Path path, IngestionRules rules) {
-        if (rules.maxFileSizeBytes <= 0) {
-            return false;
-        }
-        try {
-            return Files.size(path) > rules.maxFileSizeBytes;
-        } catch (IOException e) {
-            logger.debug("Unable to read file size for {}: {}", path, e.getMessage());
-            return false;
+    /**
+     * Classifier stage: decides whether a walked file is of interest and of which kind.
+     * Oversized files short-circuit with a "skipped" note that goes straight to the listener.
+     */
+    private FileTask classifyFile(Path repoRoot, Component component, Solution solution, Path path, RepositoryIndex index) {
+        FileClassifier classifier = ingestionRules.classifier;
+        final FileKind kind = switch (classifier.classify(path.getFileName().toString(),
+                classifier.hasGlobs() ? repoRoot.relativize(path) : null)) {
+            case CODE -> FileKind.CODE;
+            case TEMPLATE -> FileKind.TEMPLATE;
+            case CONFIG -> FileKind.CONFIG;
+            case DOCUMENT -> FileKind.DOCUMENT;
+            case SKIP -> {
+                logger.debug("Skipping file: {}", path);
+                yield null;
+            }
+            case IGNORE -> null;
+        };
+        if (kind == null) {
+            return null;
         }
-    }
 
-    private static long safeSize(Path path) {
-        try {
-            return Files.size(path);
-        } catch (IOException e) {
-            return -1L;
+        FileTask task = new FileTask(path, repoRoot.relativize(path).toString(), kind);
+        boolean chunkable = kind == FileKind.CODE || kind == FileKind.DOCUMENT;
+        // Tabular files are profiled in bounded memory, so they get their own, larger limit.
+        boolean profiled = kind == FileKind.DOCUMENT && TabularProfiler.supports(path);
+        long size = index.size(path);
+        long limit = profiled ? maxProfiledFileSizeBytes
+                : chunkable ? Math.max(ingestionRules.maxFileSizeBytes, maxChunkedFileSizeBytes)
+                : ingestionRules.maxFileSizeBytes;
+        if (isTooLarge(size, limit)) {
+            logger.debug("Skipping large file ({} bytes): {}", size, task.relPath);
+            AiEnrichmentPayload payload = new AiEnrichmentPayload();
+            payload.setComponent(component.getName());
+            payload.setSolution(solution.getName());
+            payload.setFileNotes(List.of(new AiEnrichmentPayload.FileNote(task.relPath, "Skipped due to size limit")));
+            task.payload = payload;
+            task.skipNote = true;
         }
+        return task;
     }
 
-    private void processCodeFile(Path repoRoot,
-                                 Solution solution,
-                                 Component component,
-                                 OntologyListener listener,
-                                 FileValidator fileValidator,
-                                 OntologyMethodsSummarizer summarizer,
-                                 Path path,
-                                 Map<String, BillableTotals> billableTotals) throws Exception {
-        final String language = languageFromExtension(path);
-        final String relPath = repoRoot.relativize(path).toString();
-
+    /**
+     * Reader stage: eligibility check plus all file I/O and extraction, so summarizer slots only wait on the LLM.
+     */
+    private FileTask readFile(Path repoRoot,
+                              Solution solution,
+                              Component component,
+                              FileValidator fileValidator,
+                              FileTask task,
+                              Map<Path, BundledFile> assetCache,
+                              RepositoryIndex index,
+                              TemplateDependencyIndex dependencies) throws Exception {
+        if (task.payload != null) {
+            return task;
+        }
         boolean eligible = fileValidator.isEligibleForLLMProcessing(
-                solution.getName(), component.getName(), relPath, path.toFile());
+                solution.getName(), component.getName(), task.relPath, task.path.toFile());
+        if (!eligible && task.kind == FileKind.TEMPLATE
+                && dependencies.dependenciesChanged(task.relPath, repoRoot, index)) {
+            logger.info("Re-summarizing {}: a bundled partial or asset changed", task.relPath);
+            eligible = true;
+        }
         if (!eligible) {
-            logger.debug("Skipping (already summarized and unchanged): {}", relPath);
-            return;
+            logger.debug("Skipping (already summarized and unchanged): {}", task.relPath);
+            return null;
         }
 
-        logger.info("Summarizing [{}] {} :: {}", language, component.getName(), relPath);
-        final AiEnrichmentPayload payload = summarizer.summarizeCodeMethods(relPath, language, path.toFile());
-        if (payload == null) {
-            logger.warn("No enrichment returned for: {}", relPath);
-            return;
+        switch (task.kind) {
+            case CODE -> {
+                task.language = languageFromExtension(task.path);
+                task.content = Files.readString(task.path, StandardCharsets.UTF_8);
+                task.tokens = TokenEstimator.estimate(task.content);
+            }
+            case TEMPLATE -> {
+                task.language = templateLanguageFromExtension(task.path);
+                final String templateContent = Files.readString(task.path, StandardCharsets.UTF_8);
+                TemplateBundle bundle = buildTemplateBundle(repoRoot, task.path, templateContent, component.getName(), assetCache, index);
+                task.bundle = bundle;
+                task.relationships = bundle.relationships;
+                task.dependencies = bundle.dependencies;
+            }
+            case CONFIG -> {
+                task.content = Files.readString(task.path, StandardCharsets.UTF_8);
+                task.language = detectConfigType(task.path, task.path.getFileName().toString());
+                task.tokens = TokenEstimator.estimate(task.content);
+            }
+            case DOCUMENT -> {
+                try {
+                    task.document = DocumentExtractionService.getInstance().extract(task.path);
+                } catch (DocumentExtractionService.DocumentExtractionTimeoutException e) {
+                    AiEnrichmentPayload payload = new AiEnrichmentPayload();
+                    payload.setComponent(component.getName());
+                    payload.setSolution(solution.getName());
+                    payload.setFileNotes(List.of(new AiEnrichmentPayload.FileNote(task.relPath,
+                            "Skipped: document extraction timed out after "
+                                    + DocumentExtractionService.getInstance().getTimeout().toSeconds() + "s")));
+                    task.payload = payload;
+                    task.skipNote = true;
+                }
+            }
         }
-        payload.setComponent(component.getName());
-        payload.setSolution(solution.getName());
-        logBillableUsage(relPath, payload, billableTotals);
+        return task;
+    }
 
-        if (payload.getFunctionEnrichments() == null || payload.getFunctionEnrichments().isEmpty()) {
-            logger.warn("No enrichment returned for: {}", relPath);
-            return;
+    /**
+     * Summarizer stage: one LLM call per file (or per chunk). Returns null when nothing should reach the listener.
+     */
+    private FileTask summarizeFile(Solution solution,
+                                   Component component,
+                                   OntologyMethodsSummarizer summarizer,
+                                   ChunkingSummarizer chunkingSummarizer,
+                                   AssetSummarizer assetSummarizer,
+                                   FileTask task,
+                                   Map<String, BillableTotals> billableTotals) throws Exception {
+        if (task.payload != null) {
+            return task;
         }
-        listener.processLLMEnrichment(solution, component, relPath, payload);
-        fileValidator.aiParseCompleted(solution.getName(), component.getName(), relPath, path.toFile());
-        logger.info("AI summarization recorded for: {}", relPath);
-    }
-
-    private void processTemplateFile(Path repoRoot,
-                                     Solution solution,
-                                     Component component,
-                                     OntologyListener listener,
-                                     FileValidator fileValidator,
-                                     OntologyMethodsSummarizer summarizer,
-                                     Path path,
-                                     Map<Path, String> assetCache,
-                                     Map<String, BillableTotals> billableTotals) throws Exception {
-        final String relPath = repoRoot.relativize(path).toString();
-        boolean eligible = fileValidator.isEligibleForLLMProcessing(
-                solution.getName(), component.getName(), relPath, path.toFile());
-        if (!eligible) {
-            logger.debug("Skipping (already summarized and unchanged): {}", relPath);
-            return;
+        final String relPath = task.relPath;
+        final AiEnrichmentPayload payload = switch (task.kind) {
+            case CODE -> {
+                logger.info("Summarizing [{}] {} :: {}", task.language, component.getName(), relPath);
+                yield chunkingSummarizer.summarizeCode(relPath, task.language, task.content);
+            }
+            case TEMPLATE -> {
+                // Without free-form prompts no asset can be summarized, so every bundle is sent inlined.
+                task.content = assetSummarizer.render(task.bundle.header, task.bundle.headerTokens,
+                        task.bundle.parts, summarizer.supportsCompleteJson() ? templateBundleTokenBudget : 0);
+                task.bundle = null;
+                yield summarizer.summarizeGuiTemplate(relPath, task.language, task.content);
+            }
+            case CONFIG -> summarizer.summarizeConfigTemplate(relPath, task.language, task.content);
+            case DOCUMENT -> chunkingSummarizer.summarizeDocument(
+                    relPath,
+                    task.document.docType(),
+                    task.document.title(),
+                    task.document.datetime(),
+                    task.document.extractedText()
+            );
+        };
+        return completeTask(solution, component, task, payload, billableTotals);
+    }
+
+    /**
+     * Batch key for {@link TokenBudgetBatcher}: small code files of one language, or config files.
+     * Templates and documents carry their own context and are always summarized alone.
+     */
+    private static String batchKey(FileTask task) {
+        if (task.payload != null) {
+            return null;
+        }
+        return switch (task.kind) {
+            case CODE -> "code:" + task.language;
+            case CONFIG -> "config";
+            default -> null;
+        };
+    }
+
+    /**
+     * Summarizer stage for a batch: one LLM call for every member. Members the response does not cover,
+     * or every member if the batched call fails, are summarized one by one instead.
+     */
+    private FileTask summarizeBatch(Solution solution,
+                                    Component component,
+                                    OntologyMethodsSummarizer summarizer,
+                                    ChunkingSummarizer chunkingSummarizer,
+                                    AssetSummarizer assetSummarizer,
+                                    BatchSummarizer batchSummarizer,
+                                    FilePipeline.ErrorHandler errorHandler,
+                                    FileTask batch,
+                                    Map<String, BillableTotals> billableTotals) {
+        List<BatchSummarizer.BatchFile> files = new ArrayList<>(batch.batch.size());
+        for (FileTask member : batch.batch) {
+            files.add(new BatchSummarizer.BatchFile(member.relPath, member.language, member.content));
+        }
+        logger.info("Summarizing batch of {} {} files [{}] {}", files.size(),
+                batch.kind == FileKind.CODE ? batch.language : "config", component.getName(), batch.relPath);
+        Map<String, AiEnrichmentPayload> results;
+        try {
+            results = batch.kind == FileKind.CODE
+                    ? batchSummarizer.summarizeCode(batch.language, files)
+                    : batchSummarizer.summarizeConfig(files);
+        } catch (Exception e) {
+            logger.warn("Batched request for {} failed, summarizing {} files individually: {}",
+                    batch.relPath, files.size(), e.getMessage());
+            results = Map.of();
         }
 
-        final String language = templateLanguageFromExtension(path);
-        final String templateContent = Files.readString(path, StandardCharsets.UTF_8);
-        TemplateBundle bundle = buildTemplateBundle(repoRoot, path, templateContent, component.getName(), assetCache);
+        List<FileTask> completed = new ArrayList<>(batch.batch.size());
+        for (FileTask member : batch.batch) {
+            AiEnrichmentPayload payload = results.get(member.relPath);
+            try {
+                FileTask done = payload != null
+                        ? completeTask(solution, component, member, payload, billableTotals)
+                        : summarizeFile(solution, component, summarizer, chunkingSummarizer, assetSummarizer,
+                                member, billableTotals);
+                if (done != null) {
+                    completed.add(done);
+                }
+            } catch (Exception e) {
+                errorHandler.onError("summarize", member, e);
+            }
+        }
+        if (completed.isEmpty()) {
+            return null;
+        }
+        batch.batch = completed;
+        return batch;
+    }
 
-        AiEnrichmentPayload payload = summarizer.summarizeGuiTemplate(relPath, language, bundle.bundleText);
+    /**
+     * Attaches a summarizer result to its task: stamps solution/component, records billable usage and
+     * drops empty code enrichments. Returns null when nothing should reach the listener.
+     */
+    private static FileTask completeTask(Solution solution,
+                                         Component component,
+                                         FileTask task,
+                                         AiEnrichmentPayload payload,
+                                         Map<String, BillableTotals> billableTotals) {
+        final String relPath = task.relPath;
+        // Release the file contents before the task waits in the result queue.
+        task.content = null;
+        task.bundle = null;
+        task.document = null;
         if (payload == null) {
             logger.warn("No enrichment returned for: {}", relPath);
-            return;
+            return null;
         }
         payload.setComponent(component.getName());
         payload.setSolution(solution.getName());
-        if (!bundle.relationships.isEmpty()) {
-            payload.setFileRelationships(bundle.relationships);
+        if (task.kind == FileKind.TEMPLATE && !task.relationships.isEmpty()) {
+            payload.setFileRelationships(task.relationships);
         }
         logBillableUsage(relPath, payload, billableTotals);
 
-        listener.processLLMEnrichment(solution, component, relPath, payload);
-        fileValidator.aiParseCompleted(solution.getName(), component.getName(), relPath, path.toFile());
-        logger.info("AI template summarization recorded for: {}", relPath);
+        if (task.kind == FileKind.CODE
+                && (payload.getFunctionEnrichments() == null || payload.getFunctionEnrichments().isEmpty())) {
+            logger.warn("No enrichment returned for: {}", relPath);
+            return null;
+        }
+        task.payload = payload;
+        return task;
     }
 
-    private void processConfigFile(Path repoRoot,
-                                   Solution solution,
-                                   Component component,
-                                   OntologyListener listener,
-                                   FileValidator fileValidator,
-                                   OntologyMethodsSummarizer summarizer,
-                                   Path path,
-                                   String fileName,
-                                   Map<String, BillableTotals> billableTotals) throws Exception {
-        final String relPath = repoRoot.relativize(path).toString();
-        boolean eligible = fileValidator.isEligibleForLLMProcessing(
-                solution.getName(), component.getName(), relPath, path.toFile());
-        if (!eligible) {
-            logger.debug("Skipping (already summarized and unchanged): {}", relPath);
+    /**
+     * Listener stage: single-threaded hand-off to the ontology listener and the file validator.
+     */
+    private static void deliverFile(Solution solution,
+                                    Component component,
+                                    OntologyListener listener,
+                                    FileValidator fileValidator,
+                                    FileTask task) {
+        listener.processLLMEnrichment(solution, component, task.relPath, task.payload);
+        fileValidator.aiParseCompleted(solution.getName(), component.getName(), task.relPath, task.path.toFile());
+        if (task.skipNote) {
             return;
         }
-
-        final String content = Files.readString(path, StandardCharsets.UTF_8);
-        final String detectedType = detectConfigType(path, fileName);
-        AiEnrichmentPayload payload = summarizer.summarizeConfigTemplate(relPath, detectedType, content);
-        if (payload == null) {
-            logger.warn("No enrichment returned for: {}", relPath);
-            return;
+        switch (task.kind) {
+            case CODE -> logger.info("AI summarization recorded for: {}", task.relPath);
+            case TEMPLATE -> logger.info("AI template summarization recorded for: {}", task.relPath);
+            case CONFIG -> logger.info("AI config summarization recorded for: {}", task.relPath);
+            case DOCUMENT -> logger.info("AI document summarization recorded for: {}", task.relPath);
         }
-        payload.setComponent(component.getName());
-        payload.setSolution(solution.getName());
-        logBillableUsage(relPath, payload, billableTotals);
-        listener.processLLMEnrichment(solution, component, relPath, payload);
-        fileValidator.aiParseCompleted(solution.getName(), component.getName(), relPath, path.toFile());
-        logger.info("AI config summarization recorded for: {}", relPath);
-    }
-
-    private void processDocumentFile(Path repoRoot,
-                                     Solution solution,
-                                     Component component,
-                                     OntologyListener listener,
-                                     FileValidator fileValidator,
-                                     OntologyMethodsSummarizer summarizer,
-                                     Path path,
-                                     Map<String, BillableTotals> billableTotals) throws Exception {
-        final String relPath = repoRoot.relativize(path).toString();
-        boolean eligible = fileValidator.isEligibleForLLMProcessing(
-                solution.getName(), component.getName(), relPath, path.toFile());
-        if (!eligible) {
-            logger.debug("Skipping (already summarized and unchanged): {}", relPath);
-            return;
+    }
+
+    private enum FileKind { CODE, TEMPLATE, CONFIG, DOCUMENT }
+
+    /**
+     * A file travelling through the pipeline; each stage fills in the fields the next one needs.
+     */
+    private static final class FileTask {
+        private final Path path;
+        private final String relPath;
+        private final FileKind kind;
+        private String language;
+        private String content;
+        /** Templates only: rendered into {@code content} by the summarizer stage, within the token budget. */
+        private TemplateBundle bundle;
+        private DocumentExtractor.DocumentExtraction document;
+        private List<AiEnrichmentPayload.Edge> relationships = List.of();
+        /** Templates only: what the bundle inlined, recorded once the summary is delivered. */
+        private List<TemplateDependencyIndex.Dependency> dependencies;
+        private AiEnrichmentPayload payload;
+        private boolean skipNote;
+        private int tokens;
+        /** Set on a batch task only: the files it stands for, delivered one by one. */
+        private List<FileTask> batch;
+
+        private FileTask(Path path, String relPath, FileKind kind) {
+            this.path = path;
+            this.relPath = relPath;
+            this.kind = kind;
         }
 
-        DocumentExtractor.DocumentExtraction extracted = DocumentExtractor.extract(path);
-        AiEnrichmentPayload payload = summarizer.summarizeDocument(
-                relPath,
-                extracted.docType(),
-                extracted.title(),
-                extracted.datetime(),
-                extracted.extractedText()
-        );
-        if (payload == null) {
-            logger.warn("No enrichment returned for: {}", relPath);
-            return;
+        private static FileTask batchOf(List<FileTask> members) {
+            FileTask first = members.get(0);
+            FileTask batch = new FileTask(first.path, first.relPath + " (+" + (members.size() - 1) + " batched)", first.kind);
+            batch.language = first.language;
+            batch.batch = new ArrayList<>(members);
+            for (FileTask member : members) {
+                batch.tokens += member.tokens;
+            }
+            return batch;
         }
-        payload.setComponent(component.getName());
-        payload.setSolution(solution.getName());
-        logBillableUsage(relPath, payload, billableTotals);
-        listener.processLLMEnrichment(solution, component, relPath, payload);
-        fileValidator.aiParseCompleted(solution.getName(), component.getName(), relPath, path.toFile());
-        logger.info("AI document summarization recorded for: {}", relPath);
     }
 
     private static void logBillableUsage(String relPath,
                                          AiEnrichmentPayload payload,
                                          Map<String, BillableTotals> billableTotals) {
-        if (payload == null || payload.getBillableUsage() == null) {
-            return;
+        if (payload != null && payload.getBillableUsage() != null) {
+            recordBillableUsage(relPath, payload.getBillableUsage(), billableTotals);
         }
-        AiEnrichmentPayload.BillableUsage usage = payload.getBillableUsage();
+    }
+
+    private static void recordBillableUsage(String relPath,
+                                            AiEnrichmentPayload.BillableUsage usage,
+                                            Map<String, BillableTotals> billableTotals) {
         if (usage.getFilePath() == null || usage.getFilePath().isBlank()) {
             usage.setFilePath(relPath);
         }
@@ -592,6 +1163,7 @@ public class AIComponentProcessor implements ComponentProcessor {
         private final LongAdder outputTokens = new LongAdder();
         private final LongAdder cachedTokens = new LongAdder();
         private final LongAdder totalTokens = new LongAdder();
+        private final LongAdder cacheHitFiles = new LongAdder();
 
         private void add(AiEnrichmentPayload.BillableUsage usage) {
             files.increment();
@@ -599,6 +1171,15 @@ public class AIComponentProcessor implements ComponentProcessor {
             outputTokens.add(usage.getOutputTokens());
             cachedTokens.add(usage.getCachedTokens());
             totalTokens.add(usage.getTotalTokens());
+            if (usage.getCachedTokens() > 0) {
+                cacheHitFiles.increment();
+            }
+        }
+
+        /** Share of input tokens served from the provider's prompt cache. */
+        private double cacheHitRatio() {
+            long input = inputTokens.sum();
+            return input == 0 ? 0.0 : (double) cachedTokens.sum() / input;
         }
     }
 
@@ -617,71 +1198,96 @@ public class AIComponentProcessor implements ComponentProcessor {
                                                Path templatePath,
                                                String templateContent,
                                                String componentName,
-                                               Map<Path, String> assetCache) {
+                                               Map<Path, BundledFile> assetCache,
+                                               RepositoryIndex index) {
         String relPath = repoRoot.relativize(templatePath).toString();
-        StringBuilder bundle = new StringBuilder();
-        bundle.append("=== TEMPLATE: ").append(relPath).append(" ===\n");
-        bundle.append(templateContent).append("\n");
+        String header = "=== TEMPLATE: " + relPath + " ===\n" + templateContent + "\n";
+        List<AssetSummarizer.Part> parts = new ArrayList<>();
 
         List<AiEnrichmentPayload.Edge> relationships = new ArrayList<>();
-        List<String> assetRefs = extractAssetReferences(templateContent);
+        List<TemplateDependencyIndex.Dependency> dependencies = new ArrayList<>();
+        Set<Path> bundled = new HashSet<>();
 
-        for (String rawRef : assetRefs) {
+        for (TemplateReferenceScanner.Reference reference : TemplateReferenceScanner.scan(templateContent)) {
+            String rawRef = reference.target();
             String cleanedRef = sanitizeAssetRef(rawRef);
             if (cleanedRef.isEmpty() || looksDynamic(cleanedRef)) {
                 continue;
             }
+            boolean include = reference.kind() == TemplateReferenceScanner.Kind.INCLUDE;
 
-            Path resolved = resolveAssetPath(repoRoot, templatePath, cleanedRef);
-            if (resolved == null) {
+            Path resolved = include
+                    ? resolveIncludePath(repoRoot, templatePath, cleanedRef, index)
+                    : resolveAssetPath(repoRoot, templatePath, cleanedRef);
+            if (include && resolved == null) {
+                relationships.add(buildRelationship(componentName, relPath, cleanedRef,
+                        "TEMPLATE_MISSING_INCLUDE",
+                        "Included template not found: " + rawRef));
+                continue;
+            }
+            if (resolved == null || resolved.equals(templatePath)) {
                 continue;
             }
             if (shouldSkipPath(resolved, false, ingestionRules)) {
                 continue;
             }
-            if (isTooLarge(resolved, ingestionRules)) {
+            RepositoryIndex.FileInfo asset = index.stat(resolved);
+            String edgeType = include ? "TEMPLATE_INCLUDES_TEMPLATE" : "TEMPLATE_REFERENCES_ASSET";
+            String edgeDescription = (include ? "Included template: " : "Referenced asset: ") + rawRef;
+            boolean bundleable = include ? isTemplateFileOfInterest(resolved, ingestionRules) : isStaticAsset(resolved, ingestionRules);
+            String dependencyPath = repoRoot.relativize(resolved).toString();
+
+            if (asset != null && isTooLarge(asset.size(), ingestionRules.maxFileSizeBytes)) {
+                if (bundleable && bundled.add(resolved)) {
+                    dependencies.add(new TemplateDependencyIndex.Dependency(
+                            dependencyPath, asset.size(), asset.lastModifiedMillis(), 0));
+                }
                 relationships.add(buildRelationship(componentName, relPath, cleanedRef,
                         "TEMPLATE_ASSET_SKIPPED",
                         "Referenced asset skipped due to size limit"));
                 continue;
             }
 
-            if (!Files.exists(resolved)) {
+            if (asset == null) {
+                if (bundleable && bundled.add(resolved)) {
+                    dependencies.add(TemplateDependencyIndex.Dependency.missing(dependencyPath));
+                }
                 relationships.add(buildRelationship(componentName, relPath, cleanedRef,
                         "TEMPLATE_MISSING_ASSET",
                         "Referenced asset not found: " + rawRef));
                 continue;
             }
 
-            if (!isStaticAsset(resolved, ingestionRules)) {
-                relationships.add(buildRelationship(componentName, relPath, cleanedRef,
-                        "TEMPLATE_REFERENCES_ASSET",
-                        "Referenced asset: " + rawRef));
+            if (!bundleable || !bundled.add(resolved)) {
+                relationships.add(buildRelationship(componentName, relPath, cleanedRef, edgeType, edgeDescription));
                 continue;
             }
 
-            String assetContent = assetCache.computeIfAbsent(resolved, p -> {
+            BundledFile bundledFile = assetCache.computeIfAbsent(resolved, p -> {
                 try {
-                    return Files.readString(p, StandardCharsets.UTF_8);
+                    String content = Files.readString(p, StandardCharsets.UTF_8);
+                    // A successful strict UTF-8 decode re-encodes to the same bytes, so this is the file's CRC.
+                    CRC32C crc = new CRC32C();
+                    crc.update(content.getBytes(StandardCharsets.UTF_8));
+                    return new BundledFile(content, TokenEstimator.estimate(content), new TemplateDependencyIndex.Dependency(
+                            dependencyPath, asset.size(), asset.lastModifiedMillis(), (int) crc.getValue()));
                 } catch (IOException e) {
                     return null;
                 }
             });
-            if (assetContent == null) {
+            if (bundledFile == null) {
                 relationships.add(buildRelationship(componentName, relPath, cleanedRef,
                         "TEMPLATE_ASSET_READ_ERROR",
                         "Referenced asset could not be read: " + rawRef));
                 continue;
             }
 
-            bundle.append("\n=== ASSET: ").append(repoRoot.relativize(resolved)).append(" ===\n");
-            bundle.append(assetContent).append("\n");
-            relationships.add(buildRelationship(componentName, relPath, cleanedRef,
-                    "TEMPLATE_REFERENCES_ASSET",
-                    "Referenced asset: " + rawRef));
+            dependencies.add(bundledFile.fingerprint());
+            parts.add(new AssetSummarizer.Part(dependencyPath, !include, bundledFile.content(), bundledFile.tokens()));
+            relationships.add(buildRelationship(componentName, relPath, cleanedRef, edgeType, edgeDescription));
         }
 
-        return new TemplateBundle(bundle.toString(), relationships);
+        return new TemplateBundle(header, TokenEstimator.estimate(header), parts, relationships, dependencies);
     }
 
     private static AiEnrichmentPayload.Edge buildRelationship(String componentName,
@@ -716,33 +1322,23 @@ public class AIComponentProcessor implements ComponentProcessor {
         return normalized;
     }
 
-    private static List<String> extractAssetReferences(String content) {
-        if (content == null || content.isEmpty()) {
-            return Collections.emptyList();
-        }
-        List<String> results = new ArrayList<>();
-        Matcher scripts = SCRIPT_SRC.matcher(content);
-        while (scripts.find()) {
-            results.add(scripts.group(1));
-        }
-        Matcher links = LINK_TAG.matcher(content);
-        while (links.find()) {
-            String tag = links.group(0);
-            if (tag.toLowerCase().contains("rel=\"stylesheet\"") || tag.toLowerCase().contains("rel='stylesheet'")) {
-                String href = extractAttribute(tag, "href");
-                if (href != null) {
-                    results.add(href);
+    /**
+     * Include directives name templates relative to a template root (Thymeleaf/Jinja loaders, the JSP web root)
+     * rather than to the including file, so the name is tried against the template's directory and each of its
+     * ancestors up to the repository root; the nearest existing file wins.
+     */
+    static Path resolveIncludePath(Path repoRoot, Path templatePath, String includeRef, RepositoryIndex index) {
+        String name = includeRef.startsWith("/") ? includeRef.substring(1) : includeRef;
+        Path dir = templatePath.getParent();
+        while (dir != null && dir.startsWith(repoRoot)) {
+            Path candidate = dir.resolve(name).normalize();
+            if (candidate.startsWith(repoRoot)) {
+                RepositoryIndex.FileInfo info = index.stat(candidate);
+                if (info != null && !info.directory()) {
+                    return candidate;
                 }
             }
-        }
-        return results;
-    }
-
-    private static String extractAttribute(String tag, String attr) {
-        Pattern p = Pattern.compile(attr + "\\s*=\\s*[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-        Matcher m = p.matcher(tag);
-        if (m.find()) {
-            return m.group(1);
+            dir = dir.equals(repoRoot) ? null : dir.getParent();
         }
         return null;
     }
@@ -771,18 +1367,7 @@ public class AIComponentProcessor implements ComponentProcessor {
     }
 
     private static boolean isStaticAsset(Path path, IngestionRules rules) {
-        String ext = extensionOf(path.getFileName().toString());
-        return rules.staticAssetExtensions.contains(ext);
-    }
-
-    private static String sha256Hex(String s) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] d = md.digest(s.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(d);
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to compute SHA-256", e);
-        }
+        return (rules.classifier.extensionFlags(path.getFileName().toString()) & FileClassifier.STATIC_ASSET) != 0;
     }
 
     /**
@@ -805,19 +1390,31 @@ public class AIComponentProcessor implements ComponentProcessor {
         }
     }
 
-    private static final Pattern SCRIPT_SRC = Pattern.compile("<script[^>]*\\ssrc\\s*=\\s*[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-    private static final Pattern LINK_TAG = Pattern.compile("<link[^>]*>", Pattern.CASE_INSENSITIVE);
-
     private static final class TemplateBundle {
-        private final String bundleText;
+        /** The template's own section; the parts follow it, as source or asset summary. */
+        private final String header;
+        private final int headerTokens;
+        private final List<AssetSummarizer.Part> parts;
         private final List<AiEnrichmentPayload.Edge> relationships;
-
-        private TemplateBundle(String bundleText, List<AiEnrichmentPayload.Edge> relationships) {
-            this.bundleText = bundleText;
+        /** The partials and assets inlined, or looked for, with their fingerprints. */
+        private final List<TemplateDependencyIndex.Dependency> dependencies;
+
+        private TemplateBundle(String header,
+                               int headerTokens,
+                               List<AssetSummarizer.Part> parts,
+                               List<AiEnrichmentPayload.Edge> relationships,
+                               List<TemplateDependencyIndex.Dependency> dependencies) {
+            this.header = header;
+            this.headerTokens = headerTokens;
+            this.parts = parts;
             this.relationships = relationships;
+            this.dependencies = dependencies;
         }
     }
 
+    /** A partial or asset read once per run, shared by every template that bundles it. */
+    private record BundledFile(String content, int tokens, TemplateDependencyIndex.Dependency fingerprint) {}
+
     static final class IngestionRules {
         final Set<String> codeExtensions;
         final Set<String> templateExtensions;
@@ -832,6 +1429,9 @@ public class AIComponentProcessor implements ComponentProcessor {
         final boolean skipHidden;
         final boolean skipMinified;
         final long maxFileSizeBytes;
+        final List<String> includeGlobs;
+        final List<String> excludeGlobs;
+        final FileClassifier classifier;
 
         private IngestionRules(Set<String> codeExtensions,
                                Set<String> templateExtensions,
@@ -845,7 +1445,9 @@ public class AIComponentProcessor implements ComponentProcessor {
                                Set<String> configFileNames,
                                boolean skipHidden,
                                boolean skipMinified,
-                               long maxFileSizeBytes) {
+                               long maxFileSizeBytes,
+                               List<String> includeGlobs,
+                               List<String> excludeGlobs) {
             this.codeExtensions = codeExtensions;
             this.templateExtensions = templateExtensions;
             this.staticAssetExtensions = staticAssetExtensions;
@@ -859,6 +1461,18 @@ public class AIComponentProcessor implements ComponentProcessor {
             this.skipHidden = skipHidden;
             this.skipMinified = skipMinified;
             this.maxFileSizeBytes = maxFileSizeBytes;
+            this.includeGlobs = includeGlobs == null ? List.of() : List.copyOf(includeGlobs);
+            this.excludeGlobs = excludeGlobs == null ? List.of() : List.copyOf(excludeGlobs);
+            this.classifier = new FileClassifier(codeExtensions, templateExtensions, staticAssetExtensions,
+                    configExtensions, documentExtensions, skipFileExtensions, skipDirectoryNames, skipFileNames,
+                    allowHiddenDirectories, configFileNames, skipHidden, skipMinified,
+                    this.includeGlobs, this.excludeGlobs);
+        }
+
+        IngestionRules withGlobs(List<String> includeGlobs, List<String> excludeGlobs) {
+            return new IngestionRules(codeExtensions, templateExtensions, staticAssetExtensions, configExtensions,
+                    documentExtensions, skipDirectoryNames, skipFileNames, skipFileExtensions, allowHiddenDirectories,
+                    configFileNames, skipHidden, skipMinified, maxFileSizeBytes, includeGlobs, excludeGlobs);
         }
 
         static IngestionRules fromConfig(FileIngestionConfig config) {
@@ -877,7 +1491,9 @@ public class AIComponentProcessor implements ComponentProcessor {
                     toSet(cfg.getConfigFileNames() != null ? cfg.getConfigFileNames() : defaults.getConfigFileNames()),
                     cfg.isSkipHidden(),
                     cfg.isSkipMinified(),
-                    cfg.getMaxFileSizeBytes() > 0 ? cfg.getMaxFileSizeBytes() : defaults.getMaxFileSizeBytes()
+                    cfg.getMaxFileSizeBytes() > 0 ? cfg.getMaxFileSizeBytes() : defaults.getMaxFileSizeBytes(),
+                    List.of(),
+                    List.of()
             );
         }
 
@@ -0,0 +1,200 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.chunking.TokenEstimator;
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
+import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonObjectScanner;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForStaticAssets;
+import org.manishsharan.madladlabs.genai.summarizers.ai.TemplateRenderer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Renders template bundles within a token budget by replacing the largest static assets with a summary of
+ * their own. Each asset is summarized once per content: templates of one run that share it wait for the same
+ * call, and later runs find it in the {@link AssetSummaryCache}. A bundle within budget is sent as before,
+ * with every asset inlined; partials and the template itself are always inlined.
+ *
+ * An asset whose summary cannot be produced is inlined, and is not retried within the run.
+ */
+final class AssetSummarizer {
+    private static final Logger logger = LogManager.getLogger(AssetSummarizer.class);
+    /** Assets smaller than this are cheaper to inline than to describe. */
+    static final int MIN_ASSET_TOKENS = 1_000;
+
+    /** A file of a template bundle, in reference order; {@code asset} is false for included partials. */
+    record Part(String relPath, boolean asset, String content, int tokens) {}
+
+    private final OntologyMethodsSummarizer delegate;
+    private final AssetSummaryCache cache;
+    private final String summarizerKey;
+    private final BiConsumer<String, AiEnrichmentPayload.BillableUsage> usageListener;
+    private final Map<String, CompletableFuture<String>> summaries = new ConcurrentHashMap<>();
+
+    private final LongAdder summarized = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder substitutions = new LongAdder();
+    private final LongAdder tokensReplaced = new LongAdder();
+    private final LongAdder summaryTokens = new LongAdder();
+    private final LongAdder inputTokens = new LongAdder();
+    private final LongAdder outputTokens = new LongAdder();
+
+    AssetSummarizer(OntologyMethodsSummarizer delegate, AssetSummaryCache cache, String summarizerKey) {
+        this(delegate, cache, summarizerKey, (relPath, usage) -> {});
+    }
+
+    /**
+     * @param summarizerKey identifies the provider in cache keys, so summaries are not shared across models
+     * @param usageListener receives the asset path and billable usage of every summary call
+     */
+    AssetSummarizer(OntologyMethodsSummarizer delegate, AssetSummaryCache cache, String summarizerKey,
+                    BiConsumer<String, AiEnrichmentPayload.BillableUsage> usageListener) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.summarizerKey = summarizerKey == null ? "" : summarizerKey;
+        this.usageListener = usageListener;
+    }
+
+    /**
+     * The bundle text for a template: {@code header} (the template itself) followed by every part. When the
+     * estimate exceeds {@code tokenBudget}, assets are summarized largest first until it fits; 0 disables this.
+     */
+    String render(String header, int headerTokens, List<Part> parts, int tokenBudget) throws InterruptedException {
+        long total = headerTokens;
+        for (Part part : parts) {
+            total += part.tokens();
+        }
+        String[] replacements = new String[parts.size()];
+        if (tokenBudget > 0 && total > tokenBudget) {
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 0; i < parts.size(); i++) {
+                if (parts.get(i).asset() && parts.get(i).tokens() >= MIN_ASSET_TOKENS) {
+                    candidates.add(i);
+                }
+            }
+            candidates.sort(Comparator.comparingInt((Integer i) -> parts.get(i).tokens()).reversed());
+            for (int i : candidates) {
+                if (total <= tokenBudget) {
+                    break;
+                }
+                Part part = parts.get(i);
+                String summary = summarize(part.relPath(), part.content());
+                int tokens = summary == null ? Integer.MAX_VALUE : TokenEstimator.estimate(summary);
+                if (tokens < part.tokens()) {
+                    replacements[i] = summary;
+                    total -= part.tokens() - tokens;
+                    substitutions.increment();
+                    tokensReplaced.add(part.tokens());
+                    summaryTokens.add(tokens);
+                }
+            }
+        }
+
+        StringBuilder bundle = new StringBuilder(header);
+        for (int i = 0; i < parts.size(); i++) {
+            Part part = parts.get(i);
+            if (replacements[i] != null) {
+                bundle.append("\n=== ASSET SUMMARY: ").append(part.relPath())
+                        .append(" (source omitted, ~").append(part.tokens()).append(" tokens) ===\n")
+                        .append(replacements[i]).append("\n");
+            } else {
+                bundle.append(part.asset() ? "\n=== ASSET: " : "\n=== PARTIAL: ").append(part.relPath()).append(" ===\n")
+                        .append(part.content()).append("\n");
+            }
+        }
+        return bundle.toString();
+    }
+
+    /** The summary of an asset with this content, or null if none could be produced. */
+    String summarize(String relPath, String content) throws InterruptedException {
+        String key = AssetSummaryCache.keyFor(summarizerKey, content);
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = summaries.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                String summary = running.get();
+                if (summary != null) {
+                    reused.increment();
+                }
+                return summary;
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+        String summary = null;
+        try {
+            AssetSummaryCache.AssetSummary cached = cache.get(key);
+            if (cached != null) {
+                reused.increment();
+                summary = cached.summary();
+            } else {
+                AssetSummaryCache.AssetSummary fresh = complete(relPath, content);
+                if (fresh.summary() != null) {
+                    summarized.increment();
+                    summary = fresh.summary();
+                    cache.put(key, fresh);
+                }
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Unable to summarize asset {}; inlining its source: {}", relPath, e.getMessage());
+        } finally {
+            if (summary == null) {
+                failed.increment();
+            }
+            mine.complete(summary);
+        }
+        return summary;
+    }
+
+    private AssetSummaryCache.AssetSummary complete(String relPath, String content) throws Exception {
+        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForStaticAssets.FILE_TEMPLATE,
+                Map.of("relativeFilePath", relPath, "sourceFileContent", content));
+        LlmCompletion completion = delegate.completeJson(PromptTemplateForStaticAssets.INSTRUCTIONS, userPrompt,
+                relPath, "asset-summary");
+        if (completion.billableUsage() != null) {
+            inputTokens.add(completion.billableUsage().getInputTokens());
+            outputTokens.add(completion.billableUsage().getOutputTokens());
+            usageListener.accept(relPath, completion.billableUsage());
+        }
+        return new AssetSummaryCache.AssetSummary(parseSummary(completion.content()), completion.model());
+    }
+
+    /**
+     * The {@code summary} field of the object in the answer, or null when there is none: an answer that ignored
+     * the JSON format is not trusted to stand in for the asset's source.
+     */
+    static String parseSummary(String content) {
+        if (content == null || content.isBlank()) {
+            return null;
+        }
+        JsonNode answer = JsonObjectScanner.bestObject(content, "summary");
+        JsonNode summary = answer == null ? null : answer.path("summary");
+        return summary != null && summary.isTextual() && !summary.asText().isBlank() ? summary.asText().trim() : null;
+    }
+
+    void logStats() {
+        long replaced = substitutions.sum();
+        if (replaced + failed.sum() == 0) {
+            return;
+        }
+        logger.info("Asset summaries: summarized={}, reused={}, failed={}, substitutions={}, assetTokensReplaced={}, "
+                        + "summaryTokens={}, summaryInputTokens={}, summaryOutputTokens={}",
+                summarized.sum(), reused.sum(), failed.sum(), replaced, tokensReplaced.sum(), summaryTokens.sum(),
+                inputTokens.sum(), outputTokens.sum());
+    }
+}
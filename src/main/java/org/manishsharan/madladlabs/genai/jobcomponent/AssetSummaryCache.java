@@ -0,0 +1,79 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.cache.ContentHash;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForStaticAssets;
+
+import java.io.IOException;
+
+/**
+ * Summaries of static assets keyed by the asset's content, so a vendor bundle copied into several
+ * components, or referenced again after an unrelated edit, is summarized once. The key covers the
+ * summarizer and the asset prompt but not the asset's path.
+ *
+ * Environment:
+ *   ASSET_SUMMARY_CACHE_ENABLED   - "false" disables the cache (default enabled)
+ *   ASSET_SUMMARY_CACHE_PATH      - SQLite file (default cache/asset-summary-cache.db)
+ *   ASSET_SUMMARY_CACHE_MAX_BYTES - LRU bound on stored bytes (default 32 MiB)
+ */
+final class AssetSummaryCache {
+    private static final Logger logger = LogManager.getLogger(AssetSummaryCache.class);
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    private static final String TABLE = "asset_summary";
+
+    /** Bump when asset summaries produced for the same content would change. */
+    private static final String VERSION = "v1/" + ContentHash.sha256Hex(PromptTemplateForStaticAssets.PROMPT_TEMPLATE);
+
+    record AssetSummary(String summary, String model) {}
+
+    private static AssetSummaryCache instance;
+    private final SqliteLruCache store;
+
+    static synchronized AssetSummaryCache getInstance() {
+        if (instance == null) {
+            instance = new AssetSummaryCache(SqliteLruCache.open(
+                    "ASSET_SUMMARY_CACHE", "cache/asset-summary-cache.db", TABLE, DEFAULT_MAX_BYTES, "Asset summary cache"));
+        }
+        return instance;
+    }
+
+    AssetSummaryCache(SqliteLruCache store) {
+        this.store = store;
+    }
+
+    /** {@code summarizerKey} identifies the provider (and model) that wrote the summary. */
+    static String keyFor(String summarizerKey, String content) {
+        return ContentHash.sha256Hex(VERSION, summarizerKey, content);
+    }
+
+    AssetSummary get(String key) {
+        if (store == null) {
+            return null;
+        }
+        byte[] value = store.get(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LlmJson.MAPPER.readValue(value, AssetSummary.class);
+        } catch (IOException e) {
+            logger.debug("Dropping unreadable asset summary {}: {}", key, e.getMessage());
+            store.remove(key);
+            return null;
+        }
+    }
+
+    void put(String key, AssetSummary summary) {
+        if (store == null || summary == null || summary.summary() == null || summary.summary().isBlank()) {
+            return;
+        }
+        try {
+            store.put(key, LlmJson.MAPPER.writeValueAsBytes(summary));
+        } catch (IOException e) {
+            logger.debug("Unable to cache asset summary {}: {}", key, e.getMessage());
+        }
+    }
+}
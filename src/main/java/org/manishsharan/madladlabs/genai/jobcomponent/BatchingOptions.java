@@ -0,0 +1,25 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+/**
+ * Controls packing of small code and config files into shared LLM requests.
+ *
+ * @param enabled          whether batching is used at all
+ * @param maxBatchTokens   estimated prompt tokens of file content per batched request
+ * @param maxFileTokens    files above this estimate are always summarized on their own
+ * @param maxFilesPerBatch upper bound on files per request; further capped by the provider's output budget
+ */
+public record BatchingOptions(boolean enabled, int maxBatchTokens, int maxFileTokens, int maxFilesPerBatch) {
+
+    /**
+     * Limits that suit most providers. Not the default: groups fill in the order files arrive, so which files
+     * share a request (and so their summaries) can differ between runs of the same tree.
+     */
+    public static final BatchingOptions RECOMMENDED = new BatchingOptions(true, 12_000, 1_500, 8);
+    public static final BatchingOptions DISABLED = new BatchingOptions(false, 0, 0, 1);
+
+    public BatchingOptions {
+        if (enabled && (maxBatchTokens < 1 || maxFileTokens < 1 || maxFilesPerBatch < 1)) {
+            throw new IllegalArgumentException("batching limits must be >= 1");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import java.util.List;
+
+/**
+ * Files that differ from what the last incremental run of a component saw, relative to the component root.
+ * {@code changed} holds added and modified files; a rename whose content did not change is reported as a
+ * {@link Rename}, so its enrichment can be moved instead of summarizing the file again.
+ */
+record ChangeSet(List<String> changed, List<Rename> renamed, List<String> deleted) {
+
+    record Rename(String from, String to, boolean edited) {}
+
+    ChangeSet {
+        changed = List.copyOf(changed);
+        renamed = List.copyOf(renamed);
+        deleted = List.copyOf(deleted);
+    }
+}
@@ -0,0 +1,11 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+/**
+ * How per-file summarization tasks are scheduled.
+ */
+public enum ExecutionMode {
+    /** A fixed pool of platform threads; concurrency equals the pool size. */
+    FIXED_THREAD_POOL,
+    /** One virtual thread per file; in-flight LLM calls are bounded by a per-provider semaphore. */
+    VIRTUAL_THREADS
+}
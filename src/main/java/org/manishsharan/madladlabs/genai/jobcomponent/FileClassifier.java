@@ -0,0 +1,226 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The ingestion rules compiled into one lookup, so that a walked file is skipped or routed to its pipeline
+ * with a single pass over its name.
+ *
+ * Every configured extension is stored reversed in a suffix trie whose nodes carry a bit per set the extension
+ * belongs to (code, template, config, document, static asset, skip). Looking up a file name walks it backwards
+ * up to the last '.', lower-casing char by char, so neither the extension nor a lower-case copy is allocated.
+ * File and directory names stay in hash sets. Include/exclude globs are matched against the path relative to
+ * the repository root, and only when some are configured.
+ */
+final class FileClassifier {
+
+    enum Decision { SKIP, IGNORE, CODE, TEMPLATE, CONFIG, DOCUMENT }
+
+    static final int CODE = 1;
+    static final int TEMPLATE = 1 << 1;
+    static final int CONFIG = 1 << 2;
+    static final int DOCUMENT = 1 << 3;
+    static final int STATIC_ASSET = 1 << 4;
+    static final int SKIP = 1 << 5;
+
+    private final Node root = new Node();
+    /** Flags of the empty extension, which names without a '.' have. */
+    private int noExtensionFlags;
+
+    private final Set<String> skipDirectoryNames;
+    private final Set<String> skipFileNames;
+    private final Set<String> allowHiddenDirectories;
+    private final Set<String> configFileNames;
+    private final boolean skipHidden;
+    private final boolean skipMinified;
+    private final PathMatcher[] includes;
+    private final PathMatcher[] excludes;
+
+    FileClassifier(Set<String> codeExtensions,
+                   Set<String> templateExtensions,
+                   Set<String> staticAssetExtensions,
+                   Set<String> configExtensions,
+                   Set<String> documentExtensions,
+                   Set<String> skipFileExtensions,
+                   Set<String> skipDirectoryNames,
+                   Set<String> skipFileNames,
+                   Set<String> allowHiddenDirectories,
+                   Set<String> configFileNames,
+                   boolean skipHidden,
+                   boolean skipMinified,
+                   List<String> includeGlobs,
+                   List<String> excludeGlobs) {
+        addAll(codeExtensions, CODE);
+        addAll(templateExtensions, TEMPLATE);
+        addAll(staticAssetExtensions, STATIC_ASSET);
+        addAll(configExtensions, CONFIG);
+        addAll(documentExtensions, DOCUMENT);
+        addAll(skipFileExtensions, SKIP);
+        this.skipDirectoryNames = Set.copyOf(skipDirectoryNames);
+        this.skipFileNames = Set.copyOf(skipFileNames);
+        this.allowHiddenDirectories = Set.copyOf(allowHiddenDirectories);
+        this.configFileNames = Set.copyOf(configFileNames);
+        this.skipHidden = skipHidden;
+        this.skipMinified = skipMinified;
+        this.includes = compile(includeGlobs);
+        this.excludes = compile(excludeGlobs);
+    }
+
+    private void addAll(Collection<String> extensions, int flag) {
+        for (String extension : extensions) {
+            if (extension.isEmpty()) {
+                noExtensionFlags |= flag;
+                continue;
+            }
+            Node node = root;
+            for (int i = extension.length() - 1; i >= 0; i--) {
+                node = node.childOrCreate(Character.toLowerCase(extension.charAt(i)));
+            }
+            node.flags |= flag;
+        }
+    }
+
+    private static PathMatcher[] compile(List<String> globs) {
+        if (globs == null || globs.isEmpty()) {
+            return new PathMatcher[0];
+        }
+        FileSystem fs = FileSystems.getDefault();
+        return globs.stream()
+                .filter(g -> g != null && !g.isBlank())
+                .map(g -> fs.getPathMatcher("glob:" + g.trim()))
+                .toArray(PathMatcher[]::new);
+    }
+
+    boolean hasGlobs() {
+        return includes.length > 0 || excludes.length > 0;
+    }
+
+    /**
+     * The flags of the extension from the last '.' of {@code name}, compared case-insensitively; 0 when the
+     * extension is in no set.
+     */
+    int extensionFlags(String name) {
+        Node node = root;
+        for (int i = name.length() - 1; i >= 0; i--) {
+            char c = name.charAt(i);
+            node = node == null ? null : node.child(Character.toLowerCase(c));
+            if (c == '.') {
+                return node == null ? 0 : node.flags;
+            }
+        }
+        return noExtensionFlags;
+    }
+
+    boolean skipDirectory(String name) {
+        if (skipHidden && name.startsWith(".")) {
+            return !allowHiddenDirectories.contains(name);
+        }
+        return skipDirectoryNames.contains(name);
+    }
+
+    boolean skipFile(String name) {
+        if (skipHidden && name.startsWith(".")) {
+            return true;
+        }
+        if (skipFileNames.contains(name)) {
+            return true;
+        }
+        if (skipMinified && (name.endsWith(".min.js") || name.endsWith(".min.css"))) {
+            return true;
+        }
+        return (extensionFlags(name) & SKIP) != 0;
+    }
+
+    boolean isConfig(String name) {
+        return configFileNames.contains(name) || name.startsWith(".env.") || (extensionFlags(name) & CONFIG) != 0;
+    }
+
+    /**
+     * Skip rules first, then the globs, then the first of code, template, config and document that claims the
+     * file. {@code relativePath} is only consulted when globs are configured and may be null otherwise.
+     */
+    Decision classify(String name, Path relativePath) {
+        if (skipHidden && name.startsWith(".")) {
+            return Decision.SKIP;
+        }
+        if (skipFileNames.contains(name)) {
+            return Decision.SKIP;
+        }
+        if (skipMinified && (name.endsWith(".min.js") || name.endsWith(".min.css"))) {
+            return Decision.SKIP;
+        }
+        int flags = extensionFlags(name);
+        if ((flags & SKIP) != 0) {
+            return Decision.SKIP;
+        }
+        if (relativePath != null && hasGlobs()) {
+            if (matchesAny(excludes, relativePath)) {
+                return Decision.SKIP;
+            }
+            if (includes.length > 0 && !matchesAny(includes, relativePath)) {
+                return Decision.IGNORE;
+            }
+        }
+        if ((flags & CODE) != 0) {
+            return Decision.CODE;
+        }
+        if ((flags & TEMPLATE) != 0) {
+            return Decision.TEMPLATE;
+        }
+        if ((flags & CONFIG) != 0 || configFileNames.contains(name) || name.startsWith(".env.")) {
+            return Decision.CONFIG;
+        }
+        if ((flags & DOCUMENT) != 0) {
+            return Decision.DOCUMENT;
+        }
+        return Decision.IGNORE;
+    }
+
+    private static boolean matchesAny(PathMatcher[] matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Children are kept in parallel arrays sorted by char; extension alphabets are small. */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int flags;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            Node node = new Node();
+            newKeys[at] = c;
+            newChildren[at] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded producer/consumer pipeline for one component run:
+ *
+ * <pre>
+ *   walker -> [walk queue] -> classifier -> [classified queue] -> readers (n)
+ *          -> [read queue] -> summarizer (executor, bounded in-flight) -> [result queue] -> listener
+ * </pre>
+ *
+ * Every hand-off is a bounded queue and the summarizer stage holds at most {@code summarizerPermits}
+ * tasks, so when the LLM side is saturated the walk blocks instead of queueing the whole repository.
+ * The walker runs on the calling thread, or on a {@link ParallelRepositoryWalker} pool when
+ * {@link PipelineLimits#walkerThreads()} is above 1, or is replaced by a known list of files (the changed files
+ * of an incremental run); stages that return null drop the item. An optional
+ * {@link Batcher} may pack several read items into one summarizer task. The listener stage is
+ * a single thread, so listener callbacks are never invoked concurrently.
+ */
+final class FilePipeline<T> {
+    private static final Logger logger = LogManager.getLogger(FilePipeline.class);
+
+    @FunctionalInterface
+    interface Stage<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Sink<I> {
+        void accept(I input) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface ErrorHandler {
+        void onError(String stage, Object item, Exception ex);
+    }
+
+    /**
+     * Groups read items before they are handed to the summarizer. {@link #add} returns the items that are
+     * ready to dispatch (possibly none while a group is still filling); {@link #flush} returns everything
+     * still held once the read stage has finished.
+     */
+    interface Batcher<I> {
+        List<I> add(I item);
+
+        List<I> flush();
+    }
+
+    private static <I> Batcher<I> passThrough() {
+        return new Batcher<>() {
+            @Override
+            public List<I> add(I item) {
+                return List.of(item);
+            }
+
+            @Override
+            public List<I> flush() {
+                return List.of();
+            }
+        };
+    }
+
+    /** Produces the files of one run into the walk queue. */
+    @FunctionalInterface
+    private interface Source {
+        void emitAll(BlockingQueue<Slot<Path>> out) throws IOException, InterruptedException;
+    }
+
+    private record Slot<V>(V value) {
+        boolean isEnd() {
+            return value == null;
+        }
+    }
+
+    private static final Slot<?> END = new Slot<>(null);
+    private static final long QUEUE_POLL_MILLIS = 100;
+
+    private final PipelineLimits limits;
+    private final Executor summarizerExecutor;
+    private final int summarizerPermits;
+    private final Stage<Path, T> classifier;
+    private final Stage<T, T> reader;
+    private final Stage<T, T> summarizer;
+    private final Sink<T> listener;
+    private final ErrorHandler errorHandler;
+    private Batcher<T> batcher = passThrough();
+    private RepositoryIndex index;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final List<Thread> stageThreads = new ArrayList<>();
+
+    private final LongAdder walked = new LongAdder();
+    private final LongAdder classified = new LongAdder();
+    private final LongAdder read = new LongAdder();
+    private final LongAdder summarized = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder walkerBlockedNanos = new LongAdder();
+
+    FilePipeline(PipelineLimits limits,
+                 Executor summarizerExecutor,
+                 int summarizerPermits,
+                 Stage<Path, T> classifier,
+                 Stage<T, T> reader,
+                 Stage<T, T> summarizer,
+                 Sink<T> listener,
+                 ErrorHandler errorHandler) {
+        if (summarizerPermits < 1) {
+            throw new IllegalArgumentException("summarizerPermits must be >= 1");
+        }
+        this.limits = limits;
+        this.summarizerExecutor = summarizerExecutor;
+        this.summarizerPermits = summarizerPermits;
+        this.classifier = classifier;
+        this.reader = reader;
+        this.summarizer = summarizer;
+        this.listener = listener;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Installs a batcher between the read stage and the summarizer; by default items pass through one by one.
+     */
+    FilePipeline<T> batching(Batcher<T> batcher) {
+        this.batcher = batcher;
+        return this;
+    }
+
+    /**
+     * Has the walk record every emitted file's size and modification time in {@code index}.
+     */
+    FilePipeline<T> indexing(RepositoryIndex index) {
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Walks {@code root} and blocks until every emitted file has left the pipeline, or until the calling
+     * thread is interrupted, in which case the walk stops early and the stages are interrupted.
+     *
+     * @param skipDirectory directories for which this returns true are not descended into
+     */
+    Stats run(Path root, Predicate<Path> skipDirectory) throws IOException {
+        return run(out -> walk(root, skipDirectory, out));
+    }
+
+    /**
+     * Like {@link #run(Path, Predicate)}, but emits only {@code files} instead of walking {@code root}. The walk's
+     * rules still apply: files that no longer exist, are not regular files, or sit below a symlinked or skipped
+     * directory are left out.
+     */
+    Stats run(Path root, Collection<Path> files, Predicate<Path> skipDirectory) throws IOException {
+        return run(out -> emitFiles(root, files, skipDirectory, out));
+    }
+
+    private Stats run(Source source) throws IOException {
+        BlockingQueue<Slot<Path>> walkQueue = new ArrayBlockingQueue<>(limits.walkQueueDepth());
+        BlockingQueue<Slot<T>> classifiedQueue = new ArrayBlockingQueue<>(limits.readQueueDepth());
+        BlockingQueue<Slot<T>> readQueue = new ArrayBlockingQueue<>(limits.readQueueDepth());
+        BlockingQueue<Slot<T>> resultQueue = new ArrayBlockingQueue<>(limits.resultQueueDepth());
+
+        startStage("ai-pipeline-classifier", () -> transform(walkQueue, classifiedQueue, classifier, classified, "classify"));
+        AtomicInteger readersLeft = new AtomicInteger(limits.readerThreads());
+        for (int i = 0; i < limits.readerThreads(); i++) {
+            startStage("ai-pipeline-reader-" + i, () -> readLoop(classifiedQueue, readQueue, readersLeft));
+        }
+        startStage("ai-pipeline-summarizer", () -> summarizeLoop(readQueue, resultQueue));
+        startStage("ai-pipeline-listener", () -> listenLoop(resultQueue));
+
+        try {
+            source.emitAll(walkQueue);
+            if (!cancelled.get()) {
+                walkQueue.put(end());
+            }
+            for (Thread thread : stageThreads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            logger.warn("File pipeline interrupted; stopping walk early");
+        } catch (IOException | RuntimeException e) {
+            cancel();
+            throw e;
+        }
+        return stats();
+    }
+
+    /** True once a stage failed or the run was interrupted; summarizer tasks still running then give up. */
+    boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    Stats stats() {
+        return new Stats(walked.sum(), classified.sum(), read.sum(), summarized.sum(), delivered.sum(), failed.sum(),
+                walkerBlockedNanos.sum() / 1_000_000L);
+    }
+
+    private void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            for (Thread thread : stageThreads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private void walk(Path root, Predicate<Path> skipDirectory, BlockingQueue<Slot<Path>> out)
+            throws IOException, InterruptedException {
+        walkFiles(root, skipDirectory, limits.walkerThreads(), (path, attrs) -> emit(path, attrs, out) && !cancelled.get());
+    }
+
+    /**
+     * The walk behind {@link #run(Path, Predicate)}: hands every regular file under {@code root} that is not a
+     * symlink and not below a symlinked or skipped directory to {@code sink}, on the calling thread or, when
+     * {@code walkerThreads} is above 1, on a {@link ParallelRepositoryWalker} pool.
+     */
+    static void walkFiles(Path root, Predicate<Path> skipDirectory, int walkerThreads,
+                          ParallelRepositoryWalker.FileSink sink) throws IOException, InterruptedException {
+        if (walkerThreads > 1) {
+            new ParallelRepositoryWalker(walkerThreads).walk(root, skipDirectory, sink);
+            return;
+        }
+        InterruptedException[] interrupted = new InterruptedException[1];
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (Files.isSymbolicLink(dir)) {
+                    logger.debug("Skipping symlinked directory: {}", dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (skipDirectory.test(dir)) {
+                    logger.debug("Skipping directory: {}", dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (Files.isSymbolicLink(path)) {
+                    logger.debug("Skipping symlinked file: {}", path);
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    return sink.accept(path, attrs) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                } catch (InterruptedException e) {
+                    interrupted[0] = e;
+                    return FileVisitResult.TERMINATE;
+                }
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                logger.warn("Unable to visit {}: {}", file, exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (interrupted[0] != null) {
+            throw interrupted[0];
+        }
+    }
+
+    private void emitFiles(Path root, Collection<Path> files, Predicate<Path> skipDirectory,
+                           BlockingQueue<Slot<Path>> out) throws InterruptedException {
+        Map<Path, Boolean> skippedDirectories = new HashMap<>();
+        for (Path file : files) {
+            if (cancelled.get()) {
+                return;
+            }
+            if (isSkipped(root, file.getParent(), skipDirectory, skippedDirectories)) {
+                logger.debug("Skipping file in skipped directory: {}", file);
+                continue;
+            }
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                logger.debug("Unable to visit {}: {}", file, e.getMessage());
+                continue;
+            }
+            if (!attrs.isRegularFile()) {
+                continue;
+            }
+            if (!emit(file, attrs, out)) {
+                return;
+            }
+        }
+    }
+
+    /** Whether the walk would have pruned {@code dir} or one of its ancestors below {@code root}. */
+    private static boolean isSkipped(Path root, Path dir, Predicate<Path> skipDirectory, Map<Path, Boolean> memo) {
+        if (dir == null || !dir.startsWith(root)) {
+            return true;
+        }
+        Boolean known = memo.get(dir);
+        if (known != null) {
+            return known;
+        }
+        boolean skipped = dir.equals(root)
+                ? skipDirectory.test(root)
+                : isSkipped(root, dir.getParent(), skipDirectory, memo)
+                        || Files.isSymbolicLink(dir)
+                        || skipDirectory.test(dir);
+        memo.put(dir, skipped);
+        return skipped;
+    }
+
+    /** @return false if the pipeline was cancelled before {@code path} could be queued */
+    private boolean emit(Path path, BasicFileAttributes attrs, BlockingQueue<Slot<Path>> out)
+            throws InterruptedException {
+        if (index != null) {
+            index.recordFile(path, attrs);
+        }
+        long started = System.nanoTime();
+        // Poll rather than put so a failed stage cannot leave the walker parked forever.
+        while (!out.offer(new Slot<>(path), QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (cancelled.get()) {
+                return false;
+            }
+        }
+        walkerBlockedNanos.add(System.nanoTime() - started);
+        walked.increment();
+        return true;
+    }
+
+    private <I, O> void transform(BlockingQueue<Slot<I>> in, BlockingQueue<Slot<O>> out, Stage<I, O> stage,
+                                  LongAdder counter, String stageName) throws InterruptedException {
+        while (true) {
+            Slot<I> slot = in.take();
+            if (slot.isEnd()) {
+                put(out, end());
+                return;
+            }
+            O result = apply(stage, slot.value(), stageName);
+            if (result != null) {
+                counter.increment();
+                put(out, new Slot<>(result));
+            }
+        }
+    }
+
+    private void readLoop(BlockingQueue<Slot<T>> in, BlockingQueue<Slot<T>> out, AtomicInteger readersLeft)
+            throws InterruptedException {
+        while (true) {
+            Slot<T> slot = in.take();
+            if (slot.isEnd()) {
+                // Hand the marker to sibling readers; the last one out forwards it downstream.
+                put(in, slot);
+                if (readersLeft.decrementAndGet() == 0) {
+                    in.clear();
+                    put(out, end());
+                }
+                return;
+            }
+            T result = apply(reader, slot.value(), "read");
+            if (result != null) {
+                read.increment();
+                put(out, new Slot<>(result));
+            }
+        }
+    }
+
+    private void summarizeLoop(BlockingQueue<Slot<T>> in, BlockingQueue<Slot<T>> out) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(summarizerPermits);
+        while (true) {
+            Slot<T> slot = in.take();
+            if (slot.isEnd()) {
+                for (T item : batcher.flush()) {
+                    dispatch(item, inFlight, out);
+                }
+                inFlight.acquire(summarizerPermits);
+                put(out, end());
+                return;
+            }
+            for (T item : batcher.add(slot.value())) {
+                dispatch(item, inFlight, out);
+            }
+        }
+    }
+
+    private void dispatch(T item, Semaphore inFlight, BlockingQueue<Slot<T>> out) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            summarizerExecutor.execute(() -> {
+                try {
+                    T result = apply(summarizer, item, "summarize");
+                    if (result != null) {
+                        summarized.increment();
+                        put(out, new Slot<>(result));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            failed.increment();
+            errorHandler.onError("summarize", item, e);
+        }
+    }
+
+    private void listenLoop(BlockingQueue<Slot<T>> in) throws InterruptedException {
+        while (true) {
+            Slot<T> slot = in.take();
+            if (slot.isEnd()) {
+                return;
+            }
+            try {
+                listener.accept(slot.value());
+                delivered.increment();
+            } catch (Exception e) {
+                failed.increment();
+                errorHandler.onError("listener", slot.value(), e);
+            }
+        }
+    }
+
+    private <I, O> O apply(Stage<I, O> stage, I item, String stageName) {
+        try {
+            return stage.apply(item);
+        } catch (Exception e) {
+            failed.increment();
+            errorHandler.onError(stageName, item, e);
+            return null;
+        }
+    }
+
+    /**
+     * Polls like {@link #emit}: summarizer tasks run on executor threads that {@link #cancel()} does not
+     * interrupt, so a blocking put into a queue nobody drains any more would park them for good.
+     */
+    private <V> void put(BlockingQueue<Slot<V>> queue, Slot<V> slot) throws InterruptedException {
+        do {
+            if (cancelled.get()) {
+                throw new InterruptedException("File pipeline cancelled");
+            }
+        } while (!queue.offer(slot, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Slot<V> end() {
+        return (Slot<V>) END;
+    }
+
+    private void startStage(String name, InterruptibleRunnable body) {
+        Thread thread = Thread.ofPlatform().name(name).daemon(true).unstarted(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.debug("{} stopped: pipeline cancelled", name);
+            } catch (RuntimeException e) {
+                logger.error("{} failed: {}", name, e.getMessage(), e);
+                cancel();
+            }
+        });
+        stageThreads.add(thread);
+        thread.start();
+    }
+
+    @FunctionalInterface
+    private interface InterruptibleRunnable {
+        void run() throws InterruptedException;
+    }
+
+    record Stats(long walked, long classified, long read, long summarized, long delivered, long failed,
+                 long walkerBlockedMillis) {}
+}
@@ -0,0 +1,287 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.cache.ContentHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Size, modification time, file key and CRC32C of every ingestible file of a component without version
+ * control, so an incremental run can find what changed with a stat-only walk, the way git's index does.
+ *
+ * A file is only read when its size, mtime or file key (the inode on Unix) differ from the previous snapshot,
+ * or when its mtime was too close to the time that snapshot was taken to trust (a write in the same clock
+ * tick would not have moved it). Those files are hashed on a small pool; a file whose CRC and size still
+ * match was only touched and is not reported. An added file with the size and CRC of a deleted one is
+ * reported as a rename.
+ *
+ * Snapshots are stored one file per component, with paths prefix-compressed in sorted order.
+ *
+ * Environment:
+ *   FILE_SNAPSHOT_DIR - directory for snapshot files (default cache/snapshots)
+ */
+final class FileSnapshot {
+    private static final Logger logger = LogManager.getLogger(FileSnapshot.class);
+    private static final int MAGIC = 0x46534e50; // "FSNP"
+    private static final int FORMAT_VERSION = 1;
+    /** Coarsest mtime granularity we expect (FAT, some network mounts). */
+    static final long RACY_WINDOW_MILLIS = 2_000;
+    private static final int HASH_BUFFER_BYTES = 64 * 1024;
+
+    record Entry(long size, long modifiedMillis, int fileKey, int crc32c) {}
+
+    private final long takenAtMillis;
+    private final Map<String, Entry> entries;
+    private final long hashed;
+
+    private FileSnapshot(long takenAtMillis, Map<String, Entry> entries, long hashed) {
+        this.takenAtMillis = takenAtMillis;
+        this.entries = entries;
+        this.hashed = hashed;
+    }
+
+    Map<String, Entry> entries() {
+        return entries;
+    }
+
+    /** Files the scan had to read because their metadata did not prove them unchanged. */
+    long hashed() {
+        return hashed;
+    }
+
+    static Path fileFor(String key) {
+        String configured = System.getenv("FILE_SNAPSHOT_DIR");
+        Path dir = Paths.get(configured == null || configured.isBlank() ? "cache/snapshots" : configured);
+        return dir.resolve(ContentHash.sha256Hex(key) + ".snap");
+    }
+
+    /**
+     * Walks {@code root} like the pipeline does and records the files {@code include} accepts, reusing the
+     * CRC of {@code previous} (may be null) for files whose metadata is unchanged. {@code onFile} sees every
+     * recorded file's attributes, possibly from several threads.
+     */
+    static FileSnapshot scan(Path root,
+                             Predicate<Path> skipDirectory,
+                             Predicate<Path> include,
+                             int walkerThreads,
+                             int hashThreads,
+                             FileSnapshot previous,
+                             BiConsumer<Path, BasicFileAttributes> onFile) throws IOException, InterruptedException {
+        long takenAt = System.currentTimeMillis();
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        Map<String, BasicFileAttributes> toHash = new ConcurrentHashMap<>();
+        FilePipeline.walkFiles(root, skipDirectory, walkerThreads, (path, attrs) -> {
+            if (!include.test(path)) {
+                return true;
+            }
+            onFile.accept(path, attrs);
+            String relPath = root.relativize(path).toString();
+            Entry known = previous == null ? null : previous.entries.get(relPath);
+            if (known != null && previous.unchanged(known, attrs)) {
+                entries.put(relPath, known);
+            } else {
+                toHash.put(relPath, attrs);
+            }
+            return true;
+        });
+
+        LongAdder hashed = new LongAdder();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, hashThreads));
+        try {
+            pool.submit(() -> toHash.entrySet().parallelStream().forEach(e -> {
+                BasicFileAttributes attrs = e.getValue();
+                try {
+                    int crc = crc32c(root.resolve(e.getKey()));
+                    entries.put(e.getKey(), new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(),
+                            fileKey(attrs), crc));
+                    hashed.increment();
+                } catch (NoSuchFileException gone) {
+                    logger.debug("File vanished before hashing: {}", e.getKey());
+                } catch (IOException ex) {
+                    // Dropping the file would report it deleted; keep what the last snapshot knew instead. Its
+                    // old metadata no longer matches, so the next scan hashes it again.
+                    Entry known = previous == null ? null : previous.entries.get(e.getKey());
+                    if (known != null) {
+                        entries.put(e.getKey(), known);
+                    }
+                    logger.warn("Unable to hash {}{}: {}", e.getKey(),
+                            known != null ? " (keeping its previous entry)" : "", ex.getMessage());
+                }
+            })).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Snapshot hashing failed: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new FileSnapshot(takenAt, new HashMap<>(entries), hashed.sum());
+    }
+
+    private boolean unchanged(Entry known, BasicFileAttributes attrs) {
+        return known.size() == attrs.size()
+                && known.modifiedMillis() == attrs.lastModifiedTime().toMillis()
+                && known.fileKey() == fileKey(attrs)
+                && known.modifiedMillis() < takenAtMillis - RACY_WINDOW_MILLIS;
+    }
+
+    private static int fileKey(BasicFileAttributes attrs) {
+        return Objects.hashCode(attrs.fileKey());
+    }
+
+    static int crc32c(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /** What changed since {@code previous}; everything is added when there is no previous snapshot. */
+    ChangeSet changesSince(FileSnapshot previous) {
+        Map<String, Entry> before = previous == null ? Map.of() : previous.entries;
+        List<String> added = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        Map<Content, Deque<String>> deletedByContent = new HashMap<>();
+        Set<String> deleted = new LinkedHashSet<>();
+        for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+            Entry old = before.get(e.getKey());
+            if (old == null) {
+                added.add(e.getKey());
+            } else if (old.crc32c() != e.getValue().crc32c() || old.size() != e.getValue().size()) {
+                changed.add(e.getKey());
+            }
+        }
+        for (Map.Entry<String, Entry> e : new TreeMap<>(before).entrySet()) {
+            if (!entries.containsKey(e.getKey())) {
+                deleted.add(e.getKey());
+                if (e.getValue().size() > 0) {
+                    deletedByContent.computeIfAbsent(Content.of(e.getValue()), c -> new ArrayDeque<>()).add(e.getKey());
+                }
+            }
+        }
+
+        List<ChangeSet.Rename> renamed = new ArrayList<>();
+        for (String path : added) {
+            Deque<String> sources = deletedByContent.get(Content.of(entries.get(path)));
+            String from = sources == null ? null : sources.poll();
+            if (from != null) {
+                renamed.add(new ChangeSet.Rename(from, path, false));
+                deleted.remove(from);
+            } else {
+                changed.add(path);
+            }
+        }
+        return new ChangeSet(changed, renamed, List.copyOf(deleted));
+    }
+
+    private record Content(long size, int crc32c) {
+        static Content of(Entry entry) {
+            return new Content(entry.size(), entry.crc32c());
+        }
+    }
+
+    /** The snapshot stored at {@code file}, or null if there is none or it cannot be read. */
+    static FileSnapshot load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.info("Ignoring snapshot {} written by another version", file);
+                return null;
+            }
+            long takenAt = in.readLong();
+            int count = in.readInt();
+            Map<String, Entry> entries = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            String previous = "";
+            for (int i = 0; i < count; i++) {
+                int shared = in.readUnsignedShort();
+                String path = previous.substring(0, shared) + in.readUTF();
+                entries.put(path, new Entry(in.readLong(), in.readLong(), in.readInt(), in.readInt()));
+                previous = path;
+            }
+            return new FileSnapshot(takenAt, entries, 0);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(takenAtMillis);
+            out.writeInt(entries.size());
+            String previous = "";
+            for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+                String path = e.getKey();
+                int shared = Math.min(sharedPrefix(previous, path), 0xFFFF);
+                out.writeShort(shared);
+                out.writeUTF(path.substring(shared));
+                Entry entry = e.getValue();
+                out.writeLong(entry.size());
+                out.writeLong(entry.modifiedMillis());
+                out.writeInt(entry.fileKey());
+                out.writeInt(entry.crc32c());
+                previous = path;
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static int sharedPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        // Do not split a surrogate pair between the shared prefix and the stored suffix.
+        if (i > 0 && Character.isHighSurrogate(b.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,164 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The files of a git working tree that differ from a recorded commit, read with the {@code git} CLI so that an
+ * incremental run never lists the tree itself.
+ *
+ * The commit is compared with the working tree, not with {@code HEAD}, so committed and uncommitted edits are
+ * both seen; untracked files that are not ignored count as added. Paths are relative to the directory the set
+ * was computed for, which may be a subdirectory of the work tree; changes outside it are not reported.
+ * Renames are detected by git's similarity heuristic; a rename whose content did not change is reported
+ * separately so the caller can move its enrichment instead of summarizing the file again.
+ */
+final class GitChanges {
+    private static final Logger logger = LogManager.getLogger(GitChanges.class);
+    private static final long GIT_TIMEOUT_SECONDS = 120;
+
+    private GitChanges() {
+    }
+
+    /** The commit {@code HEAD} points at, or null when {@code dir} is not inside a git work tree. */
+    static String head(Path dir) {
+        try {
+            return new String(git(dir, "rev-parse", "--verify", "HEAD"), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            logger.debug("No git HEAD for {}: {}", dir, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Changes between {@code commit} and the working tree under {@code dir}; added, modified and type-changed
+     * files and the new side of copies count as changed. {@code previouslyDirty} are the
+     * uncommitted paths of the run that recorded {@code commit}: edits that were ingested but never committed
+     * and since reverted do not show up in a diff, so those paths are re-checked as changed, or reported as
+     * deleted if they are gone.
+     *
+     * @return null when git is unavailable or {@code commit} is no longer in the object database
+     */
+    static ChangeSet since(Path dir, String commit, Collection<String> previouslyDirty) {
+        try {
+            git(dir, "cat-file", "-e", commit + "^{commit}");
+
+            Set<String> changed = new LinkedHashSet<>();
+            List<ChangeSet.Rename> renamed = new ArrayList<>();
+            Set<String> deleted = new LinkedHashSet<>();
+            List<String> diff = split(git(dir, "diff", "--name-status", "-z", "-M", "--relative", "--no-ext-diff",
+                    commit, "--"));
+            for (int i = 0; i < diff.size(); i++) {
+                String status = diff.get(i);
+                switch (status.charAt(0)) {
+                    case 'R' -> {
+                        renamed.add(new ChangeSet.Rename(diff.get(i + 1), diff.get(i + 2), !status.equals("R100")));
+                        i += 2;
+                    }
+                    case 'C' -> {
+                        changed.add(diff.get(i + 2));
+                        i += 2;
+                    }
+                    case 'D' -> deleted.add(diff.get(++i));
+                    default -> changed.add(diff.get(++i));
+                }
+            }
+            changed.addAll(untracked(dir));
+            for (String path : previouslyDirty) {
+                if (Files.exists(dir.resolve(path), LinkOption.NOFOLLOW_LINKS)) {
+                    changed.add(path);
+                } else {
+                    deleted.add(path);
+                }
+            }
+            // A path dropped from the index but still on disk shows up as deleted and as untracked.
+            deleted.removeAll(changed);
+            return new ChangeSet(List.copyOf(changed), renamed, List.copyOf(deleted));
+        } catch (IOException e) {
+            logger.info("Cannot diff {} against {}: {}", dir, commit, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Uncommitted paths under {@code dir}: tracked files that differ from {@code HEAD}, and untracked files. */
+    static List<String> dirtyPaths(Path dir) {
+        try {
+            Set<String> dirty = new LinkedHashSet<>(split(git(dir, "diff", "--name-only", "-z", "--relative",
+                    "--no-ext-diff", "HEAD", "--")));
+            dirty.addAll(untracked(dir));
+            return List.copyOf(dirty);
+        } catch (IOException e) {
+            logger.debug("Unable to list uncommitted changes in {}: {}", dir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static List<String> untracked(Path dir) throws IOException {
+        return split(git(dir, "ls-files", "--others", "--exclude-standard", "-z"));
+    }
+
+    private static List<String> split(byte[] output) {
+        List<String> fields = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] == 0) {
+                fields.add(new String(output, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        return fields;
+    }
+
+    private static byte[] git(Path dir, String... args) throws IOException {
+        return git(dir, GIT_TIMEOUT_SECONDS, args);
+    }
+
+    /**
+     * Output goes to a temporary file rather than a pipe: reading a pipe blocks until git closes it, so a hung
+     * git would never reach the timeout.
+     */
+    static byte[] git(Path dir, long timeoutSeconds, String... args) throws IOException {
+        List<String> command = new ArrayList<>(args.length + 3);
+        command.add("git");
+        command.add("-C");
+        command.add(dir.toString());
+        command.addAll(List.of(args));
+        Path output = Files.createTempFile("ai-parser-git-", ".out");
+        try {
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectOutput(output.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD);
+            // Read-only commands; do not take the index lock to refresh stat data.
+            builder.environment().put("GIT_OPTIONAL_LOCKS", "0");
+            Process process = builder.start();
+            try {
+                if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                    throw new IOException("git " + args[0] + " timed out after " + timeoutSeconds + " s");
+                }
+                if (process.exitValue() != 0) {
+                    throw new IOException("git " + args[0] + " exited with " + process.exitValue());
+                }
+                return Files.readAllBytes(output);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for git " + args[0], e);
+            } finally {
+                process.destroyForcibly();
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.manishsharan.ontology.job.config.Component;
+import org.manishsharan.ontology.job.config.Solution;
+import org.manishsharan.ontology.listener.OntologyListener;
+
+/**
+ * An {@link OntologyListener} that can move and drop the enrichment of files, which lets incremental runs
+ * (see {@link AIComponentProcessor#setIncrementalMode(boolean)}) apply renames without summarizing the file
+ * again and remove deleted files. Both are called on the processing thread, never concurrently with other
+ * listener callbacks, and only after the run's summaries have been delivered:
+ * <ul>
+ *   <li>a checkpointed run sends them once its pipeline finished cleanly, just before the checkpoint is
+ *       recorded; a failed run sends none, and they come again with the next run's change set;</li>
+ *   <li>in watch mode they follow each batch's pipeline run whatever its outcome, since events are not
+ *       replayed, and precede the full run when a batch asks for a rescan.</li>
+ * </ul>
+ * A rename whose target is summarized in the same run arrives as a delete of the old path instead.
+ */
+public interface IncrementalOntologyListener extends OntologyListener {
+
+    /** {@code fromPath} was renamed to {@code toPath} without changing its content. */
+    void fileRenamed(Solution solution, Component component, String fromPath, String toPath);
+
+    void fileDeleted(Solution solution, Component component, String relativePath);
+}
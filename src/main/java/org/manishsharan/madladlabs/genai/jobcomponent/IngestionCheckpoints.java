@@ -0,0 +1,80 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The last commit each component was fully ingested at, for incremental runs. Entries live in an LRU store
+ * like the caches; losing one only costs the next run a full walk.
+ *
+ * Environment:
+ *   INGESTION_CHECKPOINT_PATH - SQLite file (default cache/ingestion-checkpoints.db)
+ */
+final class IngestionCheckpoints {
+    private static final Logger logger = LogManager.getLogger(IngestionCheckpoints.class);
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+    private static final String TABLE = "ingestion_checkpoint";
+
+    /** {@code dirtyPaths} were uncommitted when the checkpoint was taken, relative to the component root. */
+    record Checkpoint(String commit, List<String> dirtyPaths) {}
+
+    private static IngestionCheckpoints instance;
+    private final SqliteLruCache store;
+
+    static synchronized IngestionCheckpoints getInstance() {
+        if (instance == null) {
+            instance = new IngestionCheckpoints(openStore());
+        }
+        return instance;
+    }
+
+    IngestionCheckpoints(SqliteLruCache store) {
+        this.store = store;
+    }
+
+    private static SqliteLruCache openStore() {
+        String configured = System.getenv("INGESTION_CHECKPOINT_PATH");
+        Path path = Paths.get(configured == null || configured.isBlank() ? "cache/ingestion-checkpoints.db" : configured);
+        try {
+            return new SqliteLruCache(path, TABLE, MAX_BYTES);
+        } catch (Exception e) {
+            logger.warn("Ingestion checkpoints unavailable at {}: {}. Every run walks the full tree.", path, e.getMessage());
+            return null;
+        }
+    }
+
+    Checkpoint get(String key) {
+        if (store == null) {
+            return null;
+        }
+        byte[] value = store.get(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LlmJson.MAPPER.readValue(value, Checkpoint.class);
+        } catch (IOException e) {
+            logger.debug("Dropping unreadable checkpoint {}: {}", key, e.getMessage());
+            store.remove(key);
+            return null;
+        }
+    }
+
+    void put(String key, Checkpoint checkpoint) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.put(key, LlmJson.MAPPER.writeValueAsBytes(checkpoint));
+        } catch (IOException e) {
+            logger.warn("Unable to record checkpoint {}: {}", key, e.getMessage());
+        }
+    }
+}
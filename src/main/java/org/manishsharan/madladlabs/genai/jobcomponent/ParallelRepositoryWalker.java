@@ -0,0 +1,220 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Walks a repository with directory listings, and the per-entry attribute reads behind them, which dominate on
+ * network mounts, running ahead on a fork/join pool while the files are handed out in the order of the sequential
+ * {@code Files.walkFileTree} walk in {@link FilePipeline}: depth first, each directory's entries in the order its
+ * directory stream returns them. Output therefore does not depend on the number of threads.
+ *
+ * The rules match that walk too: links are never followed, symlinked files and directories are skipped,
+ * directories for which {@code skipDirectory} is true (the root included) are not descended into, and only
+ * regular files are emitted.
+ *
+ * The sink is called on the walking thread and may block; that is how pipeline backpressure reaches the walk.
+ * Listings stop running ahead once {@link #MAX_PREFETCHED_ENTRIES} listed entries are waiting for the sink;
+ * further directories are then listed as the walk reaches them.
+ */
+final class ParallelRepositoryWalker {
+    private static final Logger logger = LogManager.getLogger(ParallelRepositoryWalker.class);
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
+    static final int MAX_PREFETCHED_ENTRIES = 64 * 1024;
+
+    @FunctionalInterface
+    interface FileSink {
+        /** @return false to stop the walk */
+        boolean accept(Path file, BasicFileAttributes attrs) throws InterruptedException;
+    }
+
+    private final int parallelism;
+
+    ParallelRepositoryWalker(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Walks {@code root} and returns once every file has been handed to {@code sink}, the sink asked to stop,
+     * or the calling thread was interrupted.
+     *
+     * @return the number of files emitted
+     */
+    long walk(Path root, Predicate<Path> skipDirectory, FileSink sink) throws IOException, InterruptedException {
+        BasicFileAttributes rootAttrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!rootAttrs.isDirectory()) {
+            return rootAttrs.isRegularFile() && sink.accept(root, rootAttrs) ? 1 : 0;
+        }
+        if (skipDirectory.test(root)) {
+            logger.debug("Skipping directory: {}", root);
+            return 0;
+        }
+
+        int poolId = POOL_IDS.incrementAndGet();
+        AtomicInteger threadIds = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("repo-walker-" + poolId + "-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        long started = System.nanoTime();
+        Walk walk = new Walk(pool, skipDirectory);
+        long files;
+        try {
+            files = walk.emit(new Directory(root), sink);
+        } finally {
+            walk.stop = true;
+            pool.shutdownNow();
+        }
+        logger.debug("Walked {} directories and {} files under {} in {} ms on {} threads", walk.directories,
+                files, root, (System.nanoTime() - started) / 1_000_000L, parallelism);
+        return files;
+    }
+
+    /** A listed file or, when {@code subdirectory} is set, a directory to descend into. */
+    private record Entry(Path path, BasicFileAttributes attrs, Directory subdirectory) {}
+
+    private static final class Directory {
+        private final Path path;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final CompletableFuture<List<Entry>> entries = new CompletableFuture<>();
+
+        private Directory(Path path) {
+            this.path = path;
+        }
+    }
+
+    private static final class Walk {
+        private final ForkJoinPool pool;
+        private final Predicate<Path> skipDirectory;
+        private final LongAdder prefetched = new LongAdder();
+        private volatile boolean stop;
+        private long directories;
+
+        private Walk(ForkJoinPool pool, Predicate<Path> skipDirectory) {
+            this.pool = pool;
+            this.skipDirectory = skipDirectory;
+        }
+
+        /** Depth-first over the listings, on the calling thread; returns the number of files the sink accepted. */
+        private long emit(Directory root, FileSink sink) throws IOException, InterruptedException {
+            long files = 0;
+            Deque<Iterator<Entry>> stack = new ArrayDeque<>();
+            stack.push(entries(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<Entry> it = stack.peek();
+                if (!it.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Entry entry = it.next();
+                prefetched.decrement();
+                if (entry.subdirectory() != null) {
+                    stack.push(entries(entry.subdirectory()).iterator());
+                } else if (sink.accept(entry.path(), entry.attrs())) {
+                    files++;
+                } else {
+                    break;
+                }
+            }
+            return files;
+        }
+
+        private List<Entry> entries(Directory dir) throws IOException, InterruptedException {
+            directories++;
+            schedule(dir);
+            try {
+                return dir.entries.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IOException("Repository walk failed: " + e.getCause(), e.getCause());
+            }
+        }
+
+        private void schedule(Directory dir) {
+            if (dir.scheduled.compareAndSet(false, true)) {
+                try {
+                    pool.execute(() -> list(dir));
+                } catch (RejectedExecutionException e) {
+                    // the walk has ended and the pool is shut down; nobody waits for this listing
+                    dir.entries.complete(List.of());
+                }
+            }
+        }
+
+        private void list(Directory dir) {
+            List<Entry> entries = new ArrayList<>();
+            try {
+                if (!stop) {
+                    read(dir.path, entries);
+                }
+            } catch (RuntimeException e) {
+                dir.entries.completeExceptionally(e);
+                return;
+            }
+            prefetched.add(entries.size());
+            dir.entries.complete(entries);
+            for (Entry entry : entries) {
+                if (entry.subdirectory() != null && !stop && prefetched.sum() < MAX_PREFETCHED_ENTRIES) {
+                    schedule(entry.subdirectory());
+                }
+            }
+        }
+
+        private void read(Path dir, List<Entry> entries) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        logger.warn("Unable to visit {}: {}", entry, e.getMessage());
+                        continue;
+                    }
+                    if (attrs.isSymbolicLink()) {
+                        logger.debug("Skipping symlink: {}", entry);
+                    } else if (attrs.isDirectory()) {
+                        if (skipDirectory.test(entry)) {
+                            logger.debug("Skipping directory: {}", entry);
+                        } else {
+                            entries.add(new Entry(entry, attrs, new Directory(entry)));
+                        }
+                    } else if (attrs.isRegularFile()) {
+                        entries.add(new Entry(entry, attrs, null));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // Like walkFileTree, keep the entries read before the failure.
+                logger.warn("Unable to visit {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+/**
+ * Queue depths and reader parallelism for {@link FilePipeline}.
+ *
+ * @param walkQueueDepth   discovered paths waiting for classification
+ * @param readQueueDepth   classified files waiting to be read, and read files waiting for a summarizer slot;
+ *                         this queue holds file contents, so it bounds memory
+ * @param resultQueueDepth summarized payloads waiting for the listener
+ * @param readerThreads    threads checking eligibility and reading/extracting content
+ * @param walkerThreads    threads listing directories; above 1 the walk uses {@link ParallelRepositoryWalker},
+ *                         which pays off on network mounts and very large trees
+ */
+public record PipelineLimits(int walkQueueDepth, int readQueueDepth, int resultQueueDepth, int readerThreads,
+                             int walkerThreads) {
+
+    public static final PipelineLimits DEFAULT = new PipelineLimits(1024, 32, 64, 2);
+
+    /** A single-threaded walk. */
+    public PipelineLimits(int walkQueueDepth, int readQueueDepth, int resultQueueDepth, int readerThreads) {
+        this(walkQueueDepth, readQueueDepth, resultQueueDepth, readerThreads, 1);
+    }
+
+    public PipelineLimits {
+        if (walkQueueDepth < 1 || readQueueDepth < 1 || resultQueueDepth < 1) {
+            throw new IllegalArgumentException("queue depths must be >= 1");
+        }
+        if (readerThreads < 1) {
+            throw new IllegalArgumentException("readerThreads must be >= 1");
+        }
+        if (walkerThreads < 1) {
+            throw new IllegalArgumentException("walkerThreads must be >= 1");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size and modification time of every file under one repository root, recorded by the walk from the attributes
+ * it already read, so that size limits and template asset lookups do not stat the same files again.
+ *
+ * Paths are stored as a trie of name segments; segment names are interned per index, so the thousands of
+ * {@code src}, {@code main} and {@code index.js} segments of a large tree share one string each. Files are
+ * leaves without a child map. The walk streams files into the pipeline while it is still running, and assets
+ * may sit in directories the walk skips, so a lookup of a path the walk has not recorded falls back to one
+ * {@code readAttributes} call whose result, including "not found", is recorded for the next lookup.
+ */
+final class RepositoryIndex {
+
+    record FileInfo(long size, long lastModifiedMillis, boolean directory) {}
+
+    private enum State { UNKNOWN, FILE, DIRECTORY, MISSING }
+
+    private static final class Node {
+        private volatile State state;
+        private volatile long size;
+        private volatile long lastModifiedMillis;
+        private Map<String, Node> children;
+
+        private Node(State state) {
+            this.state = state;
+        }
+
+        private synchronized Node child(String name) {
+            return children == null ? null : children.get(name);
+        }
+
+        private synchronized Node childOrCreate(String name, State state) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(name, n -> new Node(state));
+        }
+    }
+
+    private final Path root;
+    private final Node rootNode = new Node(State.DIRECTORY);
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stats = new LongAdder();
+
+    RepositoryIndex(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /** Called by the walk for every regular file it emits. */
+    void recordFile(Path file, BasicFileAttributes attrs) {
+        Node node = node(file, true, true);
+        if (node == null) {
+            return;
+        }
+        node.size = attrs.size();
+        node.lastModifiedMillis = attrs.lastModifiedTime().toMillis();
+        if (node.state != State.FILE) {
+            files.increment();
+        }
+        node.state = State.FILE;
+    }
+
+    /**
+     * The size and modification time of {@code path}, or null if it does not exist. Paths outside the root are
+     * read from disk every time. The walk records no links; paths read from disk follow them, like
+     * {@code Files.size} and {@code Files.exists} did.
+     */
+    FileInfo stat(Path path) {
+        Node node = node(path, false, false);
+        if (node != null) {
+            switch (node.state) {
+                case FILE -> {
+                    hits.increment();
+                    return new FileInfo(node.size, node.lastModifiedMillis, false);
+                }
+                case DIRECTORY -> {
+                    hits.increment();
+                    return new FileInfo(0, 0, true);
+                }
+                case MISSING -> {
+                    hits.increment();
+                    return null;
+                }
+                case UNKNOWN -> { }
+            }
+        }
+        stats.increment();
+        FileInfo info = readFromDisk(path);
+        Node recorded = node(path, true, false);
+        if (recorded != null && recorded.state == State.UNKNOWN) {
+            if (info == null) {
+                recorded.state = State.MISSING;
+            } else {
+                recorded.size = info.size();
+                recorded.lastModifiedMillis = info.lastModifiedMillis();
+                recorded.state = info.directory() ? State.DIRECTORY : State.FILE;
+            }
+        }
+        return info;
+    }
+
+    /** Size in bytes, or -1 if {@code path} does not exist. */
+    long size(Path path) {
+        FileInfo info = stat(path);
+        return info == null ? -1L : info.size();
+    }
+
+    long files() {
+        return files.sum();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    /** Lookups that had to go to disk. */
+    long diskStats() {
+        return stats.sum();
+    }
+
+    private static FileInfo readFromDisk(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileInfo(attrs.size(), attrs.lastModifiedTime().toMillis(), attrs.isDirectory());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The trie node for {@code path}; null when it is outside the root, or absent and {@code create} is false.
+     * A walked file proves that its parents are directories.
+     */
+    private Node node(Path path, boolean create, boolean walked) {
+        Path absolute = path.isAbsolute() ? path.normalize() : path.toAbsolutePath().normalize();
+        if (!absolute.startsWith(root)) {
+            return null;
+        }
+        Path relative = root.relativize(absolute);
+        Node node = rootNode;
+        int count = relative.getNameCount();
+        if (count == 1 && relative.toString().isEmpty()) {
+            return rootNode;
+        }
+        for (int i = 0; i < count; i++) {
+            String name = relative.getName(i).toString();
+            boolean last = i == count - 1;
+            Node next = node.child(name);
+            if (next == null) {
+                if (!create) {
+                    return null;
+                }
+                String interned = names.computeIfAbsent(name, n -> n);
+                next = node.childOrCreate(interned, walked && !last ? State.DIRECTORY : State.UNKNOWN);
+            } else if (walked && !last && next.state != State.DIRECTORY) {
+                next.state = State.DIRECTORY;
+            }
+            node = next;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,306 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Keeps one component fresh between runs by watching its directories and handing batches of changed files to
+ * the pipeline. Directories are registered recursively with the walk's skip rules (symlinked and skipped
+ * directories are not watched); directories created later are registered as they appear, and the files
+ * already in them are picked up.
+ *
+ * Events are coalesced: a batch is handed over once the tree has been quiet for the debounce window, or at the
+ * latest after {@link #MAX_DELAY_WINDOWS} windows of continuous activity. A path saved several times in one
+ * window appears once, and a save whose content (size and CRC32C) equals what was last handed over is dropped.
+ * When events were lost (queue overflow) or a watched directory disappeared, the batch asks for a rescan.
+ *
+ * Batches run on the watcher's own thread, so at most one is in flight; events arriving meanwhile queue up in
+ * the {@link WatchService}.
+ */
+public final class RepositoryWatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(RepositoryWatcher.class);
+    /** A burst longer than this many debounce windows is flushed anyway. */
+    static final int MAX_DELAY_WINDOWS = 10;
+
+    @FunctionalInterface
+    interface BatchHandler {
+        /**
+         * @param changed files created or modified, absolute
+         * @param deleted files that no longer exist, absolute
+         * @param rescan  events were lost; the whole tree should be re-checked
+         * @return true if the batch was processed; otherwise its files are offered again on their next save
+         */
+        boolean onBatch(List<Path> changed, List<Path> deleted, boolean rescan) throws Exception;
+    }
+
+    private record Content(long size, int crc32c) {}
+
+    private final Path root;
+    private final Predicate<Path> skipDirectory;
+    private final Predicate<Path> include;
+    private final long debounceNanos;
+    private final BatchHandler handler;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Set<Path> watched = new HashSet<>();
+    private final Map<Path, Content> delivered = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * @param include files for which this returns true are reported; directories are filtered by
+     *                {@code skipDirectory}
+     */
+    RepositoryWatcher(Path root, Predicate<Path> skipDirectory, Predicate<Path> include, Duration debounce,
+                      BatchHandler handler) throws IOException {
+        if (debounce.isNegative() || debounce.isZero()) {
+            throw new IllegalArgumentException("debounce must be positive");
+        }
+        this.root = root;
+        this.skipDirectory = skipDirectory;
+        this.include = include;
+        this.debounceNanos = debounce.toNanos();
+        this.handler = handler;
+        this.watchService = root.getFileSystem().newWatchService();
+        try {
+            register(root, null);
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "repo-watcher-" + root.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    RepositoryWatcher start() {
+        thread.start();
+        logger.info("Watching {} directories under {}", watched.size(), root);
+        return this;
+    }
+
+    int watchedDirectories() {
+        synchronized (directories) {
+            return watched.size();
+        }
+    }
+
+    long events() {
+        return events.sum();
+    }
+
+    long batches() {
+        return batches.sum();
+    }
+
+    /** Saves dropped because their content had already been handed over. */
+    long duplicates() {
+        return duplicates.sum();
+    }
+
+    /** Stops watching; a batch that is already running completes, pending events are dropped. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Closing watch service for {}: {}", root, e.getMessage());
+        }
+    }
+
+    /** Waits for the watcher thread to finish after {@link #close()}; false if it is still running. */
+    boolean awaitTermination(Duration timeout) throws InterruptedException {
+        thread.join(timeout.toMillis());
+        return !thread.isAlive();
+    }
+
+    /** Registers {@code dir} and every directory below it; files found are added to {@code found} if non-null. */
+    private void register(Path dir, Set<Path> found) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                if (Files.isSymbolicLink(d) || skipDirectory.test(d)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = d.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                synchronized (directories) {
+                    directories.put(key, d);
+                    watched.add(d);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (found != null && attrs.isRegularFile() && include.test(file)) {
+                    found.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                logger.debug("Unable to watch {}: {}", file, exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void run() {
+        Set<Path> pending = new LinkedHashSet<>();
+        boolean rescan = false;
+        long firstEvent = 0;
+        long lastEvent = 0;
+        try {
+            while (!closed) {
+                WatchKey key;
+                if (pending.isEmpty() && !rescan) {
+                    key = watchService.take();
+                } else {
+                    long now = System.nanoTime();
+                    long wait = Math.min(lastEvent + debounceNanos - now,
+                            firstEvent + MAX_DELAY_WINDOWS * debounceNanos - now);
+                    if (wait <= 0) {
+                        flush(pending, rescan);
+                        pending.clear();
+                        rescan = false;
+                        continue;
+                    }
+                    key = watchService.poll(wait, TimeUnit.NANOSECONDS);
+                    if (key == null) {
+                        continue;
+                    }
+                }
+                boolean wasIdle = pending.isEmpty() && !rescan;
+                rescan |= collect(key, pending);
+                if (!pending.isEmpty() || rescan) {
+                    lastEvent = System.nanoTime();
+                    if (wasIdle) {
+                        firstEvent = lastEvent;
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+        logger.info("Stopped watching {}: events={}, batches={}, duplicateSaves={}", root, events.sum(),
+                batches.sum(), duplicates.sum());
+    }
+
+    /** Adds the paths behind {@code key}'s events to {@code pending}; returns true if a rescan is needed. */
+    private boolean collect(WatchKey key, Set<Path> pending) {
+        Path dir;
+        synchronized (directories) {
+            dir = directories.get(key);
+        }
+        boolean rescan = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            events.increment();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                logger.warn("Watch events for {} overflowed; rescanning", root);
+                rescan = true;
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    register(child, pending);
+                } catch (IOException e) {
+                    logger.warn("Unable to watch new directory {}: {}", child, e.getMessage());
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && isWatched(child)) {
+                // The files of a moved or deleted directory are not reported one by one.
+                rescan = true;
+            } else if (!Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && include.test(child)) {
+                pending.add(child);
+            }
+        }
+        if (!key.reset()) {
+            // The directory was deleted or moved away; its key may be signalled before the parent's event.
+            synchronized (directories) {
+                watched.remove(directories.remove(key));
+            }
+            rescan = !closed;
+        }
+        return rescan;
+    }
+
+    private boolean isWatched(Path dir) {
+        synchronized (directories) {
+            return watched.contains(dir);
+        }
+    }
+
+    private void flush(Set<Path> pending, boolean rescan) {
+        List<Path> changed = new ArrayList<>();
+        List<Path> deleted = new ArrayList<>();
+        Map<Path, Content> contents = new HashMap<>();
+        for (Path path : pending) {
+            if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                    deleted.add(path);
+                    delivered.remove(path);
+                }
+                continue;
+            }
+            Content content;
+            try {
+                content = new Content(Files.size(path), FileSnapshot.crc32c(path));
+            } catch (IOException e) {
+                logger.debug("Unable to read {}: {}", path, e.getMessage());
+                continue;
+            }
+            if (content.equals(delivered.get(path))) {
+                duplicates.increment();
+                continue;
+            }
+            contents.put(path, content);
+            changed.add(path);
+        }
+        if (changed.isEmpty() && deleted.isEmpty() && !rescan) {
+            return;
+        }
+        batches.increment();
+        logger.info("Watch batch for {}: changed={}, deleted={}, rescan={}", root, changed.size(), deleted.size(), rescan);
+        try {
+            if (handler.onBatch(changed, deleted, rescan)) {
+                delivered.putAll(contents);
+            }
+        } catch (Exception e) {
+            logger.error("Watch batch for {} failed: {}", root, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for the per-file summarization fan-out.
+ *
+ * In {@link ExecutionMode#FIXED_THREAD_POOL} mode tasks run on {@code concurrency} platform threads.
+ * In {@link ExecutionMode#VIRTUAL_THREADS} mode every task gets its own virtual thread and the number
+ * of tasks talking to a provider at once is bounded by a per-provider semaphore, so hundreds of
+ * requests can block in OkHttp's {@code execute()} without hundreds of OS threads.
+ */
+final class SummarizationExecutor implements Executor, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SummarizationExecutor.class);
+
+    /**
+     * Shared across runs so that concurrent components do not exceed a provider's budget together.
+     * Each run resizes its provider's permits to the concurrency it was configured with.
+     */
+    private static final Map<String, ProviderPermits> PROVIDER_PERMITS = new ConcurrentHashMap<>();
+
+    /** A fair semaphore whose number of permits can be changed while permits are held. */
+    static final class ProviderPermits extends Semaphore {
+        private int size;
+
+        ProviderPermits(int size) {
+            super(size, true);
+            this.size = size;
+        }
+
+        /** Shrinking below the permits in use only makes later acquires wait until enough are released. */
+        synchronized void resize(int newSize) {
+            if (newSize > size) {
+                release(newSize - size);
+            } else if (newSize < size) {
+                reducePermits(size - newSize);
+            }
+            size = newSize;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final ExecutionMode mode;
+
+    private SummarizationExecutor(ExecutorService delegate, Semaphore permits, ExecutionMode mode) {
+        this.delegate = delegate;
+        this.permits = permits;
+        this.mode = mode;
+    }
+
+    static SummarizationExecutor create(ExecutionMode mode, String provider, int concurrency, int providerConcurrency) {
+        if (mode == ExecutionMode.VIRTUAL_THREADS) {
+            ProviderPermits permits = PROVIDER_PERMITS.computeIfAbsent(
+                    provider.toLowerCase(), p -> new ProviderPermits(providerConcurrency));
+            permits.resize(providerConcurrency);
+            logger.info("Summarization executor: virtual threads, provider '{}' permits={}",
+                    provider, providerConcurrency);
+            ExecutorService delegate = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("ai-summarizer-", 0).factory());
+            return new SummarizationExecutor(delegate, permits, mode);
+        }
+        logger.info("Summarization executor: fixed pool of {} threads", concurrency);
+        ExecutorService delegate = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("ai-summarizer-", 0).daemon(true).factory());
+        return new SummarizationExecutor(delegate, null, mode);
+    }
+
+    ExecutionMode mode() {
+        return mode;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (permits == null) {
+            delegate.execute(task);
+            return;
+        }
+        delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (task instanceof Future<?> future) {
+                    // Complete the future so CompletionService consumers are not left waiting.
+                    future.cancel(false);
+                }
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+    }
+
+    /** Stops accepting tasks and interrupts running ones, for a run that was cancelled. */
+    void shutdownNow() {
+        delegate.shutdownNow();
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
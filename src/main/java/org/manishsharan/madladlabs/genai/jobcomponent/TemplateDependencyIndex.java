@@ -0,0 +1,177 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.manishsharan.madladlabs.genai.cache.ContentHash;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The assets and partials each template's last summary inlined, with the size, mtime and CRC32C they had then,
+ * persisted per component. Inverted, it answers which templates depend on an asset.
+ *
+ * The file validator only sees a template's own bytes, so an edited {@code app.js} would otherwise never reach
+ * the templates that bundle it. An unchanged template is re-summarized when one of its recorded dependencies
+ * changed (appeared, disappeared, or differs in size, or in CRC after an mtime change), and incremental runs
+ * re-queue exactly the dependents of the assets they see change.
+ *
+ * Environment:
+ *   TEMPLATE_DEPENDENCY_DIR - directory for the per-component files (default cache/template-dependencies)
+ */
+final class TemplateDependencyIndex {
+    private static final Logger logger = LogManager.getLogger(TemplateDependencyIndex.class);
+    private static final TypeReference<Map<String, List<Dependency>>> FORMAT = new TypeReference<>() {};
+
+    /** A bundled file as it was when the template was summarized; {@code size} is -1 if it did not exist. */
+    record Dependency(String path, long size, long modifiedMillis, int crc32c) {
+        static Dependency missing(String path) {
+            return new Dependency(path, -1, 0, 0);
+        }
+    }
+
+    private final Path file;
+    private final Map<String, List<Dependency>> byTemplate;
+    private final Map<String, Set<String>> byAsset = new HashMap<>();
+    private boolean dirty;
+
+    private TemplateDependencyIndex(Path file, Map<String, List<Dependency>> byTemplate) {
+        this.file = file;
+        this.byTemplate = byTemplate;
+        byTemplate.forEach(this::link);
+    }
+
+    static Path fileFor(String key) {
+        String configured = System.getenv("TEMPLATE_DEPENDENCY_DIR");
+        Path dir = Paths.get(configured == null || configured.isBlank() ? "cache/template-dependencies" : configured);
+        return dir.resolve(ContentHash.sha256Hex(key) + ".json");
+    }
+
+    /** The index stored at {@code file}; empty if there is none or it cannot be read. */
+    static TemplateDependencyIndex load(Path file) {
+        Map<String, List<Dependency>> stored = new HashMap<>();
+        if (Files.isRegularFile(file)) {
+            try {
+                stored.putAll(LlmJson.MAPPER.readValue(file.toFile(), FORMAT));
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable template dependencies {}: {}", file, e.getMessage());
+            }
+        }
+        return new TemplateDependencyIndex(file, stored);
+    }
+
+    synchronized int templates() {
+        return byTemplate.size();
+    }
+
+    synchronized boolean isDependency(String path) {
+        return byAsset.containsKey(path);
+    }
+
+    /** Templates whose last summary inlined {@code path}. */
+    synchronized Set<String> dependents(String path) {
+        Set<String> templates = byAsset.get(path);
+        return templates == null ? Set.of() : Set.copyOf(templates);
+    }
+
+    synchronized List<Dependency> dependencies(String template) {
+        return byTemplate.getOrDefault(template, List.of());
+    }
+
+    /** Replaces what {@code template} depends on, after its summary was delivered. */
+    synchronized void record(String template, List<Dependency> dependencies) {
+        List<Dependency> previous = dependencies.isEmpty()
+                ? byTemplate.remove(template)
+                : byTemplate.put(template, List.copyOf(dependencies));
+        if (previous != null) {
+            unlink(template, previous);
+        }
+        if (!dependencies.isEmpty()) {
+            link(template, dependencies);
+        }
+        dirty |= previous != null || !dependencies.isEmpty();
+    }
+
+    synchronized void remove(String template) {
+        record(template, List.of());
+    }
+
+    synchronized void rename(String from, String to) {
+        List<Dependency> dependencies = byTemplate.get(from);
+        if (dependencies != null) {
+            remove(from);
+            record(to, dependencies);
+        }
+    }
+
+    /**
+     * Whether a file {@code template} inlined has changed since it was recorded. Stats go through the run's
+     * {@code index}; a file is only read when its mtime moved but its size did not.
+     */
+    boolean dependenciesChanged(String template, Path repoRoot, RepositoryIndex index) {
+        for (Dependency dependency : dependencies(template)) {
+            Path path = repoRoot.resolve(dependency.path());
+            RepositoryIndex.FileInfo info = index.stat(path);
+            long size = info == null || info.directory() ? -1 : info.size();
+            if (size != dependency.size()) {
+                return true;
+            }
+            if (size < 0 || info.lastModifiedMillis() == dependency.modifiedMillis()) {
+                continue;
+            }
+            try {
+                if (FileSnapshot.crc32c(path) != dependency.crc32c()) {
+                    return true;
+                }
+            } catch (NoSuchFileException e) {
+                return true;
+            } catch (IOException e) {
+                logger.debug("Unable to read {}: {}", path, e.getMessage());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        LlmJson.MAPPER.writeValue(temp.toFile(), byTemplate);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    private void link(String template, List<Dependency> dependencies) {
+        for (Dependency dependency : dependencies) {
+            byAsset.computeIfAbsent(dependency.path(), p -> new LinkedHashSet<>()).add(template);
+        }
+    }
+
+    private void unlink(String template, List<Dependency> dependencies) {
+        for (Dependency dependency : dependencies) {
+            Set<String> templates = byAsset.get(dependency.path());
+            if (templates != null && templates.remove(template) && templates.isEmpty()) {
+                byAsset.remove(dependency.path());
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the assets and partials a GUI template refers to in one pass over its text:
+ * <ul>
+ *   <li>{@code <script src>}, {@code <link rel=stylesheet href>} and {@code <img src>}</li>
+ *   <li>{@code @import} inside {@code <style>} and relative {@code import ... from "./x.js"} inside {@code <script>}</li>
+ *   <li>JSP {@code <%@ include file>} and {@code <jsp:include page>}, Jinja/Twig {@code include}, {@code extends},
+ *       {@code import} and {@code from}, and Thymeleaf {@code th:replace}, {@code th:insert} and {@code th:include}</li>
+ * </ul>
+ * Tag and attribute names are compared in place; the only strings created are the reference targets. This
+ * is a tolerant scanner, not a parser: attribute values may be unquoted, and unterminated constructs simply
+ * end the scan.
+ */
+final class TemplateReferenceScanner {
+
+    enum Kind { SCRIPT, STYLESHEET, IMAGE, CSS_IMPORT, MODULE_IMPORT, INCLUDE }
+
+    record Reference(Kind kind, String target) {}
+
+    /** How far a module import may be from its specifier, so a stray word "import" cannot consume the script. */
+    private static final int MAX_IMPORT_CLAUSE = 1024;
+
+    private final String text;
+    private final int n;
+    private final List<Reference> references = new ArrayList<>();
+
+    /** Attribute name and value bounds of the tag being scanned; values of -1 mean no value. */
+    private int[] attrs = new int[32];
+    private int attrCount;
+
+    private TemplateReferenceScanner(String text) {
+        this.text = text;
+        this.n = text.length();
+    }
+
+    static List<Reference> scan(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        TemplateReferenceScanner scanner = new TemplateReferenceScanner(text);
+        scanner.run();
+        return scanner.references;
+    }
+
+    private void run() {
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                i = onAngle(i);
+            } else if (c == '{' && i + 1 < n && text.charAt(i + 1) == '%') {
+                i = jinjaStatement(i + 2);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private int onAngle(int start) {
+        if (startsWith(start, "<%@")) {
+            return jspDirective(start + 3);
+        }
+        if (startsWith(start, "<!--")) {
+            // Comments are scanned like markup, as commented-out includes are rare and cheap to bundle.
+            return start + 4;
+        }
+        int nameStart = start + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < n && isNameChar(text.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (nameEnd == nameStart || !Character.isLetter(text.charAt(nameStart))) {
+            return start + 1;
+        }
+        int end = parseAttributes(nameEnd);
+        if (tagIs(nameStart, nameEnd, "script")) {
+            add(Kind.SCRIPT, attribute("src"));
+            return selfClosing(end) ? end : rawText(end, "</script", true);
+        }
+        if (tagIs(nameStart, nameEnd, "style")) {
+            return selfClosing(end) ? end : rawText(end, "</style", false);
+        }
+        if (tagIs(nameStart, nameEnd, "link")) {
+            int rel = attributeIndex("rel");
+            if (rel >= 0 && containsIgnoreCase(attrs[rel * 4 + 2], attrs[rel * 4 + 3], "stylesheet")) {
+                add(Kind.STYLESHEET, attribute("href"));
+            }
+        } else if (tagIs(nameStart, nameEnd, "img")) {
+            add(Kind.IMAGE, attribute("src"));
+        } else if (tagIs(nameStart, nameEnd, "jsp:include")) {
+            add(Kind.INCLUDE, attribute("page"));
+        }
+        thymeleafFragments();
+        return end;
+    }
+
+    /**
+     * Reads attributes from {@code i} to the end of the tag into {@link #attrs}; returns the index after '>'.
+     */
+    private int parseAttributes(int i) {
+        attrCount = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '>') {
+                return i + 1;
+            }
+            if (Character.isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+            int nameStart = i;
+            while (i < n && !Character.isWhitespace(text.charAt(i)) && "=>/".indexOf(text.charAt(i)) < 0) {
+                i++;
+            }
+            int nameEnd = i;
+            i = skipWhitespace(i);
+            int valueStart = -1;
+            int valueEnd = -1;
+            if (i < n && text.charAt(i) == '=') {
+                i = skipWhitespace(i + 1);
+                if (i < n && (text.charAt(i) == '"' || text.charAt(i) == '\'')) {
+                    char quote = text.charAt(i);
+                    valueStart = i + 1;
+                    int close = text.indexOf(quote, valueStart);
+                    valueEnd = close < 0 ? n : close;
+                    i = close < 0 ? n : close + 1;
+                } else {
+                    valueStart = i;
+                    while (i < n && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '>') {
+                        i++;
+                    }
+                    valueEnd = i;
+                }
+            }
+            if ((attrCount + 1) * 4 > attrs.length) {
+                attrs = Arrays.copyOf(attrs, attrs.length * 2);
+            }
+            int at = attrCount++ * 4;
+            attrs[at] = nameStart;
+            attrs[at + 1] = nameEnd;
+            attrs[at + 2] = valueStart;
+            attrs[at + 3] = valueEnd;
+        }
+        return n;
+    }
+
+    private boolean selfClosing(int end) {
+        return end >= 2 && text.charAt(end - 2) == '/';
+    }
+
+    private int attributeIndex(String name) {
+        for (int k = 0; k < attrCount; k++) {
+            int at = k * 4;
+            if (attrs[at + 1] - attrs[at] == name.length() && text.regionMatches(true, attrs[at], name, 0, name.length())
+                    && attrs[at + 2] >= 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private String attribute(String name) {
+        int k = attributeIndex(name);
+        return k < 0 ? null : text.substring(attrs[k * 4 + 2], attrs[k * 4 + 3]);
+    }
+
+    private void thymeleafFragments() {
+        for (int k = 0; k < attrCount; k++) {
+            int at = k * 4;
+            int nameStart = attrs[at];
+            if (attrs[at + 2] < 0) {
+                continue;
+            }
+            if (text.regionMatches(true, nameStart, "data-th-", 0, 8)) {
+                nameStart += 8;
+            } else if (text.regionMatches(true, nameStart, "th:", 0, 3)) {
+                nameStart += 3;
+            } else {
+                continue;
+            }
+            int length = attrs[at + 1] - nameStart;
+            if ((length == 7 && text.regionMatches(true, nameStart, "replace", 0, 7))
+                    || (length == 6 && text.regionMatches(true, nameStart, "insert", 0, 6))
+                    || (length == 7 && text.regionMatches(true, nameStart, "include", 0, 7))) {
+                add(Kind.INCLUDE, thymeleafTemplate(text.substring(attrs[at + 2], attrs[at + 3])));
+            }
+        }
+    }
+
+    /** {@code ~{fragments/header :: nav}} names {@code fragments/header.html}; {@code ~{:: nav}} is local. */
+    static String thymeleafTemplate(String expression) {
+        String e = expression.trim();
+        if (e.startsWith("~{") && e.endsWith("}")) {
+            e = e.substring(2, e.length() - 1).trim();
+        }
+        int selector = e.indexOf("::");
+        String name = (selector >= 0 ? e.substring(0, selector) : e).trim();
+        if (name.isEmpty() || name.equals("this")) {
+            return null;
+        }
+        int slash = name.lastIndexOf('/');
+        return name.indexOf('.', slash + 1) < 0 ? name + ".html" : name;
+    }
+
+    /** Scans script or style content up to {@code closing}, collecting imports; returns the index after it. */
+    private int rawText(int i, String closing, boolean script) {
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '<' && text.regionMatches(true, i, closing, 0, closing.length())) {
+                int close = text.indexOf('>', i);
+                return close < 0 ? n : close + 1;
+            }
+            if (script && c == 'i' && wordAt(i, "import")) {
+                i = moduleImport(i + 6);
+            } else if (!script && c == '@' && text.regionMatches(true, i + 1, "import", 0, 6)) {
+                i = cssImport(i + 7);
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    /** {@code import "./a.js"} or {@code import ... from "./a.js"}; bare package specifiers are not files here. */
+    private int moduleImport(int i) {
+        i = skipWhitespace(i);
+        if (i >= n) {
+            return n;
+        }
+        char c = text.charAt(i);
+        if (c == '"' || c == '\'') {
+            return moduleSpecifier(i);
+        }
+        if (c != '{' && c != '*' && !Character.isJavaIdentifierStart(c)) {
+            return i;
+        }
+        int limit = Math.min(n, i + MAX_IMPORT_CLAUSE);
+        for (int j = i; j < limit; j++) {
+            char d = text.charAt(j);
+            if (d == ';' || d == '<' || d == '"' || d == '\'') {
+                return j;
+            }
+            if (d == 'f' && wordAt(j, "from")) {
+                int k = skipWhitespace(j + 4);
+                return k < n && (text.charAt(k) == '"' || text.charAt(k) == '\'') ? moduleSpecifier(k) : k;
+            }
+        }
+        return limit;
+    }
+
+    private int moduleSpecifier(int quoteAt) {
+        int close = text.indexOf(text.charAt(quoteAt), quoteAt + 1);
+        if (close < 0) {
+            return n;
+        }
+        if (text.startsWith("./", quoteAt + 1) || text.startsWith("../", quoteAt + 1) || text.startsWith("/", quoteAt + 1)) {
+            add(Kind.MODULE_IMPORT, text.substring(quoteAt + 1, close));
+        }
+        return close + 1;
+    }
+
+    private int cssImport(int i) {
+        i = skipWhitespace(i);
+        if (text.regionMatches(true, i, "url(", 0, 4)) {
+            int close = text.indexOf(')', i + 4);
+            if (close < 0) {
+                return n;
+            }
+            add(Kind.CSS_IMPORT, unquote(text.substring(i + 4, close)));
+            return close + 1;
+        }
+        if (i < n && (text.charAt(i) == '"' || text.charAt(i) == '\'')) {
+            int close = text.indexOf(text.charAt(i), i + 1);
+            if (close < 0) {
+                return n;
+            }
+            add(Kind.CSS_IMPORT, text.substring(i + 1, close));
+            return close + 1;
+        }
+        return i;
+    }
+
+    /** {@code <%@ include file="..." %>}; other directives are skipped. */
+    private int jspDirective(int i) {
+        int k = skipWhitespace(i);
+        if (wordAt(k, "include")) {
+            // The '>' of the closing "%>" ends the attribute list.
+            int end = parseAttributes(k + 7);
+            add(Kind.INCLUDE, attribute("file"));
+            return end;
+        }
+        int end = text.indexOf("%>", i);
+        return end < 0 ? n : end + 2;
+    }
+
+    /** {@code {% include "a.html" %}}, {@code extends}, {@code import} and {@code from}: the first string literal. */
+    private int jinjaStatement(int i) {
+        int end = text.indexOf("%}", i);
+        int stop = end < 0 ? n : end;
+        int k = skipWhitespace(i);
+        if (k < stop && text.charAt(k) == '-') {
+            k = skipWhitespace(k + 1);
+        }
+        if (wordAt(k, "include") || wordAt(k, "extends") || wordAt(k, "import") || wordAt(k, "from")
+                || wordAt(k, "embed")) {
+            for (int j = k; j < stop; j++) {
+                char c = text.charAt(j);
+                if (c == '"' || c == '\'') {
+                    int close = text.indexOf(c, j + 1);
+                    if (close > 0 && close < stop) {
+                        add(Kind.INCLUDE, text.substring(j + 1, close));
+                    }
+                    break;
+                }
+            }
+        }
+        return end < 0 ? n : end + 2;
+    }
+
+    private void add(Kind kind, String target) {
+        if (target != null && !target.isBlank()) {
+            references.add(new Reference(kind, target));
+        }
+    }
+
+    private boolean startsWith(int i, String prefix) {
+        return text.startsWith(prefix, i);
+    }
+
+    private boolean tagIs(int start, int end, String name) {
+        return end - start == name.length() && text.regionMatches(true, start, name, 0, name.length());
+    }
+
+    /** {@code word} at {@code i}, not preceded or followed by an identifier character. */
+    private boolean wordAt(int i, String word) {
+        if (i < 0 || !text.startsWith(word, i)) {
+            return false;
+        }
+        int after = i + word.length();
+        boolean startOk = i == 0 || !isIdentifierChar(text.charAt(i - 1));
+        return startOk && (after >= n || !isIdentifierChar(text.charAt(after)));
+    }
+
+    private boolean containsIgnoreCase(int start, int end, String needle) {
+        for (int i = start; i + needle.length() <= end; i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int skipWhitespace(int i) {
+        while (i < n && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == ':' || c == '-' || c == '_';
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+    }
+
+    private static String unquote(String s) {
+        String t = s.trim();
+        if (t.length() >= 2 && (t.charAt(0) == '"' || t.charAt(0) == '\'') && t.charAt(t.length() - 1) == t.charAt(0)) {
+            return t.substring(1, t.length() - 1);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,95 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link FilePipeline.Batcher} that packs items sharing a key into groups bounded by a token budget and
+ * an item count. Items without a key (or larger than the per-item limit) pass straight through. A group
+ * is emitted as soon as the next item would overflow it; groups that end up with a single member are
+ * emitted unchanged rather than combined.
+ *
+ * Only the pipeline's summarizer dispatcher thread calls this, so it is not synchronized.
+ */
+final class TokenBudgetBatcher<T> implements FilePipeline.Batcher<T> {
+
+    private final Function<T, String> keyFn;
+    private final ToIntFunction<T> tokensFn;
+    private final Function<List<T>, T> combiner;
+    private final int maxTokens;
+    private final int maxItemTokens;
+    private final ToIntFunction<String> maxItemsForKey;
+
+    private final Map<String, Group<T>> open = new LinkedHashMap<>();
+
+    private static final class Group<T> {
+        final List<T> items = new ArrayList<>();
+        int tokens;
+    }
+
+    /**
+     * @param keyFn          batch key, or null when the item must be summarized on its own
+     * @param tokensFn       estimated prompt tokens of an item
+     * @param maxTokens      token budget of one group
+     * @param maxItemTokens  items above this size are never batched
+     * @param maxItemsForKey maximum group size for a key (bounded by the output budget of one response)
+     * @param combiner       builds the single task representing a group of two or more items
+     */
+    TokenBudgetBatcher(Function<T, String> keyFn,
+                       ToIntFunction<T> tokensFn,
+                       int maxTokens,
+                       int maxItemTokens,
+                       ToIntFunction<String> maxItemsForKey,
+                       Function<List<T>, T> combiner) {
+        this.keyFn = keyFn;
+        this.tokensFn = tokensFn;
+        this.maxTokens = maxTokens;
+        this.maxItemTokens = maxItemTokens;
+        this.maxItemsForKey = maxItemsForKey;
+        this.combiner = combiner;
+    }
+
+    @Override
+    public List<T> add(T item) {
+        String key = keyFn.apply(item);
+        int tokens = tokensFn.applyAsInt(item);
+        int maxItems = key == null ? 1 : maxItemsForKey.applyAsInt(key);
+        if (key == null || tokens > maxItemTokens || maxItems < 2) {
+            return List.of(item);
+        }
+        List<T> ready = new ArrayList<>(2);
+        Group<T> group = open.get(key);
+        if (group != null && group.tokens + tokens > maxTokens) {
+            ready.add(emit(open.remove(key)));
+            group = null;
+        }
+        if (group == null) {
+            group = new Group<>();
+            open.put(key, group);
+        }
+        group.items.add(item);
+        group.tokens += tokens;
+        if (group.items.size() >= maxItems) {
+            ready.add(emit(open.remove(key)));
+        }
+        return ready;
+    }
+
+    @Override
+    public List<T> flush() {
+        List<T> ready = new ArrayList<>(open.size());
+        for (Group<T> group : open.values()) {
+            ready.add(emit(group));
+        }
+        open.clear();
+        return ready;
+    }
+
+    private T emit(Group<T> group) {
+        return group.items.size() == 1 ? group.items.get(0) : combiner.apply(List.copyOf(group.items));
+    }
+}
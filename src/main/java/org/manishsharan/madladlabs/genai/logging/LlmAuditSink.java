@@ -5,6 +5,7 @@ import org.apache.logging.log4j.Logger;
 import org.manishsharan.ontology.model.AiEnrichmentPayload;
 
 import java.util.UUID;
+import java.util.function.Supplier;
 
 public final class LlmAuditSink {
     private static final Logger logger = LogManager.getLogger(LlmAuditSink.class);
@@ -30,6 +31,22 @@ public final class LlmAuditSink {
         return requestId;
     }
 
+    /**
+     * Same as {@link #logRequest(String, String, String, String, String)} for bodies that are streamed to
+     * the provider: the body is only rendered to a string when the audit logger is enabled at INFO, so
+     * raising this logger to WARN removes the extra serialization from the request path.
+     */
+    public static String logRequest(String provider,
+                                    String model,
+                                    String pipeline,
+                                    String filePath,
+                                    Supplier<String> requestBody) {
+        if (!logger.isInfoEnabled()) {
+            return UUID.randomUUID().toString();
+        }
+        return logRequest(provider, model, pipeline, filePath, requestBody.get());
+    }
+
     public static void logResponse(String requestId,
                                    String provider,
                                    String model,
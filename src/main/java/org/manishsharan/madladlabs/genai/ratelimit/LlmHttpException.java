@@ -0,0 +1,19 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import java.io.IOException;
+
+/**
+ * Non-2xx response from an LLM provider after retries were exhausted or for a non-retryable status.
+ */
+public class LlmHttpException extends IOException {
+    private final int statusCode;
+
+    public LlmHttpException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,145 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Sends provider requests through the provider's {@link ProviderRateLimiter} and retries
+ * 429/5xx responses and transport errors with {@link RetryPolicy} backoff, honouring Retry-After.
+ */
+public final class LlmHttpExecutor {
+    private static final Logger logger = LogManager.getLogger(LlmHttpExecutor.class);
+
+    private LlmHttpExecutor() {}
+
+    /**
+     * Executes {@code request} and returns the response body of the first successful attempt.
+     *
+     * @param estimatedTokens rough input token count used for the tokens-per-minute bucket
+     * @throws LlmHttpException when the provider keeps answering with an error status
+     * @throws IOException      when the transport keeps failing
+     */
+    public static String execute(OkHttpClient client,
+                                 Request request,
+                                 String provider,
+                                 int estimatedTokens,
+                                 String filePath) throws IOException {
+        ProviderRateLimiter limiter = RateLimiterRegistry.forProvider(provider);
+        RetryPolicy policy = RateLimiterRegistry.retryPolicy();
+        IOException lastError = null;
+
+        for (int attempt = 1; attempt <= policy.maxAttempts(); attempt++) {
+            if (attempt > 1) {
+                limiter.recordRetry();
+            }
+            try {
+                limiter.acquire(estimatedTokens);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for " + provider + " rate limiter");
+            }
+
+            ProviderRateLimiter.Outcome outcome = ProviderRateLimiter.Outcome.FAILURE;
+            long retryAfterMillis = -1;
+            boolean retryable;
+            try (Response response = client.newCall(request).execute()) {
+                if (response.isSuccessful()) {
+                    ResponseBody body = response.body();
+                    String text = body != null ? body.string() : "";
+                    outcome = ProviderRateLimiter.Outcome.SUCCESS;
+                    return text;
+                }
+                int code = response.code();
+                retryAfterMillis = parseRetryAfterMillis(response);
+                if (code == 429) {
+                    outcome = ProviderRateLimiter.Outcome.THROTTLED;
+                }
+                retryable = policy.isRetryableStatus(code);
+                lastError = new LlmHttpException(code,
+                        "Unexpected response code: " + code + " - " + response.message() + " (" + provider + ")");
+                logger.warn("{} returned HTTP {} for {} (attempt {}/{}, retryAfterMs={})",
+                        provider, code, filePath, attempt, policy.maxAttempts(), retryAfterMillis);
+            } catch (InterruptedIOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                // OkHttp reports timeouts as InterruptedIOException; those are worth retrying.
+                lastError = e;
+                retryable = true;
+                logger.warn("{} request timed out for {} (attempt {}/{}): {}",
+                        provider, filePath, attempt, policy.maxAttempts(), e.getMessage());
+            } catch (IOException e) {
+                lastError = e;
+                retryable = true;
+                logger.warn("{} request failed for {} (attempt {}/{}): {}",
+                        provider, filePath, attempt, policy.maxAttempts(), e.getMessage());
+            } finally {
+                limiter.release(outcome, retryAfterMillis);
+            }
+
+            if (!retryable || attempt == policy.maxAttempts()) {
+                break;
+            }
+            long sleepMillis = policy.backoffMillis(attempt, retryAfterMillis);
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted during " + provider + " retry backoff");
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Cheap input-token estimate for the tokens-per-minute bucket (~4 characters per token).
+     */
+    public static int estimateTokens(String payload) {
+        return payload == null ? 0 : payload.length() / 4;
+    }
+
+    static long parseRetryAfterMillis(Response response) {
+        String millis = response.header("retry-after-ms");
+        if (millis != null) {
+            try {
+                return Math.max(0, (long) Double.parseDouble(millis.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall through to Retry-After
+            }
+        }
+        return parseRetryAfter(response.header("Retry-After"));
+    }
+
+    /**
+     * Parses a Retry-After value given either as delta-seconds or as an HTTP-date.
+     * Returns -1 when absent or unparseable.
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, (long) (Double.parseDouble(trimmed) * 1000));
+        } catch (NumberFormatException ignored) {
+            // not delta-seconds
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for one LLM provider.
+ *
+ * Combines two token buckets (requests per minute and tokens per minute) with an AIMD concurrency
+ * limit: every 429 halves the number of requests allowed in flight, every {@code limit} successful
+ * responses raise it by one, up to {@code maxConcurrency}. A {@code Retry-After} from the provider
+ * pauses all admissions for that provider until it expires.
+ *
+ * A limit of 0 for requests or tokens per minute disables that bucket.
+ */
+public final class ProviderRateLimiter {
+
+    public enum Outcome { SUCCESS, THROTTLED, FAILURE }
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String provider;
+    private final int requestsPerMinute;
+    private final int tokensPerMinute;
+    private final int maxConcurrency;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double requestTokens;
+    private double tokenTokens;
+    private long lastRefillNanos;
+    private int concurrencyLimit;
+    private int inFlight;
+    private int successesSinceIncrease;
+    private long lastDecreaseNanos;
+    private long pausedUntilNanos;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public ProviderRateLimiter(String provider, int requestsPerMinute, int tokensPerMinute, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be >= 1");
+        }
+        this.provider = provider;
+        this.requestsPerMinute = Math.max(0, requestsPerMinute);
+        this.tokensPerMinute = Math.max(0, tokensPerMinute);
+        this.maxConcurrency = maxConcurrency;
+        this.concurrencyLimit = maxConcurrency;
+        this.requestTokens = this.requestsPerMinute;
+        this.tokenTokens = this.tokensPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastDecreaseNanos = lastRefillNanos - DECREASE_COOLDOWN_NANOS;
+        this.pausedUntilNanos = lastRefillNanos;
+    }
+
+    public String provider() {
+        return provider;
+    }
+
+    /**
+     * Blocks until a request estimated at {@code estimatedTokens} input tokens may be sent.
+     * Estimates larger than the whole per-minute budget are clamped so they can still go out
+     * once the bucket is full.
+     */
+    public void acquire(int estimatedTokens) throws InterruptedException {
+        long started = System.nanoTime();
+        double tokensNeeded = tokensPerMinute == 0 ? 0 : Math.min(Math.max(estimatedTokens, 0), tokensPerMinute);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+                long waitFor = 0;
+                if (now - pausedUntilNanos < 0) {
+                    waitFor = pausedUntilNanos - now;
+                } else if (inFlight >= concurrencyLimit) {
+                    waitFor = Long.MAX_VALUE;
+                } else if (requestsPerMinute > 0 && requestTokens < 1.0) {
+                    waitFor = nanosUntil(1.0 - requestTokens, requestsPerMinute);
+                } else if (tokensNeeded > 0 && tokenTokens < tokensNeeded) {
+                    waitFor = nanosUntil(tokensNeeded - tokenTokens, tokensPerMinute);
+                }
+                if (waitFor == 0) {
+                    break;
+                }
+                if (waitFor == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitFor);
+                }
+            }
+            if (requestsPerMinute > 0) {
+                requestTokens -= 1.0;
+            }
+            tokenTokens -= tokensNeeded;
+            inFlight++;
+            requests.increment();
+        } finally {
+            lock.unlock();
+            waitNanos.add(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Returns the slot taken by {@link #acquire(int)} and feeds the outcome into the AIMD controller.
+     *
+     * @param retryAfterMillis provider supplied back-off, or a negative value when absent
+     */
+    public void release(Outcome outcome, long retryAfterMillis) {
+        lock.lock();
+        try {
+            inFlight = Math.max(0, inFlight - 1);
+            long now = System.nanoTime();
+            switch (outcome) {
+                case SUCCESS -> {
+                    if (concurrencyLimit < maxConcurrency && ++successesSinceIncrease >= concurrencyLimit) {
+                        concurrencyLimit++;
+                        successesSinceIncrease = 0;
+                    }
+                }
+                case THROTTLED -> {
+                    throttled.increment();
+                    if (now - lastDecreaseNanos >= DECREASE_COOLDOWN_NANOS) {
+                        concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+                        successesSinceIncrease = 0;
+                        lastDecreaseNanos = now;
+                    }
+                }
+                case FAILURE -> failures.increment();
+            }
+            if (retryAfterMillis > 0) {
+                long until = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+                if (until - pausedUntilNanos > 0) {
+                    pausedUntilNanos = until;
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        lastRefillNanos = now;
+        if (requestsPerMinute > 0) {
+            requestTokens = Math.min(requestsPerMinute, requestTokens + (double) elapsed * requestsPerMinute / NANOS_PER_MINUTE);
+        }
+        if (tokensPerMinute > 0) {
+            tokenTokens = Math.min(tokensPerMinute, tokenTokens + (double) elapsed * tokensPerMinute / NANOS_PER_MINUTE);
+        }
+    }
+
+    private static long nanosUntil(double deficit, int perMinute) {
+        return Math.max(1L, (long) Math.ceil(deficit * NANOS_PER_MINUTE / perMinute));
+    }
+
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            return new Snapshot(
+                    provider,
+                    concurrencyLimit,
+                    maxConcurrency,
+                    inFlight,
+                    requestsPerMinute == 0 ? -1 : (long) requestTokens,
+                    tokensPerMinute == 0 ? -1 : (long) tokenTokens,
+                    requests.sum(),
+                    throttled.sum(),
+                    retries.sum(),
+                    failures.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Point-in-time limiter state. Available request/token counts are -1 when that bucket is disabled.
+     */
+    public record Snapshot(String provider,
+                           int concurrencyLimit,
+                           int maxConcurrency,
+                           int inFlight,
+                           long availableRequests,
+                           long availableTokens,
+                           long requests,
+                           long throttled,
+                           long retries,
+                           long failures,
+                           long waitMillis) {}
+}
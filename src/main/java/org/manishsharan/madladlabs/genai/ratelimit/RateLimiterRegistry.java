@@ -0,0 +1,118 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide limiter per provider, shared by every summarizer and component run.
+ *
+ * Defaults can be overridden with environment variables named after the provider, e.g.
+ * {@code ANTHROPIC_RPM}, {@code ANTHROPIC_TPM}, {@code ANTHROPIC_MAX_CONCURRENCY}, or
+ * programmatically with {@link #configure(String, int, int, int)} before the first request.
+ * {@code LLM_MAX_ATTEMPTS} overrides the retry budget.
+ */
+public final class RateLimiterRegistry {
+    private static final Logger logger = LogManager.getLogger(RateLimiterRegistry.class);
+
+    private static final Map<String, ProviderRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+    private static volatile RetryPolicy retryPolicy = defaultRetryPolicy();
+
+    private RateLimiterRegistry() {}
+
+    public static ProviderRateLimiter forProvider(String provider) {
+        return LIMITERS.computeIfAbsent(provider.toLowerCase(Locale.ROOT), RateLimiterRegistry::createDefault);
+    }
+
+    public static void configure(String provider, int requestsPerMinute, int tokensPerMinute, int maxConcurrency) {
+        String key = provider.toLowerCase(Locale.ROOT);
+        LIMITERS.put(key, new ProviderRateLimiter(key, requestsPerMinute, tokensPerMinute, maxConcurrency));
+    }
+
+    public static RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+
+    public static void setRetryPolicy(RetryPolicy policy) {
+        retryPolicy = policy;
+    }
+
+    public static List<ProviderRateLimiter.Snapshot> snapshots() {
+        List<ProviderRateLimiter.Snapshot> out = new ArrayList<>();
+        for (ProviderRateLimiter limiter : LIMITERS.values()) {
+            out.add(limiter.snapshot());
+        }
+        return out;
+    }
+
+    public static void logMetrics() {
+        for (ProviderRateLimiter.Snapshot s : snapshots()) {
+            logger.info("Rate limiter [{}] limit={}/{}, inFlight={}, availableRequests={}, availableTokens={}, "
+                            + "requests={}, throttled={}, retries={}, failures={}, waitMs={}",
+                    s.provider(),
+                    s.concurrencyLimit(),
+                    s.maxConcurrency(),
+                    s.inFlight(),
+                    s.availableRequests(),
+                    s.availableTokens(),
+                    s.requests(),
+                    s.throttled(),
+                    s.retries(),
+                    s.failures(),
+                    s.waitMillis());
+        }
+    }
+
+    private static ProviderRateLimiter createDefault(String provider) {
+        int rpm;
+        int tpm;
+        int concurrency;
+        switch (provider) {
+            case "anthropic" -> {
+                rpm = 50;
+                tpm = 50_000;
+                concurrency = 16;
+            }
+            case "gemini" -> {
+                rpm = 1_000;
+                tpm = 1_000_000;
+                concurrency = 32;
+            }
+            default -> {
+                // DeepSeek does not publish hard limits; rely on AIMD and Retry-After.
+                rpm = 0;
+                tpm = 0;
+                concurrency = 64;
+            }
+        }
+        String prefix = provider.toUpperCase(Locale.ROOT);
+        rpm = envInt(prefix + "_RPM", rpm);
+        tpm = envInt(prefix + "_TPM", tpm);
+        concurrency = envInt(prefix + "_MAX_CONCURRENCY", concurrency);
+        logger.info("Rate limiter [{}] rpm={}, tpm={}, maxConcurrency={}", provider, rpm, tpm, concurrency);
+        return new ProviderRateLimiter(provider, rpm, tpm, concurrency);
+    }
+
+    private static RetryPolicy defaultRetryPolicy() {
+        RetryPolicy d = RetryPolicy.DEFAULT;
+        return new RetryPolicy(envInt("LLM_MAX_ATTEMPTS", d.maxAttempts()), d.baseDelayMillis(), d.maxDelayMillis());
+    }
+
+    private static int envInt(String name, int fallback) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid value for {}: '{}'", name, value);
+            return fallback;
+        }
+    }
+}
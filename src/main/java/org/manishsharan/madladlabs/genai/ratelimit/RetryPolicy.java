@@ -0,0 +1,29 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Jittered exponential backoff ("full jitter"): attempt {@code n} sleeps a random time in
+ * {@code [0, min(maxDelay, baseDelay * 2^(n-1))]}, unless the provider sent a longer Retry-After.
+ */
+public record RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(6, 1_000L, 60_000L);
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+    }
+
+    public boolean isRetryableStatus(int code) {
+        return code == 408 || code == 409 || code == 429 || code == 529 || (code >= 500 && code <= 599);
+    }
+
+    public long backoffMillis(int attempt, long retryAfterMillis) {
+        int exponent = Math.min(Math.max(attempt - 1, 0), 20);
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return Math.max(jittered, retryAfterMillis);
+    }
+}
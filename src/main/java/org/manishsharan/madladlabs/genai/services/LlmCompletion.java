@@ -0,0 +1,8 @@
+package org.manishsharan.madladlabs.genai.services;
+
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+/**
+ * Raw assistant text of one LLM call together with what it cost.
+ */
+public record LlmCompletion(String content, AiEnrichmentPayload.BillableUsage billableUsage, String model) {}
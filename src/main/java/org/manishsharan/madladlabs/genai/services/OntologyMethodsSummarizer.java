@@ -3,6 +3,8 @@ package org.manishsharan.madladlabs.genai.services;
 import org.manishsharan.ontology.model.AiEnrichmentPayload;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public interface OntologyMethodsSummarizer {
 
@@ -10,6 +12,20 @@ public interface OntologyMethodsSummarizer {
    int getContextSize();
    // List<MethodSummary> parseMethodSummaryResponse(String jsonResponse) throws IOException;
    AiEnrichmentPayload summarizeCodeMethods(String relativePath, String language, File javaSource) throws  Exception;
+   /**
+    * Summarizes already-loaded source. Used directly for chunked files, where {@code sourceContent}
+    * is one slice of the file prefixed with its package/import header. The default hands the content to
+    * {@link #summarizeCodeMethods} through a temporary file; providers that prompt from a string override it.
+    */
+   default AiEnrichmentPayload summarizeCodeContent(String relativePath, String language, String sourceContent) throws Exception {
+      Path source = Files.createTempFile("ai-parser-", "-" + Path.of(relativePath).getFileName());
+      try {
+         Files.writeString(source, sourceContent);
+         return summarizeCodeMethods(relativePath, language, source.toFile());
+      } finally {
+         Files.deleteIfExists(source);
+      }
+   }
    AiEnrichmentPayload summarizeGuiTemplate(String relativePath, String language, String content) throws Exception;
    AiEnrichmentPayload summarizeConfigTemplate(String relativePath, String detectedType, String content) throws Exception;
    AiEnrichmentPayload summarizeDocument(String relativePath,
@@ -17,4 +33,19 @@ public interface OntologyMethodsSummarizer {
                                          String title,
                                          String datetime,
                                          String extractedContent) throws Exception;
+   /**
+    * Whether {@link #completeJson} is implemented. Without it, files are sent one per request and template
+    * assets are always inlined.
+    */
+   default boolean supportsCompleteJson() {
+      return false;
+   }
+   /**
+    * Sends an arbitrary prompt that asks for a single JSON object and returns the assistant text as-is.
+    * Used for multi-file batches and asset summaries, whose prompt and response shape differ from the
+    * per-file methods. Only called when {@link #supportsCompleteJson()} is true; the default returns null.
+    */
+   default LlmCompletion completeJson(String systemPrompt, String userPrompt, String relativePath, String pipeline) throws Exception {
+      return null;
+   }
 }
@@ -0,0 +1,152 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the most relevant JSON object in free-form model output (chatter, code fences, several objects).
+ *
+ * One pass over the text records the span of every balanced object and scores it by which preferred keys
+ * it has at its own top level; only the best-scoring span is then parsed. If it turns out not to be valid
+ * JSON the next best is tried, so the common case costs one scan plus one parse regardless of how many
+ * braces the answer contains. Text outside any object is treated as prose: its quotes and brackets are
+ * ignored, and braces inside JSON strings never start a candidate.
+ */
+public final class JsonObjectScanner {
+
+    private static final byte OBJECT = 0;
+    private static final byte ARRAY = 1;
+
+    /** A balanced {@code {...}} region, end exclusive. */
+    record Span(int start, int end, int score) {}
+
+    private JsonObjectScanner() {}
+
+    /**
+     * @param preferredKeys top-level keys worth 2 points each
+     * @return the best-scoring object that parses (earliest on ties), or {@code null} if there is none
+     */
+    public static JsonNode bestObject(String text, String... preferredKeys) {
+        int[] weights = new int[preferredKeys.length];
+        Arrays.fill(weights, 2);
+        return bestObject(text, preferredKeys, weights);
+    }
+
+    public static JsonNode bestObject(String text, String[] keys, int[] weights) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        List<Span> spans = spans(text, keys, weights);
+        spans.sort(Comparator.comparingInt(Span::score).reversed().thenComparingInt(Span::start));
+        for (Span span : spans) {
+            try {
+                return LlmJson.TREE_READER.readTree(text.substring(span.start(), span.end()));
+            } catch (IOException ignored) {
+                // balanced but not valid JSON; try the next candidate
+            }
+        }
+        return null;
+    }
+
+    static List<Span> spans(String text, String[] keys, int[] weights) {
+        List<Span> spans = new ArrayList<>();
+        int capacity = 16;
+        byte[] kinds = new byte[capacity];
+        int[] starts = new int[capacity];
+        int[] scores = new int[capacity];
+        int[] seenKeys = new int[capacity];
+        boolean[] expectKey = new boolean[capacity];
+        int depth = 0;
+
+        boolean inString = false;
+        boolean escape = false;
+        boolean keyString = false;
+        int stringStart = -1;
+
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (keyString) {
+                        int top = depth - 1;
+                        int length = i - stringStart - 1;
+                        for (int k = 0; k < keys.length; k++) {
+                            if ((seenKeys[top] & (1 << k)) == 0 && keys[k].length() == length
+                                    && text.regionMatches(stringStart + 1, keys[k], 0, length)) {
+                                seenKeys[top] |= 1 << k;
+                                scores[top] += weights[k];
+                            }
+                        }
+                    }
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    if (depth > 0) {
+                        inString = true;
+                        stringStart = i;
+                        keyString = kinds[depth - 1] == OBJECT && expectKey[depth - 1];
+                    }
+                }
+                case '{', '[' -> {
+                    if (c == '[' && depth == 0) {
+                        break;
+                    }
+                    if (depth == capacity) {
+                        capacity *= 2;
+                        kinds = Arrays.copyOf(kinds, capacity);
+                        starts = Arrays.copyOf(starts, capacity);
+                        scores = Arrays.copyOf(scores, capacity);
+                        seenKeys = Arrays.copyOf(seenKeys, capacity);
+                        expectKey = Arrays.copyOf(expectKey, capacity);
+                    }
+                    kinds[depth] = c == '{' ? OBJECT : ARRAY;
+                    starts[depth] = i;
+                    scores[depth] = 0;
+                    seenKeys[depth] = 0;
+                    expectKey[depth] = c == '{';
+                    depth++;
+                }
+                case '}', ']' -> {
+                    if (depth == 0) {
+                        break;
+                    }
+                    byte kind = c == '}' ? OBJECT : ARRAY;
+                    if (kinds[depth - 1] != kind) {
+                        // mismatched nesting: nothing open can be valid JSON
+                        depth = 0;
+                        break;
+                    }
+                    depth--;
+                    if (kind == OBJECT) {
+                        spans.add(new Span(starts[depth], i + 1, scores[depth]));
+                    }
+                }
+                case ',' -> {
+                    if (depth > 0 && kinds[depth - 1] == OBJECT) {
+                        expectKey[depth - 1] = true;
+                    }
+                }
+                case ':' -> {
+                    if (depth > 0) {
+                        expectKey[depth - 1] = false;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return spans;
+    }
+}
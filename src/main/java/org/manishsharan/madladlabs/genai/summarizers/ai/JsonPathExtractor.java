@@ -0,0 +1,87 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pulls a fixed set of scalar fields out of a JSON document in one streaming pass, without building a
+ * tree. Paths are dot-separated field names; array elements are addressed with {@code *} and the first
+ * element that has the field wins (e.g. {@code choices.*.message.content}). Subtrees that cannot lead
+ * to a requested path are skipped unparsed.
+ */
+public final class JsonPathExtractor {
+
+    private final Set<String> paths;
+    private final Set<String> prefixes = new HashSet<>();
+
+    public JsonPathExtractor(String... paths) {
+        this.paths = Set.of(paths);
+        for (String path : paths) {
+            int dot = path.indexOf('.');
+            while (dot > 0) {
+                prefixes.add(path.substring(0, dot));
+                dot = path.indexOf('.', dot + 1);
+            }
+        }
+    }
+
+    /**
+     * @return requested path to its text value; absent paths and JSON nulls are not in the map
+     */
+    public Map<String, String> extract(String json) throws IOException {
+        Map<String, String> out = new HashMap<>(paths.size() * 2);
+        if (json == null || json.isEmpty()) {
+            return out;
+        }
+        try (JsonParser parser = LlmJson.FACTORY.createParser(json)) {
+            if (parser.nextToken() != null) {
+                value(parser, "", out);
+            }
+        }
+        return out;
+    }
+
+    private void value(JsonParser parser, String path, Map<String, String> out) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            if (!path.isEmpty() && !prefixes.contains(path)) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String child = path.isEmpty() ? parser.currentName() : path + '.' + parser.currentName();
+                parser.nextToken();
+                value(parser, child, out);
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            if (!prefixes.contains(path)) {
+                parser.skipChildren();
+                return;
+            }
+            String child = path + ".*";
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                value(parser, child, out);
+            }
+        } else if (token != JsonToken.VALUE_NULL && paths.contains(path)) {
+            out.putIfAbsent(path, parser.getText());
+        }
+    }
+
+    public static int intValue(Map<String, String> fields, String path, int defaultValue) {
+        String value = fields.get(path);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import okhttp3.MediaType;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Shared Jackson configuration for the summarizers. {@link ObjectMapper} and {@link ObjectReader} are
+ * thread-safe once configured, so one instance serves every request instead of a mapper per call
+ * (each new mapper rebuilds its serializer/deserializer caches).
+ */
+public final class LlmJson {
+
+    public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    public static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    public static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    public static final ObjectReader TREE_READER = MAPPER.reader();
+    public static final ObjectReader PAYLOAD_READER = MAPPER.readerFor(AiEnrichmentPayload.class);
+    public static final ObjectReader FUNCTIONS_READER =
+            MAPPER.readerForListOf(AiEnrichmentPayload.FunctionEnrichment.class);
+    public static final ObjectReader TEMPLATE_READER =
+            MAPPER.readerFor(AiEnrichmentPayload.TemplateEnrichment.class);
+
+    private LlmJson() {}
+
+    /**
+     * Binds a code-summary object ({@code module}, {@code language}, {@code functions}) to a payload,
+     * accepting the prompt's {@code functions} key as well as the bean's own property names.
+     */
+    public static AiEnrichmentPayload codePayload(JsonNode node) throws IOException {
+        AiEnrichmentPayload payload = PAYLOAD_READER.readValue(node);
+        if (payload.getFunctionEnrichments() == null && node.has("functions")) {
+            List<AiEnrichmentPayload.FunctionEnrichment> functions = FUNCTIONS_READER.readValue(node.get("functions"));
+            payload.setFunctionEnrichments(functions);
+        }
+        if (payload.getModule() == null) {
+            payload.setModule(node.path("module").asText(null));
+        }
+        if (payload.getLanguage() == null) {
+            payload.setLanguage(node.path("language").asText(null));
+        }
+        return payload;
+    }
+}
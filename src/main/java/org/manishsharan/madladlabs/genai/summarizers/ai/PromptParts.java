@@ -0,0 +1,18 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+/**
+ * A prompt split into the static instruction block and the per-file part. Providers send
+ * {@code instructions} first (as a system message / cached block) so it forms an identical prefix
+ * across requests, which is what their prompt caches key on.
+ *
+ * Each {@code PromptTemplateFor*} class follows this split: {@code INSTRUCTIONS} is the same for every
+ * request of its pipeline, {@code FILE_TEMPLATE} is rendered per file (or batch) and sent after it, and
+ * {@code PROMPT_TEMPLATE} is both together.
+ */
+public record PromptParts(String instructions, String content) {
+
+    /** Both parts as one user message, for callers that cannot separate them. */
+    public String full() {
+        return instructions == null || instructions.isEmpty() ? content : instructions + content;
+    }
+}
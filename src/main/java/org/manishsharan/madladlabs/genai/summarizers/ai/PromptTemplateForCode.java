@@ -2,8 +2,9 @@ package org.manishsharan.madladlabs.genai.summarizers.ai;
 
 public class PromptTemplateForCode {
 
-    public static String PROMPT_TEMPLATE = """
-You are an expert software analyst. I will provide ONE FULL {{{language}}} SOURCE FILE . 
+    /** Extraction rules and JSON schema for the functions defined in one source file. */
+    public static final String INSTRUCTIONS = """
+You are an expert software analyst. I will provide ONE FULL SOURCE FILE (its language is given with the file below). 
 Extract enrichment ONLY for functions/methods DEFINED in this file (skip imports and external symbols). 
 
 Return a single JSON object with a "functions" array. For each function/method in this file, return: 
@@ -59,6 +60,11 @@ Heuristics (for detection signals, not to be output):
 - DB access: JDBC/JPA/Hibernate, MyBatis, psycopg2/sqlalchemy, Mongo/Motor, Redis clients, ORM repositories.
 
 Now I will provide the full source file. Produce ONLY the JSON per the schema above.
+""";
+
+    /** The file's language, path and full source. */
+    public static final String FILE_TEMPLATE = """
+Language: {{{language}}}
 This is the relatinve path of the file in the project: {{{relativeFilePath}}}
 -----------------------------------------------------------------------------------------------            
          {{{sourceFileContent}}}   
@@ -66,4 +72,6 @@ This is the relatinve path of the file in the project: {{{relativeFilePath}}}
 
             """;
 
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
+
 }
@@ -0,0 +1,60 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+public class PromptTemplateForCodeBatch {
+
+    /** Rules for summarizing several small files of one language, answered as one object keyed by path. */
+    public static final String INSTRUCTIONS = """
+You are an expert software analyst. I will provide SEVERAL small SOURCE FILES in one language (given below). Each file starts with a header line
+"=== FILE: <relative path> ===". Treat every file independently.
+For EACH file, extract enrichment ONLY for functions/methods DEFINED in that file (skip imports and external symbols).
+
+For each function/method return:
+- "fqn": fully-qualified name (module.namespace + class + method or module + function; use language-appropriate naming).
+- "description": 4–7 sentences MAX in normal/business English describing WHAT it does, WHY it exists, and HOW it works (major steps), including:
+    - If it directly HANDLES a Web route (HTTP), SOAP, REST, or GraphQL endpoint.
+    - If it directly CALLS/INVOKES a Web route, SOAP, REST, or GraphQL endpoint.
+    - If it directly ACCESSES a database (SQL/NoSQL/Redis/etc), including whether it reads or writes, and what entity/table/collection if inferable.
+    - If it touches potentially sensitive data (emails, IDs, PII), name it.
+- "relationships": ONLY edges about the above API/route/db interactions, at most 6 per function. Supported types:
+    "ROUTE_HANDLES", "ROUTE_CALLS", "SOAP_HANDLES", "SOAP_CALLS", "REST_CALLS", "GRAPHQL_HANDLES", "GRAPHQL_CALLS", "DB_ACCESSES"
+  (handles: source=route/operation, target=function FQN; calls/accesses: source=function FQN, target=route/operation/"READ table:x"/"WRITE collection:y").
+
+Important rules:
+- Do NOT restate facts available from parsing (name, line, visibility, raw call lists).
+- Never attribute a function to a file other than the one it is defined in.
+- No prose outside JSON. No code blocks in JSON values. No markdown.
+
+Output: ONE JSON object. Its keys are the exact relative paths from the FILE headers (every file exactly once);
+each value follows this schema (exact keys, no extras):
+{
+  "<relative path>": {
+    "module": "string (module or namespace or classname of the source file)",
+    "language": "string",
+    "functions": [
+      {
+        "fqn": "string",
+        "description": "string",
+        "relationships": [ {"type": "...", "source": "string", "target": "string", "description": "string (optional)"} ]
+      }
+    ]
+  }
+}
+A file with no functions still gets an entry with an empty "functions" array.
+
+""";
+
+    /** The shared language, then each file under its {@code === FILE: ===} header. */
+    public static final String FILE_TEMPLATE = """
+Language: {{{language}}}
+-----------------------------------------------------------------------------------------------
+{{#files}}
+=== FILE: {{{relativeFilePath}}} ===
+{{{sourceFileContent}}}
+
+{{/files}}
+-----------------------------------------------------------------------------------------------
+""";
+
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
+
+}
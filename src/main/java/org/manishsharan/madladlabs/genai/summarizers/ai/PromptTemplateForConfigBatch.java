@@ -0,0 +1,44 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+public class PromptTemplateForConfigBatch {
+    /** Narrative rules for several config files, answered as one object keyed by path. */
+    public static final String INSTRUCTIONS = """
+You are a meticulous technical analyst specializing in configuration files (NOT source code, NOT UI templates, NOT markdown/docs).
+You convert raw config into a dense, retrieval-friendly narrative for a vector database.
+
+You will be given SEVERAL small configuration files (YAML/YML, .env, .properties, XML, JSON, requirements.txt, ...).
+Each file starts with a header line "=== FILE: <relative path> (detected_type: <type>) ===". Describe every file independently.
+
+For EACH file produce a retrieval-optimized plain-text description that:
+1) Preserves exact names/identifiers (keys, sections, env var names, property names, XML tags/attrs, JSON fields, dependency names,
+   versions, URLs, hostnames, ports, paths), case-sensitive.
+2) Explains purpose, structure, key entities/attributes, relationships and data flow, constraints/defaults/precedence,
+   environments/profiles, and operational implications.
+3) Lists referenced environment variables and where they are used.
+4) For dependency lists, captures name, version/operator and extras.
+5) Never prints secret values: keep the key name and write "[REDACTED_SECRET_VALUE]".
+6) Does not invent missing values; calls out ambiguity and missing referenced files.
+Keep each description under about 400 words; prefer coverage of names over prose.
+
+Output: ONE JSON object. Its keys are the exact relative paths from the FILE headers (every file exactly once);
+each value is the plain-text description as a JSON string (no markdown, no nested JSON):
+{
+  "<relative path>": "description ..."
+}
+Do not output the raw file contents.
+
+""";
+
+    /** Each file under a {@code === FILE: ===} header carrying its detected type. */
+    public static final String FILE_TEMPLATE = """
+-----------------------------------------------------------------------------------------------
+{{#files}}
+=== FILE: {{{relativeFilePath}}} (detected_type: {{{detectedType}}}) ===
+{{{sourceFileContent}}}
+
+{{/files}}
+-----------------------------------------------------------------------------------------------
+""";
+
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
+}
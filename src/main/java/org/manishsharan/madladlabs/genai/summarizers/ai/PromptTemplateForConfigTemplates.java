@@ -1,7 +1,8 @@
 package org.manishsharan.madladlabs.genai.summarizers.ai;
 
 public class PromptTemplateForConfigTemplates {
-    public static String PROMPT_TEMPLATE = """
+    /** Narrative rules for one config file, answered as plain text. */
+    public static final String INSTRUCTIONS = """
 
 You are a meticulous technical analyst specializing in configuration files (NOT source code, NOT UI templates, NOT markdown/docs).
 You convert raw config into a dense, retrieval-friendly narrative for a vector database.
@@ -27,7 +28,7 @@ Produce a verbose, retrieval-optimized text description that captures the maximu
 INPUT METADATA (if provided):
 - file_path: <PATH>
 - repo/project/module: <OPTIONAL>
-- detected_type: {{{detectedType}}}
+- detected_type: <given with the file below>
 - hints: <OPTIONAL>
 
 OUTPUT RULES:
@@ -72,6 +73,11 @@ IMPORTANT:
 - Prefer exhaustive coverage over brevity.
 - Use the exact names of keys/tags/fields frequently so embeddings capture them.
 
+""";
+
+    /** The file's detected type, path and content. */
+    public static final String FILE_TEMPLATE = """
+detected_type: {{{detectedType}}}
 This is the relative path of the file in the project: {{{relativeFilePath}}}
 -----------------------------------------------------------------------------------------------            
          {{{sourceFileContent}}}   
@@ -79,4 +85,6 @@ This is the relative path of the file in the project: {{{relativeFilePath}}}
 
 
 """;
+
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
 }
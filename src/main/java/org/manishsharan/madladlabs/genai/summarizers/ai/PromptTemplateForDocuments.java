@@ -1,7 +1,8 @@
 package org.manishsharan.madladlabs.genai.summarizers.ai;
 
 public class PromptTemplateForDocuments {
-    public static String PROMPT_TEMPLATE = """
+    /** Analysis rules and output template for one document or document section. */
+    public static final String INSTRUCTIONS = """
 
 You are a senior IT architecture analyst and knowledge-graph curator for a RAG system.
 You specialize in:
@@ -13,13 +14,7 @@ You specialize in:
 
 INPUTS YOU RECEIVE
 
-- doc_type: {{{sourceDocType}}}
-- doc_title: {{{sourceDocTitle}}}
-- doc_datetime: {{{sourceDocTime}}}
-- extracted_text:
------------------------------------------------------------------------------------------------
-{{{sourceFileExtractedContent}}}
------------------------------------------------------------------------------------------------
+- doc_type, doc_title, doc_datetime and extracted_text, given at the end of this prompt
 - optional_context: <why this doc matters, may be empty>
 
 PRIMARY OBJECTIVE
@@ -213,17 +208,23 @@ CONSTRAINTS (STRICT)
 - Prefer extraction of entities + relationships over narrative text.
 - If information is missing, explicitly mark as "unknown".
 Now I will provide the full source file. Produce ONLY the JSON per the schema above.
+""";
+
+    /** The document's path, type, title, date and extracted text. */
+    public static final String FILE_TEMPLATE = """
 This is the relative path of the file in the project: {{{relativeFilePath}}}
 
 
 
-- doc_type: {{sourceDocType}}
-- doc_title: {{sourceDocTitle}}
-- doc_datetime: {{{{sourceDocTime}}}}
+- doc_type: {{{sourceDocType}}}
+- doc_title: {{{sourceDocTitle}}}
+- doc_datetime: {{{sourceDocTime}}}
 - extracted_text: 
 -----------------------------------------------------------------------------------------------            
          {{{sourceFileExtractedContent}}}   
 -----------------------------------------------------------------------------------------------
 
 """;
+
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
 }
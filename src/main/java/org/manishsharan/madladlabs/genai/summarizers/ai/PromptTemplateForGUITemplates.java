@@ -2,8 +2,9 @@ package org.manishsharan.madladlabs.genai.summarizers.ai;
 
 public class PromptTemplateForGUITemplates {
 
-    public static String PROMPT_TEMPLATE = """
-You are an expert software analyst with expertise in GUI development and template. I will provide ONE FULL {{{language}}} SOURCE FILE . 
+    /** Analysis checklist for a GUI template and the JS/CSS linked into its input. */
+    public static final String INSTRUCTIONS = """
+You are an expert software analyst with expertise in GUI development and template. I will provide ONE FULL SOURCE FILE (its language is given with the file below). 
 
 
 You are analyzing a web GUI artifact (template + any linked JS/CSS shown in the input).
@@ -67,10 +68,17 @@ OUTPUT FORMAT (STRICT)
 
 
 Now I will provide the full source file. Produce ONLY the JSON per the schema above.
+""";
+
+    /** The template's language, path and bundled source. */
+    public static final String FILE_TEMPLATE = """
+Language: {{{language}}}
 This is the relative path of the file in the project: {{{relativeFilePath}}}
 -----------------------------------------------------------------------------------------------            
          {{{sourceFileContent}}}   
 -----------------------------------------------------------------------------------------------
 
 """;
+
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
 }
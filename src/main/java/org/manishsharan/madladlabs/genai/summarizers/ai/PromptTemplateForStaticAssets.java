@@ -0,0 +1,34 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+public class PromptTemplateForStaticAssets {
+    /** Rules for describing one JS/CSS asset in place of its source in template prompts. */
+    public static final String INSTRUCTIONS = """
+You are an expert front-end analyst. I will provide ONE static asset (JavaScript, TypeScript or CSS) that GUI templates load.
+Your description replaces the asset's source in later prompts that summarize those templates, so it must let a reader
+understand what a template gets by including the asset, without seeing the code.
+
+Describe, preserving exact names (case-sensitive):
+1) Purpose and the library/framework it is or wraps (name and version if stated).
+2) Globals, exported functions/classes/modules and custom elements it defines.
+3) DOM contract: ids, classes, data-* attributes and element selectors it reads, binds to or renders; events it listens to or dispatches.
+4) Endpoints it calls (HTTP method + URL/path), websockets, storage keys (localStorage/sessionStorage/cookies).
+5) For CSS: layout/theming scope, the most important class and id selectors, CSS variables, media breakpoints.
+Skip minified helper internals, polyfills and license headers. Do not invent names; keep it under about 300 words.
+
+Output: ONE JSON object, no markdown:
+{
+  "summary": "<plain-text description>"
+}
+
+""";
+
+    /** The asset's path and source. */
+    public static final String FILE_TEMPLATE = """
+-----------------------------------------------------------------------------------------------
+=== ASSET: {{{relativeFilePath}}} ===
+{{{sourceFileContent}}}
+-----------------------------------------------------------------------------------------------
+""";
+
+    public static String PROMPT_TEMPLATE = INSTRUCTIONS + FILE_TEMPLATE;
+}
@@ -0,0 +1,55 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Request body written with a {@link JsonGenerator} straight into OkHttp's sink, so the prompt is encoded
+ * once into the socket buffer instead of being serialized to a String and then re-encoded to bytes.
+ * The writer is re-run on every retry, so the body is repeatable.
+ */
+public final class StreamingJsonBody extends RequestBody {
+
+    @FunctionalInterface
+    public interface JsonWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    private final JsonWriter writer;
+
+    public StreamingJsonBody(JsonWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return LlmJson.JSON;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        JsonGenerator gen = LlmJson.FACTORY.createGenerator(sink.outputStream(), JsonEncoding.UTF8);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (gen) {
+            writer.write(gen);
+        }
+    }
+
+    /** Renders the body as a string; only for audit logging and debug output. */
+    public String asString() {
+        Buffer buffer = new Buffer();
+        try {
+            writeTo(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.readUtf8();
+    }
+}
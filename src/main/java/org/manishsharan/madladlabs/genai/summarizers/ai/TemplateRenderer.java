@@ -6,11 +6,43 @@ import com.github.mustachejava.MustacheFactory;
 
 import java.io.IOException;
 import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TemplateRenderer {
 
+    private static final MustacheFactory FACTORY = new DefaultMustacheFactory();
+    private static final AtomicInteger TEMPLATE_IDS = new AtomicInteger();
+
+    /**
+     * Compiled templates keyed by template text. Compiled {@link Mustache} instances are immutable and
+     * safe to execute concurrently, so each prompt template is parsed once per JVM.
+     */
+    private static final Map<String, Mustache> COMPILED = new ConcurrentHashMap<>();
+
+    static {
+        for (String template : List.of(
+                PromptTemplateForCode.PROMPT_TEMPLATE,
+                PromptTemplateForCode.FILE_TEMPLATE,
+                PromptTemplateForGUITemplates.PROMPT_TEMPLATE,
+                PromptTemplateForGUITemplates.FILE_TEMPLATE,
+                PromptTemplateForConfigTemplates.PROMPT_TEMPLATE,
+                PromptTemplateForConfigTemplates.FILE_TEMPLATE,
+                PromptTemplateForDocuments.PROMPT_TEMPLATE,
+                PromptTemplateForDocuments.FILE_TEMPLATE,
+                PromptTemplateForCodeBatch.PROMPT_TEMPLATE,
+                PromptTemplateForCodeBatch.FILE_TEMPLATE,
+                PromptTemplateForConfigBatch.PROMPT_TEMPLATE,
+                PromptTemplateForConfigBatch.FILE_TEMPLATE,
+                PromptTemplateForStaticAssets.PROMPT_TEMPLATE,
+                PromptTemplateForStaticAssets.FILE_TEMPLATE)) {
+            compiled(template);
+        }
+    }
 
     /**
      * Renders the PROMPT_TEMPLATE with the provided data
@@ -24,11 +56,92 @@ public class TemplateRenderer {
         return renderTemplate(PromptTemplateForCode.PROMPT_TEMPLATE, data);
     }
 
-    public static String renderTemplate(String template, Map<String, String> data) throws IOException {
-        MustacheFactory mf = new DefaultMustacheFactory();
-        Mustache mustache = mf.compile(new StringReader(template), "template");
-        StringWriter writer = new StringWriter();
-        mustache.execute(writer, data).flush();
-        return writer.toString();
+    /**
+     * Renders only the per-file template; the instruction block is static and returned unchanged so it
+     * stays byte-identical between requests.
+     */
+    public static PromptParts renderParts(String instructions, String fileTemplate, Map<String, ?> data) throws IOException {
+        return new PromptParts(instructions, renderTemplate(fileTemplate, data));
+    }
+
+    /**
+     * Renders into a buffer sized up front from the template and its values, so a large file is copied
+     * into the buffer once and into the returned string once, with no intermediate regrowth.
+     */
+    public static String renderTemplate(String template, Map<String, ?> data) throws IOException {
+        StringBuilder out = new StringBuilder(expectedLength(template, data));
+        renderTo(template, data, new StringBuilderWriter(out));
+        return out.toString();
+    }
+
+    /**
+     * Renders straight into {@code out} (for example a request body writer) without materializing the
+     * prompt as a string.
+     */
+    public static void renderTo(String template, Map<String, ?> data, Writer out) throws IOException {
+        compiled(template).execute(out, data).flush();
+    }
+
+    static Mustache compiled(String template) {
+        return COMPILED.computeIfAbsent(template,
+                t -> FACTORY.compile(new StringReader(t), "template-" + TEMPLATE_IDS.incrementAndGet()));
+    }
+
+    /** Template length plus the length of every string value, including those inside list sections. */
+    static int expectedLength(String template, Map<String, ?> data) {
+        long length = template.length() + valueLength(data.values());
+        return (int) Math.min(Integer.MAX_VALUE - 8, length);
+    }
+
+    private static long valueLength(Collection<?> values) {
+        long length = 0;
+        for (Object value : values) {
+            if (value instanceof CharSequence text) {
+                length += text.length();
+            } else if (value instanceof Map<?, ?> map) {
+                length += valueLength(map.values());
+            } else if (value instanceof Collection<?> items) {
+                length += valueLength(items);
+            }
+        }
+        return length;
+    }
+
+    /** Unsynchronized writer over a caller-sized {@link StringBuilder}; {@link java.io.StringWriter} locks per write. */
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder out;
+
+        private StringBuilderWriter(StringBuilder out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            out.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            out.append(str, off, off + len);
+        }
+
+        @Override
+        public void write(int c) {
+            out.append((char) c);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            out.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
     }
 }
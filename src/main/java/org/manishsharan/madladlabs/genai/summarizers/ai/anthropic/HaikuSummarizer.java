@@ -1,39 +1,42 @@
 package org.manishsharan.madladlabs.genai.summarizers.ai.anthropic;
 
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.manishsharan.madladlabs.genai.cache.LlmResponseCache;
+import org.manishsharan.madladlabs.genai.ratelimit.LlmHttpExecutor;
 import org.manishsharan.madladlabs.genai.logging.LlmAuditSink;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonObjectScanner;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonPathExtractor;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptParts;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForCode;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptUtils;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForConfigTemplates;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForDocuments;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForGUITemplates;
+import org.manishsharan.madladlabs.genai.summarizers.ai.StreamingJsonBody;
 import org.manishsharan.madladlabs.genai.summarizers.ai.TemplateRenderer;
 
 import org.manishsharan.ontology.llmdto.JavaClassSummary;
 import org.manishsharan.ontology.llmdto.MethodSummary;
 
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
 import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
 import org.manishsharan.ontology.model.AiEnrichmentPayload;
 
 
+import java.nio.file.Files;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class HaikuSummarizer  implements OntologyMethodsSummarizer {
@@ -44,7 +47,7 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
     }
     private static final String API_URL = "https://api.anthropic.com/v1/messages";
     private static  String API_KEY ;
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final MediaType JSON = LlmJson.JSON;
     private static HaikuSummarizer instance;
     private final OkHttpClient client;
 
@@ -73,29 +76,62 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
     }
 
     public String invokeLLM(String userPrompt, String filePath, String pipeline) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode payload = mapper.createObjectNode();
+        return invokeLLM(new PromptParts("", userPrompt), filePath, pipeline);
+    }
+
+    /**
+     * Sends the static instructions as a system block marked with a {@code cache_control} breakpoint and
+     * the per-file part as the user message, so repeated instructions are read from Anthropic's prompt
+     * cache. Prefixes below the model's minimum cacheable length are simply not cached.
+     */
+    public String invokeLLM(PromptParts prompt, String filePath, String pipeline) throws IOException {
+        String instructions = prompt.instructions() == null ? "" : prompt.instructions();
+        String userPrompt = prompt.content();
+        LlmResponseCache cache = LlmResponseCache.getInstance();
+        String cacheKey = LlmResponseCache.keyFor("anthropic", CLAUDE_MODEL, instructions, userPrompt);
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            logger.info("Anthropic response served from cache file={} pipeline={}", filePath, pipeline);
+            return LlmResponseCache.withZeroedUsage(cached, "usage");
+        }
+
         //claude-3-5-haiku-20241022
-        payload.put("model", CLAUDE_MODEL);
-        payload.put("max_tokens", MAX_TOKENS);
-        payload.put("temperature", 1);
-        ObjectNode message = mapper.createObjectNode();
-        message.put("role", "user");
-        ArrayNode content = mapper.createArrayNode();
-        ObjectNode textNode = mapper.createObjectNode();
-        textNode.put("type", "text");
-        textNode.put("text", userPrompt);
-        content.add(textNode);
-        message.set("content", content);
-        payload.putArray("messages").add(message);
-
-        RequestBody body = RequestBody.create(payload.toString(), JSON);
-
-        logger.info("Anthropic request prepared (payload bytes={}) file={} pipeline={}",
-                payload.toString().length(),
+        StreamingJsonBody body = new StreamingJsonBody(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("model", CLAUDE_MODEL);
+            gen.writeNumberField("max_tokens", MAX_TOKENS);
+            gen.writeNumberField("temperature", 1);
+            if (!instructions.isBlank()) {
+                gen.writeArrayFieldStart("system");
+                gen.writeStartObject();
+                gen.writeStringField("type", "text");
+                gen.writeStringField("text", instructions);
+                gen.writeObjectFieldStart("cache_control");
+                gen.writeStringField("type", "ephemeral");
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeEndArray();
+            }
+            gen.writeArrayFieldStart("messages");
+            gen.writeStartObject();
+            gen.writeStringField("role", "user");
+            gen.writeArrayFieldStart("content");
+            gen.writeStartObject();
+            gen.writeStringField("type", "text");
+            gen.writeStringField("text", userPrompt);
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+        int estimatedTokens = LlmHttpExecutor.estimateTokens(instructions) + LlmHttpExecutor.estimateTokens(userPrompt);
+
+        logger.info("Anthropic request prepared (estimated tokens={}) file={} pipeline={}",
+                estimatedTokens,
                 filePath,
                 pipeline);
-        String requestId = LlmAuditSink.logRequest("anthropic", CLAUDE_MODEL, pipeline, filePath, payload.toString());
+        String requestId = LlmAuditSink.logRequest("anthropic", CLAUDE_MODEL, pipeline, filePath, body::asString);
 
         Request request = new Request.Builder()
                 .url(API_URL)
@@ -105,29 +141,29 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
                 .post(body)
                 .build();
 
-        try (Response response = client.newCall(request).execute()) {
-            logger.debug("invokeLLM Response: " + response.toString());
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected HTTP response: " + response.code() + " - " + response.message());
-            }
-
-            String responseBody = response.body() != null ? response.body().string() : "";
-            logger.info("Anthropic response received (bytes={}) file={} pipeline={}",
-                    responseBody.length(),
-                    filePath,
-                    pipeline);
-            LlmAuditSink.logResponse(requestId, "anthropic", CLAUDE_MODEL, pipeline, filePath, responseBody);
-            JsonNode jsonResponse = mapper.readTree(responseBody);
-            return jsonResponse.toPrettyString();
+        String responseBody = LlmHttpExecutor.execute(client, request, "anthropic", estimatedTokens, filePath);
+        logger.info("Anthropic response received (bytes={}) file={} pipeline={}",
+                responseBody.length(),
+                filePath,
+                pipeline);
+        LlmAuditSink.logResponse(requestId, "anthropic", CLAUDE_MODEL, pipeline, filePath, responseBody);
+        String text = parseCompletion(responseBody, filePath).content();
+        if (text != null && !text.isBlank()) {
+            cache.put(cacheKey, responseBody);
+        } else {
+            logger.warn("Anthropic response without text not cached file={} pipeline={}", filePath, pipeline);
         }
+        return responseBody;
     }
 
 
     @Override
     public AiEnrichmentPayload summarizeCodeMethods(String relativePath, String language, File javaSource) throws Exception {
+        return summarizeCodeContent(relativePath, language, Files.readString(javaSource.toPath()));
+    }
 
-        String fileContent = Files.readString(javaSource.toPath());
-        ObjectMapper mapper = new ObjectMapper();
+    @Override
+    public AiEnrichmentPayload summarizeCodeContent(String relativePath, String language, String fileContent) throws Exception {
         // Create the prompt for the DeepSeek R1 model
 
 
@@ -135,16 +171,18 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
         map.put("language", language);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", fileContent);
-        String userPrompt = TemplateRenderer.getRenderedPrompt(map);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForCode.INSTRUCTIONS, PromptTemplateForCode.FILE_TEMPLATE, map);
 
 
-        String responseString = invokeLLM(userPrompt, relativePath, "code");
+        String responseString = invokeLLM(prompt, relativePath, "code");
 
-        logger.debug("summarizeJavaCodeMethods Response: " + responseString);
+        logger.debug("summarizeJavaCodeMethods Response: {}", responseString);
 
-        AiEnrichmentPayload payload= extractResponse( responseString);
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        AiEnrichmentPayload payload = codePayload(completion.content());
         if (payload != null) {
-            payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+            payload.setBillableUsage(completion.billableUsage());
         }
         return payload;
     }
@@ -155,23 +193,23 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
         map.put("language", language);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", content);
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForGUITemplates.PROMPT_TEMPLATE, map);
-        String responseString = invokeLLM(userPrompt, relativePath, "gui");
-        String assistantText = extractAssistantText(responseString);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForGUITemplates.INSTRUCTIONS, PromptTemplateForGUITemplates.FILE_TEMPLATE, map);
+        String responseString = invokeLLM(prompt, relativePath, "gui");
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        String assistantText = completion.content();
         if (assistantText == null || assistantText.isBlank()) {
             return null;
         }
-        JsonNode jsonNode = extractStructuredJson(assistantText, "file", "summary");
+        JsonNode jsonNode = JsonObjectScanner.bestObject(assistantText, "file", "summary");
         if (jsonNode == null) {
             return null;
         }
-        ObjectMapper mapper = new ObjectMapper();
-        AiEnrichmentPayload.TemplateEnrichment template =
-                mapper.treeToValue(jsonNode, AiEnrichmentPayload.TemplateEnrichment.class);
+        AiEnrichmentPayload.TemplateEnrichment template = LlmJson.TEMPLATE_READER.readValue(jsonNode);
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setTemplateEnrichments(List.of(template));
         payload.setLlmModel(CLAUDE_MODEL);
-        payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+        payload.setBillableUsage(completion.billableUsage());
         return payload;
     }
 
@@ -181,9 +219,11 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
         map.put("detectedType", detectedType);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", content);
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForConfigTemplates.PROMPT_TEMPLATE, map);
-        String responseString = invokeLLM(userPrompt, relativePath, "config");
-        String assistantText = extractAssistantText(responseString);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForConfigTemplates.INSTRUCTIONS, PromptTemplateForConfigTemplates.FILE_TEMPLATE, map);
+        String responseString = invokeLLM(prompt, relativePath, "config");
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        String assistantText = completion.content();
         if (assistantText == null || assistantText.isBlank()) {
             return null;
         }
@@ -195,7 +235,7 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setConfigEnrichments(List.of(config));
         payload.setLlmModel(CLAUDE_MODEL);
-        payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+        payload.setBillableUsage(completion.billableUsage());
         return payload;
     }
 
@@ -210,9 +250,12 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
         map.put("sourceDocTitle", title != null ? title : "");
         map.put("sourceDocTime", datetime != null ? datetime : "");
         map.put("sourceFileExtractedContent", extractedContent != null ? extractedContent : "");
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForDocuments.PROMPT_TEMPLATE, map);
-        String responseString = invokeLLM(userPrompt, relativePath, "document");
-        String assistantText = extractAssistantText(responseString);
+        map.put("relativeFilePath", relativePath);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForDocuments.INSTRUCTIONS, PromptTemplateForDocuments.FILE_TEMPLATE, map);
+        String responseString = invokeLLM(prompt, relativePath, "document");
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        String assistantText = completion.content();
         if (assistantText == null || assistantText.isBlank()) {
             return null;
         }
@@ -226,155 +269,77 @@ public class HaikuSummarizer  implements OntologyMethodsSummarizer {
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setDocumentEnrichments(List.of(doc));
         payload.setLlmModel(CLAUDE_MODEL);
-        payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+        payload.setBillableUsage(completion.billableUsage());
         return payload;
     }
 
-    public static  AiEnrichmentPayload extractResponse(String responseString) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode jsonResponse = mapper.readTree(responseString);
-
-
-        JsonNode contentArray = jsonResponse.path("content");
-
-        if (contentArray.isArray()) {
-            for (JsonNode contentNode : contentArray) {
-                if (contentNode.has("text")) {
-                    JsonNode responseNode = extractStructuredJson(contentNode.get("text").asText(),
-                            "functions", "module");
-                    if (responseNode == null) {
-                        continue;
-                    }
-                    logger.debug("summarizeJavaCodeMethods Response Node: " + responseNode.toString());
-                    AiEnrichmentPayload payload= AiEnrichmentPayload.fromJson(responseNode.toString());
-                    if (payload.getFunctionEnrichments() == null && responseNode.has("functions")) {
-                        List<AiEnrichmentPayload.FunctionEnrichment> functions = mapper
-                                .readerForListOf(AiEnrichmentPayload.FunctionEnrichment.class)
-                                .readValue(responseNode.get("functions"));
-                        payload.setFunctionEnrichments(functions);
-                    }
-                    if (payload.getModule() == null) {
-                        payload.setModule(responseNode.path("module").asText(null));
-                    }
-                    if (payload.getLanguage() == null) {
-                        payload.setLanguage(responseNode.path("language").asText(null));
-                    }
-                    payload.setLlmModel(CLAUDE_MODEL);
-                    return payload;
-
-                }
-            }
-        }
-        return null;
+    @Override
+    public boolean supportsCompleteJson() {
+        return true;
+    }
 
+    @Override
+    public LlmCompletion completeJson(String systemPrompt, String userPrompt, String relativePath, String pipeline) throws Exception {
+        String responseString = invokeLLM(new PromptParts(systemPrompt, userPrompt), relativePath, pipeline);
+        return parseCompletion(responseString, relativePath);
     }
 
-    private static AiEnrichmentPayload.BillableUsage extractBillableUsage(String responseString, String filePath) {
+    private static final String TEXT = "content.*.text";
+    private static final String INPUT_TOKENS = "usage.input_tokens";
+    private static final String OUTPUT_TOKENS = "usage.output_tokens";
+    private static final String CACHE_CREATION_TOKENS = "usage.cache_creation_input_tokens";
+    private static final String CACHE_READ_TOKENS = "usage.cache_read_input_tokens";
+    private static final JsonPathExtractor RESPONSE_FIELDS = new JsonPathExtractor(
+            TEXT, INPUT_TOKENS, OUTPUT_TOKENS, CACHE_CREATION_TOKENS, CACHE_READ_TOKENS);
+
+    /**
+     * Reads the first text block and token usage from a Messages API response in one streaming pass.
+     */
+    static LlmCompletion parseCompletion(String responseString, String filePath) throws IOException {
         if (responseString == null || responseString.isBlank()) {
-            return null;
+            return new LlmCompletion(null, null, CLAUDE_MODEL);
         }
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            JsonNode jsonResponse = mapper.readTree(responseString);
-            JsonNode usage = jsonResponse.path("usage");
-            if (usage.isMissingNode() || usage.isNull()) {
-                return null;
-            }
+        Map<String, String> fields = RESPONSE_FIELDS.extract(responseString);
+        return new LlmCompletion(fields.get(TEXT), billableUsage(fields, filePath), CLAUDE_MODEL);
+    }
 
-            int inputTokens = usage.path("input_tokens").asInt(0);
-            int outputTokens = usage.path("output_tokens").asInt(0);
-            int cachedTokens = usage.path("cache_creation_input_tokens").asInt(0)
-                    + usage.path("cache_read_input_tokens").asInt(0);
-            int totalTokens = inputTokens + outputTokens;
-
-            AiEnrichmentPayload.BillableUsage billable = new AiEnrichmentPayload.BillableUsage();
-            billable.setModel(CLAUDE_MODEL);
-            billable.setFilePath(filePath);
-            billable.setInputTokens(inputTokens);
-            billable.setOutputTokens(outputTokens);
-            billable.setCachedTokens(cachedTokens);
-            billable.setTotalTokens(totalTokens);
-            return billable;
-        } catch (IOException e) {
-            logger.debug("Unable to parse Anthropic billable usage: {}", e.getMessage());
-            return null;
-        }
+    public static  AiEnrichmentPayload extractResponse(String responseString) throws IOException {
+        return codePayload(parseCompletion(responseString, null).content());
     }
 
-    private static String extractAssistantText(String responseString) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode jsonResponse = mapper.readTree(responseString);
-        JsonNode contentArray = jsonResponse.path("content");
-        if (contentArray.isArray()) {
-            for (JsonNode contentNode : contentArray) {
-                if (contentNode.has("text")) {
-                    return contentNode.get("text").asText();
-                }
-            }
+    private static AiEnrichmentPayload codePayload(String assistantText) throws IOException {
+        JsonNode responseNode = JsonObjectScanner.bestObject(assistantText, "functions", "module");
+        if (responseNode == null) {
+            return null;
         }
-        return null;
+        logger.debug("summarizeJavaCodeMethods Response Node: {}", responseNode);
+        AiEnrichmentPayload payload = LlmJson.codePayload(responseNode);
+        payload.setLlmModel(CLAUDE_MODEL);
+        return payload;
     }
 
-    private static JsonNode extractStructuredJson(String assistantContent, String... requiredKeys) throws IOException {
-        if (assistantContent == null || assistantContent.isBlank()) {
+    private static AiEnrichmentPayload.BillableUsage billableUsage(Map<String, String> fields, String filePath) {
+        if (!fields.containsKey(INPUT_TOKENS) && !fields.containsKey(OUTPUT_TOKENS)) {
             return null;
         }
-        String cleaned = assistantContent.replace("```json", "").replace("```", "").trim();
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode bestParsed = null;
-        int bestScore = -1;
-
-        for (int i = 0; i < cleaned.length(); i++) {
-            if (cleaned.charAt(i) != '{') {
-                continue;
-            }
-            int depth = 0;
-            boolean inString = false;
-            boolean escape = false;
-            for (int j = i; j < cleaned.length(); j++) {
-                char c = cleaned.charAt(j);
-                if (inString) {
-                    if (escape) {
-                        escape = false;
-                    } else if (c == '\\') {
-                        escape = true;
-                    } else if (c == '"') {
-                        inString = false;
-                    }
-                    continue;
-                }
-                if (c == '"') {
-                    inString = true;
-                    continue;
-                }
-                if (c == '{') {
-                    depth++;
-                } else if (c == '}') {
-                    depth--;
-                    if (depth == 0) {
-                        String candidate = cleaned.substring(i, j + 1).trim();
-                        try {
-                            JsonNode parsed = mapper.readTree(candidate);
-                            int score = 0;
-                            if (requiredKeys != null) {
-                                for (String key : requiredKeys) {
-                                    if (parsed.has(key)) {
-                                        score += 2;
-                                    }
-                                }
-                            }
-                            if (score > bestScore) {
-                                bestScore = score;
-                                bestParsed = parsed;
-                            }
-                        } catch (IOException ignored) {
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        return bestParsed;
+
+        // input_tokens excludes cached prefixes; report the whole prompt as input and the part read
+        // from the prompt cache as cached, matching the other providers.
+        int cachedTokens = JsonPathExtractor.intValue(fields, CACHE_READ_TOKENS, 0);
+        int inputTokens = JsonPathExtractor.intValue(fields, INPUT_TOKENS, 0)
+                + JsonPathExtractor.intValue(fields, CACHE_CREATION_TOKENS, 0)
+                + cachedTokens;
+        int outputTokens = JsonPathExtractor.intValue(fields, OUTPUT_TOKENS, 0);
+        int totalTokens = inputTokens + outputTokens;
+
+        AiEnrichmentPayload.BillableUsage billable = new AiEnrichmentPayload.BillableUsage();
+        billable.setModel(CLAUDE_MODEL);
+        billable.setFilePath(filePath);
+        billable.setInputTokens(inputTokens);
+        billable.setOutputTokens(outputTokens);
+        billable.setCachedTokens(cachedTokens);
+        billable.setTotalTokens(totalTokens);
+        return billable;
     }
 
     @Override
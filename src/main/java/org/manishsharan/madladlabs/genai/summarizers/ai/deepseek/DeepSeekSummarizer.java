@@ -1,25 +1,28 @@
 package org.manishsharan.madladlabs.genai.summarizers.ai.deepseek;
 
-import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.manishsharan.madladlabs.genai.cache.LlmResponseCache;
+import org.manishsharan.madladlabs.genai.ratelimit.LlmHttpExecutor;
 import org.manishsharan.madladlabs.genai.logging.LlmAuditSink;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonObjectScanner;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonPathExtractor;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptParts;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForCode;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptUtils;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForConfigTemplates;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForDocuments;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForGUITemplates;
+import org.manishsharan.madladlabs.genai.summarizers.ai.StreamingJsonBody;
 import org.manishsharan.madladlabs.genai.summarizers.ai.TemplateRenderer;
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
 import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
 import org.manishsharan.ontology.model.AiEnrichmentPayload;
 
@@ -32,19 +35,19 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
     private static final Logger logger = LogManager.getLogger(DeepSeekSummarizer.class);
-    public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    public static final MediaType JSON = LlmJson.JSON;
     private static final String API_URL = "https://api.deepseek.com/chat/completions";
     private  final String API_KEY;
     final OkHttpClient client ;
 
     final static  String DEEP_SEEK_MODEL= "deepseek-coder"; //"deepseek-chat";
 
-
-    private final ObjectMapper oMapper = new ObjectMapper(new JsonFactory());
     static DeepSeekSummarizer deepSeekSummarizer;
 
     public static DeepSeekSummarizer getInstance(){
@@ -70,45 +73,34 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
                                       String userMessage,
                                       String filePath,
                                       String pipeline) throws IOException {
-        // Create the prompt for the DeepSeek model
-        //String prompt = "Review this Java code and generate a YAML summary for each method:\n" + fileContent;
-
-
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode payload = mapper.createObjectNode();
-        payload.put("model", DEEP_SEEK_MODEL);
-        payload.put("stream", false);
-        payload.put("max_tokens", 8192);
-
-        // create response format object
-        ObjectNode responseFormatNode = mapper.createObjectNode();
-        responseFormatNode.put("type", "json_object");
-     //   payload.set("response_format", responseFormatNode);
-
-        ArrayNode messages = mapper.createArrayNode();
-
-        ObjectNode systemMessageNode = mapper.createObjectNode();
-        systemMessageNode.put("role", "system");
-        systemMessageNode.put("content", _systemMessage);
-        messages.add(systemMessageNode);
-
-        // Add the user message
-        ObjectNode userMessageNode = mapper.createObjectNode();
-        userMessageNode.put("role", "user");
-        userMessageNode.put("content", userMessage);
-        // userMessageNode.put("max_tokens", 131072);
-        messages.add(userMessageNode);
-        payload.set("messages", messages);
-
-        String jsonPayload = mapper.writeValueAsString(payload);
+        LlmResponseCache cache = LlmResponseCache.getInstance();
+        String cacheKey = LlmResponseCache.keyFor("deepseek", DEEP_SEEK_MODEL, _systemMessage, userMessage);
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            logger.info("DeepSeek response served from cache file={} pipeline={}", filePath, pipeline);
+            return LlmResponseCache.withZeroedUsage(cached, "usage");
+        }
 
-        logger.info("DeepSeek request prepared (payload bytes={}) file={} pipeline={}",
-                jsonPayload.length(),
+        // Streamed straight into the request sink; "response_format": {"type": "json_object"} is left off.
+        StreamingJsonBody body = new StreamingJsonBody(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("model", DEEP_SEEK_MODEL);
+            gen.writeBooleanField("stream", false);
+            gen.writeNumberField("max_tokens", 8192);
+            gen.writeArrayFieldStart("messages");
+            writeMessage(gen, "system", _systemMessage);
+            writeMessage(gen, "user", userMessage);
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+        int estimatedTokens = LlmHttpExecutor.estimateTokens(_systemMessage) + LlmHttpExecutor.estimateTokens(userMessage);
+
+        logger.info("DeepSeek request prepared (estimated tokens={}) file={} pipeline={}",
+                estimatedTokens,
                 filePath,
                 pipeline);
-        String requestId = LlmAuditSink.logRequest("deepseek", DEEP_SEEK_MODEL, pipeline, filePath, jsonPayload);
+        String requestId = LlmAuditSink.logRequest("deepseek", DEEP_SEEK_MODEL, pipeline, filePath, body::asString);
         // Build the HTTP request
-        RequestBody body = RequestBody.create(jsonPayload, JSON);
         Request request = new Request.Builder()
                 .url(API_URL)
                 .header("Content-Type", "application/json")
@@ -117,33 +109,41 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
                 .build();
 
         // Send the request and get the response
-        String responseString = null;
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                logger.error("Unexpected response  " + response.toString());
-                throw new IOException("Unexpected response code: " + response.code());
-            }
-            responseString = response.body().string();
-            logger.info("DeepSeek response received (bytes={}) file={} pipeline={}",
-                    responseString.length(),
-                    filePath,
-                    pipeline);
-            LlmAuditSink.logResponse(requestId, "deepseek", DEEP_SEEK_MODEL, pipeline, filePath, responseString);
-            writeDebugArtifact("deepseek-request.json", jsonPayload);
-            writeDebugArtifact("deepseek-response.json", responseString);
-            return responseString;
+        String responseString = LlmHttpExecutor.execute(client, request, "deepseek", estimatedTokens, filePath);
+        logger.info("DeepSeek response received (bytes={}) file={} pipeline={}",
+                responseString.length(),
+                filePath,
+                pipeline);
+        LlmAuditSink.logResponse(requestId, "deepseek", DEEP_SEEK_MODEL, pipeline, filePath, responseString);
+        String text = parseCompletion(responseString, filePath).content();
+        if (text != null && !text.isBlank()) {
+            cache.put(cacheKey, responseString);
+        } else {
+            logger.warn("DeepSeek response without text not cached file={} pipeline={}", filePath, pipeline);
         }
+        writeDebugArtifact("deepseek-request.json", body::asString);
+        writeDebugArtifact("deepseek-response.json", () -> responseString);
+        return responseString;
+    }
+
+    private static void writeMessage(JsonGenerator gen, String role, String content) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("role", role);
+        gen.writeStringField("content", content);
+        gen.writeEndObject();
     }
 
 
 
     @Override
     public AiEnrichmentPayload summarizeCodeMethods(String relativePath, String language, File javaSource) throws Exception {
-        // Read the content of the Java file
-        String fileContent = Files.readString(javaSource.toPath());
+        return summarizeCodeContent(relativePath, language, Files.readString(javaSource.toPath()));
+    }
+
+    @Override
+    public AiEnrichmentPayload summarizeCodeContent(String relativePath, String language, String fileContent) throws Exception {
         // Read the content of the Java file
 
-        ObjectMapper mapper = new ObjectMapper();
         // Create the prompt for the DeepSeek R1 model
 
 
@@ -151,41 +151,28 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
         map.put("language", language);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", fileContent);
-        String userPrompt = TemplateRenderer.getRenderedPrompt(map);
-        logger.debug("Deep seek summarizeJavaCodeMethods Prompt: " + userPrompt);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForCode.INSTRUCTIONS, PromptTemplateForCode.FILE_TEMPLATE, map);
+        logger.debug("Deep seek summarizeJavaCodeMethods Prompt: " + prompt.content());
                // "Review this Java code and generate a YAML summary for each method. Do not generate any explanation:\n" + fileContent;
-        String systemPrompt = "You are an experienced job software engineer reviewing  code. ";
 
         // Send the prompt to the DeepSeek R1 API
 
 
-        String responseString = getDeepSeekResponse(systemPrompt, userPrompt, relativePath, "code");
-
-        logger.debug("DeepSeek Response: " + responseString);
-
+        String responseString = getDeepSeekResponse(
+                systemMessage(CODE_PERSONA, prompt), prompt.content(), relativePath, "code");
 
-        JsonNode jsonNode = extractResponsePayloadJsonNode(responseString);
-        logger.debug("summarizeJavaCodeMethods Response Node content " + jsonNode.toString());
-        // Parse the YAML response
+        logger.debug("DeepSeek Response: {}", responseString);
 
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        JsonNode jsonNode = payloadJson(completion.content());
+        logger.debug("summarizeJavaCodeMethods Response Node content {}", jsonNode);
 
         if(jsonNode != null){
-            AiEnrichmentPayload payload = AiEnrichmentPayload.fromJson(jsonNode.toString());
-            if (payload.getFunctionEnrichments() == null && jsonNode.has("functions")) {
-                List<AiEnrichmentPayload.FunctionEnrichment> functions = oMapper
-                        .readerForListOf(AiEnrichmentPayload.FunctionEnrichment.class)
-                        .readValue(jsonNode.get("functions"));
-                payload.setFunctionEnrichments(functions);
-            }
-            if (payload.getModule() == null) {
-                payload.setModule(jsonNode.path("module").asText(null));
-            }
-            if (payload.getLanguage() == null) {
-                payload.setLanguage(jsonNode.path("language").asText(null));
-            }
+            AiEnrichmentPayload payload = LlmJson.codePayload(jsonNode);
             normalizeEdgeSources(payload);
             payload.setLlmModel(DEEP_SEEK_MODEL);
-            payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+            payload.setBillableUsage(completion.billableUsage());
             return payload;
         }
         return null;
@@ -198,21 +185,21 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
         map.put("language", language);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", content);
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForGUITemplates.PROMPT_TEMPLATE, map);
-        String systemPrompt = "You are an experienced software engineer reviewing GUI templates.";
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForGUITemplates.INSTRUCTIONS, PromptTemplateForGUITemplates.FILE_TEMPLATE, map);
 
-        String responseString = getDeepSeekResponse(systemPrompt, userPrompt, relativePath, "gui");
-        String assistantContent = extractAssistantContent(responseString);
-        JsonNode jsonNode = extractTrailingJsonObject(assistantContent);
+        String responseString = getDeepSeekResponse(
+                systemMessage(GUI_PERSONA, prompt), prompt.content(), relativePath, "gui");
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        JsonNode jsonNode = JsonObjectScanner.bestObject(completion.content(), GUI_KEYS, GUI_KEY_WEIGHTS);
         if (jsonNode == null) {
             return null;
         }
-        AiEnrichmentPayload.TemplateEnrichment template =
-                oMapper.treeToValue(jsonNode, AiEnrichmentPayload.TemplateEnrichment.class);
+        AiEnrichmentPayload.TemplateEnrichment template = LlmJson.TEMPLATE_READER.readValue(jsonNode);
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setTemplateEnrichments(List.of(template));
         payload.setLlmModel(DEEP_SEEK_MODEL);
-        payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+        payload.setBillableUsage(completion.billableUsage());
         return payload;
     }
 
@@ -222,11 +209,13 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
         map.put("detectedType", detectedType);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", content);
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForConfigTemplates.PROMPT_TEMPLATE, map);
-        String systemPrompt = "You are an experienced software engineer reviewing configuration files.";
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForConfigTemplates.INSTRUCTIONS, PromptTemplateForConfigTemplates.FILE_TEMPLATE, map);
 
-        String responseString = getDeepSeekResponse(systemPrompt, userPrompt, relativePath, "config");
-        String assistantContent = extractAssistantContent(responseString);
+        String responseString = getDeepSeekResponse(
+                systemMessage(CONFIG_PERSONA, prompt), prompt.content(), relativePath, "config");
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        String assistantContent = completion.content();
         if (assistantContent == null || assistantContent.isBlank()) {
             return null;
         }
@@ -238,7 +227,7 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setConfigEnrichments(List.of(config));
         payload.setLlmModel(DEEP_SEEK_MODEL);
-        payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+        payload.setBillableUsage(completion.billableUsage());
         return payload;
     }
 
@@ -253,11 +242,14 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
         map.put("sourceDocTitle", title != null ? title : "");
         map.put("sourceDocTime", datetime != null ? datetime : "");
         map.put("sourceFileExtractedContent", extractedContent != null ? extractedContent : "");
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForDocuments.PROMPT_TEMPLATE, map);
-        String systemPrompt = "You are an experienced software engineer reviewing technical documents.";
+        map.put("relativeFilePath", relativePath);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForDocuments.INSTRUCTIONS, PromptTemplateForDocuments.FILE_TEMPLATE, map);
 
-        String responseString = getDeepSeekResponse(systemPrompt, userPrompt, relativePath, "document");
-        String assistantContent = extractAssistantContent(responseString);
+        String responseString = getDeepSeekResponse(
+                systemMessage(DOCUMENT_PERSONA, prompt), prompt.content(), relativePath, "document");
+        LlmCompletion completion = parseCompletion(responseString, relativePath);
+        String assistantContent = completion.content();
         if (assistantContent == null || assistantContent.isBlank()) {
             return null;
         }
@@ -271,144 +263,97 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setDocumentEnrichments(List.of(doc));
         payload.setLlmModel(DEEP_SEEK_MODEL);
-        payload.setBillableUsage(extractBillableUsage(responseString, relativePath));
+        payload.setBillableUsage(completion.billableUsage());
         return payload;
     }
 
-    public static JsonNode extractResponsePayloadJsonNode(String input) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        if(input == null || input.isEmpty()){
-            return null;
-        }
-        JsonNode root = mapper.readTree(input);
-        if(root == null){
-            return null;
-        }
-
-        String assistantContent = root.path("choices").path(0).path("message").path("content").asText();
-        if(assistantContent == null || assistantContent.isEmpty()){
-            return null;
-        }
-
-        // Remove the triple backticks and extract the JSON content
-        String jsonContent = assistantContent.replace("```json", "").replace("```", "").trim();
+    @Override
+    public boolean supportsCompleteJson() {
+        return true;
+    }
 
-        // Parse the extracted JSON to verify its validity
-        JsonNode extractedJson = mapper.readTree(jsonContent);
-       return extractedJson;
+    @Override
+    public LlmCompletion completeJson(String systemPrompt, String userPrompt, String relativePath, String pipeline) throws Exception {
+        String responseString = getDeepSeekResponse(systemPrompt, userPrompt, relativePath, pipeline);
+        return parseCompletion(responseString, relativePath);
+    }
 
+    /** A GUI template answer has a summary and a file; endpoints are a weaker hint. */
+    private static final String[] GUI_KEYS = {"summary", "file", "endpoints"};
+    private static final int[] GUI_KEY_WEIGHTS = {2, 2, 1};
+
+    private static final String CODE_PERSONA = "You are an experienced software engineer reviewing code.";
+    private static final String GUI_PERSONA = "You are an experienced software engineer reviewing GUI templates.";
+    private static final String CONFIG_PERSONA = "You are an experienced software engineer reviewing configuration files.";
+    private static final String DOCUMENT_PERSONA = "You are an experienced software engineer reviewing technical documents.";
+
+    /**
+     * Persona plus the static instruction block. DeepSeek caches on identical request prefixes, so keeping
+     * everything file-independent in the system message lets every request after the first reuse it.
+     */
+    private static String systemMessage(String persona, PromptParts prompt) {
+        return persona + "\n\n" + prompt.instructions();
     }
 
-    private static AiEnrichmentPayload.BillableUsage extractBillableUsage(String responseString, String filePath) {
+    private static final String CONTENT = "choices.*.message.content";
+    private static final String PROMPT_TOKENS = "usage.prompt_tokens";
+    private static final String COMPLETION_TOKENS = "usage.completion_tokens";
+    private static final String TOTAL_TOKENS = "usage.total_tokens";
+    private static final String CACHE_HIT_TOKENS = "usage.prompt_cache_hit_tokens";
+    private static final String CACHED_TOKENS = "usage.prompt_tokens_details.cached_tokens";
+    private static final JsonPathExtractor RESPONSE_FIELDS = new JsonPathExtractor(
+            CONTENT, PROMPT_TOKENS, COMPLETION_TOKENS, TOTAL_TOKENS, CACHE_HIT_TOKENS, CACHED_TOKENS);
+
+    /**
+     * Reads the assistant text and token usage from a chat completion in one streaming pass.
+     */
+    static LlmCompletion parseCompletion(String responseString, String filePath) throws IOException {
         if (responseString == null || responseString.isBlank()) {
-            return null;
+            return new LlmCompletion(null, null, DEEP_SEEK_MODEL);
         }
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            JsonNode root = mapper.readTree(responseString);
-            JsonNode usage = root.path("usage");
-            if (usage.isMissingNode() || usage.isNull()) {
-                return null;
-            }
+        Map<String, String> fields = RESPONSE_FIELDS.extract(responseString);
+        return new LlmCompletion(fields.get(CONTENT), billableUsage(fields, filePath), DEEP_SEEK_MODEL);
+    }
 
-            int inputTokens = usage.path("prompt_tokens").asInt(0);
-            int outputTokens = usage.path("completion_tokens").asInt(0);
-            int totalTokens = usage.path("total_tokens").asInt(inputTokens + outputTokens);
-            int cachedTokens = usage.path("prompt_cache_hit_tokens").asInt(
-                    usage.path("prompt_tokens_details").path("cached_tokens").asInt(0));
-
-            AiEnrichmentPayload.BillableUsage billable = new AiEnrichmentPayload.BillableUsage();
-            billable.setModel(DEEP_SEEK_MODEL);
-            billable.setFilePath(filePath);
-            billable.setInputTokens(inputTokens);
-            billable.setOutputTokens(outputTokens);
-            billable.setCachedTokens(cachedTokens);
-            billable.setTotalTokens(totalTokens);
-            return billable;
-        } catch (IOException e) {
-            logger.debug("Unable to parse DeepSeek billable usage: {}", e.getMessage());
+    public static JsonNode extractResponsePayloadJsonNode(String input) throws Exception {
+        if(input == null || input.isEmpty()){
             return null;
         }
+        return payloadJson(parseCompletion(input, null).content());
     }
 
-    private static String extractAssistantContent(String input) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        if (input == null || input.isEmpty()) {
-            return null;
-        }
-        JsonNode root = mapper.readTree(input);
-        if (root == null) {
+    private static JsonNode payloadJson(String assistantContent) throws IOException {
+        if(assistantContent == null || assistantContent.isEmpty()){
             return null;
         }
-        return root.path("choices").path(0).path("message").path("content").asText();
+
+        // Remove the triple backticks and extract the JSON content
+        String jsonContent = assistantContent.replace("```json", "").replace("```", "").trim();
+        return LlmJson.TREE_READER.readTree(jsonContent);
     }
 
-    private static JsonNode extractTrailingJsonObject(String assistantContent) throws IOException {
-        if (assistantContent == null || assistantContent.isBlank()) {
+    private static AiEnrichmentPayload.BillableUsage billableUsage(Map<String, String> fields, String filePath) {
+        if (!fields.containsKey(PROMPT_TOKENS) && !fields.containsKey(COMPLETION_TOKENS)
+                && !fields.containsKey(TOTAL_TOKENS)) {
             return null;
         }
-        String cleaned = assistantContent.replace("```json", "").replace("```", "").trim();
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode bestParsed = null;
-        int bestScore = -1;
-
-        for (int i = 0; i < cleaned.length(); i++) {
-            if (cleaned.charAt(i) != '{') {
-                continue;
-            }
-            int depth = 0;
-            boolean inString = false;
-            boolean escape = false;
-            for (int j = i; j < cleaned.length(); j++) {
-                char c = cleaned.charAt(j);
-                if (inString) {
-                    if (escape) {
-                        escape = false;
-                    } else if (c == '\\') {
-                        escape = true;
-                    } else if (c == '"') {
-                        inString = false;
-                    }
-                    continue;
-                }
-                if (c == '"') {
-                    inString = true;
-                    continue;
-                }
-                if (c == '{') {
-                    depth++;
-                } else if (c == '}') {
-                    depth--;
-                    if (depth == 0) {
-                        String candidate = cleaned.substring(i, j + 1).trim();
-                        try {
-                            JsonNode parsed = mapper.readTree(candidate);
-                            int score = 0;
-                            if (parsed.has("summary")) {
-                                score += 2;
-                            }
-                            if (parsed.has("file")) {
-                                score += 2;
-                            }
-                            if (parsed.has("endpoints")) {
-                                score += 1;
-                            }
-                            if (score > bestScore) {
-                                bestScore = score;
-                                bestParsed = parsed;
-                            }
-                        } catch (IOException ignored) {
-                            // continue searching for a valid JSON object
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        return bestParsed;
+        int inputTokens = JsonPathExtractor.intValue(fields, PROMPT_TOKENS, 0);
+        int outputTokens = JsonPathExtractor.intValue(fields, COMPLETION_TOKENS, 0);
+        int totalTokens = JsonPathExtractor.intValue(fields, TOTAL_TOKENS, inputTokens + outputTokens);
+        int cachedTokens = JsonPathExtractor.intValue(fields, CACHE_HIT_TOKENS,
+                JsonPathExtractor.intValue(fields, CACHED_TOKENS, 0));
+
+        AiEnrichmentPayload.BillableUsage billable = new AiEnrichmentPayload.BillableUsage();
+        billable.setModel(DEEP_SEEK_MODEL);
+        billable.setFilePath(filePath);
+        billable.setInputTokens(inputTokens);
+        billable.setOutputTokens(outputTokens);
+        billable.setCachedTokens(cachedTokens);
+        billable.setTotalTokens(totalTokens);
+        return billable;
     }
 
-    private static void writeDebugArtifact(String fileName, String content) {
+    private static void writeDebugArtifact(String fileName, Supplier<String> content) {
         String enabled = System.getenv("LLM_DEBUG_OUTPUT");
         if (!"true".equalsIgnoreCase(enabled)) {
             return;
@@ -417,7 +362,7 @@ public class DeepSeekSummarizer implements OntologyMethodsSummarizer {
             Path dir = Paths.get("logs");
             Files.createDirectories(dir);
             Path out = dir.resolve(fileName);
-            Files.writeString(out, content, StandardCharsets.UTF_8);
+            Files.writeString(out, content.get(), StandardCharsets.UTF_8);
             logger.info("Wrote LLM debug output to {}", out.toAbsolutePath());
         } catch (IOException e) {
             logger.warn("Failed to write LLM debug output: {}", e.getMessage());
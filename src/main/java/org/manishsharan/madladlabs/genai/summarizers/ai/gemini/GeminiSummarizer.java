@@ -1,46 +1,53 @@
 package org.manishsharan.madladlabs.genai.summarizers.ai.gemini;
 
 
-import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.manishsharan.madladlabs.genai.cache.LlmResponseCache;
+import org.manishsharan.madladlabs.genai.ratelimit.LlmHttpExecutor;
 import org.manishsharan.madladlabs.genai.logging.LlmAuditSink;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonObjectScanner;
+import org.manishsharan.madladlabs.genai.summarizers.ai.JsonPathExtractor;
+import org.manishsharan.madladlabs.genai.summarizers.ai.LlmJson;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptParts;
+import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForCode;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptUtils;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForConfigTemplates;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForDocuments;
 import org.manishsharan.madladlabs.genai.summarizers.ai.PromptTemplateForGUITemplates;
+import org.manishsharan.madladlabs.genai.summarizers.ai.StreamingJsonBody;
 import org.manishsharan.madladlabs.genai.summarizers.ai.TemplateRenderer;
 
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
 import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
 import org.manishsharan.ontology.model.AiEnrichmentPayload;
 import org.manishsharan.ontology.llmdto.JavaClassSummary;
 import org.manishsharan.ontology.llmdto.MethodSummary;
 
 
+import java.nio.file.Files;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class GeminiSummarizer implements OntologyMethodsSummarizer {
 
     private static final String API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash-lite:generateContent";
 
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final MediaType JSON = LlmJson.JSON;
     private static GeminiSummarizer instance;
     private final OkHttpClient client;
     private static  String API_KEY;
@@ -66,31 +73,111 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         return instance;
     }
     public GeminiResponse invokeLLM(String promptForllm, String filePath, String pipeline) throws IOException {
-        // Create the request body as before
-        ObjectMapper mapper = new ObjectMapper();
-
-        ObjectNode requestBody = mapper.createObjectNode();
-        String url = API_URL ;
-        // "contents" array
-        ArrayNode contentsNode = requestBody.putArray("contents");
-        ObjectNode contentObject = contentsNode.addObject();
-        ArrayNode partsArray = contentObject.putArray("parts");
-        ObjectNode textNode = partsArray.addObject();
-
-        textNode.put("text", promptForllm);
-
-        // "generationConfig" object
-        ObjectNode generationConfig = requestBody.putObject("generationConfig");
-        generationConfig.put("temperature", 1);
-        generationConfig.put("topK", 40);
-        generationConfig.put("topP", 0.95);
-        generationConfig.put("maxOutputTokens", 8192);
+        return invokeLLM(new PromptParts("", promptForllm), filePath, pipeline);
+    }
 
+    public GeminiResponse invokeLLM(PromptParts prompt, String filePath, String pipeline) throws IOException {
         // Tells Gemini to return JSON as text, matching schema
-        generationConfig.put("response_mime_type", "application/json");
+        return call(prompt, "application/json", FUNCTIONS_SCHEMA, filePath, pipeline);
+    }
+
+    private GeminiResponse invokeLLMFreeform(PromptParts prompt,
+                                             String responseMimeType,
+                                             String filePath,
+                                             String pipeline) throws IOException {
+        return call(prompt, responseMimeType, null, filePath, pipeline);
+    }
+
+    private GeminiResponse call(PromptParts prompt,
+                                String responseMimeType,
+                                String responseSchemaJson,
+                                String filePath,
+                                String pipeline) throws IOException {
+        LlmResponseCache cache = LlmResponseCache.getInstance();
+        String cacheKey = LlmResponseCache.keyFor("gemini", MODEL_NAME,
+                responseMimeType + "\n" + responseSchemaJson, prompt.instructions(), prompt.content());
+        String cached = cache.get(cacheKey);
+        if (cached != null) {
+            logger.info("Gemini response served from cache file={} pipeline={}", filePath, pipeline);
+            return extractCandidateResponse(LlmResponseCache.withZeroedUsage(cached, "usageMetadata"), filePath);
+        }
+
+        StreamingJsonBody body = new StreamingJsonBody(gen -> {
+            gen.writeStartObject();
+            writeSystemInstruction(gen, prompt.instructions());
+            gen.writeArrayFieldStart("contents");
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("parts");
+            gen.writeStartObject();
+            gen.writeStringField("text", prompt.content());
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+
+            gen.writeObjectFieldStart("generationConfig");
+            gen.writeNumberField("temperature", 1);
+            gen.writeNumberField("topK", 40);
+            gen.writeNumberField("topP", 0.95);
+            gen.writeNumberField("maxOutputTokens", 8192);
+            if (responseMimeType != null) {
+                gen.writeStringField("response_mime_type", responseMimeType);
+            }
+            if (responseSchemaJson != null) {
+                gen.writeFieldName("response_schema");
+                gen.writeRawValue(responseSchemaJson);
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        });
+        int estimatedTokens = LlmHttpExecutor.estimateTokens(prompt.instructions())
+                + LlmHttpExecutor.estimateTokens(prompt.content());
+
+        logger.info("Gemini request prepared (estimated tokens={}) file={} pipeline={}",
+                estimatedTokens,
+                filePath,
+                pipeline);
+        String requestId = LlmAuditSink.logRequest("gemini", MODEL_NAME, pipeline, filePath, body::asString);
+        Request request = new Request.Builder()
+                .url(API_URL)
+                .addHeader("x-goog-api-key", API_KEY)
+                .addHeader("Content-Type", "application/json")
+                .post(body)
+                .build();
+
+        String rawResponse = LlmHttpExecutor.execute(client, request, "gemini", estimatedTokens, filePath);
+        logger.info("Gemini response received (bytes={}) file={} pipeline={}",
+                rawResponse.length(),
+                filePath,
+                pipeline);
+        LlmAuditSink.logResponse(requestId, "gemini", MODEL_NAME, pipeline, filePath, rawResponse);
+        GeminiResponse parsed = extractCandidateResponse(rawResponse, filePath);
+        cache.put(cacheKey, rawResponse);
+        return parsed;
+    }
 
-        // "response_schema" object
-        ObjectNode responseSchema = generationConfig.putObject("response_schema");
+    /**
+     * Static instructions go in {@code systemInstruction} ahead of the contents, so consecutive requests
+     * share a prefix that Gemini's implicit context cache can match.
+     */
+    private static void writeSystemInstruction(JsonGenerator gen, String instructions) throws IOException {
+        if (instructions == null || instructions.isBlank()) {
+            return;
+        }
+        gen.writeObjectFieldStart("systemInstruction");
+        gen.writeArrayFieldStart("parts");
+        gen.writeStartObject();
+        gen.writeStringField("text", instructions);
+        gen.writeEndObject();
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    /** Response schema for code summaries; constant, so it is serialized once and written raw. */
+    private static final String FUNCTIONS_SCHEMA = functionsSchema().toString();
+
+    private static ObjectNode functionsSchema() {
+        ObjectNode responseSchema = LlmJson.MAPPER.createObjectNode();
         responseSchema.put("type", "OBJECT");
 
         // Top-level properties: "functions" array
@@ -139,118 +226,29 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         topLevelRequired.add("functions");
         topLevelRequired.add("module");
         topLevelRequired.add("language");
-
-        // Convert request to JSON string
-        String requestJson = mapper.writeValueAsString(requestBody);
-        logger.info("Gemini request prepared (payload bytes={}) file={} pipeline={}",
-                requestJson.length(),
-                filePath,
-                pipeline);
-        String requestId = LlmAuditSink.logRequest("gemini", MODEL_NAME, pipeline, filePath, requestJson);
-
-        // Make the HTTP request
-        //OkHttpClient client = new OkHttpClient();
-        RequestBody body = RequestBody.create(
-                requestJson,
-                MediaType.parse("application/json; charset=utf-8")
-        );
-        Request request = new Request.Builder()
-                .url(url)
-                .addHeader("x-goog-api-key", API_KEY)
-                .addHeader("Content-Type", "application/json")
-                .post(body)
-                .build();
-
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected code " + response);
-            }
-            String rawResponse = response.body().string();
-            logger.info("Gemini response received (bytes={}) file={} pipeline={}",
-                    rawResponse.length(),
-                    filePath,
-                    pipeline);
-            LlmAuditSink.logResponse(requestId, "gemini", MODEL_NAME, pipeline, filePath, rawResponse);
-            return extractCandidateResponse(mapper, rawResponse);
-        }
+        return responseSchema;
     }
 
-    private GeminiResponse invokeLLMFreeform(String promptForllm,
-                                             String responseMimeType,
-                                             String filePath,
-                                             String pipeline) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-
-        ObjectNode requestBody = mapper.createObjectNode();
-        String url = API_URL;
-        ArrayNode contentsNode = requestBody.putArray("contents");
-        ObjectNode contentObject = contentsNode.addObject();
-        ArrayNode partsArray = contentObject.putArray("parts");
-        ObjectNode textNode = partsArray.addObject();
-        textNode.put("text", promptForllm);
-
-        ObjectNode generationConfig = requestBody.putObject("generationConfig");
-        generationConfig.put("temperature", 1);
-        generationConfig.put("topK", 40);
-        generationConfig.put("topP", 0.95);
-        generationConfig.put("maxOutputTokens", 8192);
-        if (responseMimeType != null) {
-            generationConfig.put("response_mime_type", responseMimeType);
-        }
-
-        String requestJson = mapper.writeValueAsString(requestBody);
-        logger.info("Gemini request prepared (payload bytes={}) file={} pipeline={}",
-                requestJson.length(),
-                filePath,
-                pipeline);
-        String requestId = LlmAuditSink.logRequest("gemini", MODEL_NAME, pipeline, filePath, requestJson);
-        RequestBody body = RequestBody.create(
-                requestJson,
-                MediaType.parse("application/json; charset=utf-8")
-        );
-        Request request = new Request.Builder()
-                .url(url)
-                .addHeader("x-goog-api-key", API_KEY)
-                .addHeader("Content-Type", "application/json")
-                .post(body)
-                .build();
-
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Unexpected code " + response);
-            }
-            String rawResponse = response.body().string();
-            logger.info("Gemini response received (bytes={}) file={} pipeline={}",
-                    rawResponse.length(),
-                    filePath,
-                    pipeline);
-            LlmAuditSink.logResponse(requestId, "gemini", MODEL_NAME, pipeline, filePath, rawResponse);
-            return extractCandidateResponse(mapper, rawResponse);
-        }
-    }
+    private static final String TEXT = "candidates.*.content.parts.*.text";
+    private static final String PROMPT_TOKENS = "usageMetadata.promptTokenCount";
+    private static final String CANDIDATES_TOKENS = "usageMetadata.candidatesTokenCount";
+    private static final String TOTAL_TOKENS = "usageMetadata.totalTokenCount";
+    private static final String CACHED_TOKENS = "usageMetadata.cachedContentTokenCount";
+    private static final JsonPathExtractor RESPONSE_FIELDS = new JsonPathExtractor(
+            TEXT, PROMPT_TOKENS, CANDIDATES_TOKENS, TOTAL_TOKENS, CACHED_TOKENS);
 
-    private static GeminiResponse extractCandidateResponse(ObjectMapper mapper, String rawResponse) throws IOException {
-        JsonNode root = mapper.readTree(rawResponse);
-        JsonNode candidates = root.path("candidates");
-        if (!candidates.isArray() || candidates.size() == 0) {
-            throw new IOException("No candidates returned from Gemini.");
-        }
-        JsonNode firstCandidate = candidates.get(0);
-        JsonNode contentNode = firstCandidate.path("content");
-        JsonNode partsNode = contentNode.path("parts");
-        if (!partsNode.isArray() || partsNode.size() == 0) {
-            throw new IOException("No 'parts' found in Gemini response.");
+    /**
+     * Reads the first candidate's text and the usage metadata in one streaming pass.
+     */
+    static GeminiResponse extractCandidateResponse(String rawResponse, String filePath) throws IOException {
+        Map<String, String> fields = RESPONSE_FIELDS.extract(rawResponse);
+        String text = fields.get(TEXT);
+        if (text == null) {
+            throw new IOException("No candidate text returned from Gemini.");
         }
-        String text = partsNode.get(0).path("text").asText();
-        JsonNode usageMetadata = root.path("usageMetadata");
-        return new GeminiResponse(text, usageMetadata.isMissingNode() ? null : usageMetadata);
+        return new GeminiResponse(text, billableUsage(fields, filePath));
     }
 
-
-
-
-
-
     /**
      * Parses the PaLM API JSON response into a List of MethodSummary objects.
      *
@@ -259,33 +257,15 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
      * @throws IOException if JSON parsing fails
      */
     public  List<MethodSummary> parseMethodSummaryResponse(String jsonResponse) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode root = objectMapper.readTree(jsonResponse);
-
-        // 1) Locate "candidates" array
-        JsonNode candidatesNode = root.path("candidates");
-        if (!candidatesNode.isArray() || candidatesNode.size() == 0) {
-            // No candidates or invalid shape
-            return new ArrayList<>();
-        }
-
-        // 2) Extract the first candidate -> content -> parts -> 0 -> text
-        JsonNode contentNode = candidatesNode.get(0).path("content");
-        JsonNode partsNode = contentNode.path("parts");
-        if (!partsNode.isArray() || partsNode.size() == 0) {
-            // No parts array or empty
-            return new ArrayList<>();
-        }
-
         // This is the JSON string containing {"response": [...]}
-        String innerJsonString = partsNode.get(0).path("text").asText();
-        if (innerJsonString.isEmpty()) {
-            // No text found
+        String innerJsonString = RESPONSE_FIELDS.extract(jsonResponse).get(TEXT);
+        if (innerJsonString == null || innerJsonString.isEmpty()) {
+            // No candidates, parts or text
             return new ArrayList<>();
         }
 
-        // 3) Parse the inner JSON string as an object
-        JsonNode innerRoot = objectMapper.readTree(innerJsonString);
+        // Parse the inner JSON string as an object
+        JsonNode innerRoot = LlmJson.TREE_READER.readTree(innerJsonString);
 
         // The "response" array from the inner JSON
         JsonNode responseArray = innerRoot.path("response");
@@ -333,9 +313,11 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
      */
     @Override
     public AiEnrichmentPayload summarizeCodeMethods(String relativePath, String language, File javaSource) throws Exception {
-        // Read the content of the Java file
-        String fileContent = Files.readString(javaSource.toPath());
-        ObjectMapper mapper = new ObjectMapper();
+        return summarizeCodeContent(relativePath, language, Files.readString(javaSource.toPath()));
+    }
+
+    @Override
+    public AiEnrichmentPayload summarizeCodeContent(String relativePath, String language, String fileContent) throws Exception {
         // Create the prompt for the DeepSeek R1 model
 
 
@@ -343,33 +325,20 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         map.put("language", language);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", fileContent);
-        String userPrompt = TemplateRenderer.getRenderedPrompt(map);
-        logger.debug("summarizeJavaCodeMethods Prompt: " + userPrompt);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForCode.INSTRUCTIONS, PromptTemplateForCode.FILE_TEMPLATE, map);
+        logger.debug("summarizeJavaCodeMethods Prompt: {}", prompt.content());
         //String responseString = invokeLLM(userPrompt);
-        GeminiResponse response = invokeLLM(userPrompt, relativePath, "code");
+        GeminiResponse response = invokeLLM(prompt, relativePath, "code");
         String responseString = response.getContent();
 
-        logger.debug("summarizeJavaCodeMethods Response: " + responseString);
-        System.out.println("summarizeJavaCodeMethods Response: " + responseString);
-        JsonNode responseNode= mapper.readTree(responseString);
-        logger.debug("summarizeJavaCodeMethods Response Node content: " + responseNode.toString());
+        logger.debug("summarizeJavaCodeMethods Response: {}", responseString);
+        JsonNode responseNode= LlmJson.TREE_READER.readTree(responseString);
         // help complete this method to return a json not
         if(responseNode != null){
-            AiEnrichmentPayload payload = AiEnrichmentPayload.fromJson(responseNode.toString());
-            if (payload.getFunctionEnrichments() == null && responseNode.has("functions")) {
-                List<AiEnrichmentPayload.FunctionEnrichment> functions = mapper
-                        .readerForListOf(AiEnrichmentPayload.FunctionEnrichment.class)
-                        .readValue(responseNode.get("functions"));
-                payload.setFunctionEnrichments(functions);
-            }
-            if (payload.getModule() == null) {
-                payload.setModule(responseNode.path("module").asText(null));
-            }
-            if (payload.getLanguage() == null) {
-                payload.setLanguage(responseNode.path("language").asText(null));
-            }
+            AiEnrichmentPayload payload = LlmJson.codePayload(responseNode);
             payload.setLlmModel(MODEL_NAME);
-            payload.setBillableUsage(extractBillableUsage(response.getUsageMetadata(), relativePath));
+            payload.setBillableUsage(response.getBillableUsage());
             return payload;
         }
         return null;
@@ -381,17 +350,20 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         map.put("language", language);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", content);
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForGUITemplates.PROMPT_TEMPLATE, map);
-        GeminiResponse response = invokeLLMFreeform(userPrompt, "application/json", relativePath, "gui");
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForGUITemplates.INSTRUCTIONS, PromptTemplateForGUITemplates.FILE_TEMPLATE, map);
+        GeminiResponse response = invokeLLMFreeform(prompt, "application/json", relativePath, "gui");
         String responseString = response.getContent();
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode jsonNode = mapper.readTree(responseString);
-        AiEnrichmentPayload.TemplateEnrichment template =
-                mapper.treeToValue(jsonNode, AiEnrichmentPayload.TemplateEnrichment.class);
+        // response_mime_type is only a hint for free-form prompts; tolerate fences and surrounding prose.
+        JsonNode jsonNode = JsonObjectScanner.bestObject(responseString, "file", "summary");
+        if (jsonNode == null) {
+            return null;
+        }
+        AiEnrichmentPayload.TemplateEnrichment template = LlmJson.TEMPLATE_READER.readValue(jsonNode);
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setTemplateEnrichments(List.of(template));
         payload.setLlmModel(MODEL_NAME);
-        payload.setBillableUsage(extractBillableUsage(response.getUsageMetadata(), relativePath));
+        payload.setBillableUsage(response.getBillableUsage());
         return payload;
     }
 
@@ -401,8 +373,9 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         map.put("detectedType", detectedType);
         map.put("relativeFilePath", relativePath);
         map.put("sourceFileContent", content);
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForConfigTemplates.PROMPT_TEMPLATE, map);
-        GeminiResponse response = invokeLLMFreeform(userPrompt, "text/plain", relativePath, "config");
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForConfigTemplates.INSTRUCTIONS, PromptTemplateForConfigTemplates.FILE_TEMPLATE, map);
+        GeminiResponse response = invokeLLMFreeform(prompt, "text/plain", relativePath, "config");
         String responseString = response.getContent();
         if (responseString == null || responseString.isBlank()) {
             return null;
@@ -415,7 +388,7 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setConfigEnrichments(List.of(config));
         payload.setLlmModel(MODEL_NAME);
-        payload.setBillableUsage(extractBillableUsage(response.getUsageMetadata(), relativePath));
+        payload.setBillableUsage(response.getBillableUsage());
         return payload;
     }
 
@@ -430,8 +403,10 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         map.put("sourceDocTitle", title != null ? title : "");
         map.put("sourceDocTime", datetime != null ? datetime : "");
         map.put("sourceFileExtractedContent", extractedContent != null ? extractedContent : "");
-        String userPrompt = TemplateRenderer.renderTemplate(PromptTemplateForDocuments.PROMPT_TEMPLATE, map);
-        GeminiResponse response = invokeLLMFreeform(userPrompt, "text/plain", relativePath, "document");
+        map.put("relativeFilePath", relativePath);
+        PromptParts prompt = TemplateRenderer.renderParts(
+                PromptTemplateForDocuments.INSTRUCTIONS, PromptTemplateForDocuments.FILE_TEMPLATE, map);
+        GeminiResponse response = invokeLLMFreeform(prompt, "text/plain", relativePath, "document");
         String responseString = response.getContent();
         if (responseString == null || responseString.isBlank()) {
             return null;
@@ -446,43 +421,60 @@ public class GeminiSummarizer implements OntologyMethodsSummarizer {
         AiEnrichmentPayload payload = new AiEnrichmentPayload();
         payload.setDocumentEnrichments(List.of(doc));
         payload.setLlmModel(MODEL_NAME);
-        payload.setBillableUsage(extractBillableUsage(response.getUsageMetadata(), relativePath));
+        payload.setBillableUsage(response.getBillableUsage());
         return payload;
     }
 
-    private static AiEnrichmentPayload.BillableUsage extractBillableUsage(JsonNode usageMetadata, String filePath) {
-        if (usageMetadata == null || usageMetadata.isMissingNode() || usageMetadata.isNull()) {
+    @Override
+    public boolean supportsCompleteJson() {
+        return true;
+    }
+
+    @Override
+    public LlmCompletion completeJson(String systemPrompt, String userPrompt, String relativePath, String pipeline) throws Exception {
+        GeminiResponse response = invokeLLMFreeform(
+                new PromptParts(systemPrompt == null ? "" : systemPrompt, userPrompt), "application/json", relativePath, pipeline);
+        return new LlmCompletion(
+                response.getContent(),
+                response.getBillableUsage(),
+                MODEL_NAME);
+    }
+
+    private static AiEnrichmentPayload.BillableUsage billableUsage(Map<String, String> fields, String filePath) {
+        if (!fields.containsKey(PROMPT_TOKENS) && !fields.containsKey(CANDIDATES_TOKENS)
+                && !fields.containsKey(TOTAL_TOKENS)) {
             return null;
         }
-        int inputTokens = usageMetadata.path("promptTokenCount").asInt(0);
-        int outputTokens = usageMetadata.path("candidatesTokenCount").asInt(0);
-        int totalTokens = usageMetadata.path("totalTokenCount").asInt(inputTokens + outputTokens);
+        int inputTokens = JsonPathExtractor.intValue(fields, PROMPT_TOKENS, 0);
+        int outputTokens = JsonPathExtractor.intValue(fields, CANDIDATES_TOKENS, 0);
+        int totalTokens = JsonPathExtractor.intValue(fields, TOTAL_TOKENS, inputTokens + outputTokens);
+        int cachedTokens = JsonPathExtractor.intValue(fields, CACHED_TOKENS, 0);
 
         AiEnrichmentPayload.BillableUsage billable = new AiEnrichmentPayload.BillableUsage();
         billable.setModel(MODEL_NAME);
         billable.setFilePath(filePath);
         billable.setInputTokens(inputTokens);
         billable.setOutputTokens(outputTokens);
-        billable.setCachedTokens(0);
+        billable.setCachedTokens(cachedTokens);
         billable.setTotalTokens(totalTokens);
         return billable;
     }
 
     public static class GeminiResponse {
         private final String content;
-        private final JsonNode usageMetadata;
+        private final AiEnrichmentPayload.BillableUsage billableUsage;
 
-        public GeminiResponse(String content, JsonNode usageMetadata) {
+        public GeminiResponse(String content, AiEnrichmentPayload.BillableUsage billableUsage) {
             this.content = content;
-            this.usageMetadata = usageMetadata;
+            this.billableUsage = billableUsage;
         }
 
         public String getContent() {
             return content;
         }
 
-        public JsonNode getUsageMetadata() {
-            return usageMetadata;
+        public AiEnrichmentPayload.BillableUsage getBillableUsage() {
+            return billableUsage;
         }
     }
 }
@@ -0,0 +1,133 @@
+package org.manishsharan.madladlabs.genai.batching;
+
+import org.junit.jupiter.api.Test;
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
+import org.manishsharan.madladlabs.genai.test.StubSummarizer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchSummarizerTest {
+
+    /** Returns a canned assistant text for every batched call and remembers the last prompt. */
+    private static class FakeSummarizer extends StubSummarizer {
+        final String response;
+        String lastPrompt;
+        int calls;
+
+        FakeSummarizer(String response) {
+            super(4000, 64000);
+            this.response = response;
+        }
+
+        @Override public boolean supportsCompleteJson() { return true; }
+
+        @Override
+        public LlmCompletion completeJson(String systemPrompt, String userPrompt, String relativePath, String pipeline) {
+            calls++;
+            lastPrompt = userPrompt;
+            return new LlmCompletion(response, usage(1001, 301), "fake");
+        }
+    }
+
+    private static final List<BatchSummarizer.BatchFile> CODE_FILES = List.of(
+            new BatchSummarizer.BatchFile("src/a/UserDto.java", "java", "class UserDto { String name; String getName() { return name; } }"),
+            new BatchSummarizer.BatchFile("src/a/OrderDto.java", "java", "class OrderDto { int id; }"),
+            new BatchSummarizer.BatchFile("src/a/Missing.java", "java", "class Missing {}"));
+
+    @Test
+    void splitsKeyedCodeResponseIntoPerFilePayloads() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer("""
+                ```json
+                {
+                  "src/a/UserDto.java": {"module": "a.UserDto", "language": "java",
+                    "functions": [{"fqn": "a.UserDto.getName", "description": "Returns the name."}]},
+                  "./src/a/OrderDto.java": {"module": "a.OrderDto", "functions": []}
+                }
+                ```""");
+        BatchSummarizer batch = new BatchSummarizer(fake);
+
+        Map<String, AiEnrichmentPayload> result = batch.summarizeCode("java", CODE_FILES);
+
+        assertEquals(1, fake.calls);
+        assertTrue(fake.lastPrompt.contains("=== FILE: src/a/UserDto.java ==="));
+        assertTrue(fake.lastPrompt.contains("class OrderDto { int id; }"));
+        assertEquals(2, result.size());
+        AiEnrichmentPayload user = result.get("src/a/UserDto.java");
+        assertEquals("a.UserDto", user.getModule());
+        assertEquals("a.UserDto.getName", user.getFunctionEnrichments().get(0).getFqn());
+        assertEquals("fake", user.getLlmModel());
+        assertEquals("java", result.get("src/a/OrderDto.java").getLanguage());
+        assertFalse(result.containsKey("src/a/Missing.java"));
+    }
+
+    @Test
+    void apportionedUsageSumsToBatchTotal() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer("""
+                {"src/a/UserDto.java": {"functions": []}, "src/a/OrderDto.java": {"functions": []},
+                 "src/a/Missing.java": {"functions": []}}""");
+        Map<String, AiEnrichmentPayload> result = new BatchSummarizer(fake).summarizeCode("java", CODE_FILES);
+
+        int input = 0, output = 0, total = 0;
+        for (AiEnrichmentPayload payload : result.values()) {
+            input += payload.getBillableUsage().getInputTokens();
+            output += payload.getBillableUsage().getOutputTokens();
+            total += payload.getBillableUsage().getTotalTokens();
+        }
+        assertEquals(1001, input);
+        assertEquals(301, output);
+        assertEquals(1302, total);
+        assertTrue(result.get("src/a/UserDto.java").getBillableUsage().getInputTokens()
+                > result.get("src/a/Missing.java").getBillableUsage().getInputTokens());
+        assertEquals("src/a/OrderDto.java", result.get("src/a/OrderDto.java").getBillableUsage().getFilePath());
+    }
+
+    @Test
+    void configBatchAcceptsWrappedStringValues() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer("""
+                Here you go:
+                {"files": {"config/app.yml": "Spring profile settings for server.port 8080.",
+                           "config/.env": {"summary": "Defines DB_URL and [REDACTED_SECRET_VALUE] for API_KEY."}}}""");
+        Map<String, AiEnrichmentPayload> result = new BatchSummarizer(fake).summarizeConfig(List.of(
+                new BatchSummarizer.BatchFile("config/app.yml", "yaml", "server:\n  port: 8080\n"),
+                new BatchSummarizer.BatchFile("config/.env", "dotenv", "DB_URL=jdbc:x\nAPI_KEY=secret\n")));
+
+        assertTrue(fake.lastPrompt.contains("=== FILE: config/app.yml (detected_type: yaml) ==="));
+        AiEnrichmentPayload.ConfigEnrichment env = result.get("config/.env").getConfigEnrichments().get(0);
+        assertEquals("dotenv", env.getDetectedType());
+        assertEquals("config/.env", env.getPath());
+        assertTrue(env.getSummary().startsWith("Defines DB_URL"));
+        assertEquals("yaml", result.get("config/app.yml").getConfigEnrichments().get(0).getDetectedType());
+    }
+
+    @Test
+    void picksTheKeyedObjectAmongProseAndOtherObjects() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer("""
+                Here is the format I used: {"path": {"summary": "..."}}. Note that {braces} in prose are ignored.
+                {"files": {"config/app.yml": {"summary": "Sets the port to 8080 and {profile} to prod."}}}
+                Hope this helps {:}""");
+        Map<String, AiEnrichmentPayload> result = new BatchSummarizer(fake).summarizeConfig(List.of(
+                new BatchSummarizer.BatchFile("config/app.yml", "yaml", "port: 8080"),
+                new BatchSummarizer.BatchFile("config/db.yml", "yaml", "url: jdbc:h2:mem")));
+
+        assertEquals(1, result.size());
+        assertEquals("Sets the port to 8080 and {profile} to prod.",
+                result.get("config/app.yml").getConfigEnrichments().get(0).getSummary());
+    }
+
+    @Test
+    void rejectsResponseWithoutJson() {
+        FakeSummarizer fake = new FakeSummarizer("I cannot help with that.");
+        assertThrows(Exception.class, () -> new BatchSummarizer(fake).summarizeCode("java", CODE_FILES));
+    }
+
+    @Test
+    void filesPerRequestFollowOutputBudget() {
+        BatchSummarizer batch = new BatchSummarizer(new FakeSummarizer("{}"));
+        assertEquals(4000 / BatchSummarizer.CODE_OUTPUT_TOKENS_PER_FILE, batch.maxFilesPerRequest(true));
+        assertEquals(4000 / BatchSummarizer.CONFIG_OUTPUT_TOKENS_PER_FILE, batch.maxFilesPerRequest(false));
+    }
+}
@@ -0,0 +1,54 @@
+package org.manishsharan.madladlabs.genai.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LlmResponseCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keyCoversEveryRequestField() {
+        String base = LlmResponseCache.keyFor("deepseek", "deepseek-coder", "system", "user");
+        assertEquals(base, LlmResponseCache.keyFor("deepseek", "deepseek-coder", "system", "user"));
+        assertNotEquals(base, LlmResponseCache.keyFor("gemini", "deepseek-coder", "system", "user"));
+        assertNotEquals(base, LlmResponseCache.keyFor("deepseek", "deepseek-chat", "system", "user"));
+        assertNotEquals(base, LlmResponseCache.keyFor("deepseek", "deepseek-coder", "systemu", "ser"));
+
+        String schema = LlmResponseCache.keyFor("gemini", "m", "application/json\n{\"type\":\"object\"}", "system", "user");
+        assertNotEquals(schema, LlmResponseCache.keyFor("gemini", "m", "application/json\n{\"type\":\"array\"}", "system", "user"));
+        assertNotEquals(schema, LlmResponseCache.keyFor("gemini", "m", "system", "user"));
+    }
+
+    @Test
+    void roundTripsResponses() throws Exception {
+        LlmResponseCache cache = new LlmResponseCache(
+                new SqliteLruCache(tempDir.resolve("llm.db"), "llm_response", 1024 * 1024));
+        String key = LlmResponseCache.keyFor("deepseek", "m", "s", "u");
+        assertNull(cache.get(key));
+        cache.put(key, "{\"choices\":[]}");
+        assertEquals("{\"choices\":[]}", cache.get(key));
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void zeroesReplayedUsage() throws Exception {
+        String response = """
+                {"choices":[{"message":{"content":"hi"}}],
+                 "usage":{"prompt_tokens":729,"completion_tokens":479,
+                          "prompt_tokens_details":{"cached_tokens":704}}}
+                """;
+        JsonNode root = new ObjectMapper().readTree(LlmResponseCache.withZeroedUsage(response, "usage"));
+        assertEquals(0, root.path("usage").path("prompt_tokens").asInt(-1));
+        assertEquals(0, root.path("usage").path("completion_tokens").asInt(-1));
+        assertEquals(0, root.path("usage").path("prompt_tokens_details").path("cached_tokens").asInt(-1));
+        assertEquals("hi", root.path("choices").path(0).path("message").path("content").asText());
+    }
+}
@@ -0,0 +1,78 @@
+package org.manishsharan.madladlabs.genai.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqliteLruCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void storesAndCountsHitsAndMisses() throws Exception {
+        try (SqliteLruCache cache = new SqliteLruCache(tempDir.resolve("cache.db"), "test_cache", 1024)) {
+            assertNull(cache.get("missing"));
+            cache.put("a", bytes("alpha"));
+            assertEquals("alpha", new String(cache.get("a"), StandardCharsets.UTF_8));
+
+            SqliteLruCache.Stats stats = cache.stats();
+            assertEquals(1, stats.hits());
+            assertEquals(1, stats.misses());
+            assertEquals(1, stats.entries());
+            assertEquals(5, stats.bytes());
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverBudget() throws Exception {
+        try (SqliteLruCache cache = new SqliteLruCache(tempDir.resolve("cache.db"), "test_cache", 30)) {
+            cache.put("a", new byte[10]);
+            Thread.sleep(5);
+            cache.put("b", new byte[10]);
+            Thread.sleep(5);
+            cache.put("c", new byte[10]);
+            Thread.sleep(5);
+            assertNotNull(cache.get("a"));
+            Thread.sleep(5);
+            cache.put("d", new byte[10]);
+
+            assertNull(cache.get("b"), "least recently used entry should be evicted");
+            assertNotNull(cache.get("a"));
+            assertNotNull(cache.get("c"));
+            assertNotNull(cache.get("d"));
+            assertEquals(1, cache.stats().evictions());
+            assertTrue(cache.stats().bytes() <= 30);
+        }
+    }
+
+    @Test
+    void survivesReopen() throws Exception {
+        Path db = tempDir.resolve("cache.db");
+        try (SqliteLruCache cache = new SqliteLruCache(db, "test_cache", 1024)) {
+            cache.put("k", bytes("value"));
+        }
+        try (SqliteLruCache cache = new SqliteLruCache(db, "test_cache", 1024)) {
+            assertEquals(1, cache.stats().entries());
+            assertEquals("value", new String(cache.get("k"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void openFallsBackToDefaultsAndReportsUnavailableStores() throws Exception {
+        try (SqliteLruCache cache = SqliteLruCache.open("SQLITE_LRU_CACHE_TEST",
+                tempDir.resolve("defaults.db").toString(), "test_cache", 2048, "Test cache")) {
+            assertNotNull(cache);
+            assertEquals(2048, cache.stats().maxBytes());
+        }
+        assertNull(SqliteLruCache.open("SQLITE_LRU_CACHE_TEST", tempDir.toString(), "bad-table", 2048, "Test cache"));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,283 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.test.StubSummarizer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkingSummarizerTest {
+
+    private static final Pattern METHOD = Pattern.compile("public int (method\\d+)\\(");
+
+    /** Echoes one function enrichment per method it sees and bills 10 tokens per call. */
+    private static class FakeSummarizer extends StubSummarizer {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile String failOn;
+
+        FakeSummarizer(int contextSize) {
+            super(1000, contextSize);
+        }
+
+        @Override
+        public AiEnrichmentPayload summarizeCodeContent(String relativePath, String language, String sourceContent) {
+            calls.incrementAndGet();
+            if (failOn != null && sourceContent.contains(failOn)) {
+                throw new IllegalStateException("provider rejected chunk");
+            }
+            List<AiEnrichmentPayload.FunctionEnrichment> functions = new ArrayList<>();
+            Matcher m = METHOD.matcher(sourceContent);
+            while (m.find()) {
+                AiEnrichmentPayload.FunctionEnrichment fn = new AiEnrichmentPayload.FunctionEnrichment();
+                fn.setFqn("com.example.Big." + m.group(1));
+                fn.setDescription("does " + m.group(1));
+                functions.add(fn);
+            }
+            AiEnrichmentPayload payload = new AiEnrichmentPayload();
+            payload.setModule("com.example");
+            payload.setLanguage(language);
+            payload.setLlmModel("fake");
+            payload.setFunctionEnrichments(functions);
+            payload.setBillableUsage(usage(7, 3));
+            return payload;
+        }
+
+        @Override
+        public AiEnrichmentPayload summarizeDocument(String relativePath, String docType, String title,
+                                                     String datetime, String extractedContent) {
+            calls.incrementAndGet();
+            AiEnrichmentPayload.DocumentEnrichment doc = new AiEnrichmentPayload.DocumentEnrichment();
+            doc.setSummary("summary of " + extractedContent.length() + " chars");
+            AiEnrichmentPayload payload = new AiEnrichmentPayload();
+            payload.setDocumentEnrichments(List.of(doc));
+            payload.setBillableUsage(usage(7, 3));
+            return payload;
+        }
+    }
+
+    private static String javaClass(int methods) {
+        StringBuilder sb = new StringBuilder("package com.example;\n\npublic class Big {\n");
+        for (int i = 0; i < methods; i++) {
+            sb.append("    public int method").append(i).append("(int v) {\n");
+            sb.append("        return v + ").append(i).append(" * computeSomethingExpensive(v, ").append(i).append(");\n");
+            sb.append("    }\n\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    @Test
+    void budgetRespectsContextWindowAndCap() {
+        assertEquals(2000, ChunkingSummarizer.chunkBudget(new FakeSummarizer(100_000), 2000));
+        assertEquals(65536 - 8192 - ChunkingSummarizer.PROMPT_OVERHEAD_TOKENS,
+                ChunkingSummarizer.chunkBudget(new FakeSummarizer(65536) {
+                    @Override public int getMaxTokens() { return 8192; }
+                }, 1_000_000));
+    }
+
+    @Test
+    void smallFileIsOneRequest() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer(100_000);
+        AiEnrichmentPayload payload = new ChunkingSummarizer(fake, 16_000).summarizeCode("Big.java", "java", javaClass(3));
+        assertEquals(1, fake.calls.get());
+        assertEquals(3, payload.getFunctionEnrichments().size());
+        assertNull(payload.getFileNotes());
+    }
+
+    @Test
+    void largeFileIsChunkedAndMerged() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer(100_000);
+        ChunkingSummarizer chunking = new ChunkingSummarizer(fake, 300);
+        AiEnrichmentPayload payload = chunking.summarizeCode("Big.java", "java", javaClass(80));
+
+        int calls = fake.calls.get();
+        assertTrue(calls > 1);
+        assertEquals(80, payload.getFunctionEnrichments().size());
+        assertEquals("com.example.Big.method0", payload.getFunctionEnrichments().get(0).getFqn());
+        assertEquals("com.example.Big.method79", payload.getFunctionEnrichments().get(79).getFqn());
+        assertEquals("com.example", payload.getModule());
+        assertEquals("fake", payload.getLlmModel());
+        assertEquals(10 * calls, payload.getBillableUsage().getTotalTokens());
+        assertEquals(7 * calls, payload.getBillableUsage().getInputTokens());
+        assertEquals("Big.java", payload.getBillableUsage().getFilePath());
+        assertEquals("Summarized in " + calls + " chunks", payload.getFileNotes().get(0).getNote());
+    }
+
+    @Test
+    void summarizersThatOnlyReadFilesStillReceiveEveryChunk() throws Exception {
+        List<String> sources = new CopyOnWriteArrayList<>();
+        StubSummarizer fileOnly = new StubSummarizer(1000, 100_000) {
+            @Override
+            public AiEnrichmentPayload summarizeCodeMethods(String relativePath, String language, File javaSource) {
+                try {
+                    sources.add(Files.readString(javaSource.toPath()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new AiEnrichmentPayload();
+            }
+        };
+        new ChunkingSummarizer(fileOnly, 2_000).summarizeCode("Big.java", "java", javaClass(80));
+
+        assertTrue(sources.size() > 1);
+        assertTrue(sources.stream().allMatch(source -> source.startsWith("package com.example;")));
+        assertTrue(sources.stream().anyMatch(source -> source.contains("method79(")));
+    }
+
+    @Test
+    void chunkRequestsAreBoundedByMaxConcurrentChunks() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        FakeSummarizer fake = new FakeSummarizer(100_000) {
+            @Override
+            public AiEnrichmentPayload summarizeCodeContent(String relativePath, String language, String sourceContent) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                    return super.summarizeCodeContent(relativePath, language, sourceContent);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        new ChunkingSummarizer(fake, 300, 0, null, null, 2).summarizeCode("Big.java", "java", javaClass(80));
+
+        assertTrue(fake.calls.get() > 2);
+        assertTrue(maxInFlight.get() <= 2, "chunks in flight: " + maxInFlight.get());
+    }
+
+    @Test
+    void failedChunksBecomeNotes() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer(100_000);
+        fake.failOn = "method40(";
+        AiEnrichmentPayload payload = new ChunkingSummarizer(fake, 300).summarizeCode("Big.java", "java", javaClass(80));
+
+        assertTrue(payload.getFunctionEnrichments().size() < 80);
+        assertTrue(payload.getFileNotes().get(0).getNote().contains("(1 failed)"));
+        assertTrue(payload.getFileNotes().stream().anyMatch(n -> n.getNote().contains("provider rejected chunk")));
+    }
+
+    @Test
+    void everyChunkFailingPropagatesTheError() {
+        FakeSummarizer fake = new FakeSummarizer(100_000);
+        fake.failOn = "public int";
+        assertThrows(IllegalStateException.class,
+                () -> new ChunkingSummarizer(fake, 300).summarizeCode("Big.java", "java", javaClass(80)));
+    }
+
+    @Test
+    void documentSectionsAreJoinedInOrder() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer(100_000);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            text.append("# Heading ").append(i).append("\n\n");
+            text.append("Paragraph ").append(i).append(" describes the deployment pipeline in some detail. ".repeat(5)).append("\n\n");
+        }
+        AiEnrichmentPayload payload = new ChunkingSummarizer(fake, 300)
+                .summarizeDocument("docs/guide.md", "md", "Guide", null, text.toString());
+
+        int calls = fake.calls.get();
+        assertTrue(calls > 1);
+        AiEnrichmentPayload.DocumentEnrichment doc = payload.getDocumentEnrichments().get(0);
+        assertEquals("docs/guide.md", doc.getPath());
+        assertEquals("Guide", doc.getTitle());
+        assertTrue(doc.getSummary().startsWith("[Part 1/" + calls + ", lines 1-"));
+        assertTrue(doc.getSummary().contains("[Part " + calls + "/" + calls));
+        assertEquals(10 * calls, payload.getBillableUsage().getTotalTokens());
+    }
+
+    @Test
+    void longDocumentsAreReducedLocallyBeforeTheCall() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer(100_000);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("# Heading ").append(i).append("\n\n");
+            text.append("Step ").append(i).append(" rotates the signing key for tenant ").append(i * 13)
+                    .append(" and re-deploys the gateway. Operators page the on-call engineer if step ")
+                    .append(i).append(" fails twice.\n\n");
+        }
+        AiEnrichmentPayload payload = new ChunkingSummarizer(fake, 300, 400)
+                .summarizeDocument("docs/keys.md", "md", "Keys", null, text.toString());
+
+        assertEquals(1, fake.calls.get());
+        assertTrue(payload.getFileNotes().get(0).getNote().startsWith("Reduced locally from "),
+                payload.getFileNotes().get(0).getNote());
+
+        FakeSummarizer tabular = new FakeSummarizer(100_000);
+        AiEnrichmentPayload profile = new ChunkingSummarizer(tabular, 300, 400)
+                .summarizeDocument("data/keys.csv", "csv", null, null, text.toString());
+        assertTrue(tabular.calls.get() > 1, "profiles are chunked, not reduced");
+        assertTrue(profile.getFileNotes().get(0).getNote().startsWith("Summarized in "));
+    }
+
+    @Test
+    void editedDocumentOnlyResummarizesChangedChunks(@TempDir Path dir) throws Exception {
+        ChunkSummaryCache cache = new ChunkSummaryCache(
+                new SqliteLruCache(dir.resolve("chunks.db"), "document_chunk_summary", 1024 * 1024));
+        List<String> sections = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sections.add("# Section " + i + "\n\nSection " + i + " explains how batch " + (i * 31)
+                    + " is reconciled against the ledger and which alerts fire when totals drift.");
+        }
+        String original = String.join("\n\n", sections);
+
+        FakeSummarizer first = new FakeSummarizer(100_000);
+        AiEnrichmentPayload before = new ChunkingSummarizer(first, 2000, 0, cache, "job:fake")
+                .summarizeDocument("docs/ledger.md", "md", "Ledger", null, original);
+        int chunks = first.calls.get();
+        assertTrue(chunks > 5, "chunks " + chunks);
+        assertTrue(before.getDocumentEnrichments().get(0).getSummary().startsWith("[Part 1/" + chunks));
+
+        sections.set(100, sections.get(100) + " Reconciliation now also runs at month end.");
+        FakeSummarizer second = new FakeSummarizer(100_000);
+        AiEnrichmentPayload after = new ChunkingSummarizer(second, 2000, 0, cache, "job:fake")
+                .summarizeDocument("docs/ledger.md", "md", "Ledger v2", null, String.join("\n\n", sections));
+
+        assertTrue(second.calls.get() <= 2, "calls " + second.calls.get());
+        assertEquals("Ledger v2", after.getDocumentEnrichments().get(0).getTitle());
+        assertTrue(after.getFileNotes().get(0).getNote().endsWith("chunk summaries reused from cache"),
+                after.getFileNotes().get(0).getNote());
+        assertEquals(10 * second.calls.get(), after.getBillableUsage().getTotalTokens());
+    }
+
+    @Test
+    void chunkCacheOnlyAppliesAboveTheBudgetAndKeysTheReductionTarget(@TempDir Path dir) throws Exception {
+        ChunkSummaryCache cache = new ChunkSummaryCache(
+                new SqliteLruCache(dir.resolve("chunks.db"), "document_chunk_summary", 1024 * 1024));
+        StringBuilder small = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            small.append("Section ").append(i).append(" lists the retention rules for archive ").append(i).append(".\n\n");
+        }
+        FakeSummarizer whole = new FakeSummarizer(100_000);
+        new ChunkingSummarizer(whole, 2000, 0, cache, "job:fake")
+                .summarizeDocument("docs/small.md", "md", "Small", null, small.toString());
+        assertEquals(1, whole.calls.get(), "documents within the chunk budget are one request");
+
+        List<String> sections = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sections.add("# Section " + i + "\n\nSection " + i + " explains how batch " + (i * 31)
+                    + " is reconciled against the ledger. Alerts fire when totals drift by more than " + i + " cents.");
+        }
+        String text = String.join("\n\n", sections);
+        FakeSummarizer plain = new FakeSummarizer(100_000);
+        new ChunkingSummarizer(plain, 2000, 0, cache, "job:fake").summarizeDocument("docs/ledger.md", "md", "Ledger", null, text);
+        FakeSummarizer reduced = new FakeSummarizer(100_000);
+        new ChunkingSummarizer(reduced, 2000, 1000, cache, "job:fake").summarizeDocument("docs/ledger.md", "md", "Ledger", null, text);
+        assertEquals(plain.calls.get(), reduced.calls.get(), "summaries of unreduced chunks are not reused once reduction is on");
+    }
+}
@@ -0,0 +1,120 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeChunkerTest {
+
+    private static String javaClass(int methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package com.example;\n\nimport java.util.List;\n\npublic class Big {\n");
+        for (int i = 0; i < methods; i++) {
+            sb.append("    /** Method ").append(i).append(" */\n");
+            sb.append("    public int method").append(i).append("(int value) {\n");
+            sb.append("        String s = \"{ not a brace }\";\n");
+            sb.append("        // } also not a brace\n");
+            sb.append("        if (value > ").append(i).append(") {\n");
+            sb.append("            return value * ").append(i).append(";\n");
+            sb.append("        }\n");
+            sb.append("        return value;\n");
+            sb.append("    }\n\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    @Test
+    void smallFilesStayWhole() {
+        String source = javaClass(2);
+        List<Chunk> chunks = CodeChunker.split(source, "java", 10_000);
+        assertEquals(1, chunks.size());
+        assertEquals(source, chunks.get(0).text());
+    }
+
+    @Test
+    void javaSplitsAtMethodBoundariesAndRepeatsHeader() {
+        String source = javaClass(60);
+        List<Chunk> chunks = CodeChunker.split(source, "java", 400);
+
+        assertTrue(chunks.size() > 1);
+        for (Chunk chunk : chunks) {
+            assertTrue(chunk.tokens() <= 400, "chunk over budget: " + chunk.tokens());
+            assertTrue(chunk.text().startsWith("package com.example;"), "header missing in chunk " + chunk.index());
+            assertTrue(chunk.text().contains("public class Big {"));
+        }
+        for (int i = 1; i < chunks.size(); i++) {
+            String body = chunks.get(i).text().substring(chunks.get(i).text().indexOf(" ...\n") + 5);
+            String firstLine = body.lines().filter(l -> !l.isBlank()).findFirst().orElseThrow();
+            assertTrue(firstLine.startsWith("    /** Method") || firstLine.startsWith("    public int method")
+                            || firstLine.equals("}"),
+                    "chunk " + i + " does not start at a member boundary: " + firstLine);
+        }
+        // Every method lands in exactly one chunk.
+        for (int m = 0; m < 60; m++) {
+            String signature = "public int method" + m + "(";
+            long holders = chunks.stream().filter(c -> c.text().contains(signature)).count();
+            assertEquals(1, holders, signature);
+        }
+        assertEquals(1, chunks.get(0).startLine());
+        assertEquals(source.split("\n", -1).length, chunks.get(chunks.size() - 1).endLine());
+    }
+
+    @Test
+    void oversizedMemberIsSplitByLines() {
+        StringBuilder sb = new StringBuilder("public class Huge {\n    void run() {\n");
+        for (int i = 0; i < 500; i++) {
+            sb.append("        call").append(i).append("(alpha, beta, gamma);\n");
+        }
+        sb.append("    }\n}\n");
+        List<Chunk> chunks = CodeChunker.split(sb.toString(), "java", 300);
+        assertTrue(chunks.size() > 5);
+        chunks.forEach(c -> assertTrue(c.tokens() <= 300, "chunk over budget: " + c.tokens()));
+    }
+
+    @Test
+    void pythonSplitsAtDefinitions() {
+        StringBuilder sb = new StringBuilder("import os\nimport sys\n\n");
+        for (int i = 0; i < 40; i++) {
+            sb.append("def handler_").append(i).append("(event, context):\n");
+            sb.append("    value = os.environ.get('KEY_").append(i).append("')\n");
+            sb.append("    return {'status': ").append(i).append(", 'value': value}\n\n");
+        }
+        List<Chunk> chunks = CodeChunker.split(sb.toString(), "python", 200);
+        assertTrue(chunks.size() > 1);
+        for (int i = 1; i < chunks.size(); i++) {
+            String text = chunks.get(i).text();
+            assertTrue(text.startsWith("import os\nimport sys"));
+            assertTrue(text.contains("# ... lines "));
+            String body = text.substring(text.indexOf(" ...\n") + 5);
+            assertTrue(body.startsWith("def handler_"), body);
+        }
+    }
+
+    @Test
+    void clojureSplitsAtTopLevelForms() {
+        StringBuilder sb = new StringBuilder("(ns assetapi.router\n  (:require [clojure.string :as str]))\n\n");
+        for (int i = 0; i < 40; i++) {
+            sb.append("(defn route-").append(i).append(" [req]\n  (str/join \",\" [(:uri req) ").append(i).append("]))\n\n");
+        }
+        List<Chunk> chunks = CodeChunker.split(sb.toString(), "clojure", 150);
+        assertTrue(chunks.size() > 1);
+        for (int i = 1; i < chunks.size(); i++) {
+            String text = chunks.get(i).text();
+            assertTrue(text.startsWith("(ns assetapi.router"));
+            String body = text.substring(text.indexOf(" ...\n") + 5);
+            assertTrue(body.startsWith("(defn route-"), body);
+        }
+    }
+
+    @Test
+    void tokenEstimateTracksWordPiecesAndPunctuation() {
+        assertEquals(0, TokenEstimator.estimate(""));
+        assertEquals(1, TokenEstimator.estimate("int"));
+        // "calculateTotal" is 14 characters -> 4 pieces, plus "(", "x", ")", ";"
+        assertEquals(8, TokenEstimator.estimate("calculateTotal(x);"));
+        assertEquals(2, TokenEstimator.estimate("a    b"));
+    }
+}
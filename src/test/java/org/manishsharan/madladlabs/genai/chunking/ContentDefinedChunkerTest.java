@@ -0,0 +1,66 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentDefinedChunkerTest {
+
+    private static List<String> paragraphs(int count) {
+        List<String> paragraphs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            paragraphs.add("Paragraph " + i + " covers retention rule " + (i * 17)
+                    + " for the archive tier and who approves exceptions to it.");
+        }
+        return paragraphs;
+    }
+
+    private static Set<String> texts(List<Chunk> chunks) {
+        Set<String> texts = new HashSet<>();
+        chunks.forEach(c -> texts.add(c.text()));
+        return texts;
+    }
+
+    @Test
+    void anEditOnlyMovesNearbyBoundaries() {
+        List<String> paragraphs = paragraphs(400);
+        List<Chunk> before = ContentDefinedChunker.split(String.join("\n\n", paragraphs), 100, 400, 1600);
+
+        paragraphs.add(200, "A new paragraph inserted in the middle of the policy.");
+        paragraphs.set(50, paragraphs.get(50).replace("archive", "cold"));
+        List<Chunk> after = ContentDefinedChunker.split(String.join("\n\n", paragraphs), 100, 400, 1600);
+
+        Set<String> unchanged = texts(before);
+        unchanged.retainAll(texts(after));
+        assertTrue(before.size() > 10, "chunks " + before.size());
+        assertTrue(unchanged.size() >= before.size() - 4,
+                unchanged.size() + " of " + before.size() + " chunks unchanged");
+    }
+
+    @Test
+    void chunksRespectMinAndMaxAndCoverTheText() {
+        String text = String.join("\n\n", paragraphs(300));
+        List<Chunk> chunks = ContentDefinedChunker.split(text, 100, 400, 600);
+
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            assertEquals(i, chunk.index());
+            assertTrue(chunk.tokens() <= 600, "chunk " + i + " has " + chunk.tokens());
+            if (i < chunks.size() - 1) {
+                assertTrue(chunk.tokens() >= 100, "chunk " + i + " has " + chunk.tokens());
+            }
+            if (!joined.isEmpty()) {
+                joined.append("\n\n");
+            }
+            joined.append(chunk.text());
+        }
+        assertEquals(text, joined.toString());
+        assertEquals(chunks, ContentDefinedChunker.split(text, 100, 400, 600));
+    }
+}
@@ -0,0 +1,62 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentChunkerTest {
+
+    private static String paragraph(int sentences, String word) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            sb.append("The ").append(word).append(" subsystem handles request ").append(i).append(" carefully. ");
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    void breaksAtHeadingsOnceHalfFull() {
+        StringBuilder doc = new StringBuilder();
+        for (int s = 1; s <= 6; s++) {
+            doc.append("# Section ").append(s).append("\n\n");
+            doc.append(paragraph(8, "s" + s)).append("\n\n");
+            doc.append(paragraph(8, "t" + s)).append("\n\n");
+        }
+        List<Chunk> chunks = DocumentChunker.split(doc.toString(), 400);
+        assertTrue(chunks.size() > 1);
+        for (Chunk chunk : chunks) {
+            assertTrue(chunk.tokens() <= 400 + 8, "chunk over budget: " + chunk.tokens());
+            assertTrue(chunk.text().startsWith("# Section"), "chunk should start at a heading: " + chunk.text());
+        }
+    }
+
+    @Test
+    void oversizedParagraphIsCutAtSentences() {
+        String text = paragraph(300, "giant");
+        List<Chunk> chunks = DocumentChunker.split(text, 200);
+        assertTrue(chunks.size() > 5);
+        for (Chunk chunk : chunks) {
+            assertTrue(chunk.tokens() <= 200 + 4, "chunk over budget: " + chunk.tokens());
+            assertTrue(chunk.text().endsWith("."), "chunk should end at a sentence: " + chunk.text());
+        }
+    }
+
+    @Test
+    void pageBreaksAndNumberedHeadingsAreSections() {
+        assertTrue(DocumentChunker.isHeading("2.1 Deployment model"));
+        assertTrue(DocumentChunker.isHeading("## Install"));
+        assertFalse(DocumentChunker.isHeading("This is a normal sentence that happens to be long."));
+
+        String text = paragraph(20, "first") + "\n\f" + paragraph(20, "second");
+        List<Chunk> chunks = DocumentChunker.split(text, 300);
+        assertEquals(2, chunks.size());
+        assertTrue(chunks.get(1).text().startsWith("The second"));
+    }
+
+    @Test
+    void emptyTextHasNoChunks() {
+        assertTrue(DocumentChunker.split("  \n\n ", 100).isEmpty());
+    }
+}
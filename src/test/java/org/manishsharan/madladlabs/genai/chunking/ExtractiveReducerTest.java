@@ -0,0 +1,114 @@
+package org.manishsharan.madladlabs.genai.chunking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtractiveReducerTest {
+
+    private static final String[] SERVICES = {"billing", "ledger", "search", "catalog", "identity", "payments", "orders", "shipping"};
+    private static final String[] CHECKS = {"replication lag", "write latency", "connection count", "checkpoint age"};
+
+    /** Forty pages with a running header and footer, a repeated disclaimer and one topical paragraph per page. */
+    private static String runbook() {
+        StringBuilder sb = new StringBuilder();
+        for (int page = 1; page <= 40; page++) {
+            if (page > 1) {
+                sb.append('\f');
+            }
+            sb.append("ACME Corp - Internal Runbook - Confidential\n\n");
+            if (page % 4 == 1) {
+                sb.append("## Step ").append(page / 4 + 1).append(": failover\n\n");
+            }
+            sb.append("Promote the ").append(SERVICES[page % 8]).append(" database replica in region ").append(page)
+                    .append(" and verify that ").append(CHECKS[page % 4]).append(" on the replica is within ")
+                    .append(page * 3).append(" units before failover. ")
+                    .append("The weather at the office was pleasant that afternoon and lunch arrived early. ")
+                    .append("Confirm the ").append(SERVICES[(page + 3) % 8])
+                    .append(" failover by running health check ").append(page * 7).append(" against the database.\n\n");
+            sb.append("This document is provided for internal use only and must not be shared outside the company "
+                    + "without written approval from the operations leadership team.\n\n");
+            sb.append("Page ").append(page).append(" of 40\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void shortTextIsReturnedUnchanged() {
+        String text = "# Guide\n\nOne short paragraph.";
+        ExtractiveReducer.Reduction reduction = ExtractiveReducer.reduce(text, 1000);
+
+        assertSame(text, reduction.text());
+        assertFalse(reduction.reduced());
+    }
+
+    @Test
+    void dropsRunningHeadersPageNumbersAndRepeatedParagraphs() {
+        String text = runbook();
+        ExtractiveReducer.Reduction reduction = ExtractiveReducer.reduce(text, TokenEstimator.estimate(text) - 1);
+
+        String out = reduction.text();
+        assertFalse(out.contains("ACME Corp - Internal Runbook"), out);
+        assertFalse(out.contains("of 40"), out);
+        assertEquals(1, count(out, "provided for internal use only"));
+        assertEquals(80, reduction.boilerplateLines());
+        assertTrue(reduction.duplicateParagraphs() >= 39, "duplicates " + reduction.duplicateParagraphs());
+        assertEquals(0, reduction.sentences(), "cleanup alone met the target");
+    }
+
+    @Test
+    void selectsCentralSentencesWithinTheTarget() {
+        String text = runbook();
+        ExtractiveReducer.Reduction reduction = ExtractiveReducer.reduce(text, 1200);
+
+        String out = reduction.text();
+        assertTrue(reduction.tokens() <= 1200, "tokens " + reduction.tokens());
+        assertTrue(reduction.originalTokens() > 3 * reduction.tokens());
+        for (int step = 1; step <= 10; step++) {
+            assertTrue(out.contains("## Step " + step + ": failover"), out);
+        }
+        assertTrue(out.indexOf("## Step 2") < out.indexOf("## Step 3"));
+        assertTrue(out.contains("replica"), out);
+        assertFalse(out.contains("lunch arrived early"), out);
+        assertTrue(out.contains(ExtractiveReducer.GAP) || reduction.sentencesKept() < reduction.sentences());
+    }
+
+    @Test
+    void codeBlocksAreKeptOrDroppedWhole() {
+        StringBuilder sb = new StringBuilder("# Restore\n\n");
+        for (int i = 0; i < 60; i++) {
+            sb.append("Restore step ").append(i).append(" copies snapshot ").append(i)
+                    .append(" from the backup bucket to the standby volume.\n\n");
+        }
+        sb.append("```\nrestore --snapshot latest \\\n  --target standby\n```\n");
+        ExtractiveReducer.Reduction reduction = ExtractiveReducer.reduce(sb.toString(), 300);
+
+        String out = reduction.text();
+        assertTrue(reduction.tokens() <= 300);
+        boolean hasStart = out.contains("restore --snapshot latest");
+        assertEquals(hasStart, out.contains("--target standby\n```"), out);
+    }
+
+    @Test
+    void nearDuplicatesShareASimHash() {
+        List<String> a = List.of("restart", "the", "payment", "service", "after", "the", "config", "change",
+                "and", "watch", "the", "error", "rate", "for", "ten", "minutes", "before", "closing", "the", "ticket");
+        List<String> b = List.of("restart", "the", "payment", "service", "after", "the", "config", "change",
+                "and", "watch", "the", "error", "rate", "for", "ten", "minutes", "before", "closing", "the", "incident");
+        List<String> c = List.of("rotate", "credentials", "for", "every", "database", "user", "listed", "in",
+                "the", "vault", "inventory", "and", "record", "the", "new", "expiry", "dates", "in", "the", "sheet");
+
+        assertTrue(Long.bitCount(ExtractiveReducer.simHash(a) ^ ExtractiveReducer.simHash(b)) <= ExtractiveReducer.NEAR_DUPLICATE_MAX_BITS);
+        assertTrue(Long.bitCount(ExtractiveReducer.simHash(a) ^ ExtractiveReducer.simHash(c)) > 2 * ExtractiveReducer.NEAR_DUPLICATE_MAX_BITS);
+    }
+
+    private static int count(String text, String needle) {
+        int n = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+}
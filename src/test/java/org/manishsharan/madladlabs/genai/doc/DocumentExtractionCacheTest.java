@@ -0,0 +1,66 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentExtractionCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private DocumentExtractionCache newCache() throws Exception {
+        return new DocumentExtractionCache(new SqliteLruCache(dir.resolve("docs.db"), "document_extraction", 1024 * 1024));
+    }
+
+    @Test
+    void roundTripsCompressedExtractions() throws Exception {
+        DocumentExtractionCache cache = newCache();
+        String text = "Quarterly report. ".repeat(2000);
+        DocumentExtractor.DocumentExtraction extraction =
+                new DocumentExtractor.DocumentExtraction("pdf", "Q3", "2026-10-01T00:00:00Z", text);
+
+        cache.put("k", extraction);
+
+        assertEquals(extraction, cache.get("k"));
+        assertTrue(cache.stats().bytes() < text.length() / 10, "stored bytes: " + cache.stats().bytes());
+        assertNull(cache.get("other"));
+    }
+
+    @Test
+    void keyFollowsContentNotPath() throws Exception {
+        Path a = Files.writeString(dir.resolve("a.md"), "same bytes");
+        Path b = Files.writeString(Files.createDirectories(dir.resolve("other")).resolve("b.md"), "same bytes");
+        Path c = Files.writeString(dir.resolve("c.md"), "different bytes");
+
+        assertEquals(DocumentExtractionCache.keyFor(a), DocumentExtractionCache.keyFor(b));
+        assertNotEquals(DocumentExtractionCache.keyFor(a), DocumentExtractionCache.keyFor(c));
+    }
+
+    @Test
+    void serviceParsesUnchangedDocumentsOnce() throws Exception {
+        Path doc = Files.writeString(dir.resolve("guide.md"), "# Guide\n\nCached text.");
+        AtomicInteger parses = new AtomicInteger();
+        try (DocumentExtractionService service = new DocumentExtractionService(1, Duration.ofSeconds(30), newCache())) {
+            DocumentExtractionService.Extraction counting = input -> {
+                parses.incrementAndGet();
+                return DocumentExtractor.extract(doc, input);
+            };
+            DocumentExtractor.DocumentExtraction first = service.extract(doc, counting);
+            DocumentExtractor.DocumentExtraction second = service.extract(doc, counting);
+            assertEquals(first, second);
+            assertEquals(1, parses.get());
+
+            Files.writeString(doc, "# Guide\n\nEdited text.");
+            assertTrue(service.extract(doc, counting).extractedText().contains("Edited text."));
+            assertEquals(2, parses.get());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentExtractionServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void extractsOnThePool() throws Exception {
+        Path doc = Files.writeString(dir.resolve("notes.md"), "# Release notes\n\nPooled extraction works.");
+        try (DocumentExtractionService service = new DocumentExtractionService(2, Duration.ofSeconds(30))) {
+            DocumentExtractor.DocumentExtraction first = service.extract(doc);
+            DocumentExtractor.DocumentExtraction second = service.extract(doc);
+
+            assertEquals("md", first.docType());
+            assertTrue(first.extractedText().contains("Pooled extraction works."));
+            assertEquals(first.extractedText(), second.extractedText());
+        }
+    }
+
+    @Test
+    void timeoutReleasesCallerAndWorker() throws Exception {
+        Path doc = Files.writeString(dir.resolve("slow.pdf"), "%PDF-1.4");
+        Path ok = Files.writeString(dir.resolve("ok.txt"), "plain text");
+        // load the Tika config up front so the deadline only covers parsing
+        DocumentExtractor.extract(ok);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (DocumentExtractionService service = new DocumentExtractionService(1, Duration.ofSeconds(1))) {
+            long start = System.nanoTime();
+            assertThrows(DocumentExtractionService.DocumentExtractionTimeoutException.class,
+                    () -> service.extract(doc, input -> {
+                        try {
+                            Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                        }
+                        return null;
+                    }));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS), "worker was not interrupted");
+
+            // the single worker is free again
+            assertTrue(service.extract(ok).extractedText().contains("plain text"));
+        }
+    }
+
+    @Test
+    void timeoutClosesTheDocumentStream() throws Exception {
+        Path doc = Files.writeString(dir.resolve("stuck.pdf"), "%PDF-1.4");
+        CountDownLatch readFailed = new CountDownLatch(1);
+        try (DocumentExtractionService service = new DocumentExtractionService(1, Duration.ofSeconds(1))) {
+            assertThrows(DocumentExtractionService.DocumentExtractionTimeoutException.class,
+                    () -> service.extract(doc, input -> {
+                        // a parser spinning without checking the interrupt flag, re-reading its input
+                        while (true) {
+                            try {
+                                input.read();
+                            } catch (IOException e) {
+                                readFailed.countDown();
+                                throw e;
+                            }
+                            Thread.onSpinWait();
+                        }
+                    }));
+            assertTrue(readFailed.await(5, TimeUnit.SECONDS), "stream was not closed");
+        }
+    }
+
+    @Test
+    void parserFailuresPropagate() throws Exception {
+        Path doc = Files.writeString(dir.resolve("bad.pdf"), "%PDF-1.4");
+        try (DocumentExtractionService service = new DocumentExtractionService(1, Duration.ofSeconds(5))) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> service.extract(doc, input -> {
+                        throw new IllegalStateException("corrupt xref");
+                    }));
+            assertEquals("corrupt xref", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.chunking.Chunk;
+import org.manishsharan.madladlabs.genai.chunking.DocumentChunker;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedDocumentExtractorTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(3);
+
+    @TempDir
+    Path dir;
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdownNow();
+    }
+
+    private Path pdf(String name, int pages) throws Exception {
+        Path path = dir.resolve(name);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Marker for page " + i);
+                    content.endText();
+                }
+            }
+            document.getDocumentInformation().setTitle("Field Manual");
+            document.save(path.toFile());
+        }
+        return path;
+    }
+
+    @Test
+    void splitsLargePdfIntoOrderedSections() throws Exception {
+        Path path = pdf("manual.pdf", 23);
+
+        DocumentExtractor.DocumentExtraction extraction = PagedDocumentExtractor.extract(path, POOL, 5, 4);
+
+        assertNotNull(extraction);
+        assertEquals("pdf", extraction.docType());
+        assertEquals("Field Manual", extraction.title());
+        List<DocumentExtractor.DocumentSection> sections = extraction.sections();
+        assertEquals(6, sections.size());
+        assertEquals("Pages 1-4", sections.get(0).label());
+        assertEquals(21, sections.get(5).firstPage());
+        assertEquals(23, sections.get(5).lastPage());
+        for (DocumentExtractor.DocumentSection section : sections) {
+            String text = extraction.sectionText(section);
+            for (int page = section.firstPage(); page <= section.lastPage(); page++) {
+                assertTrue(text.contains("Marker for page " + page + "\n") || text.endsWith("Marker for page " + page),
+                        section.label() + ": " + text);
+            }
+        }
+        String all = extraction.extractedText();
+        assertTrue(all.indexOf("Marker for page 9\n") < all.indexOf("Marker for page 10\n"));
+        assertTrue(all.contains("\f## Pages 5-8\n\n"));
+    }
+
+    @Test
+    void chunkerSplitsAtSectionBoundaries() throws Exception {
+        DocumentExtractor.DocumentExtraction extraction =
+                PagedDocumentExtractor.extract(pdf("manual.pdf", 12), POOL, 5, 4);
+
+        List<Chunk> chunks = DocumentChunker.split(extraction.extractedText(), 64);
+
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.get(1).text().startsWith("## Pages 5-8"), chunks.get(1).text());
+    }
+
+    @Test
+    void smallPdfsAreReadWholeFromTheDocumentLoadedToCountPages() throws Exception {
+        DocumentExtractor.DocumentExtraction extraction = PagedDocumentExtractor.extract(pdf("short.pdf", 3), POOL, 5, 4);
+
+        assertNotNull(extraction);
+        assertEquals("pdf", extraction.docType());
+        assertEquals("Field Manual", extraction.title());
+        assertTrue(extraction.sections().isEmpty());
+        assertTrue(extraction.extractedText().contains("Marker for page 1"));
+        assertTrue(extraction.extractedText().contains("Marker for page 3"));
+    }
+
+    @Test
+    void otherFormatsAndUnreadablePdfsGoThroughTika() throws Exception {
+        assertNull(PagedDocumentExtractor.extract(Files.writeString(dir.resolve("notes.md"), "# Notes"), POOL, 5, 4));
+        assertNull(PagedDocumentExtractor.extract(Files.writeString(dir.resolve("broken.pdf"), "not a pdf"), POOL, 5, 4));
+    }
+
+    @Test
+    void splitsSlideDecksBySlideRange() throws Exception {
+        Path path = dir.resolve("deck.pptx");
+        try (XMLSlideShow deck = new XMLSlideShow(); OutputStream out = Files.newOutputStream(path)) {
+            for (int i = 1; i <= 7; i++) {
+                XSLFTextBox box = deck.createSlide().createTextBox();
+                box.setText("Slide body " + i);
+            }
+            deck.write(out);
+        }
+
+        DocumentExtractor.DocumentExtraction extraction = PagedDocumentExtractor.extract(path, POOL, 5, 3);
+
+        assertNotNull(extraction);
+        assertEquals(List.of("Slides 1-3", "Slides 4-6", "Slides 7-7"),
+                extraction.sections().stream().map(DocumentExtractor.DocumentSection::label).toList());
+        assertTrue(extraction.sectionText(extraction.sections().get(1)).contains("Slide body 5"));
+        assertFalse(extraction.sectionText(extraction.sections().get(1)).contains("Slide body 7"));
+    }
+
+    @Test
+    void sectionsSurviveTheExtractionCache() throws Exception {
+        DocumentExtractor.DocumentExtraction extraction =
+                PagedDocumentExtractor.extract(pdf("manual.pdf", 8), POOL, 5, 4);
+        DocumentExtractionCache cache = new DocumentExtractionCache(
+                new SqliteLruCache(dir.resolve("docs.db"), "document_extraction", 1024 * 1024));
+
+        cache.put("k", extraction);
+
+        assertEquals(extraction, cache.get("k"));
+    }
+}
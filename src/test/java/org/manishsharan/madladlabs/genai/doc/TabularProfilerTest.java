@@ -0,0 +1,93 @@
+package org.manishsharan.madladlabs.genai.doc;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TabularProfilerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void profilesCsvInsteadOfDumpingIt() throws Exception {
+        StringBuilder csv = new StringBuilder("id;city;amount;active;signed_up\n");
+        for (int i = 1; i <= 50_000; i++) {
+            csv.append(i).append(';')
+                    .append(i % 7 == 0 ? "" : "City" + (i % 5)).append(';')
+                    .append(i % 100).append(".25;")
+                    .append(i % 2 == 0 ? "true" : "false").append(';')
+                    .append("2026-01-").append(String.format("%02d", i % 28 + 1)).append('\n');
+        }
+        Path path = Files.writeString(dir.resolve("customers.csv"), csv);
+
+        DocumentExtractor.DocumentExtraction extraction = DocumentExtractor.extract(path);
+        String text = extraction.extractedText();
+
+        assertEquals("csv", extraction.docType());
+        assertTrue(text.length() < 6_000, "profile length " + text.length());
+        assertTrue(text.contains("Rows: 50000 (excluding header). Columns: 5."), text);
+        assertTrue(text.contains("| 1 | id | integer | 0% | >1000 | 1 .. 50000 |"), text);
+        assertTrue(text.contains("| 2 | city | text | 14% | 5 |"), text);
+        assertTrue(text.contains("| 3 | amount | decimal | 0% | 100 | 0.25 .. 99.25 |"), text);
+        assertTrue(text.contains("| 4 | active | boolean |"), text);
+        assertTrue(text.contains("| 5 | signed_up | date |"), text);
+        assertTrue(text.contains("Sample rows (20 of 50000)"), text);
+        assertEquals(text, DocumentExtractor.extract(path).extractedText(), "sample must be deterministic");
+    }
+
+    @Test
+    void csvWithoutHeaderGetsPositionalColumns() throws Exception {
+        Path path = Files.writeString(dir.resolve("points.csv"), "1,2\n3,\"4,5\"\n");
+
+        String text = DocumentExtractor.extract(path).extractedText();
+
+        assertTrue(text.contains("Rows: 2. Columns: 2."), text);
+        assertTrue(text.contains("| 2 | column 2 | text (50%) |"), text);
+    }
+
+    @Test
+    void profilesEveryWorkbookSheet() throws Exception {
+        Path path = dir.resolve("ledger.xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100); OutputStream out = Files.newOutputStream(path)) {
+            Sheet orders = workbook.createSheet("Orders");
+            Row header = orders.createRow(0);
+            header.createCell(0).setCellValue("order");
+            header.createCell(1).setCellValue("total");
+            for (int i = 1; i <= 5_000; i++) {
+                Row row = orders.createRow(i);
+                row.createCell(0).setCellValue("ORD-" + i);
+                row.createCell(1).setCellValue(i * 2);
+            }
+            Sheet notes = workbook.createSheet("Notes");
+            notes.createRow(0).createCell(0).setCellValue("note");
+            notes.createRow(1).createCell(0).setCellValue("Quarter closed early");
+            workbook.write(out);
+            workbook.dispose();
+        }
+
+        DocumentExtractor.DocumentExtraction extraction = DocumentExtractor.extract(path);
+        String text = extraction.extractedText();
+
+        assertEquals("xlsx", extraction.docType());
+        assertTrue(text.contains("## Sheet: Orders"), text);
+        assertTrue(text.contains("Rows: 5000 (excluding header). Columns: 2."), text);
+        assertTrue(text.contains("| 2 | total | integer | 0% | >1000 | 2 .. 10000 |"), text);
+        assertTrue(text.contains("## Sheet: Notes"), text);
+        assertTrue(text.contains("Quarter closed early"), text);
+    }
+
+    @Test
+    void sniffsTheSeparatorOutsideQuotes() {
+        assertEquals(';', TabularProfiler.sniffSeparator("\"a,b,c\";d;e\n1,2,3,4".toCharArray(), 17));
+        assertEquals('\t', TabularProfiler.sniffSeparator("a\tb\tc".toCharArray(), 5));
+    }
+}
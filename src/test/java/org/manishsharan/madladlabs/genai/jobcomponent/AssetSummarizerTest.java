@@ -0,0 +1,117 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.manishsharan.madladlabs.genai.cache.SqliteLruCache;
+import org.manishsharan.madladlabs.genai.services.LlmCompletion;
+import org.manishsharan.madladlabs.genai.test.StubSummarizer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssetSummarizerTest {
+
+    /** Answers every asset prompt with a short summary, or fails when {@code fail} is set. */
+    private static class FakeSummarizer extends StubSummarizer {
+        int calls;
+        boolean fail;
+
+        FakeSummarizer() {
+            super(4000, 64000);
+        }
+
+        @Override public boolean supportsCompleteJson() { return true; }
+
+        @Override
+        public LlmCompletion completeJson(String systemPrompt, String userPrompt, String relativePath, String pipeline) {
+            calls++;
+            if (fail) {
+                throw new IllegalStateException("provider down");
+            }
+            assertEquals("asset-summary", pipeline);
+            assertTrue(userPrompt.contains("=== ASSET: " + relativePath + " ==="));
+            return new LlmCompletion("```json\n{\"summary\": \"Summary of " + relativePath + "\"}\n```", usage(100, 20), "fake");
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private static final AssetSummarizer.Part VENDOR =
+            new AssetSummarizer.Part("static/vendor-bundle.js", true, "/* vendor */ var x = 1;", 50_000);
+    private static final AssetSummarizer.Part SITE_CSS =
+            new AssetSummarizer.Part("static/site.css", true, "body { margin: 0 }", 3_000);
+    private static final AssetSummarizer.Part SMALL =
+            new AssetSummarizer.Part("static/small.js", true, "init();", 900);
+    private static final AssetSummarizer.Part PARTIAL =
+            new AssetSummarizer.Part("templates/header.html", false, "<header></header>", 20_000);
+
+    private AssetSummaryCache cache() throws Exception {
+        return new AssetSummaryCache(new SqliteLruCache(dir.resolve("assets.db"), "asset_summary", 1024 * 1024));
+    }
+
+    @Test
+    void largestAssetsAreSummarizedOnceUntilTheBundleFits() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer();
+        AssetSummarizer assets = new AssetSummarizer(fake, cache(), "job:fake");
+        List<AssetSummarizer.Part> parts = List.of(PARTIAL, VENDOR, SITE_CSS, SMALL);
+
+        String inlined = assets.render("=== TEMPLATE: home.html ===\n", 10, parts, 80_000);
+        assertEquals(0, fake.calls);
+        assertTrue(inlined.contains("=== ASSET: static/vendor-bundle.js ===\n/* vendor */ var x = 1;"));
+
+        String home = assets.render("=== TEMPLATE: home.html ===\n", 10, parts, 24_000);
+        assertEquals(1, fake.calls);
+        assertTrue(home.startsWith("=== TEMPLATE: home.html ===\n\n=== PARTIAL: templates/header.html ==="));
+        assertTrue(home.contains("=== ASSET SUMMARY: static/vendor-bundle.js (source omitted, ~50000 tokens) ===\n"
+                + "Summary of static/vendor-bundle.js\n"));
+        assertFalse(home.contains("var x = 1"));
+        assertTrue(home.contains("=== ASSET: static/site.css ==="));
+
+        // A tighter budget also summarizes the stylesheet, but never partials or assets below the minimum.
+        String about = assets.render("=== TEMPLATE: about.html ===\n", 10, parts, 1_024);
+        assertEquals(2, fake.calls);
+        assertTrue(about.contains("=== ASSET SUMMARY: static/site.css"));
+        assertTrue(about.contains("=== PARTIAL: templates/header.html ===\n<header></header>"));
+        assertTrue(about.contains("=== ASSET: static/small.js ===\ninit();"));
+
+        // Another run (or component) with the same vendor bundle under a different path reuses the cached summary.
+        AssetSummarizer nextRun = new AssetSummarizer(fake, cache(), "job:fake");
+        String copy = nextRun.render("=== TEMPLATE: other.html ===\n", 10,
+                List.of(new AssetSummarizer.Part("vendor/copy.js", true, VENDOR.content(), VENDOR.tokens())), 1_024);
+        assertEquals(2, fake.calls);
+        assertTrue(copy.contains("Summary of static/vendor-bundle.js"));
+    }
+
+    @Test
+    void failedSummariesFallBackToTheSourceWithoutRetrying() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer();
+        fake.fail = true;
+        AssetSummarizer assets = new AssetSummarizer(fake, new AssetSummaryCache(null), "job:fake");
+
+        String first = assets.render("T\n", 10, List.of(VENDOR), 1_024);
+        String second = assets.render("T\n", 10, List.of(VENDOR), 1_024);
+        assertEquals(1, fake.calls);
+        assertEquals(first, second);
+        assertTrue(first.contains("=== ASSET: static/vendor-bundle.js ===\n/* vendor */ var x = 1;"));
+
+        assertNull(AssetSummarizer.parseSummary("plain text"));
+        assertNull(AssetSummarizer.parseSummary("{\"summary\": \"\"}"));
+        assertEquals("Binds #nav", AssetSummarizer.parseSummary(
+                "It calls {init} on load. {\"note\": 1} Answer: {\"summary\": \"Binds #nav\"} {done}"));
+    }
+
+    @Test
+    void reportsTheUsageOfEverySummaryCall() throws Exception {
+        FakeSummarizer fake = new FakeSummarizer();
+        List<String> billed = new ArrayList<>();
+        AssetSummarizer assets = new AssetSummarizer(fake, new AssetSummaryCache(null), "job:fake",
+                (relPath, usage) -> billed.add(relPath + "=" + usage.getInputTokens()));
+
+        assets.render("T\n", 10, List.of(VENDOR, SITE_CSS), 1_024);
+        assertEquals(List.of("static/vendor-bundle.js=100", "static/site.css=100"), billed);
+    }
+}
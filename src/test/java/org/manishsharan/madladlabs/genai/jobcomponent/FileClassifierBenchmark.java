@@ -0,0 +1,123 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifying a million synthetic file names with the default rules: the previous skip check plus four
+ * extension lookups (each allocating a lower-case extension), against one {@link FileClassifier} pass.
+ * Names mix code, templates, config, documents, skipped binaries, minified assets and unknown files.
+ *
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main FileClassifierBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class FileClassifierBenchmark {
+
+    private static final int PATHS = 1_000_000;
+    private static final String[] EXTENSIONS = {
+            ".java", ".py", ".html", ".jsp", ".yml", ".properties", ".json", ".md", ".pdf", ".csv",
+            ".class", ".jar", ".js", ".css", ".min.js", ".ts", ".png", ".txt", ".Java", ".XML", ""
+    };
+
+    private String[] names;
+    private AIComponentProcessor.IngestionRules rules;
+
+    @Setup
+    public void setUp() {
+        rules = AIComponentProcessor.IngestionRules.fromConfig(null);
+        SplittableRandom random = new SplittableRandom(17);
+        names = new String[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            names[i] = switch (random.nextInt(40)) {
+                case 0 -> "pom.xml";
+                case 1 -> ".gitignore";
+                case 2 -> "package.json";
+                default -> "File" + random.nextInt(100_000) + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            };
+        }
+    }
+
+    @Benchmark
+    public int legacy() {
+        int interesting = 0;
+        for (String name : names) {
+            if (!legacySkip(name) && (legacyCode(name) || legacyTemplate(name) || legacyConfig(name) || legacyDocument(name))) {
+                interesting++;
+            }
+        }
+        return interesting;
+    }
+
+    @Benchmark
+    public int classifier() {
+        FileClassifier classifier = rules.classifier;
+        int interesting = 0;
+        for (String name : names) {
+            FileClassifier.Decision decision = classifier.classify(name, null);
+            if (decision != FileClassifier.Decision.SKIP && decision != FileClassifier.Decision.IGNORE) {
+                interesting++;
+            }
+        }
+        return interesting;
+    }
+
+    /** The removed AIComponentProcessor helpers, on the file name instead of a Path. */
+    private boolean legacyCode(String name) {
+        return rules.codeExtensions.contains(extensionOf(name));
+    }
+
+    private boolean legacyTemplate(String name) {
+        return rules.templateExtensions.contains(extensionOf(name));
+    }
+
+    private boolean legacyConfig(String name) {
+        if (rules.configFileNames.contains(name)) {
+            return true;
+        }
+        if (name.startsWith(".env.")) {
+            return true;
+        }
+        return rules.configExtensions.contains(extensionOf(name));
+    }
+
+    private boolean legacyDocument(String name) {
+        return rules.documentExtensions.contains(extensionOf(name));
+    }
+
+    private boolean legacySkip(String name) {
+        if (rules.skipHidden && name.startsWith(".")) {
+            return true;
+        }
+        if (rules.skipFileNames.contains(name)) {
+            return true;
+        }
+        if (rules.skipMinified && (name.endsWith(".min.js") || name.endsWith(".min.css"))) {
+            return true;
+        }
+        return rules.skipFileExtensions.contains(extensionOf(name));
+    }
+
+    private static String extensionOf(String name) {
+        int idx = name.lastIndexOf('.');
+        if (idx < 0) {
+            return "";
+        }
+        return name.substring(idx).toLowerCase();
+    }
+}
@@ -0,0 +1,64 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileClassifierTest {
+
+    private static FileClassifier defaults() {
+        return AIComponentProcessor.IngestionRules.fromConfig(null).classifier;
+    }
+
+    @Test
+    void routesByTheLastExtensionCaseInsensitively() {
+        FileClassifier classifier = defaults();
+        assertEquals(FileClassifier.Decision.CODE, classifier.classify("Service.JAVA", null));
+        assertEquals(FileClassifier.Decision.TEMPLATE, classifier.classify("index.html", null));
+        assertEquals(FileClassifier.Decision.TEMPLATE, classifier.classify("page.jinja2", null));
+        assertEquals(FileClassifier.Decision.CONFIG, classifier.classify("application.yml", null));
+        assertEquals(FileClassifier.Decision.CONFIG, classifier.classify("webpack.config.js", null));
+        assertEquals(FileClassifier.Decision.CONFIG, classifier.classify("Dockerfile.properties", null));
+        assertEquals(FileClassifier.Decision.DOCUMENT, classifier.classify("notes.md", null));
+        assertEquals(FileClassifier.Decision.DOCUMENT, classifier.classify("archive.tar.pdf", null));
+        assertEquals(FileClassifier.Decision.IGNORE, classifier.classify("app.js", null));
+        assertEquals(FileClassifier.Decision.IGNORE, classifier.classify("Makefile", null));
+        assertEquals(FileClassifier.Decision.IGNORE, classifier.classify("java", null));
+        assertEquals(FileClassifier.Decision.IGNORE, classifier.classify("x.ava", null));
+        assertEquals(FileClassifier.Decision.IGNORE, classifier.classify("x.javax", null));
+    }
+
+    @Test
+    void skipRulesComeFirst() {
+        FileClassifier classifier = defaults();
+        assertEquals(FileClassifier.Decision.SKIP, classifier.classify(".hidden.java", null));
+        assertEquals(FileClassifier.Decision.SKIP, classifier.classify("vendor.min.js", null));
+        assertEquals(FileClassifier.Decision.SKIP, classifier.classify("Main.class", null));
+        assertEquals(FileClassifier.Decision.SKIP, classifier.classify("libfoo.SO", null));
+        assertTrue(classifier.skipDirectory("node_modules"));
+        assertTrue(classifier.skipDirectory(".git"));
+        assertFalse(classifier.skipDirectory(".github"));
+        assertFalse(classifier.skipDirectory("src"));
+        assertTrue((classifier.extensionFlags("app.mjs") & FileClassifier.STATIC_ASSET) != 0);
+    }
+
+    @Test
+    void globsMatchTheRelativePath() {
+        FileClassifier classifier = AIComponentProcessor.IngestionRules.fromConfig(null)
+                .withGlobs(List.of("src/**", "docs/*.md"), List.of("**/generated/**"))
+                .classifier;
+        assertEquals(FileClassifier.Decision.CODE,
+                classifier.classify("A.java", Path.of("src/main/java/A.java")));
+        assertEquals(FileClassifier.Decision.SKIP,
+                classifier.classify("B.java", Path.of("src/generated/B.java")));
+        assertEquals(FileClassifier.Decision.IGNORE,
+                classifier.classify("C.java", Path.of("scripts/C.java")));
+        assertEquals(FileClassifier.Decision.DOCUMENT,
+                classifier.classify("intro.md", Path.of("docs/intro.md")));
+        assertEquals(FileClassifier.Decision.IGNORE,
+                classifier.classify("deep.md", Path.of("docs/a/deep.md")));
+    }
+}
@@ -0,0 +1,241 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilePipelineTest {
+
+    @TempDir
+    Path repo;
+
+    private void createFiles(int count) throws Exception {
+        Files.createDirectories(repo.resolve("src"));
+        Files.createDirectories(repo.resolve("skipme"));
+        for (int i = 0; i < count; i++) {
+            Files.writeString(repo.resolve("src").resolve("F" + i + ".java"), "class F" + i + " {}");
+        }
+        Files.writeString(repo.resolve("skipme").resolve("Ignored.java"), "class Ignored {}");
+    }
+
+    @Test
+    void deliversEveryFileOnceAndSkipsDirectories() throws Exception {
+        createFiles(200);
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+        AtomicInteger listenerConcurrency = new AtomicInteger();
+        AtomicInteger maxListenerConcurrency = new AtomicInteger();
+
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.FIXED_THREAD_POOL, "pipeline-test", 4, 4)) {
+            FilePipeline<String> pipeline = new FilePipeline<>(
+                    new PipelineLimits(8, 4, 4, 2),
+                    executor,
+                    4,
+                    path -> path.getFileName().toString(),
+                    name -> name,
+                    name -> name.toUpperCase(),
+                    name -> {
+                        int now = listenerConcurrency.incrementAndGet();
+                        maxListenerConcurrency.accumulateAndGet(now, Math::max);
+                        assertTrue(delivered.add(name), "delivered twice: " + name);
+                        listenerConcurrency.decrementAndGet();
+                    },
+                    (stage, item, ex) -> fail(stage + " failed for " + item + ": " + ex));
+
+            FilePipeline.Stats stats = pipeline.run(repo, dir -> dir.getFileName().toString().equals("skipme"));
+
+            assertEquals(200, delivered.size());
+            assertTrue(delivered.contains("F7.JAVA"));
+            assertFalse(delivered.contains("IGNORED.JAVA"));
+            assertEquals(200, stats.walked());
+            assertEquals(200, stats.delivered());
+            assertEquals(1, maxListenerConcurrency.get(), "listener must be single threaded");
+        }
+    }
+
+    @Test
+    void parallelWalkDeliversEveryFileOnce() throws Exception {
+        createFiles(300);
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.FIXED_THREAD_POOL, "pipeline-test", 4, 4)) {
+            FilePipeline<String> pipeline = new FilePipeline<>(
+                    new PipelineLimits(4, 4, 4, 2, 4),
+                    executor,
+                    4,
+                    path -> path.getFileName().toString(),
+                    name -> name,
+                    name -> name,
+                    name -> assertTrue(delivered.add(name), "delivered twice: " + name),
+                    (stage, item, ex) -> fail(stage + " failed for " + item + ": " + ex));
+
+            FilePipeline.Stats stats = pipeline.run(repo, dir -> dir.getFileName().toString().equals("skipme"));
+
+            assertEquals(300, delivered.size());
+            assertFalse(delivered.contains("Ignored.java"));
+            assertEquals(300, stats.walked());
+        }
+    }
+
+    @Test
+    void fileListRunAppliesWalkRules() throws Exception {
+        createFiles(10);
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.FIXED_THREAD_POOL, "pipeline-test", 2, 2)) {
+            FilePipeline<String> pipeline = new FilePipeline<>(
+                    new PipelineLimits(4, 4, 4, 2),
+                    executor,
+                    2,
+                    path -> path.getFileName().toString(),
+                    name -> name,
+                    name -> name,
+                    delivered::add,
+                    (stage, item, ex) -> fail(stage + " failed for " + item + ": " + ex));
+
+            FilePipeline.Stats stats = pipeline.run(repo,
+                    List.of(repo.resolve("src/F3.java"), repo.resolve("src/F8.java"), repo.resolve("src/Missing.java"),
+                            repo.resolve("src"), repo.resolve("skipme/Ignored.java")),
+                    dir -> dir.getFileName().toString().equals("skipme"));
+
+            assertEquals(Set.of("F3.java", "F8.java"), delivered);
+            assertEquals(2, stats.walked());
+        }
+    }
+
+    @Test
+    void walkStallsWhileSummarizerIsSaturated() throws Exception {
+        createFiles(500);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger classifiedCount = new AtomicInteger();
+        AtomicReference<FilePipeline.Stats> result = new AtomicReference<>();
+        PipelineLimits limits = new PipelineLimits(4, 4, 4, 1);
+        int permits = 2;
+
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.FIXED_THREAD_POOL, "pipeline-test", permits, permits)) {
+            FilePipeline<Path> pipeline = new FilePipeline<>(
+                    limits,
+                    executor,
+                    permits,
+                    path -> {
+                        classifiedCount.incrementAndGet();
+                        return path;
+                    },
+                    path -> path,
+                    path -> {
+                        release.await();
+                        return path;
+                    },
+                    path -> {},
+                    (stage, item, ex) -> fail(stage + " failed for " + item + ": " + ex));
+
+            Thread runner = Thread.ofPlatform().start(() -> {
+                try {
+                    result.set(pipeline.run(repo.resolve("src"), dir -> false));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            Thread.sleep(300);
+            // walk queue + classifier + classified queue + reader + read queue + dispatcher + in-flight
+            int bound = limits.walkQueueDepth() + 1 + limits.readQueueDepth() + limits.readerThreads()
+                    + limits.readQueueDepth() + 1 + permits + 1;
+            assertTrue(pipeline.stats().walked() <= bound,
+                    "walk did not stall: walked=" + pipeline.stats().walked() + " bound=" + bound);
+            assertTrue(classifiedCount.get() < 500);
+
+            release.countDown();
+            runner.join(TimeUnit.SECONDS.toMillis(10));
+            assertNotNull(result.get());
+            assertEquals(500, result.get().delivered());
+        }
+    }
+
+    @Test
+    void cancelledRunReleasesSummarizerThreadsBlockedOnResults() throws Exception {
+        createFiles(50);
+        CountDownLatch release = new CountDownLatch(1);
+        int permits = 4;
+        SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.FIXED_THREAD_POOL, "pipeline-cancel-test", permits, permits);
+        FilePipeline<Path> pipeline = new FilePipeline<>(
+                new PipelineLimits(4, 4, 1, 1),
+                executor,
+                permits,
+                path -> path,
+                path -> path,
+                path -> path,
+                path -> release.await(),
+                (stage, item, ex) -> {});
+
+        Thread runner = Thread.ofPlatform().start(() -> {
+            try {
+                pipeline.run(repo.resolve("src"), dir -> false);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        // One result with the listener, one in the result queue, the rest parked on a full queue.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pipeline.stats().summarized() < 2 + permits && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        runner.interrupt();
+        runner.join(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(pipeline.isCancelled());
+
+        executor.close();
+        try {
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "summarizer threads still blocked");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void stageFailuresAreReportedPerFile() throws Exception {
+        createFiles(20);
+        List<String> errors = new CopyOnWriteArrayList<>();
+        AtomicInteger delivered = new AtomicInteger();
+
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.VIRTUAL_THREADS, "pipeline-failure-test", 1, 4)) {
+            FilePipeline<String> pipeline = new FilePipeline<>(
+                    PipelineLimits.DEFAULT,
+                    executor,
+                    4,
+                    path -> path.getFileName().toString(),
+                    name -> name,
+                    name -> {
+                        if (name.equals("F3.java")) {
+                            throw new IllegalStateException("boom");
+                        }
+                        return name;
+                    },
+                    name -> delivered.incrementAndGet(),
+                    (stage, item, ex) -> errors.add(stage + ":" + item));
+
+            FilePipeline.Stats stats = pipeline.run(repo.resolve("src"), dir -> false);
+
+            assertEquals(List.of("summarize:F3.java"), errors);
+            assertEquals(19, delivered.get());
+            assertEquals(1, stats.failed());
+        }
+    }
+}
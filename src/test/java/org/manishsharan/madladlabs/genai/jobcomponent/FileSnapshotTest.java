@@ -0,0 +1,84 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSnapshotTest {
+
+    private static final long OLD = 1_600_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private Path write(String relPath, String content) throws Exception {
+        Path file = dir.resolve(relPath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(OLD));
+        return file;
+    }
+
+    private FileSnapshot scan(FileSnapshot previous) throws Exception {
+        return FileSnapshot.scan(dir, d -> d.getFileName().toString().equals("skipme"),
+                f -> f.getFileName().toString().endsWith(".md"), 1, 2, previous, (path, attrs) -> { });
+    }
+
+    @Test
+    void onlyFilesWithChangedMetadataAreHashed() throws Exception {
+        write("docs/a.md", "alpha");
+        write("docs/b.md", "bravo");
+        write("docs/c.md", "charlie");
+        write("docs/touched.md", "same");
+        write("docs/old-name.md", "moved content");
+        write("docs/image.png", "not included");
+        write("skipme/d.md", "skipped");
+        Path snapshotFile = dir.resolve("state/component.snap");
+        FileSnapshot first = scan(null);
+        assertEquals(5, first.hashed());
+        assertEquals(5, first.changesSince(null).changed().size());
+        first.save(snapshotFile);
+
+        write("docs/b.md", "bravo, edited");
+        Files.setLastModifiedTime(write("docs/touched.md", "same"), FileTime.fromMillis(OLD + 60_000));
+        Files.move(dir.resolve("docs/old-name.md"), dir.resolve("docs/new-name.md"));
+        Files.delete(dir.resolve("docs/c.md"));
+        write("docs/e.md", "echo");
+
+        FileSnapshot previous = FileSnapshot.load(snapshotFile);
+        assertNotNull(previous);
+        assertEquals(first.entries(), previous.entries());
+        FileSnapshot second = scan(previous);
+        ChangeSet changes = second.changesSince(previous);
+
+        assertEquals(4, second.hashed(), "b, touched, new-name and e; a is trusted from its metadata");
+        assertEquals(List.of("docs/b.md", "docs/e.md"), changes.changed());
+        assertEquals(List.of(new ChangeSet.Rename("docs/old-name.md", "docs/new-name.md", false)), changes.renamed());
+        assertEquals(List.of("docs/c.md"), changes.deleted());
+    }
+
+    @Test
+    void recentlyModifiedFilesAreRehashed() throws Exception {
+        Path file = dir.resolve("notes.md");
+        Files.writeString(file, "written just now");
+        FileSnapshot first = scan(null);
+        AtomicInteger seen = new AtomicInteger();
+
+        FileSnapshot second = FileSnapshot.scan(dir, d -> false, f -> true, 1, 1, first,
+                (path, attrs) -> seen.incrementAndGet());
+
+        assertEquals(1, second.hashed(), "mtime within the racy window of the previous snapshot");
+        assertEquals(1, seen.get());
+        assertTrue(second.changesSince(first).changed().isEmpty());
+        assertNull(FileSnapshot.load(dir.resolve("missing.snap")));
+        Files.writeString(dir.resolve("garbage.snap"), "not a snapshot");
+        assertNull(FileSnapshot.load(dir.resolve("garbage.snap")));
+    }
+}
@@ -0,0 +1,96 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class GitChangesTest {
+
+    @TempDir
+    Path repo;
+
+    @BeforeEach
+    void initRepository() throws Exception {
+        assumeTrue(git("init", "-q"), "git not available");
+        Files.createDirectories(repo.resolve("app/src"));
+        Files.writeString(repo.resolve("app/src/Keep.java"), "class Keep {}");
+        Files.writeString(repo.resolve("app/src/Edit.java"), "class Edit {}");
+        Files.writeString(repo.resolve("app/src/Old.java"), "class Old { int a; int b; int c; int d; }");
+        Files.writeString(repo.resolve("app/src/Gone.java"), "class Gone {}");
+        Files.writeString(repo.resolve("outside.txt"), "not in the component");
+        Files.writeString(repo.resolve(".gitignore"), "*.log\n");
+        assertTrue(git("add", "-A"));
+        assertTrue(git("commit", "-q", "-m", "initial"));
+    }
+
+    @Test
+    void reportsEditsRenamesDeletesAndUntrackedFilesSinceCommit() throws Exception {
+        Path component = repo.resolve("app");
+        String base = GitChanges.head(component);
+        assertNotNull(base);
+
+        Files.writeString(repo.resolve("app/src/Edit.java"), "class Edit { int x; }");
+        assertTrue(git("mv", "app/src/Old.java", "app/src/New.java"));
+        Files.delete(repo.resolve("app/src/Gone.java"));
+        Files.writeString(repo.resolve("outside.txt"), "changed");
+        assertTrue(git("commit", "-q", "-a", "-m", "second"));
+        Files.writeString(repo.resolve("app/src/Added.java"), "class Added {}");
+        Files.writeString(repo.resolve("app/debug.log"), "ignored");
+
+        ChangeSet changes = GitChanges.since(component, base, List.of());
+
+        assertNotNull(changes);
+        assertEquals(Set.of("src/Edit.java", "src/Added.java"), Set.copyOf(changes.changed()));
+        assertEquals(List.of(new ChangeSet.Rename("src/Old.java", "src/New.java", false)), changes.renamed());
+        assertEquals(List.of("src/Gone.java"), changes.deleted());
+        assertEquals(List.of("src/Added.java"), GitChanges.dirtyPaths(component));
+    }
+
+    @Test
+    void previouslyDirtyPathsAreRecheckedAndUnknownCommitsAreUnusable() throws Exception {
+        String base = GitChanges.head(repo);
+        Files.writeString(repo.resolve("app/src/Scratch.java"), "class Scratch {}");
+
+        ChangeSet changes = GitChanges.since(repo, base,
+                List.of("app/src/Keep.java", "app/src/Scratch.java", "app/src/Deleted.java"));
+
+        assertNotNull(changes);
+        assertEquals(List.of("app/src/Scratch.java", "app/src/Keep.java"), changes.changed());
+        assertEquals(List.of("app/src/Deleted.java"), changes.deleted());
+        assertNull(GitChanges.since(repo, "0123456789abcdef0123456789abcdef01234567", List.of()));
+        assertNull(GitChanges.head(repo.getParent()));
+    }
+
+    @Test
+    void aGitThatNeverExitsTimesOut() {
+        // hash-object --stdin waits for input that never comes.
+        long started = System.nanoTime();
+        IOException e = assertThrows(IOException.class,
+                () -> GitChanges.git(repo, 1, "hash-object", "--stdin"));
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(30));
+    }
+
+    private boolean git(String... args) {
+        List<String> command = new ArrayList<>(List.of("git", "-C", repo.toString(),
+                "-c", "user.name=test", "-c", "user.email=test@example.com", "-c", "commit.gpgsign=false"));
+        command.addAll(List.of(args));
+        try {
+            return new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
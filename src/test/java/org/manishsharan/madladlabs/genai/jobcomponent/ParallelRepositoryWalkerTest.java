@@ -0,0 +1,104 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelRepositoryWalkerTest {
+
+    @TempDir
+    Path repo;
+
+    private static final Predicate<Path> SKIP = dir -> dir.getFileName().toString().equals("node_modules");
+
+    private void createTree() throws IOException {
+        for (int a = 0; a < 6; a++) {
+            for (int b = 0; b < 5; b++) {
+                Path dir = Files.createDirectories(repo.resolve("module" + a).resolve("pkg" + b));
+                for (int f = 0; f < 8; f++) {
+                    Files.writeString(dir.resolve("F" + f + ".java"), "class F" + f + " {}");
+                }
+            }
+        }
+        Path skipped = Files.createDirectories(repo.resolve("module1/node_modules/lib"));
+        Files.writeString(skipped.resolve("index.js"), "");
+        Files.writeString(repo.resolve("README.md"), "# repo");
+    }
+
+    private Set<Path> sequentialWalk() throws IOException {
+        Set<Path> files = new TreeSet<>();
+        Files.walkFileTree(repo, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return SKIP.test(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    @Test
+    void findsTheSameFilesAsTheSequentialWalk() throws Exception {
+        createTree();
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+
+        long emitted = new ParallelRepositoryWalker(4).walk(repo, SKIP, (file, attrs) -> found.add(file));
+
+        assertEquals(30 * 8 + 1, emitted);
+        assertEquals(sequentialWalk(), new TreeSet<>(found));
+    }
+
+    @Test
+    void emitsFilesInTheOrderOfTheSequentialWalk() throws Exception {
+        createTree();
+        List<Path> sequential = new ArrayList<>();
+        FilePipeline.walkFiles(repo, SKIP, 1, (file, attrs) -> sequential.add(file));
+
+        for (int threads : new int[] {2, 4, 8}) {
+            List<Path> parallel = new ArrayList<>();
+            new ParallelRepositoryWalker(threads).walk(repo, SKIP, (file, attrs) -> parallel.add(file));
+            assertEquals(sequential, parallel, threads + " threads");
+        }
+    }
+
+    @Test
+    void skipsSymlinksAndStopsWhenTheSinkDeclines() throws Exception {
+        createTree();
+        try {
+            Files.createSymbolicLink(repo.resolve("linked"), repo.resolve("module0"));
+            Files.createSymbolicLink(repo.resolve("link.md"), repo.resolve("README.md"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Symlinks need privileges on some platforms; the rest of the test still applies.
+        }
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+        new ParallelRepositoryWalker(3).walk(repo, SKIP, (file, attrs) -> found.add(file));
+        assertTrue(found.stream().noneMatch(p -> p.startsWith(repo.resolve("linked"))));
+        assertFalse(found.contains(repo.resolve("link.md")));
+
+        AtomicInteger accepted = new AtomicInteger();
+        long emitted = new ParallelRepositoryWalker(4).walk(repo, SKIP, (file, attrs) -> accepted.incrementAndGet() < 10);
+        assertEquals(9, emitted);
+    }
+}
@@ -0,0 +1,55 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositoryIndexTest {
+
+    @TempDir
+    Path repo;
+
+    @Test
+    void walkedFilesAreServedFromMemory() throws Exception {
+        Path js = Files.createDirectories(repo.resolve("static/js")).resolve("common.js");
+        Files.writeString(js, "console.log('hi');");
+        Files.setLastModifiedTime(js, FileTime.fromMillis(1_700_000_000_000L));
+        RepositoryIndex index = new RepositoryIndex(repo);
+        index.recordFile(js, Files.readAttributes(js, BasicFileAttributes.class));
+
+        Files.delete(js);
+
+        RepositoryIndex.FileInfo info = index.stat(repo.resolve("static/css/../js/common.js"));
+        assertNotNull(info, "served from the walk, not the disk");
+        assertEquals(18, info.size());
+        assertEquals(1_700_000_000_000L, info.lastModifiedMillis());
+        assertTrue(index.stat(repo.resolve("static")).directory());
+        assertEquals(1, index.files());
+        assertEquals(0, index.diskStats());
+    }
+
+    @Test
+    void unwalkedPathsAreReadOnceIncludingMisses() throws Exception {
+        Path css = Files.createDirectories(repo.resolve("dist")).resolve("app.css");
+        Files.writeString(css, "body{}");
+        RepositoryIndex index = new RepositoryIndex(repo);
+
+        assertEquals(6, index.size(css));
+        assertNull(index.stat(repo.resolve("dist/missing.css")));
+        Files.writeString(repo.resolve("dist/missing.css"), "late");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(6, index.size(css));
+            assertNull(index.stat(repo.resolve("dist/missing.css")));
+        }
+
+        assertEquals(2, index.diskStats());
+        assertEquals(200, index.hits());
+        assertEquals(-1, index.size(repo.getParent().resolve("elsewhere.css")));
+    }
+}
@@ -0,0 +1,80 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositoryWatcherTest {
+
+    private record Batch(List<Path> changed, List<Path> deleted, boolean rescan) {}
+
+    @TempDir
+    Path repo;
+
+    @Test
+    void coalescesSavesAndFollowsNewDirectories() throws Exception {
+        Path src = Files.createDirectories(repo.resolve("src"));
+        Files.createDirectories(repo.resolve("skipme"));
+        Path main = Files.writeString(src.resolve("Main.java"), "class Main {}");
+        BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+
+        try (RepositoryWatcher watcher = new RepositoryWatcher(repo,
+                dir -> dir.getFileName().toString().equals("skipme"),
+                file -> file.getFileName().toString().endsWith(".java"),
+                Duration.ofMillis(300),
+                (changed, deleted, rescan) -> batches.add(new Batch(changed, deleted, rescan))).start()) {
+            assertEquals(2, watcher.watchedDirectories(), "root and src; skipme is not watched");
+
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(main, "class Main { int v = " + i + "; }");
+            }
+            Files.writeString(src.resolve("notes.txt"), "not included");
+            Files.writeString(repo.resolve("skipme/Ignored.java"), "class Ignored {}");
+            Batch first = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(first, "no batch after the debounce window");
+            assertEquals(new Batch(List.of(main), List.of(), false), first);
+
+            Files.writeString(main, "class Main { int v = 4; }");
+            Path feature = Files.createDirectories(src.resolve("feature"));
+            Path added = Files.writeString(feature.resolve("Feature.java"), "class Feature {}");
+            Batch second = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(second);
+            assertEquals(List.of(added), second.changed(), "identical re-save of Main.java is dropped");
+            assertEquals(1, watcher.duplicates());
+
+            Files.delete(added);
+            Batch third = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(third);
+            assertEquals(new Batch(List.of(), List.of(added), false), third);
+
+            Files.delete(feature);
+            Batch fourth = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(fourth);
+            assertTrue(fourth.rescan(), "a watched directory disappeared");
+            assertNull(batches.poll(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closeStopsTheWatcherThread() throws Exception {
+        RepositoryWatcher watcher = new RepositoryWatcher(repo, dir -> false, file -> true, Duration.ofMillis(50),
+                (changed, deleted, rescan) -> true).start();
+        watcher.close();
+        assertTrue(watcher.awaitTermination(Duration.ofSeconds(5)), "watcher thread still running after close");
+    }
+
+    @Test
+    void rejectsANonPositiveDebounce() {
+        assertThrows(IllegalArgumentException.class, () -> new RepositoryWatcher(repo, dir -> false, file -> true,
+                Duration.ZERO, (changed, deleted, rescan) -> true));
+    }
+}
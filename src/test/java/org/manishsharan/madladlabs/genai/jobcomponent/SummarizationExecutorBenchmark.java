@@ -0,0 +1,138 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Files per second through the summarization fan-out against a local stub LLM endpoint
+ * that answers every request after a fixed latency.
+ *
+ * Run: java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *        org.manishsharan.madladlabs.genai.jobcomponent.SummarizationExecutorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SummarizationExecutorBenchmark {
+    private static final int FILES = 400;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final byte[] STUB_RESPONSE =
+            "{\"choices\":[{\"message\":{\"content\":\"{}\"}}],\"usage\":{\"prompt_tokens\":1}}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"FIXED_THREAD_POOL", "VIRTUAL_THREADS"})
+    public ExecutionMode mode;
+
+    /** Pool size for FIXED_THREAD_POOL; the processor default is 2. */
+    @Param({"2", "32"})
+    public int concurrency;
+
+    /** Provider permits for VIRTUAL_THREADS. */
+    @Param({"256"})
+    public int providerConcurrency;
+
+    @Param({"50"})
+    public int latencyMillis;
+
+    private HttpServer server;
+    private OkHttpClient client;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, STUB_RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(STUB_RESPONSE);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/chat/completions";
+        client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(providerConcurrency, 1, TimeUnit.MINUTES))
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+        client.connectionPool().evictAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public int summarizeFiles() throws Exception {
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                mode, "stub-" + providerConcurrency, concurrency, providerConcurrency)) {
+            CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < FILES; i++) {
+                final int file = i;
+                completionService.submit(() -> callStub(file));
+            }
+            int bytes = 0;
+            for (int i = 0; i < FILES; i++) {
+                bytes += completionService.take().get();
+            }
+            return bytes;
+        }
+    }
+
+    private int callStub(int file) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create("{\"file\":" + file + "}", JSON))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().bytes().length;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SummarizationExecutorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
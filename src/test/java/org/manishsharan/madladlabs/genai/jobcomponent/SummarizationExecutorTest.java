@@ -0,0 +1,88 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SummarizationExecutorTest {
+
+    @Test
+    void virtualThreadsAreBoundedByProviderPermits() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        int tasks = 100;
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.VIRTUAL_THREADS, "permits-test", 1, 8)) {
+            CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < tasks; i++) {
+                completionService.submit(() -> {
+                    int now = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(now, Math::max);
+                    Thread.sleep(10);
+                    inFlight.decrementAndGet();
+                    return null;
+                });
+            }
+            for (int i = 0; i < tasks; i++) {
+                completionService.take().get();
+            }
+        }
+        assertTrue(maxInFlight.get() <= 8, "in-flight tasks exceeded provider permits: " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "virtual threads should run tasks concurrently");
+    }
+
+    @Test
+    void providerPermitsFollowTheLatestConfiguredConcurrency() throws Exception {
+        SummarizationExecutor.ProviderPermits permits = new SummarizationExecutor.ProviderPermits(4);
+        permits.acquire(3);
+        permits.resize(2);
+        assertEquals(2, permits.size());
+        assertFalse(permits.tryAcquire(), "shrinking below the permits in use blocks new acquires");
+        permits.release(3);
+        assertEquals(2, permits.availablePermits());
+        permits.resize(8);
+        assertEquals(8, permits.availablePermits());
+
+        try (SummarizationExecutor first = SummarizationExecutor.create(ExecutionMode.VIRTUAL_THREADS, "resize-test", 1, 4);
+             SummarizationExecutor second = SummarizationExecutor.create(ExecutionMode.VIRTUAL_THREADS, "resize-test", 1, 16)) {
+            CompletionService<Integer> completionService = new ExecutorCompletionService<>(second);
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            for (int i = 0; i < 64; i++) {
+                completionService.submit(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    return inFlight.decrementAndGet();
+                });
+            }
+            for (int i = 0; i < 64; i++) {
+                completionService.take().get();
+            }
+            assertTrue(maxInFlight.get() > 4, "permits were not resized: " + maxInFlight.get());
+            assertTrue(maxInFlight.get() <= 16, "in-flight tasks exceeded provider permits: " + maxInFlight.get());
+        }
+    }
+
+    @Test
+    void fixedPoolRunsAllTasks() throws Exception {
+        AtomicInteger done = new AtomicInteger();
+        try (SummarizationExecutor executor = SummarizationExecutor.create(
+                ExecutionMode.FIXED_THREAD_POOL, "fixed-test", 2, 8)) {
+            CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < 20; i++) {
+                completionService.submit(() -> {
+                    done.incrementAndGet();
+                    return null;
+                });
+            }
+            for (int i = 0; i < 20; i++) {
+                completionService.take().get();
+            }
+        }
+        assertEquals(20, done.get());
+    }
+}
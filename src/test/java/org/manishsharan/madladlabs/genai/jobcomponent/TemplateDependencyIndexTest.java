@@ -0,0 +1,87 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateDependencyIndexTest {
+
+    private static final long OLD = 1_600_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private Path write(String relPath, String content) throws Exception {
+        Path file = dir.resolve(relPath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(OLD));
+        return file;
+    }
+
+    private TemplateDependencyIndex.Dependency fingerprint(String relPath) throws Exception {
+        Path file = dir.resolve(relPath);
+        return new TemplateDependencyIndex.Dependency(relPath, Files.size(file),
+                Files.getLastModifiedTime(file).toMillis(), FileSnapshot.crc32c(file));
+    }
+
+    @Test
+    void reverseEdgesFollowRecordsRenamesAndRemovalsAcrossSaves() throws Exception {
+        write("static/app.js", "console.log('app');");
+        write("static/site.css", "body {}");
+        Path file = dir.resolve("state/deps.json");
+
+        TemplateDependencyIndex index = TemplateDependencyIndex.load(file);
+        index.record("templates/home.html", List.of(fingerprint("static/app.js"), fingerprint("static/site.css")));
+        index.record("templates/about.html", List.of(fingerprint("static/site.css")));
+        index.record("templates/empty.html", List.of());
+        assertEquals(Set.of("templates/home.html", "templates/about.html"), index.dependents("static/site.css"));
+        assertEquals(Set.of("templates/home.html"), index.dependents("static/app.js"));
+        assertEquals(2, index.templates());
+
+        index.record("templates/home.html", List.of(fingerprint("static/site.css")));
+        assertFalse(index.isDependency("static/app.js"));
+        index.rename("templates/about.html", "pages/about.html");
+        index.save();
+
+        TemplateDependencyIndex reloaded = TemplateDependencyIndex.load(file);
+        assertEquals(Set.of("templates/home.html", "pages/about.html"), reloaded.dependents("static/site.css"));
+        assertEquals(index.dependencies("pages/about.html"), reloaded.dependencies("pages/about.html"));
+        reloaded.remove("templates/home.html");
+        reloaded.remove("pages/about.html");
+        assertFalse(reloaded.isDependency("static/site.css"));
+        assertEquals(0, reloaded.templates());
+    }
+
+    @Test
+    void onlyContentChangesOfRecordedDependenciesCount() throws Exception {
+        write("static/app.js", "console.log('app');");
+        write("static/site.css", "body {}");
+        TemplateDependencyIndex index = TemplateDependencyIndex.load(dir.resolve("state/deps.json"));
+        index.record("home.html", List.of(fingerprint("static/app.js")));
+        index.record("about.html", List.of(fingerprint("static/site.css")));
+        index.record("news.html", List.of(TemplateDependencyIndex.Dependency.missing("static/news.js")));
+
+        assertFalse(index.dependenciesChanged("home.html", dir, new RepositoryIndex(dir)));
+        assertFalse(index.dependenciesChanged("news.html", dir, new RepositoryIndex(dir)));
+        assertFalse(index.dependenciesChanged("unknown.html", dir, new RepositoryIndex(dir)));
+
+        // Touched without a content change; then edited in place to the same size.
+        Files.setLastModifiedTime(dir.resolve("static/app.js"), FileTime.fromMillis(OLD + 60_000));
+        assertFalse(index.dependenciesChanged("home.html", dir, new RepositoryIndex(dir)));
+        Files.writeString(dir.resolve("static/app.js"), "console.log('APP');");
+        assertTrue(index.dependenciesChanged("home.html", dir, new RepositoryIndex(dir)));
+
+        Files.delete(dir.resolve("static/site.css"));
+        assertTrue(index.dependenciesChanged("about.html", dir, new RepositoryIndex(dir)));
+        write("static/news.js", "render();");
+        assertTrue(index.dependenciesChanged("news.html", dir, new RepositoryIndex(dir)));
+    }
+}
@@ -0,0 +1,94 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.manishsharan.madladlabs.genai.jobcomponent.TemplateReferenceScanner.Kind.*;
+
+public class TemplateReferenceScannerTest {
+
+    private static TemplateReferenceScanner.Reference ref(TemplateReferenceScanner.Kind kind, String target) {
+        return new TemplateReferenceScanner.Reference(kind, target);
+    }
+
+    @Test
+    void findsAssetTagsAndImports() {
+        String html = """
+                <!DOCTYPE html>
+                <html><head>
+                  <LINK href="css/app.css" REL="stylesheet">
+                  <link rel="icon" href="favicon.ico">
+                  <link rel=stylesheet href=css/print.css media=print />
+                  <script type="module" src='js/main.js'></script>
+                  <style>
+                    @import url("css/base.css");
+                    @import 'css/theme.css';
+                    a[href="<img src=no.png>"] { color: red }
+                  </style>
+                  <script type="module">
+                    import { render } from "./js/render.js";
+                    import "../shared/polyfills.js";
+                    import lodash from "lodash";
+                    const link = '<link rel="stylesheet" href="not-a-tag.css">';
+                  </script>
+                </head>
+                <body><img alt="logo" src="img/logo.png"><img alt="spacer"></body></html>
+                """;
+
+        assertEquals(List.of(
+                ref(STYLESHEET, "css/app.css"),
+                ref(STYLESHEET, "css/print.css"),
+                ref(SCRIPT, "js/main.js"),
+                ref(CSS_IMPORT, "css/base.css"),
+                ref(CSS_IMPORT, "css/theme.css"),
+                ref(MODULE_IMPORT, "./js/render.js"),
+                ref(MODULE_IMPORT, "../shared/polyfills.js"),
+                ref(IMAGE, "img/logo.png")), TemplateReferenceScanner.scan(html));
+    }
+
+    @Test
+    void findsJspJinjaAndThymeleafIncludes() {
+        String jsp = """
+                <%@ page contentType="text/html" %>
+                <%@ include file="/WEB-INF/jsp/header.jsp" %>
+                <jsp:include page="nav.jsp"/>
+                """;
+        assertEquals(List.of(ref(INCLUDE, "/WEB-INF/jsp/header.jsp"), ref(INCLUDE, "nav.jsp")),
+                TemplateReferenceScanner.scan(jsp));
+
+        String jinja = """
+                {% extends "base.html" %}
+                {%- include 'partials/nav.html' -%}
+                {% from "macros/forms.html" import field %}
+                {% if user %}{{ user.name }}{% endif %}
+                """;
+        assertEquals(List.of(ref(INCLUDE, "base.html"), ref(INCLUDE, "partials/nav.html"), ref(INCLUDE, "macros/forms.html")),
+                TemplateReferenceScanner.scan(jinja));
+
+        String thymeleaf = """
+                <div th:replace="~{fragments/header :: nav}"></div>
+                <footer data-th-insert="fragments/footer.html"></footer>
+                <p th:include="~{:: local}"></p>
+                """;
+        assertEquals(List.of(ref(INCLUDE, "fragments/header.html"), ref(INCLUDE, "fragments/footer.html")),
+                TemplateReferenceScanner.scan(thymeleaf));
+    }
+
+    @Test
+    void includesResolveAgainstTheNearestAncestor(@TempDir Path repo) throws Exception {
+        Path views = Files.createDirectories(repo.resolve("web/WEB-INF/views/orders"));
+        Path page = Files.writeString(views.resolve("list.jsp"), "<%@ include file=\"common/header.jsp\" %>");
+        Path header = Files.writeString(Files.createDirectories(repo.resolve("web/WEB-INF/views/common")).resolve("header.jsp"), "<h1/>");
+        RepositoryIndex index = new RepositoryIndex(repo);
+
+        assertEquals(header, AIComponentProcessor.resolveIncludePath(repo, page, "common/header.jsp", index));
+        assertEquals(header, AIComponentProcessor.resolveIncludePath(repo, page, "/web/WEB-INF/views/common/header.jsp", index));
+        assertNull(AIComponentProcessor.resolveIncludePath(repo, page, "common/footer.jsp", index));
+        assertNull(AIComponentProcessor.resolveIncludePath(repo, page, "../../../../../outside.jsp", index));
+    }
+}
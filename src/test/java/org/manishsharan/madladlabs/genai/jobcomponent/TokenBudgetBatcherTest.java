@@ -0,0 +1,74 @@
+package org.manishsharan.madladlabs.genai.jobcomponent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBudgetBatcherTest {
+
+    private record Item(String key, int tokens, List<Item> members) {
+        Item(String key, int tokens) {
+            this(key, tokens, null);
+        }
+
+        static Item combine(List<Item> members) {
+            return new Item(members.get(0).key(), members.stream().mapToInt(Item::tokens).sum(), members);
+        }
+    }
+
+    private static TokenBudgetBatcher<Item> batcher(int maxTokens, int maxItemTokens, int maxItems) {
+        return new TokenBudgetBatcher<>(Item::key, Item::tokens, maxTokens, maxItemTokens, key -> maxItems, Item::combine);
+    }
+
+    @Test
+    void emitsGroupWhenNextItemWouldOverflowBudget() {
+        TokenBudgetBatcher<Item> batcher = batcher(100, 80, 10);
+        assertTrue(batcher.add(new Item("code:java", 40)).isEmpty());
+        assertTrue(batcher.add(new Item("code:java", 40)).isEmpty());
+
+        List<Item> ready = batcher.add(new Item("code:java", 30));
+        assertEquals(1, ready.size());
+        assertEquals(2, ready.get(0).members().size());
+        assertEquals(80, ready.get(0).tokens());
+
+        List<Item> rest = batcher.flush();
+        assertEquals(1, rest.size());
+        assertNull(rest.get(0).members(), "single leftover is emitted unchanged");
+        assertTrue(batcher.flush().isEmpty());
+    }
+
+    @Test
+    void keysAreBatchedSeparatelyAndLargeOrUnkeyedItemsPassThrough() {
+        TokenBudgetBatcher<Item> batcher = batcher(1000, 50, 10);
+        assertTrue(batcher.add(new Item("code:java", 10)).isEmpty());
+        assertTrue(batcher.add(new Item("config", 10)).isEmpty());
+        assertEquals(1, batcher.add(new Item(null, 10)).size());
+        assertEquals(1, batcher.add(new Item("code:java", 60)).size());
+        assertTrue(batcher.add(new Item("config", 10)).isEmpty());
+        assertTrue(batcher.add(new Item("code:java", 10)).isEmpty());
+
+        List<Item> flushed = batcher.flush();
+        assertEquals(2, flushed.size());
+        for (Item item : flushed) {
+            assertEquals(2, item.members().size());
+            assertTrue(item.members().stream().allMatch(m -> m.key().equals(item.key())));
+        }
+    }
+
+    @Test
+    void groupIsEmittedAtItemLimit() {
+        TokenBudgetBatcher<Item> batcher = batcher(1000, 100, 3);
+        List<Item> ready = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ready.addAll(batcher.add(new Item("config", 5)));
+        }
+        ready.addAll(batcher.flush());
+        assertEquals(3, ready.size());
+        assertEquals(3, ready.get(0).members().size());
+        assertEquals(3, ready.get(1).members().size());
+        assertNull(ready.get(2).members());
+    }
+}
@@ -0,0 +1,115 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LlmHttpExecutorTest {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile int failFirst;
+    private volatile int failureStatus;
+    private final OkHttpClient client = new OkHttpClient();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        RateLimiterRegistry.setRetryPolicy(new RetryPolicy(4, 10, 50));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body;
+            int status;
+            if (calls.incrementAndGet() <= failFirst) {
+                status = failureStatus;
+                body = "{\"error\":\"busy\"}".getBytes(StandardCharsets.UTF_8);
+                if (status == 429) {
+                    exchange.getResponseHeaders().add("Retry-After", "0");
+                }
+            } else {
+                status = 200;
+                body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        RateLimiterRegistry.setRetryPolicy(RetryPolicy.DEFAULT);
+    }
+
+    private Request request() {
+        return new Request.Builder()
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + "/v1")
+                .post(RequestBody.create("{}", MediaType.parse("application/json")))
+                .build();
+    }
+
+    @Test
+    void retriesThrottledResponsesUntilSuccess() throws Exception {
+        failFirst = 2;
+        failureStatus = 429;
+        RateLimiterRegistry.configure("stub-429", 0, 0, 8);
+
+        String body = LlmHttpExecutor.execute(client, request(), "stub-429", 10, "A.java");
+
+        assertEquals("{\"ok\":true}", body);
+        assertEquals(3, calls.get());
+        ProviderRateLimiter.Snapshot snapshot = RateLimiterRegistry.forProvider("stub-429").snapshot();
+        assertEquals(2, snapshot.throttled());
+        assertEquals(2, snapshot.retries());
+        assertEquals(4, snapshot.concurrencyLimit());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        failFirst = 10;
+        failureStatus = 400;
+        RateLimiterRegistry.configure("stub-400", 0, 0, 8);
+
+        LlmHttpException ex = assertThrows(LlmHttpException.class,
+                () -> LlmHttpExecutor.execute(client, request(), "stub-400", 10, "A.java"));
+        assertEquals(400, ex.getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        failFirst = 10;
+        failureStatus = 503;
+        RateLimiterRegistry.configure("stub-503", 0, 0, 8);
+
+        LlmHttpException ex = assertThrows(LlmHttpException.class,
+                () -> LlmHttpExecutor.execute(client, request(), "stub-503", 10, "A.java"));
+        assertEquals(503, ex.getStatusCode());
+        assertEquals(4, calls.get());
+        assertEquals(4, RateLimiterRegistry.forProvider("stub-503").snapshot().failures());
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndDates() {
+        assertEquals(2000, LlmHttpExecutor.parseRetryAfter("2"));
+        assertEquals(-1, LlmHttpExecutor.parseRetryAfter(null));
+        assertEquals(-1, LlmHttpExecutor.parseRetryAfter("soon"));
+        assertEquals(0, LlmHttpExecutor.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
@@ -0,0 +1,88 @@
+package org.manishsharan.madladlabs.genai.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProviderRateLimiterTest {
+
+    @Test
+    void throttlingHalvesConcurrencyAndSuccessesGrowItBack() throws Exception {
+        ProviderRateLimiter limiter = new ProviderRateLimiter("test", 0, 0, 8);
+        limiter.acquire(0);
+        limiter.release(ProviderRateLimiter.Outcome.THROTTLED, -1);
+        assertEquals(4, limiter.snapshot().concurrencyLimit());
+
+        // A second 429 inside the cooldown window belongs to the same congestion event.
+        limiter.acquire(0);
+        limiter.release(ProviderRateLimiter.Outcome.THROTTLED, -1);
+        assertEquals(4, limiter.snapshot().concurrencyLimit());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(0);
+            limiter.release(ProviderRateLimiter.Outcome.SUCCESS, -1);
+        }
+        ProviderRateLimiter.Snapshot snapshot = limiter.snapshot();
+        assertEquals(5, snapshot.concurrencyLimit());
+        assertEquals(2, snapshot.throttled());
+        assertEquals(6, snapshot.requests());
+        assertEquals(0, snapshot.inFlight());
+    }
+
+    @Test
+    void blocksWhenConcurrencyLimitReached() throws Exception {
+        ProviderRateLimiter limiter = new ProviderRateLimiter("test", 0, 0, 1);
+        limiter.acquire(0);
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire(0);
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(ProviderRateLimiter.Outcome.SUCCESS, -1);
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    @Test
+    void requestBucketDelaysOnceEmpty() throws Exception {
+        // 600 rpm refills one request every 100 ms.
+        ProviderRateLimiter limiter = new ProviderRateLimiter("test", 600, 0, 1000);
+        for (int i = 0; i < 600; i++) {
+            limiter.acquire(0);
+            limiter.release(ProviderRateLimiter.Outcome.SUCCESS, -1);
+        }
+        long start = System.nanoTime();
+        limiter.acquire(0);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 50, "expected to wait for refill, waited " + waitedMillis + "ms");
+    }
+
+    @Test
+    void retryAfterPausesAdmissions() throws Exception {
+        ProviderRateLimiter limiter = new ProviderRateLimiter("test", 0, 0, 4);
+        limiter.acquire(0);
+        limiter.release(ProviderRateLimiter.Outcome.THROTTLED, 200);
+
+        long start = System.nanoTime();
+        limiter.acquire(0);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 150, "expected Retry-After pause, waited " + waitedMillis + "ms");
+    }
+
+    @Test
+    void disabledBucketsReportMinusOne() {
+        ProviderRateLimiter.Snapshot snapshot = new ProviderRateLimiter("test", 0, 0, 2).snapshot();
+        assertEquals(-1, snapshot.availableRequests());
+        assertEquals(-1, snapshot.availableTokens());
+    }
+}
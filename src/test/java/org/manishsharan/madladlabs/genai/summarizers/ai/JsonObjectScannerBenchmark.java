@@ -0,0 +1,138 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking the answer object out of a free-form response: the previous per-'{' brace match plus
+ * {@code readTree} of every candidate, against {@link JsonObjectScanner}. The response mixes prose,
+ * a fenced code sample full of braces, small example objects and the nested answer at the end.
+ *
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main JsonObjectScannerBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JsonObjectScannerBenchmark {
+
+    /** Response length in tokens (about 4 characters each). */
+    @Param({"1000", "8000"})
+    public int tokens;
+
+    private String response;
+
+    @Setup
+    public void setUp() {
+        int chars = tokens * 4;
+        StringBuilder text = new StringBuilder(chars + 1024);
+        int block = 0;
+        while (text.length() < chars - 600) {
+            switch (block++ % 3) {
+                case 0 -> text.append("The template renders the order list and binds {{ order.total }} in the footer. ")
+                        .append("It posts the form to the \"checkout\" action.\n\n");
+                case 1 -> text.append("```java\nclass OrderController {\n    void list(Model m) {\n")
+                        .append("        if (m != null) { m.add(\"orders\", repo.findAll()); }\n")
+                        .append("        for (Order o : orders) { total += o.amount(); }\n    }\n}\n```\n\n");
+                default -> text.append("For example: {\"method\": \"GET\", \"path\": \"/orders/").append(block)
+                        .append("\"} maps to the list view.\n\n");
+            }
+        }
+        text.append("```json\n{\n  \"file\": \"templates/orders.html\",\n")
+                .append("  \"summary\": \"Order list with {{ total }} footer and a checkout form.\",\n")
+                .append("  \"endpoints\": [{\"method\": \"GET\", \"path\": \"/orders\"}, {\"method\": \"POST\", \"path\": \"/checkout\"}],\n")
+                .append("  \"bindings\": {\"model\": {\"orders\": \"List<Order>\", \"total\": \"BigDecimal\"}}\n}\n```\n");
+        response = text.toString();
+    }
+
+    @Benchmark
+    public JsonNode legacyExtractTrailingJsonObject() {
+        return extractTrailingJsonObject(response);
+    }
+
+    @Benchmark
+    public JsonNode scanner() {
+        return JsonObjectScanner.bestObject(response, new String[]{"summary", "file", "endpoints"}, new int[]{2, 2, 1});
+    }
+
+    /** Verbatim copy of the removed DeepSeekSummarizer implementation. */
+    private static JsonNode extractTrailingJsonObject(String assistantContent) {
+        if (assistantContent == null || assistantContent.isBlank()) {
+            return null;
+        }
+        String cleaned = assistantContent.replace("```json", "").replace("```", "").trim();
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode bestParsed = null;
+        int bestScore = -1;
+
+        for (int i = 0; i < cleaned.length(); i++) {
+            if (cleaned.charAt(i) != '{') {
+                continue;
+            }
+            int depth = 0;
+            boolean inString = false;
+            boolean escape = false;
+            for (int j = i; j < cleaned.length(); j++) {
+                char c = cleaned.charAt(j);
+                if (inString) {
+                    if (escape) {
+                        escape = false;
+                    } else if (c == '\\') {
+                        escape = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                if (c == '"') {
+                    inString = true;
+                    continue;
+                }
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                    if (depth == 0) {
+                        String candidate = cleaned.substring(i, j + 1).trim();
+                        try {
+                            JsonNode parsed = mapper.readTree(candidate);
+                            int score = 0;
+                            if (parsed.has("summary")) {
+                                score += 2;
+                            }
+                            if (parsed.has("file")) {
+                                score += 2;
+                            }
+                            if (parsed.has("endpoints")) {
+                                score += 1;
+                            }
+                            if (score > bestScore) {
+                                bestScore = score;
+                                bestParsed = parsed;
+                            }
+                        } catch (IOException ignored) {
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return bestParsed;
+    }
+}
@@ -0,0 +1,66 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonObjectScannerTest {
+
+    @Test
+    void picksBestScoringObjectAmongChatterAndFences() {
+        String answer = """
+                Sure! Here is an example of the "shape" I'll use: {"note": "draft"}.
+                ```json
+                {
+                  "file": "views/orders.html",
+                  "summary": "Lists orders with a {{ total }} footer } and [brackets]",
+                  "endpoints": [{"method": "GET", "path": "/orders"}]
+                }
+                ```
+                Let me know if you need anything else {".
+                """;
+
+        JsonNode node = JsonObjectScanner.bestObject(answer, "file", "summary");
+
+        assertNotNull(node);
+        assertEquals("views/orders.html", node.path("file").asText());
+        assertEquals("/orders", node.path("endpoints").path(0).path("path").asText());
+    }
+
+    @Test
+    void nestedObjectsAreCandidatesAndTiesGoToTheEarliest() {
+        String text = "{\"outer\": {\"file\": \"nested\"}} then {\"file\": \"top\", \"summary\": \"s\"}";
+
+        assertEquals("nested", JsonObjectScanner.bestObject(text, "file").path("file").asText());
+        assertEquals("top", JsonObjectScanner.bestObject(text, "file", "summary").path("file").asText());
+        assertTrue(JsonObjectScanner.bestObject(text, "missing").has("outer"));
+    }
+
+    @Test
+    void weightsAndDuplicateKeysCountOnce() {
+        List<JsonObjectScanner.Span> spans = JsonObjectScanner.spans(
+                "{\"summary\": 1, \"summary\": 2, \"endpoints\": [], \"value\": \"summary\"}",
+                new String[]{"summary", "file", "endpoints"}, new int[]{2, 2, 1});
+
+        assertEquals(1, spans.size());
+        assertEquals(3, spans.get(0).score());
+    }
+
+    @Test
+    void fallsBackWhenTheBestSpanIsNotValidJson() {
+        String text = "{\"file\": \"a\", \"summary\": oops} and later {\"file\": \"b\"}";
+
+        assertEquals("b", JsonObjectScanner.bestObject(text, "file", "summary").path("file").asText());
+    }
+
+    @Test
+    void returnsNullWithoutABalancedObject() {
+        assertNull(JsonObjectScanner.bestObject(null, "file"));
+        assertNull(JsonObjectScanner.bestObject("no json here", "file"));
+        assertNull(JsonObjectScanner.bestObject("{\"file\": \"truncated", "file"));
+        assertNull(JsonObjectScanner.bestObject("{\"a\": [1, 2}", "a"));
+    }
+}
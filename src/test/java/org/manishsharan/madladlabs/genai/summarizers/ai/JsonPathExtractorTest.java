@@ -0,0 +1,70 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonPathExtractorTest {
+
+    private static final String CHAT_COMPLETION = """
+            {
+              "id": "f7e7944d",
+              "choices": [
+                {"index": 0, "message": {"role": "assistant", "content": "```json\\n{\\"module\\": \\"a\\"}\\n```"}},
+                {"index": 1, "message": {"role": "assistant", "content": "second"}}
+              ],
+              "usage": {
+                "prompt_tokens": 729,
+                "completion_tokens": 479,
+                "prompt_tokens_details": {"cached_tokens": 704},
+                "prompt_cache_hit_tokens": null
+              },
+              "system_fingerprint": "fp_3a5770e1b4"
+            }
+            """;
+
+    @Test
+    void extractsFirstArrayMatchAndNestedUsage() throws Exception {
+        JsonPathExtractor extractor = new JsonPathExtractor(
+                "choices.*.message.content",
+                "usage.prompt_tokens",
+                "usage.completion_tokens",
+                "usage.total_tokens",
+                "usage.prompt_cache_hit_tokens",
+                "usage.prompt_tokens_details.cached_tokens");
+
+        Map<String, String> fields = extractor.extract(CHAT_COMPLETION);
+
+        assertEquals("```json\n{\"module\": \"a\"}\n```", fields.get("choices.*.message.content"));
+        assertEquals(729, JsonPathExtractor.intValue(fields, "usage.prompt_tokens", -1));
+        assertEquals(704, JsonPathExtractor.intValue(fields, "usage.prompt_tokens_details.cached_tokens", -1));
+        assertFalse(fields.containsKey("usage.prompt_cache_hit_tokens"), "JSON null is absent");
+        assertEquals(-1, JsonPathExtractor.intValue(fields, "usage.total_tokens", -1));
+    }
+
+    @Test
+    void skipsUnrequestedSubtreesAndNestedArrays() throws Exception {
+        String gemini = """
+                {"candidates": [{"content": {"parts": [{"inlineData": {"text": "not me"}}, {"text": "hello"}]},
+                                 "safetyRatings": [{"text": "ignored"}]}],
+                 "usageMetadata": {"promptTokenCount": 12, "candidatesTokenCount": 3}}
+                """;
+        Map<String, String> fields = new JsonPathExtractor(
+                "candidates.*.content.parts.*.text", "usageMetadata.promptTokenCount").extract(gemini);
+
+        assertEquals(Map.of(
+                "candidates.*.content.parts.*.text", "hello",
+                "usageMetadata.promptTokenCount", "12"), fields);
+    }
+
+    @Test
+    void emptyOrNonObjectInputYieldsNoFields() throws Exception {
+        JsonPathExtractor extractor = new JsonPathExtractor("a.b");
+        assertTrue(extractor.extract(null).isEmpty());
+        assertTrue(extractor.extract("").isEmpty());
+        assertTrue(extractor.extract("[1, 2]").isEmpty());
+        assertTrue(extractor.extract("{\"a\": {\"b\": {\"c\": 1}}}").isEmpty(), "objects are not scalar values");
+    }
+}
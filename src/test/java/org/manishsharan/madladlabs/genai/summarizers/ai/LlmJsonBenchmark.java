@@ -0,0 +1,193 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JSON cost at 8 concurrent callers: the previous path (a new {@link ObjectMapper} per helper,
+ * the chat-completion body parsed once for the payload and again for usage, request built as a tree and
+ * serialized to a string) against the shared mapper, one streaming pass over the response and a request
+ * body generated straight into the sink.
+ *
+ * Run with {@code -prof gc} to compare allocation per call:
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main LlmJsonBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class LlmJsonBenchmark {
+
+    /** Approximate size in characters of the assistant answer and of the user prompt. */
+    @Param({"4096", "65536"})
+    public int size;
+
+    private String response;
+    private String systemMessage;
+    private String userMessage;
+
+    private static final JsonPathExtractor FIELDS = new JsonPathExtractor(
+            "choices.*.message.content", "usage.prompt_tokens", "usage.completion_tokens",
+            "usage.total_tokens", "usage.prompt_cache_hit_tokens");
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectNode answer = LlmJson.MAPPER.createObjectNode();
+        answer.put("module", "com.example.orders");
+        answer.put("language", "java");
+        ArrayNode functions = answer.putArray("functions");
+        int i = 0;
+        while (answer.toString().length() < size) {
+            ObjectNode fn = functions.addObject();
+            fn.put("fqn", "com.example.orders.OrderService.method" + i);
+            fn.put("description", "Validates the order, reserves stock and publishes an OrderPlaced event " + i);
+            ObjectNode edge = fn.putArray("relationships").addObject();
+            edge.put("type", "CALLS");
+            edge.put("source", "com.example.orders.OrderService.method" + i);
+            edge.put("target", "com.example.inventory.StockService.reserve");
+            i++;
+        }
+        ObjectNode root = LlmJson.MAPPER.createObjectNode();
+        root.put("id", "f7e7944d-11c4-4769-ad4c-b461b9dd3d04");
+        root.put("object", "chat.completion");
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", "```json\n" + answer.toPrettyString() + "\n```");
+        choice.put("finish_reason", "stop");
+        ObjectNode usage = root.putObject("usage");
+        usage.put("prompt_tokens", 729).put("completion_tokens", 479).put("total_tokens", 1208)
+                .put("prompt_cache_hit_tokens", 704).put("prompt_cache_miss_tokens", 25);
+        root.put("system_fingerprint", "fp_3a5770e1b4");
+        response = root.toPrettyString();
+
+        systemMessage = "You are an experienced software engineer reviewing code.\n\n" + PromptTemplateForCode.INSTRUCTIONS;
+        StringBuilder source = new StringBuilder(size);
+        int line = 0;
+        while (source.length() < size) {
+            source.append("    public int method").append(line++).append("(int x) { return x * 31 + \"q\".length(); }\n");
+        }
+        userMessage = source.toString();
+    }
+
+    @Benchmark
+    public Object legacyParseResponse() throws Exception {
+        // extractResponsePayloadJsonNode
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode root = mapper.readTree(response);
+        String content = root.path("choices").path(0).path("message").path("content").asText();
+        JsonNode payloadNode = mapper.readTree(content.replace("```json", "").replace("```", "").trim());
+        // AiEnrichmentPayload.fromJson(jsonNode.toString()) plus the functions fallback
+        ObjectMapper payloadMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        AiEnrichmentPayload payload = payloadMapper.readValue(payloadNode.toString(), AiEnrichmentPayload.class);
+        if (payload.getFunctionEnrichments() == null && payloadNode.has("functions")) {
+            List<AiEnrichmentPayload.FunctionEnrichment> fns = new ObjectMapper(mapper.getFactory())
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .readerForListOf(AiEnrichmentPayload.FunctionEnrichment.class)
+                    .readValue(payloadNode.get("functions"));
+            payload.setFunctionEnrichments(fns);
+        }
+        // extractBillableUsage
+        JsonNode usage = new ObjectMapper().readTree(response).path("usage");
+        payload.setBillableUsage(usage(usage.path("prompt_tokens").asInt(0), usage.path("completion_tokens").asInt(0),
+                usage.path("prompt_cache_hit_tokens").asInt(0)));
+        return payload;
+    }
+
+    @Benchmark
+    public Object singlePassParseResponse() throws Exception {
+        Map<String, String> fields = FIELDS.extract(response);
+        String content = fields.get("choices.*.message.content");
+        JsonNode payloadNode = LlmJson.TREE_READER.readTree(content.replace("```json", "").replace("```", "").trim());
+        AiEnrichmentPayload payload = LlmJson.codePayload(payloadNode);
+        payload.setBillableUsage(usage(JsonPathExtractor.intValue(fields, "usage.prompt_tokens", 0),
+                JsonPathExtractor.intValue(fields, "usage.completion_tokens", 0),
+                JsonPathExtractor.intValue(fields, "usage.prompt_cache_hit_tokens", 0)));
+        return payload;
+    }
+
+    @Benchmark
+    public long legacyRequestBody() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode payload = mapper.createObjectNode();
+        payload.put("model", "deepseek-coder");
+        payload.put("stream", false);
+        payload.put("max_tokens", 8192);
+        ArrayNode messages = mapper.createArrayNode();
+        ObjectNode system = mapper.createObjectNode();
+        system.put("role", "system");
+        system.put("content", systemMessage);
+        messages.add(system);
+        ObjectNode user = mapper.createObjectNode();
+        user.put("role", "user");
+        user.put("content", userMessage);
+        messages.add(user);
+        payload.set("messages", messages);
+        String json = mapper.writeValueAsString(payload);
+        return drain(RequestBody.create(json, LlmJson.JSON));
+    }
+
+    @Benchmark
+    public long streamingRequestBody() throws Exception {
+        return drain(new StreamingJsonBody(gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("model", "deepseek-coder");
+            gen.writeBooleanField("stream", false);
+            gen.writeNumberField("max_tokens", 8192);
+            gen.writeArrayFieldStart("messages");
+            gen.writeStartObject();
+            gen.writeStringField("role", "system");
+            gen.writeStringField("content", systemMessage);
+            gen.writeEndObject();
+            gen.writeStartObject();
+            gen.writeStringField("role", "user");
+            gen.writeStringField("content", userMessage);
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }));
+    }
+
+    /** Writes the body the way OkHttp does and releases the segments, as the socket write would. */
+    private static long drain(RequestBody body) throws Exception {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        long size = sink.size();
+        sink.clear();
+        return size;
+    }
+
+    private static AiEnrichmentPayload.BillableUsage usage(int input, int output, int cached) {
+        AiEnrichmentPayload.BillableUsage billable = new AiEnrichmentPayload.BillableUsage();
+        billable.setInputTokens(input);
+        billable.setOutputTokens(output);
+        billable.setCachedTokens(cached);
+        billable.setTotalTokens(input + output);
+        return billable;
+    }
+}
@@ -0,0 +1,54 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromptPartsTest {
+
+    private static final List<String[]> TEMPLATES = List.of(
+            new String[]{PromptTemplateForCode.INSTRUCTIONS, PromptTemplateForCode.FILE_TEMPLATE, PromptTemplateForCode.PROMPT_TEMPLATE},
+            new String[]{PromptTemplateForGUITemplates.INSTRUCTIONS, PromptTemplateForGUITemplates.FILE_TEMPLATE, PromptTemplateForGUITemplates.PROMPT_TEMPLATE},
+            new String[]{PromptTemplateForConfigTemplates.INSTRUCTIONS, PromptTemplateForConfigTemplates.FILE_TEMPLATE, PromptTemplateForConfigTemplates.PROMPT_TEMPLATE},
+            new String[]{PromptTemplateForDocuments.INSTRUCTIONS, PromptTemplateForDocuments.FILE_TEMPLATE, PromptTemplateForDocuments.PROMPT_TEMPLATE},
+            new String[]{PromptTemplateForCodeBatch.INSTRUCTIONS, PromptTemplateForCodeBatch.FILE_TEMPLATE, PromptTemplateForCodeBatch.PROMPT_TEMPLATE},
+            new String[]{PromptTemplateForConfigBatch.INSTRUCTIONS, PromptTemplateForConfigBatch.FILE_TEMPLATE, PromptTemplateForConfigBatch.PROMPT_TEMPLATE});
+
+    private static Map<String, Object> data(String path, String content) {
+        return Map.of(
+                "language", "java",
+                "detectedType", "yaml",
+                "relativeFilePath", path,
+                "sourceFileContent", content,
+                "sourceDocType", "pdf",
+                "sourceDocTitle", "Runbook",
+                "sourceDocTime", "2024-01-01",
+                "sourceFileExtractedContent", content,
+                "files", List.of(Map.of("relativeFilePath", path, "detectedType", "yaml", "sourceFileContent", content)));
+    }
+
+    @Test
+    void instructionsAreStaticPrefixes() throws Exception {
+        for (String[] template : TEMPLATES) {
+            assertFalse(template[0].contains("{{"), "instructions must not contain placeholders:\n" + template[0]);
+            PromptParts a = TemplateRenderer.renderParts(template[0], template[1], data("src/A.java", "class A {}"));
+            PromptParts b = TemplateRenderer.renderParts(template[0], template[1], data("src/B.java", "class B {}"));
+            assertEquals(a.instructions(), b.instructions());
+            assertTrue(a.content().contains("src/A.java"));
+            assertTrue(a.content().contains("class A {}"));
+            assertFalse(a.instructions().contains("class A {}"));
+        }
+    }
+
+    @Test
+    void fullPromptMatchesSingleTemplate() throws Exception {
+        for (String[] template : TEMPLATES) {
+            Map<String, Object> data = data("src/A.java", "class A {}");
+            assertEquals(TemplateRenderer.renderTemplate(template[2], data),
+                    TemplateRenderer.renderParts(template[0], template[1], data).full());
+        }
+    }
+}
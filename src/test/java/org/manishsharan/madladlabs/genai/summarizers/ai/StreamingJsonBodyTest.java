@@ -0,0 +1,47 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingJsonBodyTest {
+
+    @Test
+    void writesSameJsonAsTreeSerializationAndIsRepeatable() throws Exception {
+        String text = "line \"one\"\n\ttab – dash ✓";
+        AtomicInteger writes = new AtomicInteger();
+        StreamingJsonBody body = new StreamingJsonBody(gen -> {
+            writes.incrementAndGet();
+            gen.writeStartObject();
+            gen.writeStringField("model", "m");
+            gen.writeNumberField("max_tokens", 8192);
+            gen.writeArrayFieldStart("messages");
+            gen.writeStartObject();
+            gen.writeStringField("content", text);
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+
+        ObjectNode expected = LlmJson.MAPPER.createObjectNode();
+        expected.put("model", "m");
+        expected.put("max_tokens", 8192);
+        expected.putArray("messages").addObject().put("content", text);
+
+        Buffer first = new Buffer();
+        body.writeTo(first);
+        Buffer second = new Buffer();
+        body.writeTo(second);
+
+        assertEquals(LlmJson.MAPPER.writeValueAsString(expected), first.readUtf8());
+        assertEquals(LlmJson.MAPPER.writeValueAsString(expected), second.readUtf8());
+        assertEquals(LlmJson.MAPPER.writeValueAsString(expected), body.asString());
+        assertEquals(3, writes.get());
+        assertEquals(-1, body.contentLength());
+        assertEquals("application/json; charset=utf-8", body.contentType().toString());
+    }
+}
@@ -0,0 +1,99 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt rendering throughput: the previous path (new factory + compile per call, growing StringWriter)
+ * against the compiled-template registry, rendering to a string and straight into a writer. Uses the
+ * per-file template, which is what providers render per request since the instructions are static.
+ *
+ * Run with {@code -prof gc} to compare allocation per call:
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main TemplateRendererBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TemplateRendererBenchmark {
+
+    /** Source file size in characters: a typical DTO and a large generated file. */
+    @Param({"2048", "1048576"})
+    public int fileChars;
+
+    private Map<String, String> data;
+
+    @Setup
+    public void setUp() {
+        StringBuilder source = new StringBuilder(fileChars);
+        int line = 0;
+        while (source.length() < fileChars) {
+            source.append("    public int method").append(line++).append("(int x) { return x * 31 + \"q\".length(); }\n");
+        }
+        source.setLength(fileChars);
+        data = new HashMap<>();
+        data.put("language", "java");
+        data.put("relativeFilePath", "src/main/java/com/example/Generated.java");
+        data.put("sourceFileContent", source.toString());
+    }
+
+    @Benchmark
+    public String legacyCompilePerCall() throws IOException {
+        MustacheFactory mf = new DefaultMustacheFactory();
+        Mustache mustache = mf.compile(new StringReader(PromptTemplateForCode.FILE_TEMPLATE), "template");
+        StringWriter writer = new StringWriter();
+        mustache.execute(writer, data).flush();
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String compiledToString() throws IOException {
+        return TemplateRenderer.renderTemplate(PromptTemplateForCode.FILE_TEMPLATE, data);
+    }
+
+    @Benchmark
+    public void compiledToWriter(Blackhole bh) throws IOException {
+        TemplateRenderer.renderTo(PromptTemplateForCode.FILE_TEMPLATE, data, new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                bh.consume(len);
+            }
+
+            @Override
+            public void write(String str, int off, int len) {
+                bh.consume(len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package org.manishsharan.madladlabs.genai.summarizers.ai;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateRendererTest {
+
+    @Test
+    void compiledTemplatesAreReused() {
+        assertSame(TemplateRenderer.compiled(PromptTemplateForCode.PROMPT_TEMPLATE),
+                TemplateRenderer.compiled(PromptTemplateForCode.PROMPT_TEMPLATE));
+        assertNotSame(TemplateRenderer.compiled(PromptTemplateForCode.PROMPT_TEMPLATE),
+                TemplateRenderer.compiled(PromptTemplateForConfigTemplates.PROMPT_TEMPLATE));
+    }
+
+    @Test
+    void rendersSameOutputAsPerCallCompile() throws Exception {
+        Map<String, String> data = Map.of(
+                "language", "java",
+                "relativeFilePath", "src/A.java",
+                "sourceFileContent", "class A { String s = \"<&>\"; }");
+        Mustache fresh = new DefaultMustacheFactory()
+                .compile(new StringReader(PromptTemplateForCode.PROMPT_TEMPLATE), "template");
+        StringWriter expected = new StringWriter();
+        fresh.execute(expected, data).flush();
+
+        assertEquals(expected.toString(), TemplateRenderer.renderTemplate(PromptTemplateForCode.PROMPT_TEMPLATE, data));
+        assertEquals(expected.toString(), TemplateRenderer.getRenderedPrompt(data));
+    }
+
+    @Test
+    void expectedLengthCoversNestedValues() {
+        String template = "{{#files}}{{{sourceFileContent}}}{{/files}}";
+        Map<String, Object> data = Map.of("files", List.of(
+                Map.of("sourceFileContent", "x".repeat(100)),
+                Map.of("sourceFileContent", "y".repeat(50))));
+        assertEquals(template.length() + 150, TemplateRenderer.expectedLength(template, data));
+    }
+}
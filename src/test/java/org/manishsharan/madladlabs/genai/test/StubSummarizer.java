@@ -0,0 +1,38 @@
+package org.manishsharan.madladlabs.genai.test;
+
+import org.manishsharan.madladlabs.genai.services.OntologyMethodsSummarizer;
+import org.manishsharan.ontology.model.AiEnrichmentPayload;
+
+import java.io.File;
+
+/**
+ * Summarizer for unit tests: every call is unsupported until a subclass overrides it, so a fake only
+ * implements the pipelines its test exercises.
+ */
+public class StubSummarizer implements OntologyMethodsSummarizer {
+    private final int maxTokens;
+    private final int contextSize;
+
+    public StubSummarizer(int maxTokens, int contextSize) {
+        this.maxTokens = maxTokens;
+        this.contextSize = contextSize;
+    }
+
+    @Override public int getMaxTokens() { return maxTokens; }
+    @Override public int getContextSize() { return contextSize; }
+    @Override public AiEnrichmentPayload summarizeCodeMethods(String r, String l, File f) { throw new UnsupportedOperationException(); }
+    @Override public AiEnrichmentPayload summarizeGuiTemplate(String r, String l, String c) { throw new UnsupportedOperationException(); }
+    @Override public AiEnrichmentPayload summarizeConfigTemplate(String r, String t, String c) { throw new UnsupportedOperationException(); }
+    @Override public AiEnrichmentPayload summarizeDocument(String r, String t, String ti, String d, String c) { throw new UnsupportedOperationException(); }
+
+    /** Usage billed to model "fake", with no cached tokens. */
+    public static AiEnrichmentPayload.BillableUsage usage(int inputTokens, int outputTokens) {
+        AiEnrichmentPayload.BillableUsage usage = new AiEnrichmentPayload.BillableUsage();
+        usage.setModel("fake");
+        usage.setInputTokens(inputTokens);
+        usage.setOutputTokens(outputTokens);
+        usage.setCachedTokens(0);
+        usage.setTotalTokens(inputTokens + outputTokens);
+        return usage;
+    }
+}